@@ -206,9 +206,11 @@ CTX.INPUT['execution'] = """
 
 CTX.INPUT['executors'] = """
  abstractexecutor.cpp
+ bloomfilterexecutor.cpp
  deleteexecutor.cpp
  distinctexecutor.cpp
  executorutil.cpp
+ hashjoinexecutor.cpp
  indexscanexecutor.cpp
  insertexecutor.cpp
  limitexecutor.cpp
@@ -236,8 +238,10 @@ CTX.INPUT['plannodes'] = """
  abstractplannode.cpp
  abstractscannode.cpp
  aggregatenode.cpp
+ bloomfilternode.cpp
  deletenode.cpp
  distinctnode.cpp
+ hashjoinnode.cpp
  indexscannode.cpp
  insertnode.cpp
  limitnode.cpp
@@ -333,6 +337,11 @@ CTX.TESTS['execution'] = """
  engine_test
 """
 
+CTX.TESTS['executors'] = """
+ bloomfilter_test
+ hashjoin_test
+"""
+
 CTX.TESTS['expressions'] = """
  expression_test
 """
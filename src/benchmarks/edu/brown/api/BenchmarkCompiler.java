@@ -65,6 +65,12 @@ public class BenchmarkCompiler {
             } // FOR
         }
         
+        if (m_config.statsPath != null) {
+            m_projectBuilder.addWorkloadStatistics(new File(m_config.statsPath));
+            if (debug.val) LOG.debug(String.format("Using WorkloadStatistics file '%s' in %s",
+                                                     m_config.statsPath, m_projectBuilder.getProjectName()));
+        }
+        
         boolean success = m_projectBuilder.compile(m_jarFileName.getAbsolutePath(),
                                                    m_config.sitesPerHost,
                                                    m_config.hosts.length,
@@ -79,6 +79,7 @@ import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Site;
 import org.voltdb.catalog.Table;
+import org.voltdb.client.BulkLoader;
 import org.voltdb.client.Client;
 import org.voltdb.client.ClientFactory;
 import org.voltdb.client.ClientResponse;
@@ -99,12 +100,13 @@ import edu.brown.hstore.conf.HStoreConf;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.ProfileMeasurement;
-import edu.brown.statistics.Histogram;
+import edu.brown.statistics.LatencyHistogram;
 import edu.brown.statistics.ObjectHistogram;
 import edu.brown.statistics.TableStatistics;
 import edu.brown.statistics.WorkloadStatistics;
 import edu.brown.utils.ArgumentsParser;
 import edu.brown.utils.FileUtil;
+import edu.brown.utils.PartitionEstimator;
 import edu.brown.utils.StringUtil;
 
 /**
@@ -255,6 +257,18 @@ public abstract class BenchmarkComponent {
      * passes
      */
     final double m_txnsPerMillisecond;
+    
+    /**
+     * If true, then the ControlWorker will submit txns on a fixed arrival schedule
+     * and the latencies will be measured from when each txn was supposed to be sent.
+     */
+    final boolean m_openLoop;
+    
+    /**
+     * If true, then the open-loop inter-arrival times are exponentially distributed.
+     * Otherwise they are all the same.
+     */
+    final boolean m_openLoopPoisson;
 
     /**
      * Additional parameters (benchmark specific)
@@ -323,6 +337,7 @@ public abstract class BenchmarkComponent {
     private final boolean m_noUploading;
     private final ReentrantLock m_loaderBlock = new ReentrantLock();
     private final ClientResponse m_dummyResponse = new ClientResponseImpl(-1, -1, -1, Status.OK, HStoreConstants.EMPTY_RESULT, "");
+    private BulkLoader m_bulkLoader = null;
     
     /**
      * Keep track of the number of tuples loaded so that we can generate table statistics
@@ -370,6 +385,8 @@ public abstract class BenchmarkComponent {
         m_isLoader = false;
         m_blocking = false;
         m_txnsPerMillisecond = 0;
+        m_openLoop = false;
+        m_openLoopPoisson = false;
         m_catalogPath = null;
         m_projectName = null;
         m_id = 0;
@@ -434,6 +451,11 @@ public abstract class BenchmarkComponent {
         boolean tableStats = m_hstoreConf.client.tablestats;
         String tableStatsDir = m_hstoreConf.client.tablestats_dir;
         int tickInterval = m_hstoreConf.client.tick_interval;
+        boolean openLoop = m_hstoreConf.client.open_loop;
+        if (openLoop && blocking) {
+            LOG.warn("Disabling the BlockingClient because open-loop txn submission is enabled");
+            blocking = false;
+        }
         
         // default values
         String username = "user";
@@ -580,6 +602,8 @@ public abstract class BenchmarkComponent {
         m_txnRate = (isLoader ? -1 : transactionRate);
         m_txnsPerMillisecond = (isLoader ? -1 : transactionRate / 1000.0);
         m_blocking = blocking;
+        m_openLoop = (isLoader == false && openLoop && transactionRate > 0);
+        m_openLoopPoisson = m_hstoreConf.client.open_loop_arrivals.equalsIgnoreCase("poisson");
         m_tickInterval = tickInterval;
         m_noUploading = noUploading;
         m_noConnections = noConnections || (isLoader && m_noUploading);
@@ -885,6 +909,16 @@ public abstract class BenchmarkComponent {
     @Deprecated
     abstract protected void runLoop() throws IOException;
     
+    /**
+     * Increment the number of txns that the open-loop ControlWorker was
+     * supposed to send but could not because of backpressure.
+     */
+    final void incrementUnsentCounter() {
+        synchronized (m_txnStats.transactions) {
+            m_txnStats.unsentTxns++;
+        } // SYNCH
+    }
+    
     /**
      * Get the display names of the transactions that will be invoked by the
      * derived class. As a side effect this also retrieves the number of
@@ -919,22 +953,24 @@ public abstract class BenchmarkComponent {
             } // SYNCH
 
             // LATENCIES COUNTERS
-            Histogram<Integer> latencies = m_txnStats.latencies.get(txn_idx);
+            LatencyHistogram latencies = m_txnStats.latencies.get(txn_idx);
             if (latencies == null) {
                 synchronized (m_txnStats.latencies) {
                     latencies = m_txnStats.latencies.get(txn_idx);
                     if (latencies == null) {
-                        latencies = new ObjectHistogram<Integer>();
-                        m_txnStats.latencies.put(txn_idx, (ObjectHistogram<Integer>)latencies);
+                        latencies = new LatencyHistogram();
+                        m_txnStats.latencies.put(txn_idx, latencies);
                     }
                 } // SYNCH
             }
-            // Ignore zero latencies... Not sure why this happens...
-            int latency = cresponse.getClusterRoundtrip();
-            if (latency > 0) {
-                synchronized (latencies) {
-                    latencies.put(latency);
-                } // SYNCH
+            // In open-loop mode, the client roundtrip is measured from when
+            // the txn was scheduled to be sent
+            if (m_openLoop) {
+                latencies.record(cresponse.getClientRoundtrip());
+            } else {
+                // Ignore zero latencies... Not sure why this happens...
+                int latency = cresponse.getClusterRoundtrip();
+                if (latency > 0) latencies.record(latency);
             }
             
             // RESPONSE ENTRIES
@@ -984,6 +1020,8 @@ public abstract class BenchmarkComponent {
     /**
      * This method will load a VoltTable into the database for the given tableName.
      * The database will automatically split the tuples and send to the correct partitions
+     * If ${client.partitioned_loader} is enabled, then we split them up ourselves and
+     * load each partition's tuples separately with a BulkLoader.
      * The current thread will block until the the database cluster returns the result.
      * Can be overridden for testing purposes.
      * @param tableName
@@ -1006,25 +1044,30 @@ public abstract class BenchmarkComponent {
             boolean locked = m_hstoreConf.client.blocking_loader;
             if (locked) m_loaderBlock.lock();
             try {
-                int tries = 3;
-                String procName = VoltSystemProcedure.procCallName(LoadMultipartitionTable.class);
-                while (tries-- > 0) {
-                    try {
-                        cr = m_voltClient.callProcedure(procName, tableName, vt);
-                    } catch (ProcCallException ex) {
-                        // If this thing was rejected, then we'll allow us to try again. 
-                        cr = ex.getClientResponse();
-                        if (cr.getStatus() == Status.ABORT_REJECT && tries > 0) {
-                            if (debug.val) 
-                                LOG.warn(String.format("Loading data for %s was rejected. Going to try again\n%s",
-                                         tableName, cr.toString()));
-                            continue;
+                if (m_hstoreConf.client.partitioned_loader) {
+                    cr = this.getBulkLoader().load(tableName, vt);
+                    if (cr == null) cr = m_dummyResponse;
+                } else {
+                    int tries = 3;
+                    String procName = VoltSystemProcedure.procCallName(LoadMultipartitionTable.class);
+                    while (tries-- > 0) {
+                        try {
+                            cr = m_voltClient.callProcedure(procName, tableName, vt);
+                        } catch (ProcCallException ex) {
+                            // If this thing was rejected, then we'll allow us to try again. 
+                            cr = ex.getClientResponse();
+                            if (cr.getStatus() == Status.ABORT_REJECT && tries > 0) {
+                                if (debug.val) 
+                                    LOG.warn(String.format("Loading data for %s was rejected. Going to try again\n%s",
+                                             tableName, cr.toString()));
+                                continue;
+                            }
+                            // Anything else needs to be thrown out of here
+                            throw ex;
                         }
-                        // Anything else needs to be thrown out of here
-                        throw ex;
-                    }
-                    break;
-                } // WHILE
+                        break;
+                    } // WHILE
+                }
             } catch (Throwable ex) {
                 throw new RuntimeException("Error when trying load data for '" + tableName + "'", ex);
             } finally {
@@ -1429,6 +1472,20 @@ public abstract class BenchmarkComponent {
         }
         return (m_catalogContext);
     }
+    /**
+     * Return the BulkLoader that loadVoltTable() uses when ${client.partitioned_loader} is enabled
+     * @return
+     */
+    private synchronized BulkLoader getBulkLoader() {
+        if (m_bulkLoader == null) {
+            CatalogContext catalogContext = this.getCatalogContext();
+            m_bulkLoader = new BulkLoader(m_voltClient, catalogContext,
+                                          new PartitionEstimator(catalogContext),
+                                          m_hstoreConf.client.partitioned_loader_chunk_size,
+                                          m_hstoreConf.client.partitioned_loader_outstanding);
+        }
+        return (m_bulkLoader);
+    }
     public void setCatalogContext(CatalogContext catalogContext) {
         m_catalogContext = catalogContext;
     }
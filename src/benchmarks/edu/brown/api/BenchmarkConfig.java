@@ -103,6 +103,7 @@ public class BenchmarkConfig {
     
     public String evictable[];
     public String deferrable[];
+    public String statsPath;
     
     public boolean dumpDatabase;
     public String dumpDatabaseDir;
@@ -224,6 +225,7 @@ public class BenchmarkConfig {
             boolean markovRecomputeAfterWarmup,
             String evictable[],
             String deferrable[],
+            String statsPath,
             boolean dumpDatabase,
             String dumpDatabaseDir
         ) {
@@ -288,6 +290,7 @@ public class BenchmarkConfig {
         
         this.evictable = evictable;
         this.deferrable = deferrable;
+        this.statsPath = statsPath;
         
         this.dumpDatabase = dumpDatabase;
         this.dumpDatabaseDir = dumpDatabaseDir;
@@ -1047,14 +1047,17 @@ public class BenchmarkController {
         String debugOpts = String.format("[hosts=%d, perhost=%d, txnrate=%s", m_config.clients.length,
                                                                               threadsPerHost,
                                                                               hstore_conf.client.txnrate);
-        if (hstore_conf.client.blocking) {
+        if (hstore_conf.client.open_loop) {
+            debugOpts += ", arrivals=" + hstore_conf.client.open_loop_arrivals;
+        }
+        else if (hstore_conf.client.blocking) {
             debugOpts += ", concurrent=" + hstore_conf.client.blocking_concurrent; 
         }
         debugOpts += "]";
         LOG.info(String.format("Starting %s execution with %d %sclient%s %s",
                  m_projectBuilder.getProjectName().toUpperCase(),
                  m_clientThreads.size(), 
-                 (hstore_conf.client.blocking ? "blocking " : ""),
+                 (hstore_conf.client.open_loop ? "open-loop " : (hstore_conf.client.blocking ? "blocking " : "")),
                  (m_clientThreads.size() > 1 ? "s" : ""),
                  debugOpts));
         if (m_config.statsDatabaseURL != null) {
@@ -1700,6 +1703,9 @@ public class BenchmarkController {
         // Evictable Tables
         String evictable[] = null;
         
+        // WorkloadStatistics for the planner's table estimates
+        String statsPath = null;
+        
         boolean dumpDatabase = false;
         String dumpDatabaseDir = null;
         
@@ -1918,6 +1924,9 @@ public class BenchmarkController {
             } else if (parts[0].equalsIgnoreCase("TRACE")) {
                 workloadTrace = parts[1];
                 siteParams.put(ArgumentsParser.PARAM_WORKLOAD_OUTPUT, parts[1]);
+            /* WorkloadStatistics File */
+            } else if (parts[0].equalsIgnoreCase(ArgumentsParser.PARAM_STATS)) {
+                statsPath = parts[1];
             /* Markov Model File */
             } else if (parts[0].equalsIgnoreCase(ArgumentsParser.PARAM_MARKOV)) {
                 markov_path = parts[1];
@@ -2062,6 +2071,7 @@ public class BenchmarkController {
                 markov_recomputeAfterWarmup,
                 evictable,
                 deferrable,
+                statsPath,
                 dumpDatabase,
                 dumpDatabaseDir
         );
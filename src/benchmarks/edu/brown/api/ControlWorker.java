@@ -1,9 +1,12 @@
 package edu.brown.api;
 
 import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.log4j.Logger;
 import org.voltdb.client.Client;
+import org.voltdb.client.ClientFactory;
 
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
@@ -57,6 +60,9 @@ class ControlWorker extends Thread {
                     cmp.m_sampler.start();
                 }
                 cmp.runLoop();
+            } else if (cmp.m_openLoop) {
+                if (debug.val) LOG.debug(String.format("Running open-loop [m_txnRate=%d, poisson=%s]", cmp.m_txnRate, cmp.m_openLoopPoisson));
+                this.openLoopRunLoop();
             } else {
                 if (debug.val) LOG.debug(String.format("Running rate controlled [m_txnRate=%d, m_txnsPerMillisecond=%f]", cmp.m_txnRate, cmp.m_txnsPerMillisecond));
                 this.rateControlledRunLoop();
@@ -145,6 +151,66 @@ class ControlWorker extends Thread {
         } // WHILE
     }
  
+    /**
+     * Submit txns on a fixed arrival schedule without waiting for backpressure
+     * to go away. Each txn is stamped with the time that it was supposed to be
+     * sent so that its latency includes any time that it spent waiting behind
+     * a stalled cluster or client. Txns that cannot be queued are counted as unsent.
+     */
+    private void openLoopRunLoop() throws InterruptedException {
+        final Random rand = new Random();
+        final double interval = 1000000000d / cmp.m_txnRate; // nanoseconds
+        
+        boolean hadErrors = false;
+        long startNanos = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        double nextArrival = 0;
+        while (true) {
+            // Check whether we are currently being paused
+            // We don't want to count the time that we were paused against
+            // the txns that were scheduled for it, so we start a new schedule
+            if (cmp.m_controlState == ControlState.PAUSED) {
+                if (debug.val) LOG.debug("Pausing until control lock is released");
+                cmp.m_pauseLock.acquire();
+                if (debug.val) LOG.debug("Control lock is released! Resuming execution! Tiger style!");
+                startNanos = System.nanoTime();
+                startMillis = System.currentTimeMillis();
+                nextArrival = 0;
+            }
+            assert(cmp.m_controlState != ControlState.PAUSED) : "Unexpected " + cmp.m_controlState;
+            
+            // Wait until the next txn is supposed to go out. If we're
+            // behind schedule, then we'll send it right away.
+            long wait = (startNanos + (long)nextArrival) - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            
+            ClientFactory.setInvocationStartTime(startMillis + (long)(nextArrival / 1000000d));
+            if (this.profiling) execute_time.start();
+            try {
+                if (cmp.runOnce() == false) {
+                    cmp.incrementUnsentCounter();
+                }
+            } catch (final IOException e) {
+                if (hadErrors) return;
+                hadErrors = true;
+                LOG.error("Failed to execute transaction: " + e.getMessage(), e);
+                ThreadUtil.sleep(5000);
+            } finally {
+                ClientFactory.setInvocationStartTime(-1);
+                if (this.profiling) execute_time.stop();
+            }
+            
+            if (cmp.m_openLoopPoisson) {
+                nextArrival += -Math.log(1.0 - rand.nextDouble()) * interval;
+            } else {
+                nextArrival += interval;
+            }
+        } // WHILE
+    }
+ 
     public void enableProfiling(boolean val) {
         this.profiling = val;
     }
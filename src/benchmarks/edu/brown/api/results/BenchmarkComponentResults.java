@@ -14,7 +14,7 @@ import org.voltdb.catalog.Database;
 
 import edu.brown.hstore.Hstoreservice.Status;
 import edu.brown.statistics.FastIntHistogram;
-import edu.brown.statistics.ObjectHistogram;
+import edu.brown.statistics.LatencyHistogram;
 import edu.brown.utils.JSONSerializable;
 import edu.brown.utils.JSONUtil;
 
@@ -39,10 +39,17 @@ public class BenchmarkComponentResults implements JSONSerializable {
      */
     public FastIntHistogram dtxns = new FastIntHistogram(true);
     
+    /**
+     * The number of txns that an open-loop client was scheduled to send
+     * but could not queue because of backpressure
+     */
+    public long unsentTxns = 0;
+    
     /**
      * Transaction Name Index -> Latencies
+     * These can be updated without locking them. 
      */
-    public final Map<Integer, ObjectHistogram<Integer>> latencies = new HashMap<Integer, ObjectHistogram<Integer>>();
+    public final Map<Integer, LatencyHistogram> latencies = new HashMap<Integer, LatencyHistogram>();
     
     public FastIntHistogram basePartitions = new FastIntHistogram(true);
     private boolean enableBasePartitions = false;
@@ -72,13 +79,11 @@ public class BenchmarkComponentResults implements JSONSerializable {
         copy.dtxns.setDebugLabels(this.transactions.getDebugLabels());
         copy.dtxns.put(this.dtxns);
         
+        copy.unsentTxns = this.unsentTxns;
+        
         copy.latencies.clear();
-        for (Entry<Integer, ObjectHistogram<Integer>> e : this.latencies.entrySet()) {
-            ObjectHistogram<Integer> h = new ObjectHistogram<Integer>();
-            synchronized (e.getValue()) {
-                h.put(e.getValue());
-            } // SYNCH
-            copy.latencies.put(e.getKey(), h);
+        for (Entry<Integer, LatencyHistogram> e : this.latencies.entrySet()) {
+            copy.latencies.put(e.getKey(), new LatencyHistogram(e.getValue()));
         } // FOR
         
         copy.enableBasePartitions = this.enableBasePartitions;
@@ -109,6 +114,7 @@ public class BenchmarkComponentResults implements JSONSerializable {
             this.transactions.clearValues();
             this.specexecs.clearValues();
             this.dtxns.clearValues();
+            this.unsentTxns = 0;
         }
         this.latencies.clear();
         this.basePartitions.clearValues();
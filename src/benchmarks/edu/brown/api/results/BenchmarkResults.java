@@ -34,6 +34,7 @@ import edu.brown.hstore.Hstoreservice.Status;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.statistics.Histogram;
+import edu.brown.statistics.LatencyHistogram;
 import edu.brown.statistics.ObjectHistogram;
 import edu.brown.utils.CollectionUtil;
 import edu.brown.utils.StringUtil;
@@ -68,7 +69,7 @@ public class BenchmarkResults {
         public final long transactionCount;
         public final long specexecCount;
         public final long dtxnCount;
-        public final ObjectHistogram<Integer> latencies = new ObjectHistogram<Integer>();
+        public final LatencyHistogram latencies = new LatencyHistogram();
         
         @Override
         public String toString() {
@@ -96,6 +97,11 @@ public class BenchmarkResults {
     private int completedIntervals = 0;
     private final ObjectHistogram<String> clientResultCount = new ObjectHistogram<String>();
     
+    /**
+     * ClientName -> Number of open-loop txns that could not be sent
+     */
+    private final Map<String, Long> m_unsentTxns = new TreeMap<String, Long>();
+    
     // cached data for performance and consistency
     // TxnName -> FastIntHistogram Offset
     private final SortedMap<String, Integer> m_transactionNames = new TreeMap<String, Integer>();
@@ -190,48 +196,61 @@ public class BenchmarkResults {
     public Histogram<String> getResponseStatuses() {
         return (responseStatuses);
     }
+    
+    /**
+     * Return the total number of txns that the open-loop clients were
+     * supposed to send but could not
+     * @return
+     */
+    public synchronized long getUnsentTxnCount() {
+        long total = 0;
+        for (Long cnt : m_unsentTxns.values()) {
+            total += cnt.longValue();
+        } // FOR
+        return (total);
+    }
 
-    public Histogram<Integer> getAllLatencies() {
-        ObjectHistogram<Integer> latencies = new ObjectHistogram<Integer>();
+    public LatencyHistogram getAllLatencies() {
+        LatencyHistogram latencies = new LatencyHistogram();
         for (SortedMap<String, List<Result>> clientResults : m_data.values()) {
             for (List<Result> txnResults : clientResults.values()) {
                 for (Result r : txnResults) {
-                    latencies.put(r.latencies);
+                    latencies.merge(r.latencies);
                 } // FOR
             } // FOR
         } // FOR
         return (latencies);
     }
     
-    public Histogram<Integer> getLastLatencies() {
-        Histogram<Integer> latencies = new ObjectHistogram<Integer>();
+    public LatencyHistogram getLastLatencies() {
+        LatencyHistogram latencies = new LatencyHistogram();
         for (SortedMap<String, List<Result>> clientResults : m_data.values()) {
             for (List<Result> txnResults : clientResults.values()) {
                 Result r = CollectionUtil.last(txnResults);
-                if (r != null) latencies.put(r.latencies);
+                if (r != null) latencies.merge(r.latencies);
             } // FOR
         } // FOR
         return (latencies);
     }
     
-    public Histogram<Integer> getLatenciesForClient(String clientName) {
-        Histogram<Integer> latencies = new ObjectHistogram<Integer>();
+    public LatencyHistogram getLatenciesForClient(String clientName) {
+        LatencyHistogram latencies = new LatencyHistogram();
         SortedMap<String, List<Result>> clientResults = m_data.get(clientName);
         if (clientResults == null) return (latencies);
         for (List<Result> results : clientResults.values()) {
             for (Result r : results) {
-                latencies.put(r.latencies);
+                latencies.merge(r.latencies);
             } // FOR
         } // FOR
         return (latencies);
     }
     
-    public Histogram<Integer> getLatenciesForTransaction(String txnName) {
-        Histogram<Integer> latencies = new ObjectHistogram<Integer>();
+    public LatencyHistogram getLatenciesForTransaction(String txnName) {
+        LatencyHistogram latencies = new LatencyHistogram();
         for (SortedMap<String, List<Result>> clientResults : m_data.values()) {
             if (clientResults.containsKey(txnName) == false) continue;
             for (Result r : clientResults.get(txnName)) {
-                latencies.put(r.latencies);
+                latencies.merge(r.latencies);
             } // FOR
         } // FOR
         return (latencies);
@@ -362,6 +381,9 @@ public class BenchmarkResults {
                 }
             }
             
+            // The unsent txn counter is cumulative for each client
+            m_unsentTxns.put(clientName, cmpResults.unsentTxns);
+            
             // ensure there is an entry for the client
             SortedMap<String, List<Result>> txnResults = m_data.get(clientName);
             if (txnResults == null) {
@@ -383,13 +405,8 @@ public class BenchmarkResults {
                                       cmpResults.specexecs.get(offset.intValue(), 0),
                                       cmpResults.dtxns.get(offset.intValue(), 0));
                 if (cmpResults.latencies != null) {
-                    Histogram<Integer> latencies = cmpResults.latencies.get(offset);
-                    if (latencies != null) {
-                        synchronized (latencies) {
-                            r.latencies.put(latencies);
-                        } // SYNCH
-                    }
-                    
+                    LatencyHistogram latencies = cmpResults.latencies.get(offset);
+                    if (latencies != null) r.latencies.merge(latencies);
                 }
                 results.add(r);
             } // FOR
@@ -417,6 +434,7 @@ public class BenchmarkResults {
         clone.m_transactionNames.putAll(m_transactionNames);
         clone.completedIntervals = this.completedIntervals;
         clone.clientResultCount.put(this.clientResultCount);
+        clone.m_unsentTxns.putAll(m_unsentTxns);
 
         for (Entry<String, SortedMap<String, List<Result>>> entry : m_data.entrySet()) {
             SortedMap<String, List<Result>> txnsForClient = new TreeMap<String, List<Result>>();
@@ -14,6 +14,7 @@ import org.voltdb.utils.Pair;
 import org.voltdb.utils.VoltTableUtil;
 
 import edu.brown.api.BenchmarkInterest;
+import edu.brown.statistics.LatencyHistogram;
 
 public class CSVResultsPrinter implements BenchmarkInterest {
 
@@ -22,9 +23,13 @@ public class CSVResultsPrinter implements BenchmarkInterest {
         new ColumnInfo("TRANSACTIONS", VoltType.BIGINT),
         new ColumnInfo("THROUGHPUT", VoltType.FLOAT),
         new ColumnInfo("LATENCY", VoltType.FLOAT),
+        new ColumnInfo("LATENCY_P50", VoltType.BIGINT),
+        new ColumnInfo("LATENCY_P99", VoltType.BIGINT),
+        new ColumnInfo("LATENCY_P999", VoltType.BIGINT),
         new ColumnInfo("EVICTING", VoltType.INTEGER),
         new ColumnInfo("CREATED", VoltType.BIGINT),
     };
+    private static final int EVICTING_COLUMN = 7;
 
     private final List<Object[]> results = new ArrayList<Object[]>(); 
     private final File outputPath;
@@ -74,12 +79,16 @@ public class CSVResultsPrinter implements BenchmarkInterest {
         long txnDelta = p.getSecond();
         double tps = txnDelta / (double)(br.getIntervalDuration()) * 1000.0;
         boolean new_eviction = this.evicting.compareAndSet(true, false);
+        LatencyHistogram latencies = br.getLastLatencies();
         
         Object row[] = {
             time,
             txnDelta,
             tps,
-            0,
+            latencies.getMean(),
+            latencies.getValueAtPercentile(50),
+            latencies.getValueAtPercentile(99),
+            latencies.getValueAtPercentile(99.9),
             0,
             Long.valueOf(System.currentTimeMillis())
         };
@@ -98,7 +107,7 @@ public class CSVResultsPrinter implements BenchmarkInterest {
     }
     
     private void updateLastEviction(Object row[]) {
-        row[4] = this.last_eviction_stop - this.last_eviction_start;
+        row[EVICTING_COLUMN] = this.last_eviction_stop - this.last_eviction_start;
         this.last_eviction_start = -1;
         this.last_eviction_stop = -1;
     }
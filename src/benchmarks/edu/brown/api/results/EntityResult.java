@@ -8,8 +8,7 @@ import org.json.JSONObject;
 import org.json.JSONStringer;
 import org.voltdb.catalog.Database;
 
-import edu.brown.statistics.Histogram;
-import edu.brown.statistics.HistogramUtil;
+import edu.brown.statistics.LatencyHistogram;
 import edu.brown.utils.JSONSerializable;
 import edu.brown.utils.JSONUtil;
 
@@ -23,8 +22,11 @@ public class EntityResult implements JSONSerializable {
     public double txnStdDevLatency = 0d;
     public double txnMinLatency = 0d;
     public double txnMaxLatency = 0d;
+    public double txnP50Latency = 0d;
+    public double txnP99Latency = 0d;
+    public double txnP999Latency = 0d;
     
-    public EntityResult(long totalTxnCount, long duration, long txnCount, Histogram<Integer> latencies) {
+    public EntityResult(long totalTxnCount, long duration, long txnCount, LatencyHistogram latencies) {
         this.txnCount = txnCount;
         if (totalTxnCount == 0) {
             this.txnPercentage = 0;
@@ -34,19 +36,22 @@ public class EntityResult implements JSONSerializable {
             this.txnStdDevLatency = 0;
             this.txnMinLatency = 0;
             this.txnMaxLatency = 0;
+            this.txnP50Latency = 0;
+            this.txnP99Latency = 0;
+            this.txnP999Latency = 0;
         } else {
             this.txnPercentage = (txnCount / (double)totalTxnCount) * 100;
             this.txnPerMilli = txnCount / (double)duration * 1000.0;
             this.txnPerSecond = txnCount / (double)duration * 1000.0 * 60.0;
             
-            if (latencies.getMinValue() != null)
-                this.txnMinLatency = latencies.getMinValue().doubleValue();
-            if (latencies.getMaxValue() != null)
-                this.txnMaxLatency = latencies.getMaxValue().doubleValue();
-            
             if (latencies.isEmpty() == false) {
-                this.txnAvgLatency = HistogramUtil.sum(latencies) / (double)latencies.getSampleCount();
-                this.txnStdDevLatency = HistogramUtil.stdev(latencies);
+                this.txnMinLatency = latencies.getMin();
+                this.txnMaxLatency = latencies.getMax();
+                this.txnAvgLatency = latencies.getMean();
+                this.txnStdDevLatency = latencies.getStandardDeviation();
+                this.txnP50Latency = latencies.getValueAtPercentile(50);
+                this.txnP99Latency = latencies.getValueAtPercentile(99);
+                this.txnP999Latency = latencies.getValueAtPercentile(99.9);
             }
         }
     }
@@ -75,6 +80,15 @@ public class EntityResult implements JSONSerializable {
     public double getTxnMaxLatency() {
         return this.txnMaxLatency;
     }
+    public double getTxnP50Latency() {
+        return this.txnP50Latency;
+    }
+    public double getTxnP99Latency() {
+        return this.txnP99Latency;
+    }
+    public double getTxnP999Latency() {
+        return this.txnP999Latency;
+    }
 
     // ----------------------------------------------------------------------------
     // SERIALIZATION METHODS
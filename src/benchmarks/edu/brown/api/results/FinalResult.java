@@ -16,8 +16,7 @@ import org.voltdb.catalog.Database;
 import edu.brown.api.results.BenchmarkResults.Result;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
-import edu.brown.statistics.Histogram;
-import edu.brown.statistics.HistogramUtil;
+import edu.brown.statistics.LatencyHistogram;
 import edu.brown.statistics.ObjectHistogram;
 import edu.brown.utils.JSONSerializable;
 import edu.brown.utils.JSONUtil;
@@ -35,6 +34,7 @@ public class FinalResult implements JSONSerializable {
     public long txnTotalCount;
     public long specexecTotalCount;
     public long dtxnTotalCount;
+    public long txnUnsentCount;
     public double txnTotalPerSecond;
     public long txnMinCount;
     public double txnMinPerSecond;
@@ -46,6 +46,9 @@ public class FinalResult implements JSONSerializable {
     public double totalStdDevLatency;
     public double totalMinLatency;
     public double totalMaxLatency;
+    public double totalP50Latency;
+    public double totalP99Latency;
+    public double totalP999Latency;
     
     /** TransactionName -> Results */
     public final Map<String, EntityResult> txnResults = new HashMap<String, EntityResult>();
@@ -99,6 +102,7 @@ public class FinalResult implements JSONSerializable {
             } // FOR
         } // FOR
         this.txnTotalPerSecond = this.txnTotalCount / (double)this.duration * 1000.0;
+        this.txnUnsentCount = results.getUnsentTxnCount();
         
         // Min/Max Transactions Per Second
         for (int i = 0; i < results.getCompletedIntervalCount(); i++) {
@@ -119,23 +123,26 @@ public class FinalResult implements JSONSerializable {
         this.txnMaxPerSecond = this.txnMaxCount / interval;
         
         // TRANSACTION RESULTS
-        Histogram<Integer> latencies = new ObjectHistogram<Integer>();
+        LatencyHistogram latencies = new LatencyHistogram();
         for (String txnName : txnCounts.values()) {
-            Histogram<Integer> l = results.getLatenciesForTransaction(txnName);
+            LatencyHistogram l = results.getLatenciesForTransaction(txnName);
             EntityResult er = new EntityResult(this.txnTotalCount, this.duration, txnCounts.get(txnName), l);
             this.txnResults.put(txnName, er);
-            latencies.put(l);
+            latencies.merge(l);
         } // FOR
         if (latencies.isEmpty() == false) {
-            this.totalMinLatency = latencies.getMinValue().doubleValue();
-            this.totalMaxLatency = latencies.getMaxValue().doubleValue();
-            this.totalAvgLatency = HistogramUtil.sum(latencies) / (double)latencies.getSampleCount();
-            this.totalStdDevLatency = HistogramUtil.stdev(latencies);
+            this.totalMinLatency = latencies.getMin();
+            this.totalMaxLatency = latencies.getMax();
+            this.totalAvgLatency = latencies.getMean();
+            this.totalStdDevLatency = latencies.getStandardDeviation();
+            this.totalP50Latency = latencies.getValueAtPercentile(50);
+            this.totalP99Latency = latencies.getValueAtPercentile(99);
+            this.totalP999Latency = latencies.getValueAtPercentile(99.9);
         }
         
         // CLIENTS RESULTS
         for (String clientName : results.getClientNames()) {
-            Histogram<Integer> l = results.getLatenciesForClient(clientName);
+            LatencyHistogram l = results.getLatenciesForClient(clientName);
             EntityResult er = new EntityResult(this.txnTotalCount, this.duration, clientTxnCounts.get(clientName), l);
             this.clientResults.put(clientName.replace("client-", ""), er);
         } // FOR
@@ -153,6 +160,9 @@ public class FinalResult implements JSONSerializable {
     public long getTotalDtxnCount() {
         return this.dtxnTotalCount;
     }
+    public long getTotalUnsentTxnCount() {
+        return this.txnUnsentCount;
+    }
     public double getTotalTxnPerSecond() {
         return this.txnTotalPerSecond;
     }
@@ -187,6 +197,15 @@ public class FinalResult implements JSONSerializable {
     public double getTotalMaxLatency() {
         return this.totalMaxLatency;
     }
+    public double getTotalP50Latency() {
+        return this.totalP50Latency;
+    }
+    public double getTotalP99Latency() {
+        return this.totalP99Latency;
+    }
+    public double getTotalP999Latency() {
+        return this.totalP999Latency;
+    }
 
     public EntityResult getTransactionResult(String txnName) {
         return this.txnResults.get(txnName);
@@ -34,7 +34,7 @@ import org.voltdb.utils.Pair;
 import edu.brown.api.BenchmarkInterest;
 import edu.brown.hstore.conf.HStoreConf;
 import edu.brown.statistics.Histogram;
-import edu.brown.statistics.HistogramUtil;
+import edu.brown.statistics.LatencyHistogram;
 import edu.brown.utils.StringUtil;
 import edu.brown.utils.TableUtil;
 
@@ -59,6 +59,7 @@ public class ResultsPrinter implements BenchmarkInterest {
         "(%5.1f%%)",
         "%8.2f txn/s",
         "%8s ms latency",
+        "%8s ms p99",
     };
     
     private static final String RESULT_FORMAT = "%.2f";
@@ -112,6 +113,12 @@ public class ResultsPrinter implements BenchmarkInterest {
              .append(String.format("max:" + RESULT_FORMAT, fr.getTotalMaxLatency()))
              .append(" / ")
              .append(String.format("stdev:" + RESULT_FORMAT, fr.getTotalStdDevLatency()))
+             .append(" / ")
+             .append(String.format("p50:" + RESULT_FORMAT, fr.getTotalP50Latency()))
+             .append(" / ")
+             .append(String.format("p99:" + RESULT_FORMAT, fr.getTotalP99Latency()))
+             .append(" / ")
+             .append(String.format("p99.9:" + RESULT_FORMAT, fr.getTotalP999Latency()))
              .append("]");
         
         String txnInfo = String.format("Total:%d / Distributed:%d (%.1f%%) / SpecExec:%d (%.1f%%)",
@@ -120,6 +127,9 @@ public class ResultsPrinter implements BenchmarkInterest {
                                         (fr.getTotalDtxnCount() / (double)fr.getTotalTxnCount())*100,
                                         fr.getTotalSpecExecCount(),
                                         (fr.getTotalSpecExecCount() / (double)fr.getTotalTxnCount())*100);
+        if (fr.getTotalUnsentTxnCount() > 0) {
+            txnInfo += String.format(" / Unsent:%d", fr.getTotalUnsentTxnCount());
+        }
         
         
         Map<String, Object> m = new LinkedHashMap<String, Object>();
@@ -157,11 +167,16 @@ public class ResultsPrinter implements BenchmarkInterest {
             
             // AVG LATENCY
             String txnAvgLatency = "-";
+            String txnP99Latency = "-";
             if (er.getTxnCount() > 0) {
                 txnAvgLatency = String.format(RESULT_FORMAT, er.getTxnAvgLatency());
+                txnP99Latency = String.format(RESULT_FORMAT, er.getTxnP99Latency());
             }
             rows[row_idx][col_idx++] = String.format(COL_FORMATS[col_idx-1], txnAvgLatency);
             
+            // P99 LATENCY
+            rows[row_idx][col_idx++] = String.format(COL_FORMATS[col_idx-1], txnP99Latency);
+            
             row_idx++;
         } // FOR
 
@@ -184,6 +199,7 @@ public class ResultsPrinter implements BenchmarkInterest {
                 rows[row_idx][col_idx++] = String.format(COL_FORMATS[col_idx-1], er.getTxnPercentage());
                 rows[row_idx][col_idx++] = String.format(COL_FORMATS[col_idx-1], er.getTxnPerMilli());
                 rows[row_idx][col_idx++] = String.format(COL_FORMATS[col_idx-1], er.getTxnPerSecond());
+                rows[row_idx][col_idx++] = String.format(COL_FORMATS[col_idx-1], String.format(RESULT_FORMAT, er.getTxnP99Latency()));
                 row_idx++;
             } // FOR
         }
@@ -233,12 +249,12 @@ public class ResultsPrinter implements BenchmarkInterest {
         long txnDelta = p.getSecond();
         
         // INTERVAL LATENCY
-        Histogram<Integer> lastLatencies = results.getLastLatencies();
-        double intervalLatency = HistogramUtil.sum(lastLatencies) / (double)lastLatencies.getSampleCount();
+        LatencyHistogram lastLatencies = results.getLastLatencies();
+        double intervalLatency = lastLatencies.getMean();
         
         // TOTAL LATENCY
-        Histogram<Integer> allLatencies = results.getAllLatencies();        
-        double totalLatency = HistogramUtil.sum(allLatencies) / (double)allLatencies.getSampleCount();
+        LatencyHistogram allLatencies = results.getAllLatencies();        
+        double totalLatency = allLatencies.getMean();
 
         int pollIndex = results.getCompletedIntervalCount();
         long duration = results.getTotalDuration();
@@ -255,6 +271,7 @@ public class ResultsPrinter implements BenchmarkInterest {
         sb.append(String.format("Completed %d txns at a rate of " + RESULT_FORMAT + " txns/s",
                                 txnDelta, txnDelta / (double)(results.getIntervalDuration()) * 1000d));
         sb.append(String.format(" with " + RESULT_FORMAT + " ms avg latency", intervalLatency));
+        sb.append(String.format(" (p99: %d ms)", lastLatencies.getValueAtPercentile(99)));
         
         sb.append("\n" + SPACER);
         sb.append("Since the benchmark began:");
@@ -262,6 +279,7 @@ public class ResultsPrinter implements BenchmarkInterest {
         sb.append(String.format("Completed %d txns at a rate of " + RESULT_FORMAT + " txns/s",
                                 totalTxnCount, totalTxnCount / (double)(pollIndex * results.getIntervalDuration()) * 1000d));
         sb.append(String.format(" with " + RESULT_FORMAT + " ms avg latency", totalLatency));
+        sb.append(String.format(" (p99: %d ms)", allLatencies.getValueAtPercentile(99)));
         
         System.out.println();
         if (LOG.isDebugEnabled()) LOG.debug("Printing result information for poll index " + pollIndex);
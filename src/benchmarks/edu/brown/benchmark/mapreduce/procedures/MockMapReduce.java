@@ -47,6 +47,15 @@ public class MockMapReduce extends VoltMapReduceProcedure<String> {
         this.mapEmit(key, new_row); // mapOutputTable
     }
     
+    @Override
+    public void combine(String key, Iterator<VoltTableRow> rows) {
+        long count = 0;
+        for (VoltTableRow r : CollectionUtil.iterable(rows)) {
+            count += r.getLong(1);
+        } // FOR
+        this.combineEmit(new Object[]{ key, count });
+    }
+    
     @Override
     public void reduce(String key, Iterator<VoltTableRow> rows) {
         long count = 0;
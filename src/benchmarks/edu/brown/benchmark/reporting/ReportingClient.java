@@ -0,0 +1,133 @@
+package edu.brown.benchmark.reporting;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+
+import edu.brown.api.BenchmarkComponent;
+import edu.brown.rand.RandomDistribution.FlatHistogram;
+import edu.brown.statistics.ObjectHistogram;
+
+public class ReportingClient extends BenchmarkComponent {
+
+    public static enum Transaction {
+        GET_STORE_SALES("Get Store Sales", ReportingConstants.FREQUENCY_GET_STORE_SALES),
+        GET_STORE_TARGETS("Get Store Targets", ReportingConstants.FREQUENCY_GET_STORE_TARGETS),
+        GET_CATEGORY_SALES("Get Category Sales", ReportingConstants.FREQUENCY_GET_CATEGORY_SALES),
+        GET_REGION_SALES("Get Region Sales", ReportingConstants.FREQUENCY_GET_REGION_SALES),
+        GET_REGION_TARGETS("Get Region Targets", ReportingConstants.FREQUENCY_GET_REGION_TARGETS);
+
+        private Transaction(String displayName, int weight) {
+            this.displayName = displayName;
+            this.callName = displayName.replace(" ", "");
+            this.weight = weight;
+        }
+
+        public final String displayName;
+        public final String callName;
+        public final int weight; // probability (in terms of percentage) the transaction gets executed
+    } // TRANSCTION ENUM
+
+    private final Random rand = new Random();
+    private final FlatHistogram<Transaction> txnWeights;
+    private final Callback callbacks[];
+    private final int numStores;
+
+    public static void main(String args[]) {
+        BenchmarkComponent.main(ReportingClient.class, args, false);
+    }
+
+    public ReportingClient(String args[]) {
+        super(args);
+        this.numStores = ReportingUtil.getScaledNumStores(this.getScaleFactor());
+
+        // Initialize the sampling table
+        ObjectHistogram<Transaction> txns = new ObjectHistogram<Transaction>();
+        for (Transaction t : Transaction.values()) {
+            Integer weight = this.getTransactionWeight(t.callName);
+            if (weight == null) weight = t.weight;
+            txns.put(t, weight);
+        } // FOR
+        assert(txns.getSampleCount() == 100) : txns;
+        this.txnWeights = new FlatHistogram<Transaction>(this.rand, txns);
+
+        this.callbacks = new Callback[Transaction.values().length];
+        for (Transaction t : Transaction.values()) {
+            this.callbacks[t.ordinal()] = new Callback(t.ordinal());
+        } // FOR
+    }
+
+    @Override
+    public void runLoop() {
+        try {
+            Client client = this.getClientHandle();
+            while (true) {
+                this.runOnce();
+                client.backpressureBarrier();
+            } // WHILE
+        } catch (InterruptedException ex) {
+            // Shutting down...
+        } catch (IOException ex) {
+            // At shutdown an IOException is thrown for every connection to
+            // the DB that is lost. Ignore the exception here in order to not
+            // get spammed, but will miss lost connections at runtime
+        }
+    }
+
+    @Override
+    protected boolean runOnce() throws IOException {
+        Transaction target = this.txnWeights.nextValue();
+        Object params[] = null;
+        switch (target) {
+            case GET_STORE_SALES: {
+                params = new Object[]{ this.rand.nextInt(this.numStores) };
+                break;
+            }
+            case GET_STORE_TARGETS: {
+                int s_id = this.rand.nextInt(this.numStores);
+                params = new Object[]{ s_id, ReportingUtil.getStoreRegion(s_id) };
+                break;
+            }
+            case GET_CATEGORY_SALES: {
+                params = new Object[]{ this.rand.nextInt(ReportingConstants.NUM_CATEGORIES) };
+                break;
+            }
+            case GET_REGION_SALES:
+            case GET_REGION_TARGETS: {
+                params = new Object[]{ this.rand.nextInt(ReportingConstants.NUM_REGIONS) };
+                break;
+            }
+            default:
+                throw new RuntimeException("Unexpected txn '" + target + "'");
+        } // SWITCH
+        return (this.getClientHandle().callProcedure(this.callbacks[target.ordinal()], target.callName, params));
+    }
+
+    private class Callback implements ProcedureCallback {
+        private final int idx;
+
+        public Callback(int idx) {
+            this.idx = idx;
+        }
+
+        @Override
+        public void clientCallback(ClientResponse clientResponse) {
+            // Increment the BenchmarkComponent's internal counter on the
+            // number of transactions that have been completed
+            incrementTransactionCounter(clientResponse, this.idx);
+        }
+    } // END CLASS
+
+    @Override
+    public String[] getTransactionDisplayNames() {
+        // Return an array of transaction names
+        String procNames[] = new String[Transaction.values().length];
+        for (int i = 0; i < procNames.length; i++) {
+            procNames[i] = Transaction.values()[i].displayName;
+        }
+        return (procNames);
+    }
+}
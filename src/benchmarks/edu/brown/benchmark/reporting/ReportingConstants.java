@@ -0,0 +1,30 @@
+package edu.brown.benchmark.reporting;
+
+public abstract class ReportingConstants {
+
+    public static final String TABLENAME_REGION          = "REGION";
+    public static final String TABLENAME_STORE           = "STORE";
+    public static final String TABLENAME_PRODUCT         = "PRODUCT";
+    public static final String TABLENAME_CATEGORY_TARGET = "CATEGORY_TARGET";
+    public static final String TABLENAME_SALE            = "SALE";
+
+    // Table sizes at scale factor 1.0
+    public static final int NUM_REGIONS = 10;
+    public static final int NUM_STORES = 100;
+    public static final int NUM_CATEGORIES = 50;
+    public static final int NUM_PRODUCTS = 10000;
+    public static final int SALES_PER_STORE = 1000;
+
+    public static final int MAX_QTY = 10;
+    public static final double MIN_PRICE = 1.0;
+    public static final double MAX_PRICE = 100.0;
+
+    public static final int BATCH_SIZE = 5000;
+
+    // Transaction frequencies (as percentages)
+    public static final int FREQUENCY_GET_STORE_SALES = 30;
+    public static final int FREQUENCY_GET_STORE_TARGETS = 30;
+    public static final int FREQUENCY_GET_CATEGORY_SALES = 15;
+    public static final int FREQUENCY_GET_REGION_SALES = 10;
+    public static final int FREQUENCY_GET_REGION_TARGETS = 15;
+}
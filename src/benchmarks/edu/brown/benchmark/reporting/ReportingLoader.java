@@ -0,0 +1,116 @@
+package edu.brown.benchmark.reporting;
+
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.voltdb.VoltTable;
+import org.voltdb.catalog.Table;
+
+import edu.brown.api.BenchmarkComponent;
+import edu.brown.api.Loader;
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+
+public class ReportingLoader extends Loader {
+    private static final Logger LOG = Logger.getLogger(ReportingLoader.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    private final Random rand = new Random();
+    private final int numStores;
+    private final int numProducts;
+
+    public static void main(String args[]) throws Exception {
+        BenchmarkComponent.main(ReportingLoader.class, args, true);
+    }
+
+    public ReportingLoader(String[] args) {
+        super(args);
+        this.numStores = ReportingUtil.getScaledNumStores(this.getScaleFactor());
+        this.numProducts = ReportingUtil.getScaledNumProducts(this.getScaleFactor());
+    }
+
+    @Override
+    public void load() {
+        VoltTable table = null;
+        Object row[] = null;
+
+        // REGION
+        table = this.newVoltTable(ReportingConstants.TABLENAME_REGION);
+        for (int r_id = 0; r_id < ReportingConstants.NUM_REGIONS; r_id++) {
+            table.addRow(r_id, "Region #" + r_id);
+        } // FOR
+        this.flush(ReportingConstants.TABLENAME_REGION, table);
+
+        // STORE
+        table = this.newVoltTable(ReportingConstants.TABLENAME_STORE);
+        for (int s_id = 0; s_id < this.numStores; s_id++) {
+            table.addRow(s_id, ReportingUtil.getStoreRegion(s_id), "Store #" + s_id);
+        } // FOR
+        this.flush(ReportingConstants.TABLENAME_STORE, table);
+
+        // PRODUCT
+        double prices[] = new double[this.numProducts];
+        table = this.newVoltTable(ReportingConstants.TABLENAME_PRODUCT);
+        for (int p_id = 0; p_id < this.numProducts; p_id++) {
+            prices[p_id] = ReportingConstants.MIN_PRICE +
+                           rand.nextDouble() * (ReportingConstants.MAX_PRICE - ReportingConstants.MIN_PRICE);
+            table.addRow(p_id, ReportingUtil.getProductCategory(p_id), "Product #" + p_id, prices[p_id]);
+            if (table.getRowCount() >= ReportingConstants.BATCH_SIZE) {
+                this.flush(ReportingConstants.TABLENAME_PRODUCT, table);
+            }
+        } // FOR
+        this.flush(ReportingConstants.TABLENAME_PRODUCT, table);
+
+        // CATEGORY_TARGET
+        double expected = ReportingConstants.SALES_PER_STORE * (this.numStores / (double)ReportingConstants.NUM_REGIONS) *
+                          (ReportingConstants.MAX_QTY / 2d) * (ReportingConstants.MAX_PRICE / 2d) /
+                          ReportingConstants.NUM_CATEGORIES;
+        table = this.newVoltTable(ReportingConstants.TABLENAME_CATEGORY_TARGET);
+        for (int r_id = 0; r_id < ReportingConstants.NUM_REGIONS; r_id++) {
+            for (int category = 0; category < ReportingConstants.NUM_CATEGORIES; category++) {
+                table.addRow(category, r_id, expected * (0.5 + rand.nextDouble()));
+            } // FOR
+        } // FOR
+        this.flush(ReportingConstants.TABLENAME_CATEGORY_TARGET, table);
+
+        // SALE
+        long sa_id = 0;
+        table = this.newVoltTable(ReportingConstants.TABLENAME_SALE);
+        row = new Object[table.getColumnCount()];
+        for (int s_id = 0; s_id < this.numStores; s_id++) {
+            for (int i = 0; i < ReportingConstants.SALES_PER_STORE; i++) {
+                int p_id = rand.nextInt(this.numProducts);
+                int qty = rand.nextInt(ReportingConstants.MAX_QTY) + 1;
+                row[0] = sa_id++;
+                row[1] = s_id;
+                row[2] = p_id;
+                row[3] = qty;
+                row[4] = qty * prices[p_id];
+                table.addRow(row);
+                if (table.getRowCount() >= ReportingConstants.BATCH_SIZE) {
+                    this.flush(ReportingConstants.TABLENAME_SALE, table);
+                }
+            } // FOR
+        } // FOR
+        this.flush(ReportingConstants.TABLENAME_SALE, table);
+    }
+
+    private VoltTable newVoltTable(String tableName) {
+        Table catalog_tbl = this.getCatalogContext().getTableByName(tableName);
+        assert(catalog_tbl != null) : "Invalid table name '" + tableName + "'";
+        return (CatalogUtil.getVoltTable(catalog_tbl));
+    }
+
+    private void flush(String tableName, VoltTable table) {
+        if (table.getRowCount() == 0) return;
+        if (debug.val)
+            LOG.debug(String.format("Loading %d tuples for %s", table.getRowCount(), tableName));
+        this.loadVoltTable(tableName, table);
+        table.clearRowData();
+    }
+}
@@ -0,0 +1,52 @@
+package edu.brown.benchmark.reporting;
+
+import org.voltdb.VoltProcedure;
+
+import edu.brown.api.BenchmarkComponent;
+import edu.brown.benchmark.AbstractProjectBuilder;
+import edu.brown.benchmark.reporting.procedures.GetCategorySales;
+import edu.brown.benchmark.reporting.procedures.GetRegionSales;
+import edu.brown.benchmark.reporting.procedures.GetRegionTargets;
+import edu.brown.benchmark.reporting.procedures.GetStoreSales;
+import edu.brown.benchmark.reporting.procedures.GetStoreTargets;
+
+/**
+ * Read-only reporting queries that join a partitioned fact table with
+ * replicated dimension tables. Some of the joins can use a primary key index
+ * and the others are on columns that do not have one.
+ */
+public class ReportingProjectBuilder extends AbstractProjectBuilder {
+
+    // REQUIRED: Retrieved via reflection by BenchmarkController
+    public static final Class<? extends BenchmarkComponent> m_clientClass = ReportingClient.class;
+
+    // REQUIRED: Retrieved via reflection by BenchmarkController
+    public static final Class<? extends BenchmarkComponent> m_loaderClass = ReportingLoader.class;
+
+    @SuppressWarnings("unchecked")
+    public static final Class<? extends VoltProcedure> PROCEDURES[] = (Class<? extends VoltProcedure>[])new Class<?>[] {
+        GetStoreSales.class,
+        GetStoreTargets.class,
+        GetCategorySales.class,
+        GetRegionSales.class,
+        GetRegionTargets.class,
+    };
+
+    {
+        addTransactionFrequency(GetStoreSales.class, ReportingConstants.FREQUENCY_GET_STORE_SALES);
+        addTransactionFrequency(GetStoreTargets.class, ReportingConstants.FREQUENCY_GET_STORE_TARGETS);
+        addTransactionFrequency(GetCategorySales.class, ReportingConstants.FREQUENCY_GET_CATEGORY_SALES);
+        addTransactionFrequency(GetRegionSales.class, ReportingConstants.FREQUENCY_GET_REGION_SALES);
+        addTransactionFrequency(GetRegionTargets.class, ReportingConstants.FREQUENCY_GET_REGION_TARGETS);
+    }
+
+    // Everything else is replicated
+    public static final String PARTITIONING[][] = new String[][] {
+        // { "TABLE NAME", "PARTITIONING COLUMN NAME" }
+        { ReportingConstants.TABLENAME_SALE, "SA_S_ID" },
+    };
+
+    public ReportingProjectBuilder() {
+        super("reporting", ReportingProjectBuilder.class, PROCEDURES, PARTITIONING);
+    }
+}
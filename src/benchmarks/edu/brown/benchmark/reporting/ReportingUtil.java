@@ -0,0 +1,38 @@
+package edu.brown.benchmark.reporting;
+
+public abstract class ReportingUtil {
+
+    /**
+     * Return the number of stores to use for the given scale factor
+     * @param scaleFactor
+     */
+    public static int getScaledNumStores(double scaleFactor) {
+        return (Math.max(ReportingConstants.NUM_REGIONS,
+                         (int)Math.round(ReportingConstants.NUM_STORES * scaleFactor)));
+    }
+
+    /**
+     * Return the number of products to use for the given scale factor
+     * @param scaleFactor
+     */
+    public static int getScaledNumProducts(double scaleFactor) {
+        return (Math.max(ReportingConstants.NUM_CATEGORIES,
+                         (int)Math.round(ReportingConstants.NUM_PRODUCTS * scaleFactor)));
+    }
+
+    /**
+     * Return the region that the given store is in
+     * @param s_id
+     */
+    public static int getStoreRegion(int s_id) {
+        return (s_id % ReportingConstants.NUM_REGIONS);
+    }
+
+    /**
+     * Return the category of the given product
+     * @param p_id
+     */
+    public static int getProductCategory(int p_id) {
+        return (p_id % ReportingConstants.NUM_CATEGORIES);
+    }
+}
@@ -0,0 +1,23 @@
+package edu.brown.benchmark.reporting.procedures;
+
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+/**
+ * All of the sales of the products in a category at every store.
+ * Every SALE is scanned and its PRODUCT is found through the primary key index.
+ */
+public class GetCategorySales extends VoltProcedure {
+    public final SQLStmt GetSales = new SQLStmt(
+        "SELECT P_NAME, SA_S_ID, SA_QTY, SA_AMOUNT " +
+        "  FROM PRODUCT, SALE " +
+        " WHERE P_CATEGORY = ? " +
+        "   AND P_ID = SA_P_ID"
+    );
+
+    public VoltTable[] run(int category) {
+        voltQueueSQL(GetSales, category);
+        return (voltExecuteSQL(true));
+    }
+}
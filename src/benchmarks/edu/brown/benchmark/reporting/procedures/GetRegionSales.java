@@ -0,0 +1,23 @@
+package edu.brown.benchmark.reporting.procedures;
+
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+/**
+ * All of the sales at the stores in a region.
+ * Every SALE is scanned and its STORE is found through the primary key index.
+ */
+public class GetRegionSales extends VoltProcedure {
+    public final SQLStmt GetSales = new SQLStmt(
+        "SELECT S_NAME, SA_ID, SA_AMOUNT " +
+        "  FROM STORE, SALE " +
+        " WHERE S_R_ID = ? " +
+        "   AND S_ID = SA_S_ID"
+    );
+
+    public VoltTable[] run(int r_id) {
+        voltQueueSQL(GetSales, r_id);
+        return (voltExecuteSQL(true));
+    }
+}
@@ -0,0 +1,23 @@
+package edu.brown.benchmark.reporting.procedures;
+
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+/**
+ * The category targets for every store in a region. Neither STORE.S_R_ID
+ * nor CATEGORY_TARGET.CT_R_ID has an index, so the two are joined by hash.
+ */
+public class GetRegionTargets extends VoltProcedure {
+    public final SQLStmt GetTargets = new SQLStmt(
+        "SELECT S_ID, S_NAME, CT_CATEGORY, CT_TARGET " +
+        "  FROM STORE, CATEGORY_TARGET " +
+        " WHERE CT_R_ID = ? " +
+        "   AND S_R_ID = CT_R_ID"
+    );
+
+    public VoltTable[] run(int r_id) {
+        voltQueueSQL(GetTargets, r_id);
+        return (voltExecuteSQL(true));
+    }
+}
@@ -0,0 +1,28 @@
+package edu.brown.benchmark.reporting.procedures;
+
+import org.voltdb.ProcInfo;
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+/**
+ * All of the sales for a single store along with the names of their products.
+ * PRODUCT is joined through its primary key index.
+ */
+@ProcInfo(
+    partitionInfo = "SALE.SA_S_ID: 0",
+    singlePartition = true
+)
+public class GetStoreSales extends VoltProcedure {
+    public final SQLStmt GetSales = new SQLStmt(
+        "SELECT SA_ID, P_NAME, SA_QTY, SA_AMOUNT " +
+        "  FROM SALE, PRODUCT " +
+        " WHERE SA_S_ID = ? " +
+        "   AND SA_P_ID = P_ID"
+    );
+
+    public VoltTable[] run(int s_id) {
+        voltQueueSQL(GetSales, s_id);
+        return (voltExecuteSQL(true));
+    }
+}
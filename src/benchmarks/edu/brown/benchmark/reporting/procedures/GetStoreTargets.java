@@ -0,0 +1,31 @@
+package edu.brown.benchmark.reporting.procedures;
+
+import org.voltdb.ProcInfo;
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+/**
+ * The sales for a single store next to the target for each sale's product
+ * category in the store's region. CATEGORY_TARGET has no index, so it is
+ * joined on P_CATEGORY by hash.
+ */
+@ProcInfo(
+    partitionInfo = "SALE.SA_S_ID: 0",
+    singlePartition = true
+)
+public class GetStoreTargets extends VoltProcedure {
+    public final SQLStmt GetTargets = new SQLStmt(
+        "SELECT SA_ID, P_CATEGORY, SA_AMOUNT, CT_TARGET " +
+        "  FROM SALE, PRODUCT, CATEGORY_TARGET " +
+        " WHERE SA_S_ID = ? " +
+        "   AND SA_P_ID = P_ID " +
+        "   AND P_CATEGORY = CT_CATEGORY " +
+        "   AND CT_R_ID = ?"
+    );
+
+    public VoltTable[] run(int s_id, int r_id) {
+        voltQueueSQL(GetTargets, s_id, r_id);
+        return (voltExecuteSQL(true));
+    }
+}
@@ -0,0 +1,39 @@
+CREATE TABLE REGION (
+   R_ID         INTEGER NOT NULL,
+   R_NAME       VARCHAR(32) NOT NULL,
+   PRIMARY KEY (R_ID)
+);
+
+CREATE TABLE STORE (
+   S_ID         INTEGER NOT NULL,
+   S_R_ID       INTEGER NOT NULL REFERENCES REGION (R_ID),
+   S_NAME       VARCHAR(32) NOT NULL,
+   PRIMARY KEY (S_ID)
+);
+
+CREATE TABLE PRODUCT (
+   P_ID         INTEGER NOT NULL,
+   P_CATEGORY   INTEGER NOT NULL,
+   P_NAME       VARCHAR(32) NOT NULL,
+   P_PRICE      FLOAT NOT NULL,
+   PRIMARY KEY (P_ID)
+);
+
+-- Sales targets for each product category in each region.
+-- There is deliberately no index on this table.
+CREATE TABLE CATEGORY_TARGET (
+   CT_CATEGORY  INTEGER NOT NULL,
+   CT_R_ID      INTEGER NOT NULL REFERENCES REGION (R_ID),
+   CT_TARGET    FLOAT NOT NULL
+);
+
+-- The only index on SALE is its primary key, so every join on
+-- SA_S_ID or SA_P_ID has to scan it. STORE.S_R_ID has no index either.
+CREATE TABLE SALE (
+   SA_ID        BIGINT NOT NULL,
+   SA_S_ID      INTEGER NOT NULL REFERENCES STORE (S_ID),
+   SA_P_ID      INTEGER NOT NULL REFERENCES PRODUCT (P_ID),
+   SA_QTY       INTEGER NOT NULL,
+   SA_AMOUNT    FLOAT NOT NULL,
+   PRIMARY KEY (SA_ID)
+);
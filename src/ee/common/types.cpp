@@ -274,6 +274,9 @@ string planNodeToString(PlanNodeType type)
     case PLAN_NODE_TYPE_NESTLOOPINDEX: {
         return "NESTLOOPINDEX";
     }
+    case PLAN_NODE_TYPE_HASHJOIN: {
+        return "HASHJOIN";
+    }
     case PLAN_NODE_TYPE_UPDATE: {
         return "UPDATE";
     }
@@ -316,6 +319,9 @@ string planNodeToString(PlanNodeType type)
     case PLAN_NODE_TYPE_DISTINCT: {
         return "DISTINCT";
     }
+    case PLAN_NODE_TYPE_BLOOMFILTER: {
+        return "BLOOMFILTER";
+    }
     }
     return "INVALID";
 }
@@ -332,6 +338,8 @@ PlanNodeType stringToPlanNode(string str )
         return PLAN_NODE_TYPE_NESTLOOP;
     } else if (str == "NESTLOOPINDEX") {
         return PLAN_NODE_TYPE_NESTLOOPINDEX;
+    } else if (str == "HASHJOIN") {
+        return PLAN_NODE_TYPE_HASHJOIN;
     } else if (str == "UPDATE") {
         return PLAN_NODE_TYPE_UPDATE;
     } else if (str == "INSERT") {
@@ -360,6 +368,8 @@ PlanNodeType stringToPlanNode(string str )
         return PLAN_NODE_TYPE_LIMIT;
     } else if (str == "DISTINCT") {
         return PLAN_NODE_TYPE_DISTINCT;
+    } else if (str == "BLOOMFILTER") {
+        return PLAN_NODE_TYPE_BLOOMFILTER;
     }
     return PLAN_NODE_TYPE_INVALID;
 }
@@ -162,6 +162,7 @@ enum PlanNodeType {
     //
     PLAN_NODE_TYPE_NESTLOOP         = 20,
     PLAN_NODE_TYPE_NESTLOOPINDEX    = 21,
+    PLAN_NODE_TYPE_HASHJOIN         = 22,
 
     //
     // Operator Nodes
@@ -188,6 +189,7 @@ enum PlanNodeType {
     PLAN_NODE_TYPE_MATERIALIZE      = 55,
     PLAN_NODE_TYPE_LIMIT            = 56,
     PLAN_NODE_TYPE_DISTINCT         = 57,
+    PLAN_NODE_TYPE_BLOOMFILTER      = 58,
 };
 
 // ------------------------------------------------------------------
@@ -305,7 +307,9 @@ enum IndexLookupType {
 // ------------------------------------------------------------------
 enum TableStreamType {
    TABLE_STREAM_SNAPSHOT,
-   TABLE_STREAM_RECOVERY
+   TABLE_STREAM_RECOVERY,
+   TABLE_STREAM_SNAPSHOT_DELTA_BASE,
+   TABLE_STREAM_SNAPSHOT_DELTA
 };
 
 // ------------------------------------------------------------------
@@ -430,6 +430,7 @@ int VoltDBEngine::executeQuery(int64_t planfragmentId,
 int VoltDBEngine::executePlanFragment(string fragmentString,
                                       int32_t outputDependencyId,
                                       int32_t inputDependencyId,
+                                      const NValueArray &params,
                                       int64_t txnId,
                                       int64_t lastCommittedTxnId)
 {
@@ -449,9 +450,8 @@ int VoltDBEngine::executePlanFragment(string fragmentString,
     {
         if (initPlanFragment(AD_HOC_FRAG_ID, hexEncodedFragment))
         {
-            NValueArray parameterValueArray(0);
             retval = executeQuery(AD_HOC_FRAG_ID, outputDependencyId,
-                                  inputDependencyId, parameterValueArray,
+                                  inputDependencyId, params,
                                   txnId, lastCommittedTxnId, true, true);
         }
         else
@@ -1169,7 +1169,9 @@ bool VoltDBEngine::activateTableStream(const CatalogId tableId, TableStreamType
 
     switch (streamType) {
     case TABLE_STREAM_SNAPSHOT:
-        if (table->activateCopyOnWrite(&m_tupleSerializer, m_partitionId)) {
+    case TABLE_STREAM_SNAPSHOT_DELTA_BASE:
+    case TABLE_STREAM_SNAPSHOT_DELTA:
+        if (table->activateCopyOnWrite(&m_tupleSerializer, m_partitionId, streamType)) {
             return false;
         }
 
@@ -1211,7 +1213,9 @@ int VoltDBEngine::tableStreamSerializeMore(
 {
 
     switch (streamType) {
-    case TABLE_STREAM_SNAPSHOT: {
+    case TABLE_STREAM_SNAPSHOT:
+    case TABLE_STREAM_SNAPSHOT_DELTA_BASE:
+    case TABLE_STREAM_SNAPSHOT_DELTA: {
         // If a completed table is polled, return 0 bytes serialized. The
         // Java engine will always poll a fully serialized table one more
         // time (it doesn't see the hasMore return code).  Note that the
@@ -0,0 +1,180 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <algorithm>
+#include <vector>
+#include <string>
+#include "bloomfilterexecutor.h"
+#include "common/debuglog.h"
+#include "common/tabletuple.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "storage/table.h"
+#include "storage/temptable.h"
+#include "storage/tableiterator.h"
+#include "storage/tablefactory.h"
+
+namespace voltdb {
+
+bool BloomFilterExecutor::p_init(AbstractPlanNode* abstract_node, const catalog::Database* catalog_db, int* tempTableMemoryInBytes) {
+    VOLT_TRACE("init BloomFilter Executor");
+
+    BloomFilterPlanNode* node = dynamic_cast<BloomFilterPlanNode*>(abstract_node);
+    assert(node);
+    assert(node->getNumWords() > 0);
+    assert(node->getChildren()[0] != NULL);
+
+    AbstractPlanNode *child_node = node->getChildren()[0];
+    m_keyColumns.clear();
+    for (int i = 0, cnt = (int)node->getKeyColumnGuids().size(); i < cnt; i++) {
+        int index = child_node->getColumnIndexFromGuid(node->getKeyColumnGuids()[i], catalog_db);
+        assert(index != -1);
+        if (index == -1) {
+            return false;
+        }
+        m_keyColumns.push_back(index);
+    }
+    m_words.resize(node->getNumWords());
+
+    if (node->isBuild()) {
+        // One BIGINT row for every word of the filter
+        assert(node->getInputTables().size() == 1);
+        std::vector<ValueType> columnTypes(1, VALUE_TYPE_BIGINT);
+        std::vector<int32_t> columnSizes(1, NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+        std::vector<bool> columnAllowNull(1, false);
+        TupleSchema *schema = TupleSchema::createTupleSchema(columnTypes, columnSizes, columnAllowNull, true);
+        std::string columnNames[1] = { "BLOOM_FILTER" };
+        node->setOutputTable(TableFactory::getTempTable(node->databaseId(), "temp", schema, columnNames, tempTableMemoryInBytes));
+    } else {
+        // Just copy the table schema of the tuples that we are filtering
+        assert(node->getInputTables().size() == 2);
+        node->setOutputTable(TableFactory::getCopiedTempTable(node->databaseId(), node->getInputTables()[0]->name(), node->getInputTables()[0], tempTableMemoryInBytes));
+    }
+    return true;
+}
+
+/**
+ * Combine the hashes of the key columns of the tuple into the seed.
+ * Returns false if one of the columns is NULL, which means that the
+ * tuple can't match anything on the other side of the join.
+ */
+bool BloomFilterExecutor::hashKey(const TableTuple &tuple, std::size_t &seed) const {
+    for (int i = 0, cnt = (int)m_keyColumns.size(); i < cnt; i++) {
+        NValue value = tuple.getNValue(m_keyColumns[i]);
+        if (value.isNull()) return false;
+        switch (ValuePeeker::peekValueType(value)) {
+            case VALUE_TYPE_TINYINT:
+            case VALUE_TYPE_SMALLINT:
+            case VALUE_TYPE_INTEGER:
+                value.castAs(VALUE_TYPE_BIGINT).hashCombine(seed);
+                break;
+            default:
+                value.hashCombine(seed);
+        }
+    }
+    return true;
+}
+
+bool BloomFilterExecutor::p_execute(const NValueArray &params) {
+    BloomFilterPlanNode* node = dynamic_cast<BloomFilterPlanNode*>(abstract_node);
+    assert(node);
+    Table* output_table = node->getOutputTable();
+    assert(output_table);
+    Table* input_table = node->getInputTables()[0];
+    assert(input_table);
+
+    const std::size_t num_words = m_words.size();
+    const std::size_t num_bits = num_words * 64;
+    TableTuple tuple(input_table->schema());
+    TableIterator iterator(input_table);
+
+    //
+    // Build
+    //
+    if (node->isBuild()) {
+        std::fill(m_words.begin(), m_words.end(), 0);
+        int tuple_ctr = 0;
+        while (iterator.next(tuple)) {
+            std::size_t seed = 0;
+            if (!hashKey(tuple, seed)) continue;
+            std::size_t step = (seed >> 17) | 1;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                std::size_t bit = (seed + i * step) % num_bits;
+                m_words[bit / 64] |= (int64_t(1) << (bit % 64));
+            }
+            tuple_ctr++;
+        }
+        VOLT_DEBUG("Built BloomFilter with %d keys in %d words", tuple_ctr, (int)num_words);
+
+        TableTuple &output = output_table->tempTuple();
+        for (std::size_t i = 0; i < num_words; i++) {
+            output.setNValue(0, ValueFactory::getBigIntValue(m_words[i]));
+            output_table->insertTuple(output);
+        }
+        return true;
+    }
+
+    //
+    // Probe
+    // The filters from all of the partitions were appended to each other,
+    // so the Nth row holds the bits for word (N % num_words)
+    //
+    Table* filter_table = node->getInputTables()[1];
+    assert(filter_table);
+    std::fill(m_words.begin(), m_words.end(), 0);
+    TableTuple filter_tuple(filter_table->schema());
+    TableIterator filter_iterator(filter_table);
+    std::size_t row = 0;
+    while (filter_iterator.next(filter_tuple)) {
+        m_words[row % num_words] |= ValuePeeker::peekBigInt(filter_tuple.getNValue(0));
+        row++;
+    }
+    // No filters means that the other side of the join might not have
+    // been filtered, so we have to send everything along
+    bool pass_all = (row == 0);
+
+    int tuple_ctr = 0, pass_ctr = 0;
+    while (iterator.next(tuple)) {
+        tuple_ctr++;
+        if (!pass_all) {
+            std::size_t seed = 0;
+            if (!hashKey(tuple, seed)) continue;
+            std::size_t step = (seed >> 17) | 1;
+            bool match = true;
+            for (int i = 0; i < NUM_HASHES && match; i++) {
+                std::size_t bit = (seed + i * step) % num_bits;
+                match = ((m_words[bit / 64] & (int64_t(1) << (bit % 64))) != 0);
+            }
+            if (!match) continue;
+        }
+        output_table->insertTuple(tuple);
+        pass_ctr++;
+    }
+    VOLT_DEBUG("BloomFilter passed %d out of %d tuples", pass_ctr, tuple_ctr);
+
+    return true;
+}
+
+}
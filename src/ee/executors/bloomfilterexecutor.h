@@ -0,0 +1,61 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#ifndef HSTOREBLOOMFILTEREXECUTOR_H
+#define HSTOREBLOOMFILTEREXECUTOR_H
+
+#include <vector>
+#include "common/common.h"
+#include "common/valuevector.h"
+#include "executors/abstractexecutor.h"
+#include "plannodes/bloomfilternode.h"
+
+namespace voltdb {
+
+/**
+ * Builds or probes the Bloom filter of a BloomFilterPlanNode. The filter has
+ * NUM_WORDS 64-bit words and every key sets NUM_HASHES bits in it. Integer keys
+ * are widened to BIGINT before they are hashed so that both sides of a join on
+ * integer columns of different widths end up setting the same bits.
+ */
+class BloomFilterExecutor : public AbstractExecutor {
+    public:
+        BloomFilterExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node) : AbstractExecutor(engine, abstract_node) { }
+    protected:
+        bool p_init(AbstractPlanNode*, const catalog::Database* catalog_db, int* tempTableMemoryInBytes);
+        bool p_execute(const NValueArray &params);
+    private:
+        bool hashKey(const TableTuple &tuple, std::size_t &seed) const;
+
+        static const int NUM_HASHES = 3;
+
+        // The offsets of the key columns in the input table
+        std::vector<int> m_keyColumns;
+        std::vector<int64_t> m_words;
+};
+
+}
+
+#endif
@@ -52,12 +52,14 @@
 #include "executors/aggregateexecutor.hpp"
 #include "executors/deleteexecutor.h"
 #include "executors/distinctexecutor.h"
+#include "executors/bloomfilterexecutor.h"
 #include "executors/indexscanexecutor.h"
 #include "executors/insertexecutor.h"
 #include "executors/limitexecutor.h"
 #include "executors/materializeexecutor.h"
 #include "executors/nestloopexecutor.h"
 #include "executors/nestloopindexexecutor.h"
+#include "executors/hashjoinexecutor.h"
 #include "executors/orderbyexecutor.h"
 #include "executors/projectionexecutor.h"
 #include "executors/receiveexecutor.h"
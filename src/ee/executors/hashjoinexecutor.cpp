@@ -0,0 +1,192 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <vector>
+#include <string>
+#include <stack>
+#include "hashjoinexecutor.h"
+#include "common/debuglog.h"
+#include "common/tabletuple.h"
+#include "common/ValuePeeker.hpp"
+#include "expressions/abstractexpression.h"
+#include "expressions/tuplevalueexpression.h"
+#include "storage/table.h"
+#include "storage/temptable.h"
+#include "storage/tableiterator.h"
+#include "plannodes/hashjoinnode.h"
+#include "boost/unordered_map.hpp"
+
+namespace voltdb {
+
+typedef boost::unordered_multimap<std::size_t, TableTuple> HashJoinTable;
+
+bool HashJoinExecutor::p_init(AbstractPlanNode* abstract_node, const catalog::Database* catalog_db, int* tempTableMemoryInBytes) {
+    VOLT_TRACE("init HashJoin Executor");
+
+    // The output table and the tuple indexes of the predicate's
+    // TupleValueExpressions are set up exactly like a NestLoop
+    if (!NestLoopExecutor::p_init(abstract_node, catalog_db, tempTableMemoryInBytes)) {
+        return false;
+    }
+
+    HashJoinPlanNode* node = dynamic_cast<HashJoinPlanNode*>(abstract_node);
+    assert(node);
+
+    // Find every equality between an outer column and an inner column
+    // that has to be true for the whole predicate to be true. We only walk
+    // down through ANDs because any conjunct under an OR is optional.
+    m_outerColumns.clear();
+    m_innerColumns.clear();
+    std::stack<const AbstractExpression*> stack;
+    if (node->getPredicate() != NULL) stack.push(node->getPredicate());
+    while (!stack.empty()) {
+        const AbstractExpression *expr = stack.top();
+        stack.pop();
+        if (expr->getExpressionType() == EXPRESSION_TYPE_CONJUNCTION_AND) {
+            stack.push(expr->getLeft());
+            stack.push(expr->getRight());
+            continue;
+        }
+        if (expr->getExpressionType() != EXPRESSION_TYPE_COMPARE_EQUAL ||
+            expr->getLeft()->getExpressionType() != EXPRESSION_TYPE_VALUE_TUPLE ||
+            expr->getRight()->getExpressionType() != EXPRESSION_TYPE_VALUE_TUPLE) {
+            continue;
+        }
+        const TupleValueExpression *left = dynamic_cast<const TupleValueExpression*>(expr->getLeft());
+        const TupleValueExpression *right = dynamic_cast<const TupleValueExpression*>(expr->getRight());
+        if (left->getTupleIndex() == 0 && right->getTupleIndex() == 1) {
+            m_outerColumns.push_back(left->getColumnId());
+            m_innerColumns.push_back(right->getColumnId());
+        } else if (left->getTupleIndex() == 1 && right->getTupleIndex() == 0) {
+            m_outerColumns.push_back(right->getColumnId());
+            m_innerColumns.push_back(left->getColumnId());
+        }
+    }
+    VOLT_DEBUG("HashJoin has %d key column(s)", (int)m_outerColumns.size());
+    return true;
+}
+
+/**
+ * Combine the hashes of the given columns of the tuple into the seed.
+ * Returns false if one of the columns is NULL, which means that the
+ * tuple can't match anything because NULL is never equal to anything.
+ */
+bool HashJoinExecutor::hashKey(const TableTuple &tuple, const std::vector<int> &columns, std::size_t &seed) const {
+    for (int i = 0, cnt = (int)columns.size(); i < cnt; i++) {
+        NValue value = tuple.getNValue(columns[i]);
+        if (value.isNull()) return false;
+
+        // The planner lets us join integer columns of different widths,
+        // so they all have to be hashed as the same type
+        switch (ValuePeeker::peekValueType(value)) {
+            case VALUE_TYPE_TINYINT:
+            case VALUE_TYPE_SMALLINT:
+            case VALUE_TYPE_INTEGER:
+                value.castAs(VALUE_TYPE_BIGINT).hashCombine(seed);
+                break;
+            default:
+                value.hashCombine(seed);
+        }
+    }
+    return true;
+}
+
+bool HashJoinExecutor::p_execute(const NValueArray &params) {
+    VOLT_DEBUG("executing HashJoin...");
+
+    // Without any equality keys there is nothing to hash on
+    if (m_outerColumns.empty()) {
+        return NestLoopExecutor::p_execute(params);
+    }
+
+    HashJoinPlanNode* node = dynamic_cast<HashJoinPlanNode*>(abstract_node);
+    assert(node);
+    assert(node->getInputTables().size() == 2);
+
+    TempTable* output_table = dynamic_cast<TempTable*>(node->getOutputTable());
+    assert(output_table);
+
+    Table* outer_table = node->getInputTables()[0];
+    assert(outer_table);
+
+    Table* inner_table = node->getInputTables()[1];
+    assert(inner_table);
+
+    VOLT_TRACE ("input table left:\n %s", outer_table->debug().c_str());
+    VOLT_TRACE ("input table right:\n %s", inner_table->debug().c_str());
+
+    AbstractExpression *predicate = node->getPredicate();
+    assert(predicate);
+    predicate->substitute(params);
+    VOLT_TRACE ("predicate: %s", predicate->debug(true).c_str());
+
+    int outer_cols = outer_table->columnCount();
+    int inner_cols = inner_table->columnCount();
+    TableTuple outer_tuple(outer_table->schema());
+    TableTuple inner_tuple(inner_table->schema());
+    TableTuple &joined = output_table->tempTuple();
+
+    //
+    // Build
+    //
+    HashJoinTable hashtable(inner_table->activeTupleCount() + 1);
+    TableIterator iterator1(inner_table);
+    while (iterator1.next(inner_tuple)) {
+        std::size_t seed = 0;
+        if (hashKey(inner_tuple, m_innerColumns, seed)) {
+            hashtable.insert(HashJoinTable::value_type(seed, inner_tuple));
+        }
+    }
+    VOLT_TRACE("Built hash table with %d inner tuples", (int)hashtable.size());
+
+    //
+    // Probe
+    //
+    TableIterator iterator0(outer_table);
+    while (iterator0.next(outer_tuple)) {
+        std::size_t seed = 0;
+        if (!hashKey(outer_tuple, m_outerColumns, seed)) continue;
+
+        std::pair<HashJoinTable::iterator, HashJoinTable::iterator> range = hashtable.equal_range(seed);
+        if (range.first == range.second) continue;
+
+        for (int col_ctr = 0; col_ctr < outer_cols; col_ctr++) {
+            joined.setNValue(col_ctr, outer_tuple.getNValue(col_ctr));
+        }
+        for (HashJoinTable::iterator it = range.first; it != range.second; ++it) {
+            TableTuple &match = it->second;
+            if (predicate->eval(&outer_tuple, &match).isTrue()) {
+                for (int col_ctr = 0; col_ctr < inner_cols; col_ctr++) {
+                    joined.setNValue(col_ctr + outer_cols, match.getNValue(col_ctr));
+                }
+                output_table->insertTupleNonVirtual(joined);
+            }
+        }
+    }
+
+    return (true);
+}
+
+}
@@ -0,0 +1,63 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#ifndef HSTOREHASHJOINEXECUTOR_H
+#define HSTOREHASHJOINEXECUTOR_H
+
+#include <vector>
+#include "common/common.h"
+#include "common/valuevector.h"
+#include "executors/nestloopexecutor.h"
+
+namespace voltdb {
+
+class TupleValueExpression;
+
+/**
+ * Equi-join executor. The inner table is loaded into a hash table keyed on
+ * the inner columns of the predicate's equality conjuncts and then each outer
+ * tuple only has to be compared against the inner tuples in its bucket.
+ * The full predicate is still evaluated for every candidate pair, so hash
+ * collisions and any non-equality conjuncts are handled the same way that
+ * the NestLoopExecutor handles them.
+ */
+class HashJoinExecutor : public NestLoopExecutor {
+    public:
+        HashJoinExecutor(VoltDBEngine *engine, AbstractPlanNode* abstract_node) : NestLoopExecutor(engine, abstract_node) { }
+    protected:
+        bool p_init(AbstractPlanNode*, const catalog::Database* catalog_db, int* tempTableMemoryInBytes);
+        bool p_execute(const NValueArray &params);
+    private:
+        bool hashKey(const TableTuple &tuple, const std::vector<int> &columns, std::size_t &seed) const;
+
+        // The column offsets of the join keys in the outer and inner tables.
+        // The nth outer column is compared with the nth inner column.
+        std::vector<int> m_outerColumns;
+        std::vector<int> m_innerColumns;
+};
+
+}
+
+#endif
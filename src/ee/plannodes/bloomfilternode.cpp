@@ -0,0 +1,141 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include "bloomfilternode.h"
+
+#include "storage/table.h"
+
+#include <sstream>
+#include <stdexcept>
+
+using namespace voltdb;
+using namespace std;
+
+BloomFilterPlanNode::BloomFilterPlanNode(CatalogId id) : AbstractPlanNode(id)
+{
+    m_build = false;
+    m_numWords = 0;
+}
+
+BloomFilterPlanNode::BloomFilterPlanNode() : AbstractPlanNode()
+{
+    m_build = false;
+    m_numWords = 0;
+}
+
+BloomFilterPlanNode::~BloomFilterPlanNode()
+{
+    if (!isInline()) {
+        delete getOutputTable();
+        setOutputTable(NULL);
+    }
+}
+
+PlanNodeType
+BloomFilterPlanNode::getPlanNodeType() const
+{
+    return PLAN_NODE_TYPE_BLOOMFILTER;
+}
+
+bool
+BloomFilterPlanNode::isBuild() const
+{
+    return m_build;
+}
+
+int
+BloomFilterPlanNode::getNumWords() const
+{
+    return m_numWords;
+}
+
+const vector<int>&
+BloomFilterPlanNode::getKeyColumnGuids() const
+{
+    return m_keyColumnGuids;
+}
+
+int
+BloomFilterPlanNode::getColumnIndexFromGuid(int guid,
+                                            const catalog::Database* db) const
+{
+    // In probe mode we pass along the tuples of our first child. The filters
+    // from our second child never make it into our output.
+    if (m_build || m_children.empty() || m_children[0] == NULL)
+    {
+        return -1;
+    }
+    return m_children[0]->getColumnIndexFromGuid(guid, db);
+}
+
+string
+BloomFilterPlanNode::debugInfo(const string &spacer) const
+{
+    ostringstream buffer;
+    buffer << spacer << "Mode[" << (m_build ? "BUILD" : "PROBE") << "]\n";
+    buffer << spacer << "NumWords[" << m_numWords << "]\n";
+    buffer << spacer << "KeyColumnGuids[" << m_keyColumnGuids.size() << "]:\n";
+    for (int ctr = 0, cnt = (int) m_keyColumnGuids.size(); ctr < cnt; ctr++)
+    {
+        buffer << spacer << "   [" << ctr << "] " << m_keyColumnGuids[ctr] << "\n";
+    }
+    return buffer.str();
+}
+
+void
+BloomFilterPlanNode::loadFromJSONObject(json_spirit::Object& obj,
+                                        const catalog::Database* catalog_db)
+{
+    json_spirit::Value buildValue = json_spirit::find_value( obj, "BUILD");
+    if (buildValue == json_spirit::Value::null)
+    {
+        throw SerializableEEException(VOLT_EE_EXCEPTION_TYPE_EEEXCEPTION,
+                                      "BloomFilterPlanNode::loadFromJSONObject: "
+                                      "Can't find BUILD value");
+    }
+    m_build = buildValue.get_bool();
+
+    json_spirit::Value numWordsValue = json_spirit::find_value( obj, "NUM_WORDS");
+    if (numWordsValue == json_spirit::Value::null)
+    {
+        throw SerializableEEException(VOLT_EE_EXCEPTION_TYPE_EEEXCEPTION,
+                                      "BloomFilterPlanNode::loadFromJSONObject: "
+                                      "Can't find NUM_WORDS value");
+    }
+    m_numWords = numWordsValue.get_int();
+
+    json_spirit::Value keyColumnsValue = json_spirit::find_value( obj, "KEY_COLUMN_GUIDS");
+    if (keyColumnsValue == json_spirit::Value::null)
+    {
+        throw SerializableEEException(VOLT_EE_EXCEPTION_TYPE_EEEXCEPTION,
+                                      "BloomFilterPlanNode::loadFromJSONObject: "
+                                      "Can't find KEY_COLUMN_GUIDS value");
+    }
+    json_spirit::Array keyColumnsArray = keyColumnsValue.get_array();
+    for (int ii = 0; ii < keyColumnsArray.size(); ii++)
+    {
+        m_keyColumnGuids.push_back(keyColumnsArray[ii].get_int());
+    }
+}
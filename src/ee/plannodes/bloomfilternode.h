@@ -0,0 +1,81 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#ifndef HSTOREBLOOMFILTERNODE_H
+#define HSTOREBLOOMFILTERNODE_H
+
+#include "plannodes/abstractplannode.h"
+
+#include "common/debuglog.h"
+#include "common/ids.h"
+#include "common/types.h"
+
+#include <string>
+#include <vector>
+
+namespace voltdb
+{
+
+/**
+ * Semi-join reduction for distributed joins. In build mode, the node hashes the
+ * key columns of every tuple of its input into a Bloom filter and outputs the
+ * filter as a table with one BIGINT row per 64-bit word. In probe mode, the node
+ * has two inputs: the tuples to filter and the filters that were built at all of
+ * the partitions. It ORs the filters together and only passes on the tuples
+ * whose key columns might be in one of them.
+ */
+class BloomFilterPlanNode : public AbstractPlanNode
+{
+public:
+    BloomFilterPlanNode(CatalogId id);
+    BloomFilterPlanNode();
+    ~BloomFilterPlanNode();
+
+    virtual PlanNodeType getPlanNodeType() const;
+
+    bool isBuild() const;
+    int getNumWords() const;
+    const std::vector<int>& getKeyColumnGuids() const;
+
+    virtual int getColumnIndexFromGuid(int guid, const catalog::Database* db) const;
+
+    std::string debugInfo(const std::string& spacer) const;
+
+protected:
+    friend AbstractPlanNode*
+        AbstractPlanNode::fromJSONObject(json_spirit::Object& obj,
+                                         const catalog::Database* catalog_db);
+
+    virtual void loadFromJSONObject(json_spirit::Object& obj,
+                                    const catalog::Database* catalog_db);
+
+    bool m_build;
+    int m_numWords;
+    std::vector<int> m_keyColumnGuids;
+};
+
+}
+
+#endif
@@ -52,12 +52,14 @@
 #include "plannodes/aggregatenode.h"
 #include "plannodes/deletenode.h"
 #include "plannodes/distinctnode.h"
+#include "plannodes/bloomfilternode.h"
 #include "plannodes/indexscannode.h"
 #include "plannodes/insertnode.h"
 #include "plannodes/limitnode.h"
 #include "plannodes/materializenode.h"
 #include "plannodes/nestloopnode.h"
 #include "plannodes/nestloopindexnode.h"
+#include "plannodes/hashjoinnode.h"
 #include "plannodes/projectionnode.h"
 #include "plannodes/orderbynode.h"
 #include "plannodes/receivenode.h"
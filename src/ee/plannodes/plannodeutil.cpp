@@ -81,6 +81,12 @@ voltdb::AbstractPlanNode* getEmptyPlanNode(voltdb::PlanNodeType type) {
             ret = new voltdb::NestLoopIndexPlanNode();
             break;
         // ------------------------------------------------------------------
+        // HashJoin
+        // ------------------------------------------------------------------
+        case (voltdb::PLAN_NODE_TYPE_HASHJOIN):
+            ret = new voltdb::HashJoinPlanNode();
+            break;
+        // ------------------------------------------------------------------
         // Update
         // ------------------------------------------------------------------
         case (voltdb::PLAN_NODE_TYPE_UPDATE):
@@ -148,6 +154,12 @@ voltdb::AbstractPlanNode* getEmptyPlanNode(voltdb::PlanNodeType type) {
             ret = new voltdb::DistinctPlanNode();
             break;
         // ------------------------------------------------------------------
+        // BloomFilter
+        // ------------------------------------------------------------------
+        case (voltdb::PLAN_NODE_TYPE_BLOOMFILTER):
+            ret = new voltdb::BloomFilterPlanNode();
+            break;
+        // ------------------------------------------------------------------
         // Receive
         // ------------------------------------------------------------------
         case (voltdb::PLAN_NODE_TYPE_RECEIVE):
@@ -193,6 +205,12 @@ std::string getTypeName(voltdb::PlanNodeType type) {
             ret = "NESTLOOPINDEX";
             break;
         // ------------------------------------------------------------------
+        // HashJoin
+        // ------------------------------------------------------------------
+        case (voltdb::PLAN_NODE_TYPE_HASHJOIN):
+            ret = "HASHJOIN";
+            break;
+        // ------------------------------------------------------------------
         // Update
         // ------------------------------------------------------------------
         case (voltdb::PLAN_NODE_TYPE_UPDATE):
@@ -271,6 +289,12 @@ std::string getTypeName(voltdb::PlanNodeType type) {
             ret = "DISTINCT";
             break;
         // ------------------------------------------------------------------
+        // BloomFilter
+        // ------------------------------------------------------------------
+        case (voltdb::PLAN_NODE_TYPE_BLOOMFILTER):
+            ret = "BLOOMFILTER";
+            break;
+        // ------------------------------------------------------------------
         // UNKNOWN
         // ------------------------------------------------------------------
         default: {
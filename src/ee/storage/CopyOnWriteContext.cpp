@@ -55,6 +55,12 @@ bool simplePairAddressToPairAddressComparator(const BlockPair a, const BlockPair
 }
 #endif
 
+/**
+ * Size of the trailer (block index and block count) written before the row count
+ * of every chunk of a delta stream
+ */
+#define DELTA_TRAILER_SIZE 8
+
 CopyOnWriteContext::CopyOnWriteContext(Table *table, TupleSerializer *serializer, int32_t partitionId) :
              m_table(table),
              m_backedUpTuples(TableFactory::getCopiedTempTable(table->databaseId(), "COW of " + table->name(), table, NULL)),
@@ -62,7 +68,28 @@ CopyOnWriteContext::CopyOnWriteContext(Table *table, TupleSerializer *serializer
              m_iterator(new CopyOnWriteIterator(table)),
              m_maxTupleLength(serializer->getMaxSerializedTupleSize(table->schema())),
              m_tuple(table->schema()), m_finishedTableScan(false), m_partitionId(partitionId),
-             m_tuplesSerialized(0) {
+             m_tuplesSerialized(0), m_delta(false), m_backedUpPosition(0),
+             m_hasPendingTuple(false), m_pendingBlock(-1), m_nextEmptyBlock(0) {
+    initializeBlocks();
+}
+
+CopyOnWriteContext::CopyOnWriteContext(Table *table, TupleSerializer *serializer, int32_t partitionId,
+                                       const std::vector<bool> &deltaBlocks) :
+             m_table(table),
+             m_backedUpTuples(TableFactory::getCopiedTempTable(table->databaseId(), "COW of " + table->name(), table, NULL)),
+             m_serializer(serializer), m_pool(2097152, 320), m_blocks(m_table->m_data.size()),
+             m_iterator(new CopyOnWriteIterator(table)),
+             m_maxTupleLength(serializer->getMaxSerializedTupleSize(table->schema())),
+             m_tuple(table->schema()), m_finishedTableScan(false), m_partitionId(partitionId),
+             m_tuplesSerialized(0), m_delta(true), m_deltaBlocks(deltaBlocks),
+             m_serializedBlocks(deltaBlocks.size(), false), m_backedUpPosition(0),
+             m_hasPendingTuple(false), m_pendingBlock(-1), m_nextEmptyBlock(0) {
+    assert(m_deltaBlocks.size() == m_table->m_data.size());
+    initializeBlocks();
+}
+
+void CopyOnWriteContext::initializeBlocks() {
+    Table *table = m_table;
     for (int ii = 0; ii < table->m_data.size(); ii++) {
 #ifdef MEMCHECK
         BlockPair p;
@@ -89,6 +116,9 @@ CopyOnWriteContext::CopyOnWriteContext(Table *table, TupleSerializer *serializer
 }
 
 bool CopyOnWriteContext::serializeMore(ReferenceSerializeOutput *out) {
+    if (m_delta) {
+        return serializeMoreDelta(out);
+    }
     boost::crc_32_type crc;
     boost::crc_32_type partitionIdCRC;
     out->writeInt(m_partitionId);
@@ -210,6 +240,9 @@ void CopyOnWriteContext::markTupleDirty(TableTuple tuple, bool newTuple) {
          */
         if (!newTuple) {
             m_backedUpTuples->insertTupleNonVirtualWithDeepCopy(tuple, &m_pool);
+            if (m_delta) {
+                m_backedUpBlocks.push_back(blockIndex);
+            }
         }
     } else {
         tuple.setDirtyFalse();
@@ -217,6 +250,149 @@ void CopyOnWriteContext::markTupleDirty(TableTuple tuple, bool newTuple) {
     }
 }
 
+/**
+ * Delta chunks hold the tuples of a single block. The chunk format matches a regular
+ * snapshot chunk except that the block index and the number of blocks the table had when
+ * the stream was activated are written in front of the trailing row count. A block index
+ * of -1 marks the last chunk of the stream.
+ */
+bool CopyOnWriteContext::serializeMoreDelta(ReferenceSerializeOutput *out) {
+    boost::crc_32_type crc;
+    boost::crc_32_type partitionIdCRC;
+    out->writeInt(m_partitionId);
+    partitionIdCRC.process_bytes(out->data() + out->position() - 4, 4);
+    out->writeInt(partitionIdCRC.checksum());
+    const std::size_t crcPosition = out->reserveBytes(4);//For CRC
+    int rowsSerialized = 0;
+
+    const std::size_t required = m_maxTupleLength + TUPLE_HEADER_SIZE + DELTA_TRAILER_SIZE;
+    if (out->remaining() < required) {
+        throwFatalException("Serialize more should never be called "
+                "a 2nd time after return indicating there is no more data");
+    }
+
+    int32_t chunkBlock = -1;
+    bool exhausted = false;
+    TableTuple tuple(m_table->schema());
+    while (out->remaining() >= required) {
+        int32_t blockIndex;
+        if (m_hasPendingTuple) {
+            blockIndex = m_pendingBlock;
+            tuple.move(m_tuple.address());
+            m_hasPendingTuple = false;
+        } else if (!nextDeltaTuple(tuple, blockIndex)) {
+            exhausted = true;
+            break;
+        }
+
+        if (chunkBlock == -1) {
+            chunkBlock = blockIndex;
+        } else if (chunkBlock != blockIndex) {
+            /**
+             * The tuple belongs in the next chunk. Tuples returned by the table scan can change
+             * once the scan has moved past them, so those are backed up. Backed up tuples
+             * are stable and are simply held on to.
+             */
+            if (!m_finishedTableScan) {
+                m_backedUpTuples->insertTupleNonVirtualWithDeepCopy(tuple, &m_pool);
+                m_backedUpBlocks.push_back(blockIndex);
+            } else {
+                m_tuple.move(tuple.address());
+                m_pendingBlock = blockIndex;
+                m_hasPendingTuple = true;
+            }
+            break;
+        }
+
+        const std::size_t tupleStartPosition = out->position();
+        m_serializer->serializeTo( tuple, out);
+        const std::size_t tupleEndPosition = out->position();
+        crc.process_block(out->data() + tupleStartPosition, out->data() + tupleEndPosition);
+        m_tuplesSerialized++;
+        rowsSerialized++;
+    }
+
+    bool hasMore = true;
+    if (exhausted && rowsSerialized == 0) {
+        /**
+         * All tuples are out. Blocks in the delta that ended up without any tuples get an
+         * empty chunk, then the stream ends with the marker chunk.
+         */
+        while (m_nextEmptyBlock < m_deltaBlocks.size() &&
+               (!m_deltaBlocks[m_nextEmptyBlock] || m_serializedBlocks[m_nextEmptyBlock])) {
+            m_nextEmptyBlock++;
+        }
+        if (m_nextEmptyBlock < m_deltaBlocks.size()) {
+            chunkBlock = static_cast<int32_t>(m_nextEmptyBlock++);
+        } else {
+            chunkBlock = -1;
+            hasMore = false;
+        }
+    }
+    if (chunkBlock != -1) {
+        m_serializedBlocks[chunkBlock] = true;
+    }
+
+    const std::size_t trailerStartPosition = out->position();
+    out->writeInt(chunkBlock);
+    out->writeInt(static_cast<int32_t>(m_deltaBlocks.size()));
+    out->writeInt(rowsSerialized);
+    crc.process_block(out->data() + trailerStartPosition, out->data() + out->position());
+    out->writeIntAt(crcPosition, crc.checksum());
+    return hasMore;
+}
+
+bool CopyOnWriteContext::nextDeltaTuple(TableTuple &tuple, int32_t &blockIndex) {
+    while (!m_finishedTableScan) {
+        if (!m_iterator->next(tuple)) {
+            /**
+             * Group the backed up tuples by block so that each block is serialized in as few
+             * chunks as possible. Positions in the temp table follow insertion order.
+             */
+            m_finishedTableScan = true;
+            m_backedUpOrder.reserve(m_backedUpBlocks.size());
+            for (int32_t ii = 0; ii < m_backedUpBlocks.size(); ii++) {
+                if (m_deltaBlocks[m_backedUpBlocks[ii]]) {
+                    m_backedUpOrder.push_back(std::pair<int32_t, int32_t>(m_backedUpBlocks[ii], ii));
+                }
+            }
+            std::stable_sort(m_backedUpOrder.begin(), m_backedUpOrder.end());
+            break;
+        }
+        const int32_t scanBlock =
+                static_cast<int32_t>(reinterpret_cast<CopyOnWriteIterator*>(m_iterator.get())->m_blockIndex);
+        if (m_deltaBlocks[scanBlock]) {
+            blockIndex = scanBlock;
+            return true;
+        }
+    }
+
+    if (m_backedUpPosition < m_backedUpOrder.size()) {
+        const std::pair<int32_t, int32_t> &entry = m_backedUpOrder[m_backedUpPosition++];
+        Table *backedUp = m_backedUpTuples.get();
+        tuple.move(backedUp->dataPtrForTuple(entry.second));
+        blockIndex = entry.first;
+        return true;
+    }
+    return false;
+}
+
+void CopyOnWriteContext::serializeDeltaMarker(ReferenceSerializeOutput *out, int32_t partitionId,
+                                              int32_t blockIndex, int32_t blockCount) {
+    boost::crc_32_type crc;
+    boost::crc_32_type partitionIdCRC;
+    out->writeInt(partitionId);
+    partitionIdCRC.process_bytes(out->data() + out->position() - 4, 4);
+    out->writeInt(partitionIdCRC.checksum());
+    const std::size_t crcPosition = out->reserveBytes(4);//For CRC
+    const std::size_t trailerStartPosition = out->position();
+    out->writeInt(blockIndex);
+    out->writeInt(blockCount);
+    out->writeInt(0);
+    crc.process_block(out->data() + trailerStartPosition, out->data() + out->position());
+    out->writeIntAt(crcPosition, crc.checksum());
+}
+
 CopyOnWriteContext::~CopyOnWriteContext() {}
 
 }
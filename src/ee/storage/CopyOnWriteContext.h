@@ -50,6 +50,24 @@ public:
      */
     CopyOnWriteContext(Table *m_table, TupleSerializer *m_serializer, int32_t partitionId);
 
+    /**
+     * Construct a copy on write context that only serializes the tuples stored in the blocks
+     * flagged in deltaBlocks (indexed by the block's position in the table's block list). Every
+     * chunk produced by a delta context holds the tuples of exactly one block and carries a
+     * trailer identifying that block. Blocks that are flagged but hold no tuples are emitted as
+     * empty chunks so that a restore knows they were emptied.
+     */
+    CopyOnWriteContext(Table *m_table, TupleSerializer *m_serializer, int32_t partitionId,
+                       const std::vector<bool> &deltaBlocks);
+
+    /**
+     * Serialize the final chunk of a delta stream that carries no tuples and only records the
+     * number of blocks the table had when the stream was activated. Used directly by the table
+     * when a delta is requested for a table that holds no tuples.
+     */
+    static void serializeDeltaMarker(ReferenceSerializeOutput *out, int32_t partitionId,
+                                     int32_t blockIndex, int32_t blockCount);
+
     /**
      * Serialize tuples to the provided output until no more tuples can be serialized. Returns true
      * if there are more tuples to serialize and false otherwise.
@@ -68,6 +86,16 @@ public:
     virtual ~CopyOnWriteContext();
 
 private:
+    void initializeBlocks();
+
+    bool serializeMoreDelta(ReferenceSerializeOutput *out);
+
+    /**
+     * Find the next tuple that belongs to a block included in the delta. Tuples are returned
+     * from the table scan first and then from the backed up tuples grouped by block.
+     */
+    bool nextDeltaTuple(TableTuple &tuple, int32_t &blockIndex);
+
     /**
      * Table being copied
      */
@@ -112,6 +140,44 @@ private:
     const int32_t m_partitionId;
 
     int32_t m_tuplesSerialized;
+
+    /**
+     * Whether only the blocks flagged in m_deltaBlocks are serialized
+     */
+    const bool m_delta;
+
+    /**
+     * Blocks (by original index) that are part of the delta
+     */
+    std::vector<bool> m_deltaBlocks;
+
+    /**
+     * Blocks (by original index) that have had at least one chunk serialized
+     */
+    std::vector<bool> m_serializedBlocks;
+
+    /**
+     * Original block index of every tuple in m_backedUpTuples, by insertion order
+     */
+    std::vector<int32_t> m_backedUpBlocks;
+
+    /**
+     * Backed up tuples as (block index, temp table position) sorted by block once the
+     * table scan has finished
+     */
+    std::vector<std::pair<int32_t, int32_t> > m_backedUpOrder;
+    std::size_t m_backedUpPosition;
+
+    /**
+     * Backed up tuple that belongs to the block after the one serialized in the last chunk
+     */
+    bool m_hasPendingTuple;
+    int32_t m_pendingBlock;
+
+    /**
+     * Next block to check for an empty chunk once all tuples have been serialized
+     */
+    std::size_t m_nextEmptyBlock;
 };
 
 }
@@ -97,7 +97,7 @@ PersistentTable::PersistentTable(ExecutorContext *ctx, bool exportEnabled) :
     Table(TABLE_BLOCKSIZE), m_executorContext(ctx), m_uniqueIndexes(NULL), m_uniqueIndexCount(0), m_allowNulls(NULL),
     m_indexes(NULL), m_indexCount(0), m_pkeyIndex(NULL), m_wrapper(NULL),
     m_tsSeqNo(0), stats_(this), m_exportEnabled(exportEnabled),
-    m_COWContext(NULL)
+    m_COWContext(NULL), m_pendingDeltaMarker(false), m_pendingDeltaPartitionId(0)
 {
 
 #ifdef ANTICACHE
@@ -271,6 +271,7 @@ bool PersistentTable::evictBlockToDisk(const long block_size) {
         //memcpy(serialized_data + serialized_data_length, tuple.address(), tuple_length);
         
         // At this point it's safe for us to delete this mofo
+        markBlockDirty(tuple.address());
         deleteTupleStorage(tuple);
         num_tuples_evicted++;
         VOLT_DEBUG("Added new evicted %s tuple to block #%d [numEvicted=%d]",
@@ -353,6 +354,7 @@ bool PersistentTable::mergeUnevictedTuples()
             // get a free tuple and increment the count of tuples current used
             nextFreeTuple(&m_tmpTarget1);
             m_tupleCount++;
+            markBlockDirty(m_tmpTarget1.address());
             
             m_tmpTarget1.setEvictedFalse(); 
             
@@ -468,6 +470,7 @@ bool PersistentTable::insertTuple(TableTuple &source) {
      * is on have it decide. COW should always set the dirty to false unless the
      * tuple is in a to be scanned area.
      */
+    markBlockDirty(m_tmpTarget1.address());
     if (m_COWContext.get() != NULL) {
         m_COWContext->markTupleDirty(m_tmpTarget1, true);
     } else {
@@ -560,6 +563,7 @@ void PersistentTable::insertTupleForUndo(TableTuple &source, size_t wrapperOffse
      * otherwise two copies will appear. The one reintroduced by the undo action and the copy made when the tuple
      * was originally deleted.
      */
+    markBlockDirty(m_tmpTarget1.address());
     if (m_COWContext.get() != NULL) {
         m_COWContext->markTupleDirty(m_tmpTarget1, true);
     } else {
@@ -608,6 +612,7 @@ bool PersistentTable::updateTuple(TableTuple &source, TableTuple &target, bool u
        new (pool->allocate(sizeof(voltdb::PersistentTableUndoUpdateAction)))
        voltdb::PersistentTableUndoUpdateAction(target, this, pool);
 
+     markBlockDirty(target.address());
      if (m_COWContext.get() != NULL) {
          m_COWContext->markTupleDirty(target, false);
      }
@@ -708,6 +713,7 @@ void PersistentTable::updateTupleForUndo(TableTuple &source, TableTuple &target,
     //quantum.
     TableTuple targetBackup = tempTuple();
     targetBackup.copy(target);
+    markBlockDirty(target.address());
 
     bool dirty = target.isDirty();
     // this is the actual in-place revert to the old version
@@ -754,6 +760,7 @@ bool PersistentTable::deleteTuple(TableTuple &target, bool deleteAllocatedString
     /**
      * A user initiated delete needs to have the tuple "marked dirty" so that the copy is made.
      */
+    markBlockDirty(target.address());
     if (m_COWContext.get() != NULL) {
         m_COWContext->markTupleDirty(target, false);
     }
@@ -819,6 +826,8 @@ void PersistentTable::deleteTupleForUndo(voltdb::TableTuple &tupleCopy, size_t w
             m_nonInlinedMemorySize -= tupleCopy.getNonInlinedMemorySize();
         }
 
+        markBlockDirty(target.address());
+
         // Delete the strings/objects
         target.freeObjectColumns();
         deleteTupleStorage(target);
@@ -1023,6 +1032,8 @@ void PersistentTable::processLoadedTuple(bool allowExport, TableTuple &tuple) {
 	eviction_manager->updateTuple(this, &m_tmpTarget1, true); 
 #endif
 	
+    markBlockDirty(m_tmpTarget1.address());
+
     // handle any materialized views
     for (int i = 0; i < m_views.size(); i++) {
         m_views[i]->processTupleInsert(m_tmpTarget1);
@@ -1117,10 +1128,30 @@ voltdb::TableStats* PersistentTable::getTableStats() {
 /**
  * Switch the table to copy on write mode. Returns true if the table was already in copy on write mode.
  */
-bool PersistentTable::activateCopyOnWrite(TupleSerializer *serializer, int32_t partitionId) {
-    if (m_COWContext != NULL) {
+bool PersistentTable::activateCopyOnWrite(TupleSerializer *serializer, int32_t partitionId,
+                                          TableStreamType streamType) {
+    if (m_COWContext != NULL || m_pendingDeltaMarker) {
         return true;
     }
+    if (streamType == TABLE_STREAM_SNAPSHOT_DELTA || streamType == TABLE_STREAM_SNAPSHOT_DELTA_BASE) {
+        std::vector<bool> deltaBlocks(m_data.size(), true);
+        if (streamType == TABLE_STREAM_SNAPSHOT_DELTA) {
+            for (int ii = 0; ii < m_dirtyBlocks.size() && ii < deltaBlocks.size(); ii++) {
+                deltaBlocks[ii] = m_dirtyBlocks[ii];
+            }
+        }
+        // Start tracking modifications for the next delta
+        m_dirtyBlocks.assign(m_data.size(), false);
+        rebuildSortedBlocks();
+
+        if (m_tupleCount == 0) {
+            m_pendingDeltaMarker = true;
+            m_pendingDeltaPartitionId = partitionId;
+            return false;
+        }
+        m_COWContext.reset(new CopyOnWriteContext( this, serializer, partitionId, deltaBlocks));
+        return false;
+    }
     if (m_tupleCount == 0) {
         return false;
     }
@@ -1128,12 +1159,30 @@ bool PersistentTable::activateCopyOnWrite(TupleSerializer *serializer, int32_t p
     return false;
 }
 
+void PersistentTable::rebuildSortedBlocks() {
+    m_sortedBlocks.clear();
+    m_sortedBlocks.reserve(m_data.size());
+    for (int ii = 0; ii < m_data.size(); ii++) {
+        if (m_data[ii] != NULL) {
+            m_sortedBlocks.push_back(std::pair<const char*, int32_t>(m_data[ii], ii));
+        }
+    }
+    std::sort(m_sortedBlocks.begin(), m_sortedBlocks.end());
+}
+
 /**
  * Attempt to serialize more tuples from the table to the provided output stream.
  * Returns true if there are more tuples and false if there are no more tuples waiting to be
  * serialized.
  */
 bool PersistentTable::serializeMore(ReferenceSerializeOutput *out) {
+    if (m_pendingDeltaMarker) {
+        // Nothing to stream but the restore still needs to learn that the table is empty
+        m_pendingDeltaMarker = false;
+        CopyOnWriteContext::serializeDeltaMarker(out, m_pendingDeltaPartitionId, -1,
+                                                 static_cast<int32_t>(m_data.size()));
+        return false;
+    }
     if (m_COWContext == NULL) {
         return false;
     }
@@ -46,6 +46,8 @@
 #ifndef HSTOREPERSISTENTTABLE_H
 #define HSTOREPERSISTENTTABLE_H
 
+#include <algorithm>
+#include <limits>
 #include <string>
 #include <vector>
 #include "boost/shared_ptr.hpp"
@@ -201,8 +203,12 @@ class PersistentTable : public Table {
 
     /**
      * Switch the table to copy on write mode. Returns true if the table was already in copy on write mode.
+     * A TABLE_STREAM_SNAPSHOT_DELTA stream only serializes the blocks that were modified since the
+     * previous delta stream of this table, a TABLE_STREAM_SNAPSHOT_DELTA_BASE stream serializes every
+     * block. Both restart the tracking of modified blocks.
      */
-    bool activateCopyOnWrite(TupleSerializer *serializer, int32_t partitionId);
+    bool activateCopyOnWrite(TupleSerializer *serializer, int32_t partitionId,
+                             TableStreamType streamType = TABLE_STREAM_SNAPSHOT);
 
     /**
      * Create a recovery stream for this table. Returns true if the table already has an active recovery stream
@@ -291,6 +297,13 @@ protected:
     bool tryUpdateOnAllIndexes(TableTuple &targetTuple, const TableTuple &sourceTuple);
 
     bool checkNulls(TableTuple &tuple) const;
+
+    /**
+     * Record that the block holding the tuple at the given address was modified
+     * since the last delta snapshot stream.
+     */
+    void markBlockDirty(const char *address);
+    void rebuildSortedBlocks();
     
     size_t appendToELBuffer(TableTuple &tuple, int64_t seqNo, TupleStreamWrapper::Type type);
 
@@ -359,10 +372,42 @@ protected:
     // Snapshot stuff
     boost::scoped_ptr<CopyOnWriteContext> m_COWContext;
 
+    // Blocks (by index in m_data) modified since the last delta snapshot stream.
+    // Blocks past the end of the vector were allocated afterwards and are always dirty.
+    std::vector<bool> m_dirtyBlocks;
+
+    // Block start addresses sorted for lookup by markBlockDirty, paired with the block index
+    std::vector<std::pair<const char*, int32_t> > m_sortedBlocks;
+
+    // Delta stream of an empty table that still has to emit its marker chunk
+    bool m_pendingDeltaMarker;
+    int32_t m_pendingDeltaPartitionId;
+
     //Recovery stuff
     boost::scoped_ptr<RecoveryContext> m_recoveryContext;
 };
 
+inline void PersistentTable::markBlockDirty(const char *address) {
+    // Nothing has been streamed as a delta yet so every block is already dirty
+    if (m_dirtyBlocks.empty()) {
+        return;
+    }
+    if (m_sortedBlocks.size() != m_data.size()) {
+        rebuildSortedBlocks();
+    }
+    std::vector<std::pair<const char*, int32_t> >::const_iterator i =
+        std::upper_bound(m_sortedBlocks.begin(), m_sortedBlocks.end(),
+                         std::pair<const char*, int32_t>(address, std::numeric_limits<int32_t>::max()));
+    if (i == m_sortedBlocks.begin()) {
+        return;
+    }
+    --i;
+    if (address < i->first + (m_tupleLength * m_tuplesPerBlock) &&
+        i->second < static_cast<int32_t>(m_dirtyBlocks.size())) {
+        m_dirtyBlocks[i->second] = true;
+    }
+}
+
 inline TableTuple& PersistentTable::getTempTupleInlined(TableTuple &source) {
     assert (m_tempTuple.m_data);
     m_tempTuple.copy(source);
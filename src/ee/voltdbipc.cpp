@@ -662,7 +662,6 @@ void VoltDBIPC::executeCustomPlanFragmentAndGetResults(struct ipc_command *cmd)
 
     // setup
     m_engine->resetReusedResultOutputBuffer();
-    m_engine->setUsedParamcnt(0);
     m_engine->setUndoToken(ntohll(plan->undoToken));
 
     // data as fast serialized string
@@ -673,11 +672,27 @@ void VoltDBIPC::executeCustomPlanFragmentAndGetResults(struct ipc_command *cmd)
     int32_t outputDepId = ntohl(plan->outputDepId);
     int32_t inputDepId = ntohl(plan->inputDepId);
 
-    // execute
-    if (m_engine->executePlanFragment(plan_str, outputDepId, inputDepId,
-                                      ntohll(plan->txnId),
-                                      ntohll(plan->lastCommittedTxnId))) {
-        ++errors;
+    // ...and fast serialized parameter set after the plan
+    NValueArray &params = m_engine->getParameterContainer();
+    void* offset = plan->data + len;
+    int sz = static_cast<int> (ntohl(cmd->msgsize) - sizeof(customplanfrag) - len);
+    ReferenceSerializeInput serialize_in(offset, sz);
+
+    try {
+        int cnt = serialize_in.readShort();
+        assert(cnt> -1);
+        Pool *pool = m_engine->getStringPool();
+        deserializeParameterSetCommon(cnt, serialize_in, params, pool);
+        m_engine->setUsedParamcnt(cnt);
+
+        // execute
+        if (m_engine->executePlanFragment(plan_str, outputDepId, inputDepId, params,
+                                          ntohll(plan->txnId),
+                                          ntohll(plan->lastCommittedTxnId))) {
+            ++errors;
+        }
+    } catch (FatalException e) {
+        crashVoltDB(e);
     }
 
     // write the results array back across the wire
@@ -586,11 +586,17 @@ Java_org_voltdb_jni_ExecutionEngine_nativeExecuteCustomPlanFragment (
     string cppplan = str;
     env->ReleaseStringUTFChars(plan, str);
 
-    // execute
-    engine->setUsedParamcnt(0);
-    retval = engine->executePlanFragment(cppplan, outputDependencyId,
-                                         inputDependencyId, txnId,
-                                         lastCommittedTxnId);
+    // execute with the (possibly empty) parameter set of a cached ad hoc plan
+    try {
+        NValueArray &params = engine->getParameterContainer();
+        const int paramcnt = deserializeParameterSet(engine->getParameterBuffer(), engine->getParameterBufferCapacity(), params, stringPool);
+        engine->setUsedParamcnt(paramcnt);
+        retval = engine->executePlanFragment(cppplan, outputDependencyId,
+                                             inputDependencyId, params, txnId,
+                                             lastCommittedTxnId);
+    } catch (FatalException e) {
+        static_cast<JNITopend*>(engine->getTopend())->crashVoltDB(e);
+    }
 
     // cleanup
     stringPool->purge();
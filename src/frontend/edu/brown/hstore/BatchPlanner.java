@@ -27,15 +27,12 @@ package edu.brown.hstore;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
@@ -62,7 +59,6 @@ import edu.brown.statistics.Histogram;
 import edu.brown.utils.PartitionEstimator;
 import edu.brown.utils.PartitionSet;
 import edu.brown.utils.StringUtil;
-import edu.uci.ics.jung.graph.DirectedSparseMultigraph;
 
 /**
  * @author pavlo
@@ -114,18 +110,23 @@ public class BatchPlanner {
     private final int num_partitions;
     // private int last_id = FIRST_DEPENDENCY_ID;
     private BatchPlan plan;
-    private final Map<Integer, PlanGraph> plan_graphs = new HashMap<Integer, PlanGraph>();
-    private final Map<Integer, WorkFragment.Builder> round_builders = new HashMap<Integer, WorkFragment.Builder>();
+    
+    /**
+     * The compiled PlanTemplates for each batch shape that we have seen so far.
+     * There are only ever a handful of these per batch, so we just scan the list.
+     */
+    private final List<PlanTemplate> plan_templates = new ArrayList<PlanTemplate>();
+    
+    /**
+     * (Partition# * MaxGroups + Group#) -> WorkFragment.Builder for the current round
+     */
+    private WorkFragment.Builder round_builders[] = new WorkFragment.Builder[0];
 
     private final boolean enable_unique_ids;
     private final boolean enable_caching;
     private final boolean force_singlePartition;
     private boolean prefetch = false;
 
-    private final Map<Integer, Set<PlanVertex>> output_dependency_xref = new HashMap<Integer, Set<PlanVertex>>();
-    private final List<Integer> output_dependency_xref_clear = new ArrayList<Integer>();
-    private final List<PlanVertex> sorted_vertices = new ArrayList<PlanVertex>();
-
     // FAST SINGLE-PARTITION LOOKUP CACHE
     private final int cache_fastLookups[][];
     private final BatchPlan cache_singlePartitionPlans[];
@@ -136,7 +137,7 @@ public class BatchPlanner {
     private BatchPlannerProfiler profiler;
 
     // ----------------------------------------------------------------------------
-    // INTERNAL PLAN GRAPH ELEMENTS
+    // INTERNAL PLAN TEMPLATE ELEMENTS
     // ----------------------------------------------------------------------------
 
     protected static class PlanVertex { // extends AbstractVertex {
@@ -182,25 +183,99 @@ public class BatchPlanner {
         }
     } // END CLASS
 
-    protected static class PlanGraph extends DirectedSparseMultigraph<PlanVertex, Integer> {
-        private static final long serialVersionUID = 1L;
+    /**
+     * A PlanTemplate is the compiled form of all the PlanFragments that we need to execute
+     * for a batch with a particular shape (i.e., which Statements are single-partitioned).
+     * Everything is stored in flat arrays so that instantiating a BatchPlan from it is just
+     * a matter of looking up what partitions each PlanFragment needs to go to.
+     */
+    protected static class PlanTemplate {
+        /**
+         * StmtIndex -> Whether the Statement was single-partitioned
+         */
+        private final boolean singlepartition_bitmap[];
 
         /**
          * The number of dispatch rounds that we have in this plan
          */
-        private int num_rounds = 0;
-        
-        private PlanVertex sorted_vertices[];
+        private final int num_rounds;
 
         /**
-         * Single-Partition
+         * All of the PlanVertices sorted by StmtIndex, Round, FragmentId
          */
-        private long fragmentIds[];
-        private int input_ids[];
-        private int output_ids[];
+        private final PlanVertex sorted_vertices[];
+        private final long fragmentIds[];
+        private final int input_ids[];
+        private final int output_ids[];
 
-        public PlanGraph() {
-            // super(catalog_db);
+        /**
+         * Round# -> Offsets of the PlanVertices in that round
+         */
+        private final int round_vertices[][];
+
+        /**
+         * Offset -> The WorkFragment (out of the ones for the same partition in the
+         * PlanVertex's round) that the PlanVertex gets grouped into. All of the
+         * PlanVertices in a round with the same input dependency go in the same group.
+         */
+        private final int vertex_groups[];
+        
+        /**
+         * The largest number of groups in any single round
+         */
+        private final int max_groups;
+
+        private PlanTemplate(boolean singlepartition_bitmap[], List<PlanVertex> vertices, int num_rounds) {
+            this.singlepartition_bitmap = singlepartition_bitmap;
+            this.num_rounds = num_rounds;
+            this.sorted_vertices = vertices.toArray(new PlanVertex[vertices.size()]);
+
+            final int num_vertices = this.sorted_vertices.length;
+            this.fragmentIds = new long[num_vertices];
+            this.input_ids = new int[num_vertices];
+            this.output_ids = new int[num_vertices];
+            this.vertex_groups = new int[num_vertices];
+            int round_sizes[] = new int[num_rounds];
+            for (int i = 0; i < num_vertices; i++) {
+                PlanVertex v = this.sorted_vertices[i];
+                this.fragmentIds[i] = v.frag_id;
+                this.input_ids[i] = v.input_dependency_id;
+                this.output_ids[i] = v.output_dependency_id;
+                round_sizes[v.round]++;
+            } // FOR
+
+            this.round_vertices = new int[num_rounds][];
+            int max_groups = 0;
+            for (int round = 0; round < num_rounds; round++) {
+                this.round_vertices[round] = new int[round_sizes[round]];
+                List<Integer> round_inputs = new ArrayList<Integer>();
+                int idx = 0;
+                for (int i = 0; i < num_vertices; i++) {
+                    PlanVertex v = this.sorted_vertices[i];
+                    if (v.round != round) continue;
+                    this.round_vertices[round][idx++] = i;
+                    int group = round_inputs.indexOf(v.input_dependency_id);
+                    if (group == -1) {
+                        group = round_inputs.size();
+                        round_inputs.add(v.input_dependency_id);
+                    }
+                    this.vertex_groups[i] = group;
+                } // FOR
+                max_groups = Math.max(max_groups, round_inputs.size());
+            } // FOR
+            this.max_groups = max_groups;
+        }
+        
+        public int getRoundCount() {
+            return (this.num_rounds);
+        }
+        
+        public PlanVertex[] getVertices() {
+            return (this.sorted_vertices);
+        }
+        
+        public int[] getRoundVertices(int round) {
+            return (this.round_vertices[round]);
         }
     } // END CLASS
 
@@ -218,16 +293,12 @@ public class BatchPlanner {
         private boolean cached = false;
 
         private int base_partition = HStoreConstants.NULL_PARTITION_ID;
-        private PlanGraph graph;
+        private PlanTemplate template;
         private MispredictionException mispredict;
 
         /** Temporary buffer space for sorting the PlanFragments per Statement */
         private final List<PlanFragment> frag_list[];
 
-        /** Round# -> Map{PartitionId, Set{PlanFragments}} **/
-        private final Collection<PlanVertex> rounds[][];
-        private int rounds_length;
-
         /**
          * StmtIndex -> Target Partition Ids
          */
@@ -265,18 +336,8 @@ public class BatchPlanner {
          * Default Constructor Must call init() before this BatchPlan can be used
          */
         @SuppressWarnings("unchecked")
-        public BatchPlan(int max_round_size) {
+        public BatchPlan() {
             int batch_size = BatchPlanner.this.batchSize;
-            int num_partitions = BatchPlanner.this.num_partitions;
-
-            // Round Data
-            this.rounds = (Collection<PlanVertex>[][]) new Collection<?>[max_round_size][];
-            for (int i = 0; i < this.rounds.length; i++) {
-                this.rounds[i] = (Collection<PlanVertex>[]) new Collection<?>[num_partitions];
-                for (int ii = 0; ii < num_partitions; ii++) {
-                    this.rounds[i][ii] = new ArrayList<PlanVertex>();
-                } // FOR
-            } // FOR
 
             // Batch Data
             this.frag_list = (List<PlanFragment>[]) new List<?>[batch_size];
@@ -317,11 +378,6 @@ public class BatchPlanner {
                 // } // FOR
                 // }
             } // FOR
-            for (int i = 0; i < this.rounds.length; i++) {
-                for (int ii = 0; ii < this.rounds[i].length; ii++) {
-                    this.rounds[i][ii].clear();
-                } // FOR
-            } // FOR
 
             return (this);
         }
@@ -330,8 +386,8 @@ public class BatchPlanner {
             return (BatchPlanner.this);
         }
 
-        protected PlanGraph getPlanGraph() {
-            return (this.graph);
+        protected PlanTemplate getPlanTemplate() {
+            return (this.template);
         }
 
         public boolean hasMisprediction() {
@@ -343,7 +399,7 @@ public class BatchPlanner {
         }
 
         public void getWorkFragmentsBuilders(Long txn_id, List<WorkFragment.Builder> builders) {
-            BatchPlanner.this.createWorkFragmentsBuilders(txn_id, this, graph, builders);
+            BatchPlanner.this.createWorkFragmentsBuilders(txn_id, this, this.template, builders);
         }
 
         public int getBatchSize() {
@@ -351,19 +407,19 @@ public class BatchPlanner {
         }
 
         public int getFragmentCount() {
-            return (this.graph.fragmentIds.length);
+            return (this.template.fragmentIds.length);
         }
 
         public long[] getFragmentIds() {
-            return (this.graph.fragmentIds);
+            return (this.template.fragmentIds);
         }
 
         public int[] getOutputDependencyIds() {
-            return (this.graph.output_ids);
+            return (this.template.output_ids);
         }
 
         public int[] getInputDependencyIds() {
-            return (this.graph.input_ids);
+            return (this.template.input_ids);
         }
 
         /**
@@ -456,7 +512,7 @@ public class BatchPlanner {
         this.maxRoundSize = hstore_conf.site.planner_max_round_size;
         this.p_estimator = p_estimator;
         this.hasher = p_estimator.getHasher();
-        this.plan = new BatchPlan(this.maxRoundSize);
+        this.plan = new BatchPlan();
         this.enable_caching = hstore_conf.site.planner_caching;
         this.force_singlePartition = forceSinglePartition;
         this.enable_unique_ids = hstore_conf.site.planner_unique_dependency_ids;
@@ -921,17 +977,20 @@ public class BatchPlanner {
             }
         } // FOR (Statement)
 
-        // Check whether we have an existing graph exists for this batch
-        // configuration
-        // This is the only place where we need to synchronize
-        int bitmap_hash = Arrays.hashCode(plan.singlepartition_bitmap);
-        PlanGraph graph = this.plan_graphs.get(bitmap_hash);
-        if (graph == null) { // assume fast case
-            graph = this.buildPlanGraph(plan);
-            this.plan_graphs.put(bitmap_hash, graph);
+        // Check whether we have already compiled a PlanTemplate for this batch configuration
+        PlanTemplate template = null;
+        for (int i = 0, cnt = this.plan_templates.size(); i < cnt; i++) {
+            PlanTemplate t = this.plan_templates.get(i);
+            if (Arrays.equals(t.singlepartition_bitmap, plan.singlepartition_bitmap)) {
+                template = t;
+                break;
+            }
+        } // FOR
+        if (template == null) { // assume fast case
+            template = this.compilePlanTemplate(plan);
+            this.plan_templates.add(template);
         }
-        plan.graph = graph;
-        plan.rounds_length = graph.num_rounds;
+        plan.template = template;
 
         if (hstore_conf.site.planner_profiling && profiler != null)
             profiler.plan_time.stop();
@@ -954,7 +1013,7 @@ public class BatchPlanner {
                  this.plan.isSingledPartitionedAndLocal()) {
             this.cache_singlePartitionPlans[base_partition] = plan;
             this.plan.cached = true;
-            this.plan = new BatchPlan(this.maxRoundSize);
+            this.plan = new BatchPlan();
             return this.cache_singlePartitionPlans[base_partition];
         }
 
@@ -965,12 +1024,12 @@ public class BatchPlanner {
 
     /**
      * @param plan
-     * @param graph
+     * @param template
      * @param builders
      */
     protected void createWorkFragmentsBuilders(final Long txn_id,
                                                final BatchPlanner.BatchPlan plan,
-                                               final PlanGraph graph,
+                                               final PlanTemplate template,
                                                final List<WorkFragment.Builder> builders) {
 
         if (hstore_conf.site.planner_profiling && profiler != null)
@@ -979,30 +1038,32 @@ public class BatchPlanner {
             LOG.debug(String.format("Constructing list of WorkFragments to execute [txn_id=#%d, base_partition=%d]",
                       txn_id, plan.base_partition));
 
-        for (PlanVertex v : graph.sorted_vertices) {
-            int stmt_index = v.stmt_index;
-            for (Integer partition : plan.frag_partitions[stmt_index].get(v.catalog_frag)) {
-                plan.rounds[v.round][partition.intValue()].add(v);
-            } // FOR
-        } // FOR
+        final int max_groups = template.max_groups;
+        final int num_builders = this.num_partitions * max_groups;
+        if (this.round_builders.length < num_builders) {
+            this.round_builders = new WorkFragment.Builder[num_builders];
+        }
 
         // The main idea of what we're trying to do here is to group together
         // all of the PlanFragments with the same input dependency ids into a single WorkFragment
+        // The template already tells us which group each PlanFragment belongs to in its round,
+        // so all that we need to do here is figure out what partitions they go to.
         if (trace.val)
-            LOG.trace("Generated " + plan.rounds_length + " rounds of tasks for txn #" + txn_id);
-        for (int round = 0; round < plan.rounds_length; round++) {
+            LOG.trace("Generated " + template.num_rounds + " rounds of tasks for txn #" + txn_id);
+        for (int round = 0; round < template.num_rounds; round++) {
             if (trace.val) LOG.trace(String.format("Txn #%d - Round %02d", txn_id, round));
-            for (int partition = 0; partition < this.num_partitions; partition++) {
-                Collection<PlanVertex> vertices = plan.rounds[round][partition];
-                if (vertices.isEmpty()) continue;
+            Arrays.fill(this.round_builders, 0, num_builders, null);
 
-                this.round_builders.clear();
-                for (PlanVertex v : vertices) { // Does this order matter?
+            for (int offset : template.round_vertices[round]) {
+                PlanVertex v = template.sorted_vertices[offset];
+                int group = template.vertex_groups[offset];
+                for (int partition : plan.frag_partitions[v.stmt_index].get(v.catalog_frag).values()) {
                     // Check whether we can use an existing WorkFragment builder
-                    WorkFragment.Builder partitionBuilder = this.round_builders.get(v.input_dependency_id);
+                    int idx = (partition * max_groups) + group;
+                    WorkFragment.Builder partitionBuilder = this.round_builders[idx];
                     if (partitionBuilder == null) {
                         partitionBuilder = WorkFragment.newBuilder().setPartitionId(partition);
-                        this.round_builders.put(v.input_dependency_id, partitionBuilder);
+                        this.round_builders[idx] = partitionBuilder;
                     }
 
                     // Fragment Id
@@ -1036,33 +1097,14 @@ public class BatchPlanner {
                                   partitionBuilder.getFragmentIdCount(),
                                   txn_id, partition, v.frag_id,
                                   v.input_dependency_id, v.output_dependency_id, v.stmt_index));
-                    
-                } // FOR (frag_idx)
-
-                for (WorkFragment.Builder partitionBuilder : this.round_builders.values()) {
-                    if (partitionBuilder.getFragmentIdCount() == 0) {
-                        if (trace.val) {
-                            LOG.warn("For some reason we thought it would be a good idea to construct a WorkFragment with no fragments! [txn_id=#"
-                                    + txn_id + "]");
-                            LOG.warn("In case you were wondering, this is a terrible idea, which is why we didn't do it!");
-                        }
-                        continue;
-                    }
-                    builders.add(partitionBuilder);
-                } // FOR
+                } // FOR (partition)
+            } // FOR (vertex)
 
-                // if (debug.val) {
-                // LOG.debug(String.format("New WorkFragment to run at partition #%d with %d fragments for txn #%d "
-                // +
-                // "[ids=%s, inputs=%s, outputs=%s]",
-                // partition, num_frags, txn_id,
-                // Arrays.toString(frag_ids), Arrays.toString(input_ids),
-                // Arrays.toString(output_ids)));
-                // if (trace.val)
-                // LOG.trace("Fragment Contents: [txn_id=#" + txn_id + "]\n" +
-                // task.toString());
-                // }
-            } // PARTITION
+            for (int idx = 0; idx < num_builders; idx++) {
+                if (this.round_builders[idx] != null) {
+                    builders.add(this.round_builders[idx]);
+                }
+            } // FOR
         } // ROUND
         assert (builders.size() > 0) : "Failed to generate any WorkFragments in this BatchPlan for txn #" + txn_id;
         if (debug.val)
@@ -1072,19 +1114,19 @@ public class BatchPlanner {
     }
 
     /**
-     * Construct
+     * Compile the PlanTemplate for the shape of the given BatchPlan.
+     * This only depends on what PlanFragments each Statement executes, not on
+     * what partitions those PlanFragments go to.
      * 
      * @param plan
      * @return
      */
-    protected PlanGraph buildPlanGraph(BatchPlanner.BatchPlan plan) {
+    protected PlanTemplate compilePlanTemplate(BatchPlanner.BatchPlan plan) {
         if (hstore_conf.site.planner_profiling && profiler != null)
             ProfileMeasurementUtil.swap(profiler.plan_time, profiler.graph_time);
-        PlanGraph graph = new PlanGraph();
-
-        this.sorted_vertices.clear();
-        this.output_dependency_xref_clear.clear();
 
+        List<PlanVertex> vertices = new ArrayList<PlanVertex>();
+        int num_rounds = 0;
         int last_id = FIRST_DEPENDENCY_ID;
         for (int stmt_index = 0; stmt_index < this.batchSize; stmt_index++) {
             Map<PlanFragment, PartitionSet> frag_partitions = plan.frag_partitions[stmt_index];
@@ -1093,7 +1135,7 @@ public class BatchPlanner {
             List<PlanFragment> fragments = plan.frag_list[stmt_index];
             assert (fragments != null);
             int num_fragments = fragments.size();
-            graph.num_rounds = Math.max(num_fragments, graph.num_rounds);
+            num_rounds = Math.max(num_fragments, num_rounds);
 
             // Generate the synthetic DependencyIds for the query
             int last_output_id = HStoreConstants.NULL_DEPENDENCY_ID;
@@ -1104,61 +1146,27 @@ public class BatchPlanner {
                     String.format("No PartitionIds for [%02d] %s in Statement #%d", round,
                                   catalog_frag.fullName(), stmt_index);
                 boolean f_local = (f_partitions.size() == 1 && f_partitions.contains(plan.base_partition));
-                final Integer output_id = Integer.valueOf(this.enable_unique_ids ?
+                final int output_id = (this.enable_unique_ids ?
                             BatchPlanner.NEXT_DEPENDENCY_ID.getAndIncrement() : last_id++);
 
                 PlanVertex v = new PlanVertex(catalog_frag,
                                               stmt_index,
                                               round,
                                               last_output_id,
-                                              output_id.intValue(),
+                                              output_id,
                                               f_local);
-                Set<PlanVertex> dependencies = output_dependency_xref.get(output_id);
-                if (dependencies == null) {
-                    dependencies = new HashSet<PlanVertex>();
-                    this.output_dependency_xref.put(output_id, dependencies);
-                } else if (this.output_dependency_xref_clear.contains(output_id) == false) {
-                    dependencies.clear();
-                    this.output_dependency_xref_clear.add(output_id);
-                }
-                dependencies.add(v);
-
-                graph.addVertex(v);
-                this.sorted_vertices.add(v);
+                vertices.add(v);
                 last_output_id = output_id;
             }
         } // FOR
-
-        // Setup Edges
-        for (PlanVertex v0 : graph.getVertices()) {
-            if (v0.input_dependency_id == HStoreConstants.NULL_DEPENDENCY_ID)
-                continue;
-            for (PlanVertex v1 : output_dependency_xref.get(v0.input_dependency_id)) {
-                assert (!v0.equals(v1)) : v0;
-                if (!graph.findEdgeSet(v0, v1).isEmpty())
-                    continue;
-                graph.addEdge(v0.input_dependency_id, v0, v1);
-            } // FOR
-        } // FOR
-
-        // Single-Partition Cache
-        Collections.sort(this.sorted_vertices, PLANVERTEX_COMPARATOR);
-        final int num_vertices = this.sorted_vertices.size();
-        graph.fragmentIds = new long[num_vertices];
-        graph.input_ids = new int[num_vertices];
-        graph.output_ids = new int[num_vertices];
-        int i = 0;
-        for (PlanVertex v : this.sorted_vertices) {
-            graph.fragmentIds[i] = v.frag_id;
-            graph.output_ids[i] = v.output_dependency_id;
-            graph.input_ids[i] = v.input_dependency_id;
-            i += 1;
-        } // FOR
-        graph.sorted_vertices = this.sorted_vertices.toArray(new PlanVertex[0]);
+        assert (num_rounds <= this.maxRoundSize) :
+            String.format("%s has %d rounds but the max is %d", this.catalog_proc.getName(), num_rounds, this.maxRoundSize);
+        Collections.sort(vertices, PLANVERTEX_COMPARATOR);
+        PlanTemplate template = new PlanTemplate(plan.singlepartition_bitmap.clone(), vertices, num_rounds);
 
         if (hstore_conf.site.planner_profiling && profiler != null)
             ProfileMeasurementUtil.swap(profiler.graph_time, profiler.plan_time);
-        return (graph);
+        return (template);
     }
 
     private static Comparator<PlanVertex> PLANVERTEX_COMPARATOR = new Comparator<PlanVertex>() {
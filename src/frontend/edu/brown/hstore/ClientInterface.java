@@ -28,6 +28,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -561,8 +562,10 @@ public class ClientInterface implements Shutdownable, Configurable {
 
     /**
      * Indicates if backpressure has been seen and reported
+     * Transactions can arrive on several VoltNetwork reactor threads at the same time,
+     * so only the thread that flips this gets to notify the observers.
      */
-    private boolean hadBackPressure = false;
+    private final AtomicBoolean hadBackPressure = new AtomicBoolean(false);
     
     /**
      * The number of times that we've had to block the network connection
@@ -720,7 +723,7 @@ public class ClientInterface implements Shutdownable, Configurable {
     }
     
     public boolean hasBackPressure() {
-        return (this.hadBackPressure);
+        return (this.hadBackPressure.get());
     }
     
     public int getConnectionCount() {
@@ -747,12 +750,11 @@ public class ClientInterface implements Shutdownable, Configurable {
             		  "[BYTES: %d/%d] [TXNS: %d/%d]%s",
                       messageSize,
                       pendingBytes, this.maxPendingTxnBytes, pendingTxns, this.maxPendingTxnCount,
-                      (this.hadBackPressure ? " *THROTTLED*" : "")));
+                      (this.hadBackPressure.get() ? " *THROTTLED*" : "")));
         
         if (pendingBytes > this.maxPendingTxnBytes || pendingTxns > this.maxPendingTxnCount) {
-            if (!this.hadBackPressure) {
+            if (this.hadBackPressure.compareAndSet(false, true)) {
                 if (trace.val) LOG.trace("Incoming txn backpressure began");
-                this.hadBackPressure = true;
                 this.backpressureCounter += 1;
                 this.onBackPressure.notifyObservers(hstore_site);
             }
@@ -767,14 +769,13 @@ public class ClientInterface implements Shutdownable, Configurable {
             		  "[BYTES: %d/%d] [TXNS: %d/%d]%s",
                       messageSize,
                       pendingBytes, this.maxPendingTxnBytes, pendingTxns, this.maxPendingTxnCount,
-                      (hadBackPressure ? " *THROTTLED*" : "")));
+                      (this.hadBackPressure.get() ? " *THROTTLED*" : "")));
         
         if (pendingBytes < (this.maxPendingTxnBytes * this.maxPendingTxnBytesRelease) &&
             pendingTxns < (this.maxPendingTxnCount * this.maxPendingTxnCountRelease))
         {
-            if (this.hadBackPressure) {
+            if (this.hadBackPressure.compareAndSet(true, false)) {
                 if (trace.val) LOG.trace("Incoming txn backpressure ended");
-                this.hadBackPressure = false;
                 this.offBackPressure.notifyObservers(hstore_site);
             }
         }
@@ -0,0 +1,226 @@
+package edu.brown.hstore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.Logger;
+
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.hstore.txns.LocalTransaction;
+import edu.brown.hstore.util.TransactionCounter;
+import edu.brown.interfaces.DebugContext;
+import edu.brown.interfaces.Shutdownable;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.utils.ExceptionHandlingRunnable;
+import edu.brown.utils.ThreadUtil;
+
+/**
+ * Alternative to the HStoreCoordinator's TransactionInit path for distributed txns
+ * whose partitions are all at this HStoreSite. Instead of being added to the
+ * PartitionLockQueues as soon as they arrive, these txns are collected into short
+ * epochs. When a txn arrives we reserve its spot in the lock queues of its partitions,
+ * so that they won't release any txn with a larger id in the meantime. At the end of 
+ * each epoch the txns are sorted by their txn id and added to the lock queues of all
+ * of their partitions in that order, so every partition grants its lock to them in the
+ * same order. Since the epoch is at least as long as the PartitionLockQueue's wait time,
+ * most of that wait overlaps with the time that the txns spent waiting for the epoch to end.
+ * <p>
+ * Txns executed this way only touch partitions at this HStoreSite, so the base
+ * partition is the only one that can decide to abort them. The PartitionExecutor will skip
+ * the prepare round of two-phase commit for these txns and send out the finish right away.
+ */
+public class EpochCoordinator extends ExceptionHandlingRunnable implements Shutdownable {
+    private static final Logger LOG = Logger.getLogger(EpochCoordinator.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    // ----------------------------------------------------------------------------
+    // DATA MEMBERS
+    // ----------------------------------------------------------------------------
+
+    private final HStoreSite hstore_site;
+    private final HStoreConf hstore_conf;
+    private final TransactionQueueManager queueManager;
+    private final int interval;
+    private boolean stop = false;
+
+    /**
+     * Txns that have arrived since the last epoch was closed
+     */
+    private final Queue<LocalTransaction> pending = new ConcurrentLinkedQueue<LocalTransaction>();
+
+    /**
+     * The txns in the epoch that we are currently releasing.
+     * This is only used by the EpochCoordinator's thread.
+     */
+    private final List<LocalTransaction> epoch = new ArrayList<LocalTransaction>();
+
+    private long epochCounter = 0;
+    private long txnCounter = 0;
+
+    // ----------------------------------------------------------------------------
+    // INITIALIZATION
+    // ----------------------------------------------------------------------------
+
+    public EpochCoordinator(HStoreSite hstore_site) {
+        this.hstore_site = hstore_site;
+        this.hstore_conf = hstore_site.getHStoreConf();
+        this.queueManager = hstore_site.getTransactionQueueManager();
+        
+        // The txns' wait in the PartitionLockQueues is only covered by the
+        // epoch if the epoch is at least as long as that wait
+        this.interval = Math.max(hstore_conf.site.exec_epoch_interval, hstore_conf.site.txn_incoming_delay);
+        if (this.interval != hstore_conf.site.exec_epoch_interval) {
+            LOG.warn(String.format("Increasing epoch interval from %d ms to %d ms to match site.txn_incoming_delay",
+                     hstore_conf.site.exec_epoch_interval, this.interval));
+        }
+    }
+
+    // ----------------------------------------------------------------------------
+    // TRANSACTION METHODS
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Returns true if the given txn can be executed in an epoch
+     * @param ts
+     * @return
+     */
+    public boolean canExecute(LocalTransaction ts) {
+        return (hstore_conf.site.exec_epoch_enable &&
+                ts.isPredictSinglePartition() == false &&
+                ts.isPredictAllLocal() &&
+                ts.isSysProc() == false &&
+                ts.isMapReduce() == false);
+    }
+
+    /**
+     * Add the given txn to the current epoch. Its spot in its partitions' lock queues
+     * is reserved right away, but it will only be added to them when the epoch is closed.
+     * Returns false if the txn can't be executed in an epoch or one of its partitions
+     * already released a txn with a larger id. The caller then has to use
+     * the regular TransactionInit path.
+     * @param ts
+     * @return
+     */
+    public boolean transactionQueue(LocalTransaction ts) {
+        if (this.canExecute(ts) == false) return (false);
+        if (this.queueManager.lockQueueReserveAll(ts) == false) {
+            if (debug.val)
+                LOG.debug(String.format("%s - Unable to reserve lock queue spots for txn [partitions=%s]",
+                          ts, ts.getPredictTouchedPartitions()));
+            return (false);
+        }
+        if (trace.val)
+            LOG.trace(String.format("%s - Adding txn to the next epoch [partitions=%s]",
+                      ts, ts.getPredictTouchedPartitions()));
+        ts.markEpochBatched();
+        this.pending.offer(ts);
+        return (true);
+    }
+
+    // ----------------------------------------------------------------------------
+    // RUN METHOD
+    // ----------------------------------------------------------------------------
+
+    @Override
+    public void runImpl() {
+        Thread self = Thread.currentThread();
+        self.setName(HStoreThreadManager.getThreadName(hstore_site, HStoreConstants.THREAD_NAME_EPOCH));
+        this.hstore_site.getThreadManager().registerProcessingThread();
+
+        long nextEpoch = System.currentTimeMillis();
+        while (this.stop == false) {
+            nextEpoch += this.interval;
+            long sleep = nextEpoch - System.currentTimeMillis();
+            if (sleep > 0) {
+                ThreadUtil.sleep(sleep);
+            }
+            // If we fell behind, then don't try to catch up by
+            // releasing a bunch of tiny epochs
+            else {
+                nextEpoch = System.currentTimeMillis();
+            }
+            this.processEpoch();
+        } // WHILE
+    }
+
+    /**
+     * Close the current epoch and add all of its txns to the lock queues.
+     * @return the number of txns that were in the epoch
+     */
+    protected int processEpoch() {
+        LocalTransaction ts = null;
+        while ((ts = this.pending.poll()) != null) {
+            this.epoch.add(ts);
+        } // WHILE
+        int size = this.epoch.size();
+        if (size == 0) return (0);
+
+        // Every partition sees the txns in the same order
+        Collections.sort(this.epoch);
+        if (debug.val)
+            LOG.debug(String.format("Releasing epoch #%d with %d txns [first=%s, last=%s]",
+                      this.epochCounter, size, this.epoch.get(0), this.epoch.get(size-1)));
+        for (int i = 0; i < size; i++) {
+            ts = this.epoch.get(i);
+            this.queueManager.lockQueueInsertAll(ts);
+            this.queueManager.lockQueueReleaseAll(ts);
+            if (hstore_conf.site.txn_counters) TransactionCounter.EPOCH_BATCHED.inc(ts.getProcedure());
+        } // FOR
+        this.epoch.clear();
+        this.epochCounter++;
+        this.txnCounter += size;
+        return (size);
+    }
+
+    // ----------------------------------------------------------------------------
+    // SHUTDOWN METHODS
+    // ----------------------------------------------------------------------------
+
+    @Override
+    public void prepareShutdown(boolean error) {
+        // Nothing to do...
+    }
+
+    @Override
+    public void shutdown() {
+        this.stop = true;
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return (this.stop);
+    }
+
+    // ----------------------------------------------------------------------------
+    // DEBUG METHODS
+    // ----------------------------------------------------------------------------
+
+    public class Debug implements DebugContext {
+        public long getEpochCount() {
+            return (epochCounter);
+        }
+        public long getTransactionCount() {
+            return (txnCounter);
+        }
+        public int getPendingCount() {
+            return (pending.size());
+        }
+    }
+
+    private EpochCoordinator.Debug cachedDebugContext;
+    public EpochCoordinator.Debug getDebugContext() {
+        if (this.cachedDebugContext == null) {
+            // We don't care if we're thread-safe here...
+            this.cachedDebugContext = new EpochCoordinator.Debug();
+        }
+        return this.cachedDebugContext;
+    }
+}
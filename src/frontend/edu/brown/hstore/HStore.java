@@ -163,6 +163,25 @@ public abstract class HStore {
             } else if (debug.val) LOG.warn("The ParameterMappings file '" + path + "' does not exist");
         }
         
+        // ----------------------------------------------------------------------------
+        // Fixed Estimator Workload
+        // ----------------------------------------------------------------------------
+        Workload fixedWorkload = null;
+        if (hstore_conf.site.markov_enable && hstore_conf.site.markov_fixed &&
+            hstore_conf.site.markov_fixed_workload != null) {
+            File path = new File(hstore_conf.site.markov_fixed_workload);
+            if (path.exists()) {
+                fixedWorkload = new Workload(catalogContext.catalog);
+                try {
+                    fixedWorkload.load(path, catalogContext.database);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+                LOG.info(String.format("Loaded %d txns from '%s' to validate the fixed estimators",
+                                       fixedWorkload.getTransactionCount(), path));
+            } else if (debug.val) LOG.warn("The fixed estimator workload file '" + path + "' does not exist");
+        }
+        
         // ----------------------------------------------------------------------------
         // PartitionExecutor Initialization
         // ----------------------------------------------------------------------------
@@ -189,7 +208,7 @@ public abstract class HStore {
                 if (hstore_conf.site.markov_fixed == false && markovs != null) {
                     t_estimator = new MarkovEstimator(catalogContext, p_estimator, local_markovs);
                 } else if (hstore_conf.site.markov_fixed) {
-                    t_estimator = AbstractFixedEstimator.factory(p_estimator, singleton.getCatalogContext());
+                    t_estimator = AbstractFixedEstimator.factory(p_estimator, singleton.getCatalogContext(), fixedWorkload);
                 }
             }
             if (first && t_estimator != null) {
@@ -47,6 +47,7 @@ public abstract class HStoreConstants {
     public static final String THREAD_NAME_POSTPROCESSOR = "post";
     public static final String THREAD_NAME_HELPER = "help";
     public static final String THREAD_NAME_TXNQUEUE = "queue";
+    public static final String THREAD_NAME_EPOCH = "epoch";
     public static final String THREAD_NAME_COMMANDLOGGER = "cmdlg";
     public static final String THREAD_NAME_ANTICACHE = "anticache";
     public static final String THREAD_NAME_LOGGING = "logging";
@@ -59,6 +59,7 @@ import edu.brown.hstore.Hstoreservice.TransactionReduceRequest;
 import edu.brown.hstore.Hstoreservice.TransactionReduceResponse;
 import edu.brown.hstore.Hstoreservice.TransactionWorkRequest;
 import edu.brown.hstore.Hstoreservice.TransactionWorkResponse;
+import edu.brown.hstore.callbacks.BlockingRpcCallback;
 import edu.brown.hstore.callbacks.ShutdownPrepareCallback;
 import edu.brown.hstore.callbacks.TransactionFinishCallback;
 import edu.brown.hstore.callbacks.TransactionPrefetchCallback;
@@ -124,6 +125,13 @@ public class HStoreCoordinator implements Shutdownable {
     private final HStoreService remoteService;
     private final NIOEventLoop eventLoop = new NIOEventLoop();
     
+    /**
+     * All of the event loops used for the connections to other sites.
+     * The first one is always the main eventLoop that also accepts connections.
+     */
+    private final NIOEventLoop eventLoops[];
+    private final List<Thread> eventLoopThreads = new ArrayList<Thread>();
+    
     private Shutdownable.ShutdownState state = ShutdownState.INITIALIZED;
     
     private final EventObservable<HStoreCoordinator> ready_observable = new EventObservable<HStoreCoordinator>();
@@ -162,15 +170,23 @@ public class HStoreCoordinator implements Shutdownable {
      * 
      */
     private class MessengerListener implements Runnable {
+        private final NIOEventLoop loop;
+        private final String name;
+        
+        private MessengerListener(NIOEventLoop loop, String name) {
+            this.loop = loop;
+            this.name = name;
+        }
+        
         @Override
         public void run() {
             Thread self = Thread.currentThread();
-            self.setName(HStoreThreadManager.getThreadName(hstore_site, HStoreConstants.THREAD_NAME_COORDINATOR));
+            self.setName(this.name);
             hstore_site.getThreadManager().registerProcessingThread();
             
             Throwable error = null;
             try {
-                HStoreCoordinator.this.eventLoop.run();
+                this.loop.run();
             } catch (Throwable ex) {
                 error = ex;
             }
@@ -223,6 +239,19 @@ public class HStoreCoordinator implements Shutdownable {
         // This listener thread will process incoming messages
         this.listener = new ProtoServer(this.eventLoop);
         
+        // Additional event loops that will share the connections with the listener's loop
+        int numLoops = Math.max(1, hstore_conf.site.coordinator_event_loops);
+        this.eventLoops = new NIOEventLoop[numLoops];
+        this.eventLoops[0] = this.eventLoop;
+        for (int i = 1; i < numLoops; i++) {
+            this.eventLoops[i] = new NIOEventLoop();
+            String name = HStoreThreadManager.getThreadName(this.hstore_site, HStoreConstants.THREAD_NAME_COORDINATOR, Integer.toString(i));
+            Thread t = new Thread(new MessengerListener(this.eventLoops[i], name));
+            t.setDaemon(true);
+            this.eventLoopThreads.add(t);
+        } // FOR
+        if (numLoops > 1) this.listener.setConnectionEventLoops(this.eventLoops);
+        
         // Special dispatcher threads to handle incoming requests
         // These are used so that we can process messages in a different thread than the main HStoreCoordinator thread
         
@@ -266,7 +295,8 @@ public class HStoreCoordinator implements Shutdownable {
         this.sendData_handler = new SendDataHandler(hstore_site, this);
         
         // Wrap the listener in a daemon thread
-        this.listener_thread = new Thread(new MessengerListener());
+        String listenerName = HStoreThreadManager.getThreadName(hstore_site, HStoreConstants.THREAD_NAME_COORDINATOR);
+        this.listener_thread = new Thread(new MessengerListener(this.eventLoop, listenerName));
         this.listener_thread.setDaemon(true);
         this.eventLoop.setExitOnSigInt(true);
         
@@ -312,6 +342,13 @@ public class HStoreCoordinator implements Shutdownable {
             t.start();
         } // FOR
         
+        // The other event loops can only start once all of the outbound 
+        // channels have been registered with them
+        for (Thread t : this.eventLoopThreads) {
+            if (debug.val) LOG.debug("Starting event loop thread: " + t.getName());
+            t.start();
+        } // FOR
+        
         if (debug.val) LOG.debug("Starting listener thread");
         this.listener_thread.start();
         
@@ -365,7 +402,13 @@ public class HStoreCoordinator implements Shutdownable {
             } // FOR
             
             if (trace.val) LOG.trace("Stopping eventLoop for Site #" + this.getLocalSiteId());
-            this.eventLoop.exitLoop();
+            for (NIOEventLoop loop : this.eventLoops) {
+                loop.exitLoop();
+            } // FOR
+            for (Thread thread : this.eventLoopThreads) {
+                thread.interrupt();
+                thread.join();
+            } // FOR
 
             if (trace.val) LOG.trace("Stopping listener thread for Site #" + this.getLocalSiteId());
             this.listener_thread.interrupt();
@@ -404,6 +447,9 @@ public class HStoreCoordinator implements Shutdownable {
     protected final Thread getListenerThread() {
         return (this.listener_thread);
     }
+    public NIOEventLoop[] getEventLoops() {
+        return (this.eventLoops);
+    }
     
     public HStoreService getChannel(int site_id) {
         return (this.channels[site_id]);
@@ -459,6 +505,7 @@ public class HStoreCoordinator implements Shutdownable {
             while (tries-- > 0 && success == false) {
                 try {
                     channels = ProtoRpcChannel.connectParallel(this.eventLoop,
+                                                               this.eventLoops,
                                                                arr,
                                                                hstore_conf.site.network_startup_wait);
                     success = true;
@@ -477,6 +524,9 @@ public class HStoreCoordinator implements Shutdownable {
             assert channels.length == destinations.size();
             for (int i = 0; i < channels.length; i++) {
                 Pair<Integer, InetSocketAddress> p = destinations.get(i);
+                if (hstore_conf.site.coordinator_coalesce) {
+                    channels[i].setCoalesce(true);
+                }
                 this.channels[p.getFirst()] = HStoreService.newStub(channels[i]);
             } // FOR
             
@@ -1015,18 +1065,7 @@ public class HStoreCoordinator implements Shutdownable {
                     LOG.warn("No data in " + ts + " for partition " + catalog_part.getId());
                     continue;
                 }
-                ByteString bs = null;
-                byte bytes[] = null;
-                try {
-                    bytes = ByteBuffer.wrap(FastSerializer.serialize(vt)).array();
-                    bs = ByteString.copyFrom(bytes); 
-                    if (debug.val) LOG.debug(String.format("Outbound data for Partition #%d: RowCount=%d / MD5=%s / Length=%d",
-                                     catalog_part.getId(), vt.getRowCount(), StringUtil.md5sum(bytes), bytes.length));
-                } catch (Exception ex) {
-                    String msg = String.format("Unexpected error when serializing %s data for partition %d",
-                                               ts, catalog_part.getId());
-                    throw new ServerFaultException(msg, ex, ts.getTransactionId());
-                }
+                ByteString bs = this.serializeData(ts, catalog_part.getId(), vt);
                 if (debug.val) LOG.debug("Constructing Dependency for " + catalog_part);
                 builder.addDepId(catalog_part.getId())
                        .addData(bs);
@@ -1061,6 +1100,49 @@ public class HStoreCoordinator implements Shutdownable {
         }
     }
     
+    /**
+     * Send a single chunk of a partition's data ahead of the final sendData() call
+     * for the transaction. This lets the SHUFFLE phase of a MapReduceTransaction ship
+     * its output while it is still partitioning it instead of buffering all of it first.
+     * The callback will wait for the response to this chunk in addition to the responses
+     * that it was initialized with.
+     * @param ts
+     * @param partition
+     * @param vt
+     * @param callback
+     */
+    public void sendDataChunk(LocalTransaction ts, int partition, VoltTable vt, BlockingRpcCallback<?, SendDataResponse> callback) {
+        int dest_site_id = catalogContext.getSiteIdForPartitionId(partition);
+        assert(dest_site_id != this.local_site_id) :
+            String.format("Trying to send a data chunk for %s to local partition %d", ts, partition);
+        
+        SendDataRequest request = SendDataRequest.newBuilder()
+                                        .setTransactionId(ts.getTransactionId().longValue())
+                                        .setSenderSite(local_site_id)
+                                        .addDepId(partition)
+                                        .addData(this.serializeData(ts, partition, vt))
+                                        .build();
+        if (debug.val) LOG.debug(String.format("Sending data chunk with %d rows to partition %d for %s",
+                                 vt.getRowCount(), partition, ts));
+        callback.incrementCounter(1);
+        this.channels[dest_site_id].sendData(new ProtoRpcController(), request, callback);
+    }
+    
+    private ByteString serializeData(LocalTransaction ts, int partition, VoltTable vt) {
+        ByteString bs = null;
+        try {
+            byte bytes[] = FastSerializer.serialize(vt);
+            bs = ByteString.copyFrom(bytes); 
+            if (debug.val) LOG.debug(String.format("Outbound data for Partition #%d: RowCount=%d / MD5=%s / Length=%d",
+                             partition, vt.getRowCount(), StringUtil.md5sum(bytes), bytes.length));
+        } catch (Exception ex) {
+            String msg = String.format("Unexpected error when serializing %s data for partition %d",
+                                       ts, partition);
+            throw new ServerFaultException(msg, ex, ts.getTransactionId());
+        }
+        return (bs);
+    }
+    
     // ----------------------------------------------------------------------------
     // TIME SYNCHRONZIATION
     // ----------------------------------------------------------------------------
@@ -279,6 +279,13 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
      */
     private final TransactionQueueManager txnQueueManager;
     
+    /**
+     * The EpochCoordinator batches distributed transactions that only touch
+     * partitions at this site and releases them to the queue manager in a
+     * deterministic order. This will be null if ${site.exec_epoch_enable} is false.
+     */
+    private final EpochCoordinator epochCoordinator;
+    
     /**
      * The HStoreCoordinator is responsible for communicating with other HStoreSites
      * in the cluster to execute distributed transactions.
@@ -504,6 +511,13 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         // Distributed Transaction Queue Manager
         this.txnQueueManager = new TransactionQueueManager(this);
         
+        // Epoch-Batched Distributed Transactions
+        if (hstore_conf.site.exec_epoch_enable) {
+            this.epochCoordinator = new EpochCoordinator(this);
+        } else {
+            this.epochCoordinator = null;
+        }
+        
         // One Transaction Cleaner for every eight partitions
         int numCleaners = (int)Math.ceil(num_local_partitions / 8.0);
         for (int i = 0; i < numCleaners; i++) {
@@ -624,12 +638,26 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         t.setUncaughtExceptionHandler(this.exceptionHandler);
         t.start();
         
+        // Start EpochCoordinator
+        if (this.epochCoordinator != null) {
+            t = new Thread(auxGroup, this.epochCoordinator);
+            t.setDaemon(true);
+            t.setUncaughtExceptionHandler(this.exceptionHandler);
+            t.start();
+        }
+        
         // Start VoltNetwork
-        t = new Thread(this.voltNetwork);
-        t.setName(HStoreThreadManager.getThreadName(this, HStoreConstants.THREAD_NAME_VOLTNETWORK));
-        t.setDaemon(true);
-        t.setUncaughtExceptionHandler(this.exceptionHandler);
-        t.start();
+        // If there are multiple reactors, then each of them gets its own thread
+        VoltNetwork reactors[] = this.voltNetwork.getReactors();
+        for (int i = 0; i < reactors.length; i++) {
+            String name = HStoreThreadManager.getThreadName(this, HStoreConstants.THREAD_NAME_VOLTNETWORK);
+            if (i > 0) name = String.format("%s-%02d", name, i);
+            t = new Thread(reactors[i]);
+            t.setName(name);
+            t.setDaemon(true);
+            t.setUncaughtExceptionHandler(this.exceptionHandler);
+            t.start();
+        } // FOR
         
         // Start CommandLogWriter
         t = new Thread(auxGroup, this.commandLogger);
@@ -1067,6 +1095,9 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
     public TransactionQueueManager getTransactionQueueManager() {
         return (this.txnQueueManager);
     }
+    public EpochCoordinator getEpochCoordinator() {
+        return (this.epochCoordinator);
+    }
     public AntiCacheManager getAntiCacheManager() {
         return (this.anticacheManager);
     }
@@ -1429,6 +1460,7 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         
         // Kill the queue manager
         this.txnQueueManager.shutdown();
+        if (this.epochCoordinator != null) this.epochCoordinator.shutdown();
         
         if (this.mr_helper_started && this.mr_helper != null) {
             this.mr_helper.shutdown();
@@ -1597,31 +1629,29 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         }
         boolean sysproc = catalog_proc.getSystemproc();
         
-        // -------------------------------
-        // PARAMETERSET INITIALIZATION
-        // -------------------------------
-        
-        // Extract just the ParameterSet from the StoredProcedureInvocation
-        // We will deserialize the rest of it later
-        ParameterSet procParams = new ParameterSet();
-        try {
-            StoredProcedureInvocation.seekToParameterSet(buffer);
-            incomingDeserializer.setBuffer(buffer);
-            procParams.readExternal(incomingDeserializer);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        } 
-        assert(procParams != null) :
-            "The parameters object is null for new txn from client #" + client_handle;
         if (debug.val)
             LOG.debug(String.format("Received new stored procedure invocation request for %s [handle=%d]",
                       catalog_proc.getName(), client_handle));
         
-        // System Procedure Check
-        // If this method returns true, then we want to halt processing the
-        // request any further and immediately return
-        if (sysproc && this.processSysProc(client_handle, catalog_proc, procParams, clientCallback)) {
-            return;
+        // -------------------------------
+        // PARAMETERSET INITIALIZATION
+        // -------------------------------
+        
+        // We only need the full ParameterSet up front for sysprocs. For everything
+        // else we will pull out just the partitioning parameters below and wait to
+        // deserialize the rest until we know that the txn is going to run here
+        StoredProcedureInvocation.seekToParameterSet(buffer);
+        final int paramsOffset = buffer.position();
+        ParameterSet procParams = null;
+        if (sysproc) {
+            procParams = this.readParameterSet(buffer, paramsOffset);
+            
+            // System Procedure Check
+            // If this method returns true, then we want to halt processing the
+            // request any further and immediately return
+            if (this.processSysProc(client_handle, catalog_proc, procParams, clientCallback)) {
+                return;
+            }
         }
         
         // If this is the first non-sysproc transaction that we've seen, then
@@ -1637,10 +1667,19 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
 
         // The base partition is where this txn's Java stored procedure will run on
         if (base_partition == HStoreConstants.NULL_PARTITION_ID) {
-            base_partition = this.txnInitializer.calculateBasePartition(client_handle,
-                                                                        catalog_proc,
-                                                                        procParams,
-                                                                        base_partition);
+            if (procParams != null) {
+                base_partition = this.txnInitializer.calculateBasePartition(client_handle,
+                                                                            catalog_proc,
+                                                                            procParams,
+                                                                            base_partition);
+            } else {
+                buffer.position(paramsOffset);
+                incomingDeserializer.setBuffer(buffer);
+                base_partition = this.txnInitializer.calculateBasePartition(client_handle,
+                                                                            catalog_proc,
+                                                                            incomingDeserializer,
+                                                                            base_partition);
+            }
         }
         
         // Profiling Updates
@@ -1661,6 +1700,12 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
             return;
         }
         
+        // Now that we know that the txn is staying here, we can deserialize the
+        // rest of its parameters
+        if (procParams == null) {
+            procParams = this.readParameterSet(buffer, paramsOffset);
+        }
+        
         // 2012-12-24 - We always want the network threads to do the initialization
         if (trace.val)
             LOG.trace("Initializing transaction request using network processing thread");
@@ -1681,6 +1726,26 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
     }
     
     
+    /**
+     * Deserialize the ParameterSet that starts at the given offset of the
+     * serialized StoredProcedureInvocation
+     * @param buffer
+     * @param paramsOffset
+     * @return
+     */
+    private ParameterSet readParameterSet(ByteBuffer buffer, int paramsOffset) {
+        final FastDeserializer incomingDeserializer = this.getIncomingDeserializer();
+        ParameterSet procParams = new ParameterSet();
+        try {
+            buffer.position(paramsOffset);
+            incomingDeserializer.setBuffer(buffer);
+            procParams.readExternal(incomingDeserializer);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        return (procParams);
+    }
+    
     /**
      * Special handling for certain incoming sysproc requests. These are just for
      * specialized sysprocs where we need to do some pre-processing that is separate
@@ -1829,13 +1894,39 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         if (ts.isPredictSinglePartition()) {
             this.transactionInit(ts);
         }
+        // Read-only dtxns at this site can skip the lock queues entirely. The
+        // PartitionExecutors will make sure that they only read committed data.
+        else if (hstore_conf.site.exec_readonly_snapshot && this.canExecuteSnapshotRead(ts)) {
+            if (debug.val)
+                LOG.debug(String.format("%s - Executing read-only txn without locks %s",
+                          ts, ts.getPredictTouchedPartitions()));
+            ts.markSnapshotRead();
+            this.transactionStart(ts);
+        }
         else {
             if (hstore_conf.site.txn_profiling && ts.profiler != null) ts.profiler.startInitDtxn();
-            LocalInitQueueCallback initCallback = (LocalInitQueueCallback)ts.getTransactionInitQueueCallback();
-            this.hstore_coordinator.transactionInit(ts, initCallback);
+            if (this.epochCoordinator == null || this.epochCoordinator.transactionQueue(ts) == false) {
+                LocalInitQueueCallback initCallback = (LocalInitQueueCallback)ts.getTransactionInitQueueCallback();
+                this.hstore_coordinator.transactionInit(ts, initCallback);
+            }
         }
     }
     
+    /**
+     * Returns true if the given distributed txn can be executed without
+     * acquiring the locks for its partitions. We will only do this the first time
+     * that the txn is executed. If it gets restarted, then it has to use the locks.
+     * @param ts
+     * @return
+     */
+    private boolean canExecuteSnapshotRead(LocalTransaction ts) {
+        return (ts.getProcedure().getReadonly() &&
+                ts.isPredictAllLocal() &&
+                ts.isSysProc() == false &&
+                ts.isMapReduce() == false &&
+                ts.getRestartCounter() == 0);
+    }
+    
     /**
      * Queue the given transaction to be initialized
      * @param ts
@@ -2315,6 +2406,11 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
             }
             if (debug.val)
                 LOG.trace(orig_ts + " Mispredicted Partitions: " + partitions);
+            // Only remember the partitions that the txn actually needed and not
+            // all of the partitions that we fall back to after too many restarts
+            if (hstore_conf.site.exec_mispredict_cache && orig_ts.getRestartCounter() <= 2) {
+                this.txnInitializer.recordMisprediction(orig_ts, predict_touchedPartitions);
+            }
         }
         
         if (predict_touchedPartitions.contains(base_partition) == false) {
@@ -2415,6 +2511,7 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
             "Trying to send back a client response for " + ts + " but the status is " + status;
         
         if (hstore_conf.site.txn_profiling && ts.profiler != null) ts.profiler.startPostClient();
+        this.recordTxnLatency(ts);
         boolean sendResponse = true;
         if (this.commandLogger != null && status == Status.OK && ts.isSysProc() == false) {
             sendResponse = this.commandLogger.appendToLog(ts, cresponse);
@@ -2444,6 +2541,7 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         if (debug.val)
             LOG.debug(String.format("Adding ClientResponse for %s from partition %d to processing queue [status=%s, size=%d]",
                       ts, ts.getBasePartition(), cresponse.getStatus(), this.postProcessorQueue.size()));
+        this.recordTxnLatency(ts);
         this.postProcessorQueue.add(new Object[]{
                                             cresponse,
                                             ts.getClientCallback(),
@@ -2452,6 +2550,23 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
         });
     }
 
+    /**
+     * Record how long it took for the given txn to get its ClientResponse since it
+     * first arrived at this HStoreSite (including all of its restarts).
+     * This is always done, even if ${site.txn_profiling} is disabled.
+     * @param ts
+     */
+    private void recordTxnLatency(LocalTransaction ts) {
+        if (this.txnProfilerStats == null) return;
+        long latency;
+        if (hstore_conf.global.nanosecond_latencies) {
+            latency = System.nanoTime() - ts.getInitiateTime();
+        } else {
+            latency = (EstTime.currentTimeMillis() - ts.getInitiateTime()) * 1000000l;
+        }
+        this.txnProfilerStats.addTxnLatency(ts.getProcedure(), latency);
+    }
+
     /**
      * Use the TransactionPostProcessors to dispatch the ClientResponse back over the network
      * @param cresponse
@@ -2850,11 +2965,18 @@ public class HStoreSite implements VoltProcedureListener.Handler, Shutdownable,
                 // Modify the StoredProcedureInvocation
                 ParameterSet params = result.ts.getProcedureParameters();
                 assert(params != null) : "Unexpected null ParameterSet";
+                byte serializedParams[] = null;
+                try {
+                    serializedParams = FastSerializer.serialize(plannedStmt.params);
+                } catch (IOException ex) {
+                    throw new RuntimeException("Failed to serialize parameters for " + result.ts, ex);
+                }
                 params.setParameters(
                     plannedStmt.aggregatorFragment,
                     plannedStmt.collectorFragment,
                     plannedStmt.sql,
-                    plannedStmt.isReplicatedTableDML ? 1 : 0
+                    plannedStmt.isReplicatedTableDML ? 1 : 0,
+                    serializedParams
                 );
 
                 // initiate the transaction
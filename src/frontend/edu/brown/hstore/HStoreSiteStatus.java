@@ -38,6 +38,7 @@ import edu.brown.profilers.HStoreSiteProfiler;
 import edu.brown.profilers.PartitionExecutorProfiler;
 import edu.brown.profilers.ProfileMeasurement;
 import edu.brown.profilers.TransactionProfiler;
+import edu.brown.protorpc.NIOEventLoop;
 import edu.brown.statistics.Histogram;
 import edu.brown.statistics.ObjectHistogram;
 import edu.brown.utils.CollectionUtil;
@@ -307,6 +308,25 @@ public class HStoreSiteStatus extends ExceptionHandlingRunnable implements Shutd
             siteInfo.put("BackPressure Counter", ci.getBackPressureCount());
         }
         
+        // HStoreCoordinator Event Loops
+        HStoreCoordinator coordinator = hstore_site.getCoordinator();
+        if (coordinator != null && coordinator.getEventLoops().length > 1) {
+            NIOEventLoop loops[] = coordinator.getEventLoops();
+            for (int i = 0; i < loops.length; i++) {
+                long events = loops[i].getEventCount() + loops[i].getThreadEventCount();
+                long threadEvents = loops[i].getThreadEventCount();
+                double busyMs = loops[i].getBusyTime() / 1000000d;
+                double latencyMs = loops[i].getThreadEventLatency() / 1000000d;
+                value = String.format("%d events / %.2f ms busy / %.4f ms per event / " +
+                                      "%.4f ms avg queue wait / %.4f ms max queue wait / %.4f ms max pass",
+                                      events, busyMs, (events > 0 ? busyMs / events : 0d),
+                                      (threadEvents > 0 ? latencyMs / threadEvents : 0d),
+                                      loops[i].getMaxThreadEventLatency() / 1000000d,
+                                      loops[i].getMaxLoopTime() / 1000000d);
+                siteInfo.put("Coordinator Loop #" + i, value);
+            } // FOR
+        }
+        
         if (hstore_conf.site.profiling && hstore_site.getProfiler() != null) {
             // Compute the approximate arrival rate of transaction
             // requests per second from clients
@@ -119,6 +119,7 @@ import edu.brown.hstore.Hstoreservice.TransactionWorkRequest;
 import edu.brown.hstore.Hstoreservice.TransactionWorkResponse;
 import edu.brown.hstore.Hstoreservice.WorkFragment;
 import edu.brown.hstore.Hstoreservice.WorkResult;
+import edu.brown.hstore.callbacks.LocalInitQueueCallback;
 import edu.brown.hstore.callbacks.TransactionCallback;
 import edu.brown.hstore.callbacks.TransactionCleanupCallback;
 import edu.brown.hstore.callbacks.TransactionFinishCallback;
@@ -354,6 +355,15 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
      */
     private volatile Long lastCommittedTxnId = Long.valueOf(-1l);
     
+    /**
+     * Incremented every time that a txn that modified this partition commits,
+     * whether it is single-partitioned or distributed. This is also incremented when
+     * we release an undo token for speculative txns that did not modify anything.
+     * Read-only snapshot txns use this to check whether they saw a consistent 
+     * version of the database.
+     */
+    private volatile long writeCommitCounter = 0l;
+    
     /**
      * The last undoToken that we handed out
      */
@@ -1221,6 +1231,26 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
             parameters = this.getFragmentParameters(ts, fragment, parameters);
             assert(parameters != null);
             
+            // Read-only snapshot txns never become the current dtxn at their remote partitions.
+            // We only have to make sure that they don't read the uncommitted changes of
+            // whatever dtxn is running here right now. We can't block them until that dtxn
+            // finishes, because it might be waiting for the snapshot txn's base partition.
+            // So instead we will abort the snapshot txn and let it restart with locks.
+            if (ts.getBasePartition() != this.partitionId && this.isSnapshotRead(ts)) {
+                if (this.currentDtxn != null) {
+                    String msg = String.format("%s - Unable to execute snapshot read on partition %d " +
+                                               "because of current Dtxn %s",
+                                               ts, this.partitionId, this.currentDtxn);
+                    if (debug.val) LOG.debug(msg);
+                    LocalTransaction local_ts = (LocalTransaction)ts;
+                    local_ts.markSnapshotConflict();
+                    local_ts.setPendingError(new SerializableException(new Exception(msg)), true);
+                } else {
+                    this.processWorkFragment(ts, fragment, parameters);
+                }
+                return;
+            }
+            
             // At this point we know that we are either the current dtxn or the current dtxn is null
             // We will allow any read-only transaction to commit if
             // (1) The WorkFragment for the remote txn is read-only
@@ -1991,6 +2021,12 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
                 "Unexpected null LocalTransaction handle from " + orig_ts; 
         }
         
+        // This txn was escalated in the middle of its first attempt and
+        // now we know whether it got the locks for its new partitions
+        if (ts.isEscalating() && this.finishEscalation(ts) == false) {
+            return;
+        }
+        
         ExecutionMode before_mode = this.currentExecMode;
         boolean predict_singlePartition = ts.isPredictSinglePartition();
             
@@ -2034,6 +2070,11 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
                     return;
                 }
             }
+            // Read-only snapshot txns don't hold this partition's lock, so they never become
+            // the current dtxn. Nothing else can execute here while its control code is running.
+            else if (ts.isSnapshotRead()) {
+                this.initSnapshotRead(ts);
+            }
             // If there is no other DTXN right now, then we're it!
             else if (this.currentDtxn == null) { //  || this.currentDtxn.equals(ts) == false) {
                 this.setCurrentDtxn(ts);
@@ -2898,6 +2939,13 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
         if (plan.getMisprediction() != null) {
             MispredictionException ex = plan.getMisprediction(); 
             ts.setPendingError(ex, false);
+            
+            // If this single-partition txn only needs more partitions at this HStoreSite, then
+            // we'll try to grab their locks instead of restarting it with a new txn id.
+            if (hstore_conf.site.exec_mispredict_escalation && this.escalateTransaction(ts, ex)) {
+                if (debug.val) LOG.debug(ts + " - Aborting escalated txn until it gets its new locks.");
+                throw ex;
+            }
 
             // Print Misprediction Debug
             if (hstore_conf.site.exec_mispredict_crash) {
@@ -2948,6 +2996,159 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
         return (results);
     }
     
+    /**
+     * Try to turn a mispredicted single-partition txn into a distributed txn without
+     * giving it a new txn id. This only works if all of the partitions that the txn is
+     * missing are at this HStoreSite. The txn keeps the lock for this partition and is added
+     * to the lock queues of its new partitions. We don't wait for those locks here: the 
+     * txn's current attempt still gets aborted and rolled back, and then its init callback
+     * will queue it up again at this partition once it knows whether it got all of them.
+     * @param ts
+     * @param ex
+     * @return true if the txn is now waiting for the locks of its new partitions
+     */
+    private boolean escalateTransaction(LocalTransaction ts, MispredictionException ex) {
+        if (ts.isPredictSinglePartition() == false || ts.isSysProc() ||
+            ts.isMapReduce() || ts.isSpeculative()) {
+            return (false);
+        }
+        if (this.currentDtxn != null || this.currentExecMode != ExecutionMode.COMMIT_ALL) {
+            return (false);
+        }
+        // We can't roll back what this txn has already done if it's not using undo buffers
+        if (ts.getLastUndoToken(this.partitionId) == HStoreConstants.DISABLE_UNDO_LOGGING_TOKEN &&
+            ts.isExecReadOnly(this.partitionId) == false) {
+            return (false);
+        }
+        
+        PartitionSet newPartitions = new PartitionSet();
+        for (Integer partition : ex.getPartitions().values()) {
+            if (ts.getPredictTouchedPartitions().contains(partition)) continue;
+            // Acquiring locks at remote HStoreSites requires a full round of
+            // TransactionInitRequests, so we'll just restart the txn
+            if (this.hstore_site.isLocalPartition(partition.intValue()) == false) {
+                if (debug.val)
+                    LOG.debug(String.format("%s - Not escalating txn because partition %d is not local",
+                              ts, partition));
+                return (false);
+            }
+            newPartitions.add(partition);
+        } // FOR
+        if (newPartitions.isEmpty()) return (false);
+        
+        if (debug.val)
+            LOG.debug(String.format("%s - Attempting to escalate txn to include partitions %s",
+                      ts, newPartitions));
+        LocalInitQueueCallback callback = ts.escalate(newPartitions);
+        this.setCurrentDtxn(ts);
+        
+        // Don't speculatively execute other txns behind this one while it waits,
+        // because it has not gone through the regular dtxn setup at this partition
+        this.specExecIgnoreCurrent = true;
+        
+        // Just like TransactionQueueManager.lockQueueInsertAll(), if we get rejected
+        // at one partition then we stop and decrement the counter for the rest of them.
+        // The callback will still send the txn back to us so that we can restart it.
+        boolean ret = true;
+        for (int partition : newPartitions.values()) {
+            if (ret) {
+                ret = this.queueManager.lockQueueInsert(ts, partition, callback);
+            } else {
+                callback.run(partition);
+            }
+        } // FOR
+        return (true);
+    }
+    
+    /**
+     * An escalated txn was sent back to us by its init callback. If it got all of the locks 
+     * for its new partitions, then it can now be executed again as a distributed txn.
+     * Otherwise we have to pull it out of the lock queues that it is still waiting in
+     * and abort it at all of its partitions before it gets restarted.
+     * @param ts
+     * @return true if the txn can be executed now
+     */
+    private boolean finishEscalation(LocalTransaction ts) {
+        assert(this.currentDtxn == ts) :
+            String.format("Escalated %s is not the current dtxn at partition %d [currentDtxn=%s]",
+                          ts, this.partitionId, this.currentDtxn);
+        LocalInitQueueCallback callback = ts.getTransactionInitQueueCallback();
+        if (callback.isUnblocked()) {
+            if (debug.val)
+                LOG.debug(String.format("%s - Escalated txn to multi-partition %s",
+                          ts, ts.getPredictTouchedPartitions()));
+            ts.finishEscalation();
+            if (hstore_conf.site.txn_counters) TransactionCounter.ESCALATED.inc(ts.getProcedure());
+            return (true);
+        }
+        assert(callback.isAborted()) :
+            String.format("Unexpected %s for escalated %s", callback, ts);
+        
+        // The callback is already aborted, so it won't get unblocked 
+        // while we remove the txn from the other lock queues
+        for (int partition : callback.getPartitions().values()) {
+            if (callback.getReceivedPartitions().contains(partition)) continue;
+            PartitionLockQueue lockQueue = this.queueManager.getInitQueue(partition);
+            boolean removed = false;
+            synchronized (lockQueue) {
+                removed = lockQueue.remove(ts);
+            } // SYNCH
+            if (removed) callback.run(partition);
+        } // FOR
+        
+        // Some of the new partitions may have already granted their lock and made this 
+        // txn their current dtxn. So we have to abort it like any other dtxn so that every
+        // partition releases its lock. The TransactionFinishCallback will requeue the txn
+        // once all of them are done with it.
+        if (debug.val)
+            LOG.debug(String.format("%s - Failed to escalate txn. It will be restarted " +
+                      "[grantedPartitions=%s]", ts, callback.getReceivedPartitions()));
+        ts.cancelEscalation();
+        TransactionFinishCallback finish_callback = ts.initTransactionFinishCallback(Status.ABORT_MISPREDICT);
+        finish_callback.markForRequeue();
+        this.hstore_coordinator.transactionFinish(ts, Status.ABORT_MISPREDICT, finish_callback);
+        return (false);
+    }
+    
+    /**
+     * Record the number of write commits at each of the partitions of the
+     * given read-only snapshot txn before it reads anything.
+     * @param ts
+     */
+    private void initSnapshotRead(LocalTransaction ts) {
+        for (int partition : ts.getPredictTouchedPartitions().values()) {
+            PartitionExecutor executor = this.hstore_site.getPartitionExecutor(partition);
+            ts.setSnapshotWatermark(partition, executor.writeCommitCounter);
+        } // FOR
+    }
+    
+    /**
+     * Returns true if no other txn committed changes at the partitions of
+     * the given read-only snapshot txn while it was running. If one did, then the
+     * txn might have seen its changes at some partitions but not at others,
+     * or in some of its rounds but not in others.
+     * @param ts
+     * @return
+     */
+    private boolean validateSnapshotRead(LocalTransaction ts) {
+        for (int partition : ts.getPredictTouchedPartitions().values()) {
+            PartitionExecutor executor = this.hstore_site.getPartitionExecutor(partition);
+            long writeCommits = executor.writeCommitCounter;
+            if (writeCommits != ts.getSnapshotWatermark(partition)) {
+                if (debug.val)
+                    LOG.debug(String.format("%s - Snapshot read is not consistent because a txn " +
+                              "committed changes at partition %d [watermark=%d, writeCommits=%d]",
+                              ts, partition, ts.getSnapshotWatermark(partition), writeCommits));
+                return (false);
+            }
+        } // FOR
+        return (true);
+    }
+    
+    private boolean isSnapshotRead(AbstractTransaction ts) {
+        return (ts instanceof LocalTransaction && ((LocalTransaction)ts).isSnapshotRead());
+    }
+    
     /**
      * 
      * @param fresponse
@@ -3656,6 +3857,15 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
             }
         }
 
+        // A snapshot read that ran into a dtxn at one of its partitions or that might not
+        // have seen a consistent version of the database has to be restarted.
+        // It will acquire the locks the next time.
+        if (ts.isSnapshotRead() &&
+            (ts.hasSnapshotConflict() || (status == Status.OK && this.validateSnapshotRead(ts) == false))) {
+            status = Status.ABORT_RESTART;
+            cresponse.setStatus(status);
+        }
+        
 //        if(status == Status.ABORT_EVICTEDACCESS) {
 //            LOG.debug(String.format("%s - Restarting because transaction is mispredicted", ts));
 //            
@@ -3668,7 +3878,22 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
         // -------------------------------
         if (status == Status.ABORT_MISPREDICT ||
             status == Status.ABORT_SPECULATIVE ||
-            status == Status.ABORT_EVICTEDACCESS) {
+            status == Status.ABORT_EVICTEDACCESS ||
+            status == Status.ABORT_RESTART) {
+            
+            // If the txn is waiting to get the locks for the partitions that it was 
+            // escalated to, then we just need to roll back what it did here. It keeps
+            // this partition's lock and its init callback will queue it up again.
+            if (ts.isEscalating()) {
+                if (debug.val)
+                    LOG.debug(String.format("%s - Rolling back escalated txn until it gets its locks", ts));
+                long undoToken = ts.getFirstUndoToken(this.partitionId);
+                if (ts.needsFinish(this.partitionId) && undoToken != HStoreConstants.NULL_UNDO_LOGGING_TOKEN) {
+                    this.finishWorkEE(ts, undoToken, false);
+                }
+                ts.resetEscalatedExecution();
+                return;
+            }
             
             // If the txn was mispredicted, then we will pass the information over to the
             // HStoreSite so that it can re-execute the transaction. We want to do this 
@@ -3748,10 +3973,24 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
             } else {
                 newMode = ExecutionMode.DISABLED;
             }
-            this.setExecutionMode(ts, newMode);
+            // Snapshot reads never changed our ExecutionMode because they are not the current dtxn
+            if (ts.isSnapshotRead() == false) this.setExecutionMode(ts, newMode);
+            ts.setClientResponse(cresponse);
+            
+            // If this txn was released by the EpochCoordinator or is a snapshot read, then all
+            // of its partitions are at this site and nobody else can vote to abort it. We can 
+            // skip the prepare round and go straight to the finish.
+            if (ts.isEpochBatched() || ts.isSnapshotRead()) {
+                if (debug.val)
+                    LOG.debug(String.format("%s - Skipping 2PC:PREPARE for local txn", ts));
+                if (hstore_conf.site.txn_profiling && ts.profiler != null) ts.profiler.startPostFinish();
+                TransactionFinishCallback finish_callback = ts.initTransactionFinishCallback(status);
+                this.hstore_coordinator.transactionFinish(ts, status, finish_callback);
+                this.hstore_site.responseSend(ts, cresponse);
+                return;
+            }
             
             if (hstore_conf.site.txn_profiling && ts.profiler != null) ts.profiler.startPostPrepare();
-            ts.setClientResponse(cresponse);
             TransactionPrepareCallback callback = ts.getOrInitTransactionPrepareCallback();
             assert(callback != null) : 
                 "Missing TransactionPrepareCallback for " + ts + " [initialized=" + ts.isInitialized() + "]";
@@ -3914,6 +4153,9 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
                 LOG.fatal(msg + "\n" + ts.debug());
                 this.crash(new ServerFaultException(msg, ts.getTransactionId()));
             }
+            // Its changes are already in the database, but snapshot reads
+            // still need to know that they might have missed them
+            if (commit && ts.isExecReadOnly(this.partitionId) == false) this.writeCommitCounter++;
             if (debug.val) LOG.debug(String.format("%s - undoToken == DISABLE_UNDO_LOGGING_TOKEN", ts));
         }
         // COMMIT / ABORT
@@ -3948,6 +4190,7 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
                                   this.lastCommittedTxnId);
                 this.ee.releaseUndoToken(undoToken);
                 this.lastCommittedUndoToken = undoToken;
+                this.writeCommitCounter++;
             }
             // ABORT!
             else {
@@ -4227,9 +4470,9 @@ public class PartitionExecutor implements Runnable, Configurable, Shutdownable {
         }
         // We were told told to finish a dtxn that is not the current one
         // at this partition. That's ok as long as it's aborting and not trying
-        // to commit.
+        // to commit, or if it's a snapshot read that never held our lock.
         else {
-            assert(status != Status.OK) :
+            assert(status != Status.OK || this.isSnapshotRead(ts)) :
                 String.format("Trying to commit %s at partition %d but the current dtxn is %s",
                               ts, this.partitionId, this.currentDtxn);
             this.queueManager.lockQueueFinished(ts, status, this.partitionId);
@@ -2,6 +2,7 @@ package edu.brown.hstore;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -85,6 +86,13 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
     private Long lastSafeTxnId = -1l;
     private Long lastTxnPopped = -1l;
     
+    /**
+     * The ids of txns that have reserved a spot in this queue but have not been added yet.
+     * We won't release any txn with a larger id until these are added or released.
+     * <B>Note:</B> Do not manipulate this outside of a synchronized block.
+     */
+    private final TreeSet<Long> reservedTxnIds = new TreeSet<Long>();
+    
     private final PartitionLockQueueProfiler profiler;
     
     // ----------------------------------------------------------------------------
@@ -207,6 +215,15 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
                 boolean isEmpty = (this.state == QueueState.BLOCKED_EMPTY);
                 boolean needsUpdateQueue = false;
                 
+                // If we're waiting for a reserved txn to get added, then we don't
+                // need a timeout because whoever adds it or releases its reservation
+                // will poke us
+                boolean isReserved = false;
+                if (this.state == QueueState.BLOCKED_ORDERING) {
+                    AbstractTransaction next = super.peek();
+                    isReserved = (next != null && this.isBlockedByReservation(next.getTransactionId()));
+                }
+                
                 // If the queue isn't empty, then we need to figure out
                 // how long we should sleep for
                 if (isEmpty == false) {
@@ -230,6 +247,13 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
                             		  "Blocking because queue is empty", this.partitionId));
                         this.isReady.await();
                     }
+                    else if (isReserved) {
+                        if (debug.val)
+                            LOG.debug(String.format("Partition %d :: take() -> " +
+                                      "Blocking until reserved txn is added", this.partitionId));
+                        this.isReady.await();
+                        needsUpdateQueue = true;
+                    }
                     // Otherwise, we'll sleep until our time out and then 
                     // check the queue status for ourselves
                     else if (waitTime > 0) {
@@ -435,10 +459,71 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
     }
 
 
+    /**
+     * Reserve a spot in this queue for a txn that will be added to it later.
+     * Until the txn is released with releaseReservation(), this queue will not release
+     * any txn with a larger id. Returns false if we already released a txn with a 
+     * larger id, which means that this txn would get rejected anyway.
+     * @param txnId
+     * @return
+     */
+    public boolean reserve(Long txnId) {
+        assert(txnId != null);
+        this.lock.lock();
+        try {
+            if (this.lastTxnPopped.compareTo(txnId) > 0) {
+                if (debug.val)
+                    LOG.debug(String.format("Partition %d :: Unable to reserve txn %d [lastTxnPopped=%d]",
+                              this.partitionId, txnId, this.lastTxnPopped));
+                return (false);
+            }
+            this.reservedTxnIds.add(txnId);
+            if (debug.val)
+                LOG.debug(String.format("Partition %d :: reserve(%d) [numReserved=%d]",
+                          this.partitionId, txnId, this.reservedTxnIds.size()));
+            this.checkQueueState(false);
+        } finally {
+            this.lock.unlock();
+        }
+        return (true);
+    }
+    
+    /**
+     * Release the reservation for the given txn. This should be called after
+     * the txn has been added to this queue (or if it is never going to be added).
+     * @param txnId
+     */
+    public void releaseReservation(Long txnId) {
+        assert(txnId != null);
+        this.lock.lock();
+        try {
+            if (this.reservedTxnIds.remove(txnId)) {
+                if (debug.val)
+                    LOG.debug(String.format("Partition %d :: releaseReservation(%d) [numReserved=%d]",
+                              this.partitionId, txnId, this.reservedTxnIds.size()));
+                this.checkQueueState(false);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     // ----------------------------------------------------------------------------
     // INTERNAL STATE CALCULATION
     // ----------------------------------------------------------------------------
     
+    /**
+     * Returns true if a txn with a smaller id than the given one has reserved
+     * a spot in this queue but has not been added yet.
+     * <B>Note:</B> Do not call this outside of a synchronized block.
+     * @param txnId
+     * @return
+     */
+    private boolean isBlockedByReservation(Long txnId) {
+        return (this.reservedTxnIds.isEmpty() == false &&
+                txnId.compareTo(this.reservedTxnIds.first()) > 0);
+    }
+    
     /**
      * This is the most important method of the queue.
      * This will figure out the next state and how long we must wait until we 
@@ -483,6 +568,14 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
                     LOG.debug(String.format("Partition %d :: txnId[%d] > lastSafeTxnId[%d]",
                               this.partitionId, txnId, this.lastSafeTxnId));
             }
+            // Somebody has reserved a spot for a txn with a smaller id that 
+            // hasn't been added yet, so we have to wait for it 
+            else if (this.isBlockedByReservation(txnId)) {
+                newState = QueueState.BLOCKED_ORDERING;
+                if (debug.val)
+                    LOG.debug(String.format("Partition %d :: txnId[%d] > reservedTxnId[%d]",
+                              this.partitionId, txnId, this.reservedTxnIds.first()));
+            }
             // If our current block time is negative, then we know that we're the first txnId
             // that's been in the system. We'll also want to wait a bit before we're
             // allowed to be executed.
@@ -531,7 +624,7 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
                     LOG.trace(String.format("Partition %d :: SET blockTimestamp = %d --> %s",
                               this.partitionId, this.blockTimestamp, ts));
                 
-                if (this.blockTimestamp <= currentTimestamp) {
+                if (this.blockTimestamp <= currentTimestamp && this.isBlockedByReservation(txnId) == false) {
                     newState = QueueState.UNBLOCKED;
                 }
                 if (this.profiler != null && this.lastSafeTxnId.equals(txnId) == false)
@@ -662,6 +755,7 @@ public class PartitionLockQueue extends ThrottlingQueue<AbstractTransaction> {
         m[i].put("Last Popped Txn", this.lastTxnPopped);
         m[i].put("Last Seen Txn", this.lastSeenTxnId);
         m[i].put("Last Safe Txn", this.lastSafeTxnId);
+        m[i].put("# of Reserved", this.reservedTxnIds.size());
         
         m[++i] = new LinkedHashMap<String, Object>();
         m[i].put("Throttled", super.isThrottled());
@@ -25,6 +25,7 @@
  ***************************************************************************/
 package edu.brown.hstore;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Map;
 
@@ -48,6 +49,7 @@ import edu.brown.hstore.txns.AbstractTransaction;
 import edu.brown.hstore.txns.LocalTransaction;
 import edu.brown.hstore.txns.MapReduceTransaction;
 import edu.brown.hstore.txns.RemoteTransaction;
+import edu.brown.hstore.util.MispredictionCache;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.markov.EstimationThresholds;
@@ -89,6 +91,7 @@ public class TransactionInitializer {
     private final TransactionEstimator t_estimators[];
     private final TransactionIdManager txnIdManagers[];
     private EstimationThresholds thresholds;
+    private final MispredictionCache mispredictCache;
     
     /**
      * HACK: This is the internal map used to keep track of TxnId->TxnHandles
@@ -124,6 +127,10 @@ public class TransactionInitializer {
         this.thresholds = hstore_site.getThresholds();
         this.p_estimator = hstore_site.getPartitionEstimator();
         this.t_estimators = new TransactionEstimator[catalogContext.numberOfPartitions];
+        this.mispredictCache = (hstore_conf.site.exec_mispredict_cache ?
+                new MispredictionCache(this.p_estimator,
+                                       hstore_conf.site.exec_mispredict_cache_size,
+                                       hstore_conf.site.exec_mispredict_cache_hits) : null);
         
         int num_procs = this.catalogContext.procedures.size() + 1;
         this.isMapReduce = new boolean[num_procs];
@@ -169,6 +176,39 @@ public class TransactionInitializer {
                                       Procedure catalog_proc,
                                       ParameterSet procParams,
                                       int base_partition) {
+        return (this.calculateBasePartition(client_handle, catalog_proc, procParams.toArray(), base_partition));
+    }
+    
+    /**
+     * Calculate what partition the txn should be executed on directly from the
+     * serialized ParameterSet of the txn's request. Only the parameters that the
+     * PartitionEstimator needs are deserialized, so this is cheap for requests
+     * that end up getting redirected to another site.
+     * @param client_handle
+     * @param catalog_proc
+     * @param in FastDeserializer positioned at the start of the serialized ParameterSet
+     * @param base_partition
+     * @return
+     */
+    public int calculateBasePartition(long client_handle,
+                                      Procedure catalog_proc,
+                                      FastDeserializer in,
+                                      int base_partition) {
+        Object params[] = null;
+        if (this.isSysProc[catalog_proc.getId()] == false && hstore_conf.site.exec_force_localexecution == false) {
+            try {
+                params = ParameterSet.readSparse(in, this.p_estimator.getBasePartitionParameterOffsets(catalog_proc));
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        return (this.calculateBasePartition(client_handle, catalog_proc, params, base_partition));
+    }
+    
+    private int calculateBasePartition(long client_handle,
+                                       Procedure catalog_proc,
+                                       Object params[],
+                                       int base_partition) {
         final int procId = catalog_proc.getId();
         
         // Simple sanity check to make sure that we're not being told a bad partition
@@ -189,9 +229,11 @@ public class TransactionInitializer {
         // System Procedure
         // -------------------------------
         else if (this.isSysProc[procId]) {
-            // If it's a sysproc, then it doesn't need to go to a specific partition
-            // We'll set it to NULL_PARTITION_ID so that we'll pick a random one down below
-            base_partition = HStoreConstants.NULL_PARTITION_ID;
+            // If it's a sysproc, then it usually doesn't need to go to a specific partition
+            // We'll get back NULL_PARTITION_ID so that we'll pick a random one down below
+            // The only ones that care are single-partition sysprocs that are told
+            // where to go by one of their parameters
+            base_partition = this.p_estimator.getSysProcBasePartition(catalog_proc, params);
         }
         // -------------------------------
         // PartitionEstimator
@@ -199,7 +241,7 @@ public class TransactionInitializer {
         else if (hstore_conf.site.exec_force_localexecution == false) {
             // HACK: If they don't have enough parameters, we'll just throw them to 
             // a random local partition and then let VoltProcedure give them back the proper error
-            if (procParams.size() < this.expectedParams[procId]) {
+            if (params.length < this.expectedParams[procId]) {
                 if (debug.val)
                     LOG.warn(String.format("Not enough parameters for %s. Not calculating base partition",
                              catalog_proc.getName()));
@@ -208,7 +250,7 @@ public class TransactionInitializer {
                     LOG.debug(String.format("Using PartitionEstimator for %s request",
                               catalog_proc.getName()));
                 try {
-                    base_partition = this.p_estimator.getBasePartition(catalog_proc, procParams.toArray(), false);
+                    base_partition = this.p_estimator.getBasePartition(catalog_proc, params, false);
                 } catch (Exception ex) {
                     throw new RuntimeException(ex);
                 }
@@ -390,6 +432,21 @@ public class TransactionInitializer {
     }
     
     
+    /**
+     * Record the partitions that a mispredicted LocalTransaction actually needed
+     * so that we can start future requests that look like it on those partitions.
+     * This is a no-op if the misprediction cache is disabled.
+     * @param ts
+     * @param touchedPartitions
+     */
+    public void recordMisprediction(LocalTransaction ts, PartitionSet touchedPartitions) {
+        if (this.mispredictCache == null || ts.isSysProc() || ts.getProcedureParameters() == null) return;
+        this.mispredictCache.put(ts.getProcedure(),
+                                 ts.getBasePartition(),
+                                 ts.getProcedureParameters().toArray(),
+                                 touchedPartitions);
+    }
+    
     /**
      * Create a RemoteTransaction handle. This obviously only for a remote site.
      * @param txn_id
@@ -725,6 +782,26 @@ public class TransactionInitializer {
         assert(predict_partitions != null);
         assert(predict_partitions.isEmpty() == false);
         
+        // -------------------------------
+        // MISPREDICTION CACHE
+        // -------------------------------
+        if (this.mispredictCache != null &&
+                this.isSysProc[procId] == false &&
+                this.isMapReduce[procId] == false &&
+                predict_partitions.size() < catalogContext.numberOfPartitions) {
+            PartitionSet learned = this.mispredictCache.get(catalog_proc, base_partition, params.toArray());
+            if (learned != null && predict_partitions.containsAll(learned) == false) {
+                if (debug.val)
+                    LOG.debug(String.format("%s - Adding partitions %s from a previous misprediction " +
+                              "to predicted partitions %s",
+                              AbstractTransaction.formatTxnName(catalog_proc, txn_id),
+                              learned, predict_partitions));
+                predict_partitions = new PartitionSet(predict_partitions);
+                predict_partitions.addAll(learned);
+                predict_abortable = true;
+            }
+        }
+        
         // -------------------------------
         // SET EXECUTION PROPERTIES
         // -------------------------------
@@ -96,10 +96,18 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
     // ----------------------------------------------------------------------------
 
     /**
-     * A queue of transactions that need to be added to the lock queues at the partitions 
-     * at this site.
+     * Queues of transactions that need to be added to the lock queues at the partitions 
+     * at this site. There is one queue per insertion thread, and a transaction is always
+     * routed to the queue for its base partition so that the transactions from the same
+     * base partition are inserted in the order that they were initialized. 
      */
-    private final BlockingQueue<AbstractTransaction> initQueue; 
+    private final BlockingQueue<AbstractTransaction> initQueues[];
+    
+    /**
+     * If set to true, then initTransaction() will insert the transaction into
+     * the lock queues directly instead of handing it to an insertion thread.
+     */
+    private final boolean initInline;
     
     // ----------------------------------------------------------------------------
     // TRANSACTIONS THAT NEED TO BE REQUEUED
@@ -130,7 +138,14 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
         this.localPartitions = hstore_site.getLocalPartitionIds();
         this.lockQueues = new PartitionLockQueue[num_partitions];
         this.lockQueuesLastTxn = new Long[num_partitions];
-        this.initQueue = new LinkedBlockingQueue<AbstractTransaction>();
+        this.initInline = (hstore_conf.site.queue_init_threads <= 0);
+        int num_init_threads = Math.max(1, Math.min(hstore_conf.site.queue_init_threads, this.localPartitions.size()));
+        @SuppressWarnings("unchecked")
+        BlockingQueue<AbstractTransaction> initQueues[] = (BlockingQueue<AbstractTransaction>[])new BlockingQueue[num_init_threads];
+        for (int i = 0; i < initQueues.length; i++) {
+            initQueues[i] = new LinkedBlockingQueue<AbstractTransaction>();
+        } // FOR
+        this.initQueues = initQueues;
         this.profilers = new TransactionQueueManagerProfiler[num_partitions];
         
         // Use updateConf() to initialize our internal values from the HStoreConf
@@ -205,41 +220,54 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
         self.setName(HStoreThreadManager.getThreadName(hstore_site, HStoreConstants.THREAD_NAME_TXNQUEUE));
         this.hstore_site.getThreadManager().registerProcessingThread();
         
+        // Start the extra insertion threads. This thread takes care of the
+        // first init queue and the restart queue
+        for (int i = 1; i < this.initQueues.length; i++) {
+            final int offset = i;
+            Thread t = new Thread(self.getThreadGroup(), new ExceptionHandlingRunnable() {
+                @Override
+                public void runImpl() {
+                    Thread self = Thread.currentThread();
+                    self.setName(HStoreThreadManager.getThreadName(hstore_site, HStoreConstants.THREAD_NAME_TXNQUEUE,
+                                                                   Integer.toString(offset)));
+                    hstore_site.getThreadManager().registerProcessingThread();
+                    processInitQueue(offset, false);
+                }
+            });
+            t.setDaemon(true);
+            t.setUncaughtExceptionHandler(self.getUncaughtExceptionHandler());
+            t.start();
+        } // FOR
+        
         if (debug.val)
-            LOG.debug(String.format("Starting %s thread", this.getClass().getSimpleName()));
+            LOG.debug(String.format("Starting %s thread with %d init queues%s",
+                      this.getClass().getSimpleName(), this.initQueues.length,
+                      (this.initInline ? " [inline]" : "")));
+        this.processInitQueue(0, true);
+    }
+    
+    /**
+     * Insert the transactions from one of the init queues into the lock queues
+     * until we are told to stop.
+     * @param offset The offset of the init queue to process
+     * @param restarts If set to true, this thread also requeues the transactions in the restart queue 
+     */
+    private void processInitQueue(int offset, boolean restarts) {
+        final BlockingQueue<AbstractTransaction> initQueue = this.initQueues[offset];
         AbstractTransaction next_init = null;
         int added = 0;
         while (this.stop == false) {
             try {
-                next_init = this.initQueue.poll(THREAD_WAIT_TIME, THREAD_WAIT_TIMEUNIT);
+                next_init = initQueue.poll(THREAD_WAIT_TIME, THREAD_WAIT_TIMEUNIT);
             } catch (InterruptedException ex) {
                 // IGNORE
             }
-            if (next_init != null) {
-                PartitionCountingCallback<AbstractTransaction> callback = next_init.getTransactionInitQueueCallback();
-                assert(callback.isInitialized());
-                boolean ret = true;
-                
-                for (int partition : next_init.getPredictTouchedPartitions().values()) {
-                    // Skip any non-local partition
-                    if (this.lockQueues[partition] == null) continue;
-                    
-                    // If this txn gets rejected when we try to insert it, then we 
-                    // just need to stop trying to add it to other partitions
-                    if (ret) {
-                        ret = this.lockQueueInsert(next_init, partition, callback);
-
-                    // IMPORTANT: But we still need to go through and decrement the
-                    // callback's counter for those other partitions.
-                    } else {
-                        callback.run(partition);
-                    }
-                } // FOR
-                if (ret) added++;
+            if (next_init != null && this.lockQueueInsertAll(next_init)) {
+                added++;
             }
             
             // Requeue mispredicted local transactions
-            if ((next_init == null || added > CHECK_INIT_QUEUE_LIMIT) &&
+            if (restarts && (next_init == null || added > CHECK_INIT_QUEUE_LIMIT) &&
                 this.restartQueue.isEmpty() == false) {
                 
                 this.checkRestartQueue();
@@ -248,6 +276,69 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
         } // WHILE
     }
     
+    /**
+     * Insert the transaction into the lock queues of all of the local partitions
+     * that it is going to access.
+     * Returns true if the transaction was successfully inserted at all of them.
+     * @param ts
+     * @return
+     */
+    protected boolean lockQueueInsertAll(AbstractTransaction ts) {
+        PartitionCountingCallback<AbstractTransaction> callback = ts.getTransactionInitQueueCallback();
+        assert(callback.isInitialized());
+        boolean ret = true;
+        
+        for (int partition : ts.getPredictTouchedPartitions().values()) {
+            // Skip any non-local partition
+            if (this.lockQueues[partition] == null) continue;
+            
+            // If this txn gets rejected when we try to insert it, then we 
+            // just need to stop trying to add it to other partitions
+            if (ret) {
+                ret = this.lockQueueInsert(ts, partition, callback);
+
+            // IMPORTANT: But we still need to go through and decrement the
+            // callback's counter for those other partitions.
+            } else {
+                callback.run(partition);
+            }
+        } // FOR
+        return (ret);
+    }
+    
+    /**
+     * Reserve a spot for the transaction in the lock queues of all of the local
+     * partitions that it is going to access. None of these partitions will release
+     * a transaction with a larger id until lockQueueReleaseAll() is called. 
+     * Returns false if one of the partitions already released a transaction with a
+     * larger id. Any reservations that were made are released before returning. 
+     * @param ts
+     * @return
+     */
+    protected boolean lockQueueReserveAll(AbstractTransaction ts) {
+        Long txnId = ts.getTransactionId();
+        for (int partition : ts.getPredictTouchedPartitions().values()) {
+            if (this.lockQueues[partition] == null) continue;
+            if (this.lockQueues[partition].reserve(txnId) == false) {
+                this.lockQueueReleaseAll(ts);
+                return (false);
+            }
+        } // FOR
+        return (true);
+    }
+    
+    /**
+     * Release the spots that lockQueueReserveAll() reserved for the transaction.
+     * @param ts
+     */
+    protected void lockQueueReleaseAll(AbstractTransaction ts) {
+        Long txnId = ts.getTransactionId();
+        for (int partition : ts.getPredictTouchedPartitions().values()) {
+            if (this.lockQueues[partition] == null) continue;
+            this.lockQueues[partition].releaseReservation(txnId);
+        } // FOR
+    }
+    
     /**
      * Reject any and all transactions that are in our queues!
      */
@@ -290,9 +381,15 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
      * @param ts
      */
     protected void initTransaction(AbstractTransaction ts) {
+        if (this.initInline) {
+            if (debug.val)
+                LOG.debug(String.format("Adding %s directly to the lock queues", ts));
+            this.lockQueueInsertAll(ts);
+            return;
+        }
         if (debug.val)
             LOG.debug(String.format("Adding %s to initialization queue", ts));
-        this.initQueue.add(ts);
+        this.initQueues[ts.getBasePartition() % this.initQueues.length].add(ts);
     }
     
     /**
@@ -375,7 +472,7 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
     protected boolean lockQueueInsert(AbstractTransaction ts,
                                       int partition,
                                       PartitionCountingCallback<? extends AbstractTransaction> callback) {
-        if (hstore_conf.site.queue_profiling) profilers[partition].init_time.start();
+        if (this.initProfiling()) profilers[partition].init_time.start();
         assert(ts.isInitialized()) :
             String.format("Unexpected uninitialized transaction %s [partition=%d]", ts, partition);
         assert(this.hstore_site.isLocalPartition(partition)) :
@@ -386,7 +483,7 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
         if (callback.isInitialized() == false) {
             LOG.warn(String.format("Unexpected uninitialized %s for %s [partition=%d]",
                      callback.getClass().getSimpleName(), ts, partition));
-            if (hstore_conf.site.queue_profiling) profilers[partition].init_time.stopIfStarted();
+            if (this.initProfiling()) profilers[partition].init_time.stopIfStarted();
             return (false);
         }
         
@@ -413,12 +510,12 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
                 LOG.warn(String.format("The next safe lockQueue txn for partition #%d is %s but this " +
             	          "is greater than our new txn %s. Rejecting...",
                           partition, next_safe_id, ts));
-            if (hstore_conf.site.queue_profiling) profilers[partition].rejection_time.start();
+            if (this.initProfiling()) profilers[partition].rejection_time.start();
             this.rejectTransaction(ts,
                                    Status.ABORT_RESTART,
                                    partition,
                                    next_safe_id);
-            if (hstore_conf.site.queue_profiling) {
+            if (this.initProfiling()) {
                 profilers[partition].rejection_time.stopIfStarted();
                 profilers[partition].init_time.stopIfStarted();
             }
@@ -448,9 +545,9 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
                     LOG.debug(String.format("The initQueue for partition #%d is overloaded. " +
                 	          "Throttling %s until id is greater than %s [queueSize=%d]",
                               partition, ts, next_safe_id, this.lockQueues[partition].size()));
-                if (hstore_conf.site.queue_profiling) profilers[partition].rejection_time.start();
+                if (this.initProfiling()) profilers[partition].rejection_time.start();
                 this.rejectTransaction(ts, Status.ABORT_REJECT, partition, next_safe_id);
-                if (hstore_conf.site.queue_profiling) {
+                if (this.initProfiling()) {
                     profilers[partition].rejection_time.stopIfStarted();
                     profilers[partition].init_time.stopIfStarted();
                 }
@@ -460,10 +557,18 @@ public class TransactionQueueManager extends ExceptionHandlingRunnable implement
         if (trace.val)
             LOG.trace(String.format("Added %s to initQueue for partition %d [queueSize=%d]",
                       ts, partition, this.lockQueues[partition].size()));
-        if (hstore_conf.site.queue_profiling) profilers[partition].init_time.stopIfStarted();
+        if (this.initProfiling()) profilers[partition].init_time.stopIfStarted();
         return (true);
     }
     
+    /**
+     * The init queue measurements are not thread-safe, so we only collect them when
+     * there is a single thread that inserts transactions into the lock queues.
+     */
+    private boolean initProfiling() {
+        return (hstore_conf.site.queue_profiling && this.initInline == false && this.initQueues.length == 1);
+    }
+    
     /**
      * Mark the transaction as being finished with the given local partition. This can be called
      * either before or after the transaction was initialized at all partitions.
@@ -153,6 +153,23 @@ public abstract class BlockingRpcCallback<T, U> implements RpcCallback<U>, Poola
         return (new_count);
     }
     
+    /**
+     * Wait for additional messages that were not known when the callback was
+     * initialized. This must be called before any of the new messages are sent
+     * and while the counter is still greater than zero.
+     * @param delta
+     * @return Returns the new value of the counter
+     */
+    public final int incrementCounter(int delta) {
+        int new_count = this.counter.addAndGet(delta);
+        if (debug.val)
+            LOG.debug(String.format("Txn #%d - Incremented %s / COUNTER: %d + %d = %s",
+                                    this.txn_id, this.getClass().getSimpleName(), new_count-delta, delta, new_count));
+        assert(new_count - delta > 0) :
+            "Trying to increment the " + this.getClass().getSimpleName() + " counter for txn #" + txn_id + " after it was unblocked";
+        return (new_count);
+    }
+
     /**
      * The implementation of the run method to process a new entry for this callback
      * This method should return how much we should decrement from the blocking counter
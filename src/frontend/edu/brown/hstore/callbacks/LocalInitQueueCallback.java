@@ -27,6 +27,12 @@ public class LocalInitQueueCallback extends PartitionCountingCallback<LocalTrans
 
     private final TransactionQueueManager txnQueueManager;
     
+    /**
+     * This is only set when we are acquiring the locks for a txn that is
+     * being escalated to be multi-partitioned in the middle of its execution.
+     */
+    private boolean escalation = false;
+    
     // ----------------------------------------------------------------------------
     // INTIALIZATION
     // ----------------------------------------------------------------------------
@@ -38,7 +44,29 @@ public class LocalInitQueueCallback extends PartitionCountingCallback<LocalTrans
     
     @Override
     public void init(LocalTransaction ts, PartitionSet partitions) {
+        this.escalation = false;
+        super.init(ts, partitions);
+    }
+    
+    /**
+     * Reinitialize this callback to wait for the locks of the additional partitions
+     * that a running txn needs. Whether the txn gets all of the locks or not, the 
+     * callback will send the txn back to its base partition so that it can either be
+     * executed again as a distributed txn or be restarted.
+     * @param ts
+     * @param partitions
+     */
+    public void initEscalation(LocalTransaction ts, PartitionSet partitions) {
+        this.finish();
         super.init(ts, partitions);
+        this.escalation = true;
+    }
+    
+    /**
+     * Returns true if this callback was initialized with initEscalation()
+     */
+    public boolean isEscalation() {
+        return (this.escalation);
     }
     
     // ----------------------------------------------------------------------------
@@ -79,6 +107,14 @@ public class LocalInitQueueCallback extends PartitionCountingCallback<LocalTrans
     protected void unblockCallback() {
         assert(this.isAborted() == false);
         
+        // The txn already holds the lock for its base partition, so we
+        // can just queue it up to be executed there again
+        if (this.escalation) {
+            if (debug.val) LOG.debug(this.ts + " acquired all of its escalated partitions");
+            this.hstore_site.transactionStart((LocalTransaction)this.ts);
+            return;
+        }
+        
         // HACK: If this is a single-partition txn, then we don't
         // need to submit it for execution because the PartitionExecutor
         // will fire it off right away
@@ -96,6 +132,14 @@ public class LocalInitQueueCallback extends PartitionCountingCallback<LocalTrans
 
     @Override
     protected void abortCallback(Status status) {
+        // The txn will get restarted by its PartitionExecutor once 
+        // it finds out that it could not get all of its partitions
+        if (this.escalation) {
+            if (debug.val) LOG.debug(String.format("%s - Failed to escalate txn [status=%s]", this.ts, status));
+            this.hstore_site.transactionStart((LocalTransaction)this.ts);
+            return;
+        }
+        
         // If the transaction needs to be restarted, then we'll attempt to requeue it.
         switch (status) {
             case ABORT_SPECULATIVE:
@@ -117,6 +161,11 @@ public class LocalInitQueueCallback extends PartitionCountingCallback<LocalTrans
         // decrement the counter for any partition that we are going to skip queueing up
     }
     
+    @Override
+    protected boolean isAbortFinal() {
+        return (this.escalation == false);
+    }
+    
     // ----------------------------------------------------------------------------
     // RPC CALLBACK
     // ----------------------------------------------------------------------------
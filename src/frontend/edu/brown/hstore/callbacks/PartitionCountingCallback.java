@@ -319,14 +319,16 @@ public abstract class PartitionCountingCallback<X extends AbstractTransaction> i
             // Note that we do this *even* if we haven't heard back from the remote
             // HStoreSite that they've acknowledged our transaction
             // We don't care when we get the response for this
-            if (this.ts.isPredictSinglePartition() == false) {
-                if (this.ts instanceof LocalTransaction) {
-                    this.finishTransaction(status);
-                } else {
-                    // FIXME
+            if (this.isAbortFinal()) {
+                if (this.ts.isPredictSinglePartition() == false) {
+                    if (this.ts instanceof LocalTransaction) {
+                        this.finishTransaction(status);
+                    } else {
+                        // FIXME
+                    }
                 }
+                this.hstore_site.queueDeleteTransaction(this.ts.getTransactionId(), status);
             }
-            this.hstore_site.queueDeleteTransaction(this.ts.getTransactionId(), status);
             this.abortFinished = true;
         }
     }
@@ -341,6 +343,15 @@ public abstract class PartitionCountingCallback<X extends AbstractTransaction> i
      * This is guaranteed to be called only once per transaction in this method 
      */
     protected abstract void abortCallback(Status status);
+    
+    /**
+     * Returns true if abort() should tell the HStoreCoordinator to finish the txn
+     * and queue it for deletion after invoking abortCallback(). Implementing classes can
+     * override this if whoever is waiting on the callback will clean up the txn itself.
+     */
+    protected boolean isAbortFinal() {
+        return (true);
+    }
 
     // ----------------------------------------------------------------------------
     // CANCEL
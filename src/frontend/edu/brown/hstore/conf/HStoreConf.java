@@ -114,6 +114,52 @@ public final class HStoreConf {
         )
         public boolean nanosecond_latencies;
 
+        @ConfigProperty(
+            description="The number of threads that the VoltCompiler will use to plan the Statements " +
+                        "of a project when it builds its catalog. Each thread has its own HSQLDB " +
+                        "session. If this is set to -1, then the compiler will use one thread per core.",
+            defaultInt=-1,
+            experimental=false
+        )
+        public int compiler_threads;
+
+        @ConfigProperty(
+            description="Keep the query plans that the VoltCompiler generates in " +
+                        "${global.compiler_plan_cache_dir} so that later builds only have to plan the " +
+                        "Statements whose SQL or schema changed. Delete that directory after changing " +
+                        "the query planner or optimizer.",
+            defaultBoolean=false,
+            experimental=false
+        )
+        public boolean compiler_plan_cache;
+
+        @ConfigProperty(
+            description="The directory where the VoltCompiler keeps its query plans if " +
+                        "${global.compiler_plan_cache} is enabled.",
+            defaultString="${global.temp_dir}/plancache",
+            experimental=false
+        )
+        public String compiler_plan_cache_dir;
+
+        @ConfigProperty(
+            description="Allow the query planner to use a hash join for joins that have an equality " +
+                        "predicate and no index on the inner table. Otherwise these joins are always " +
+                        "planned as nested loops. The EE's hash join has not been run through the " +
+                        "regression suites yet, so it is disabled by default.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean compiler_hash_join;
+
+        @ConfigProperty(
+            description="Allow the query optimizer to add a Bloom filter semi-join reduction round to " +
+                        "distributed joins. The EE's Bloom filter executor has not been run through the " +
+                        "regression suites yet, so it is disabled by default.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean compiler_bloom_filter_join;
+
     }
     
     // ============================================================================
@@ -301,6 +347,77 @@ public final class HStoreConf {
         )
         public boolean exec_force_allpartitions;
         
+        @ConfigProperty(
+            description="Remember which partitions a transaction actually touched whenever it was " +
+                        "mispredicted and restarted. The next request for the same procedure with the " +
+                        "same base partition and array parameter lengths will be started on all of " +
+                        "those partitions instead of mispredicting again.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean exec_mispredict_cache;
+        
+        @ConfigProperty(
+            description="The maximum number of entries per procedure to keep in the misprediction " +
+                        "cache when ${site.exec_mispredict_cache} is enabled.",
+            defaultInt=1000,
+            experimental=true
+        )
+        public int exec_mispredict_cache_size;
+        
+        @ConfigProperty(
+            description="The number of times that an entry in the misprediction cache is used to start " +
+                        "a new request when ${site.exec_mispredict_cache} is enabled. After that the entry " +
+                        "is thrown away until the same kind of request is mispredicted again.",
+            defaultInt=100,
+            experimental=true
+        )
+        public int exec_mispredict_cache_hits;
+        
+        @ConfigProperty(
+            description="When a single-partition transaction is mispredicted and the extra partitions " +
+                        "that it needs are all at the same HStoreSite, try to acquire the locks for those " +
+                        "partitions and then execute it again as a distributed transaction with the same " +
+                        "transaction id. The transaction keeps the lock for its base partition while it waits. " +
+                        "It is only restarted with a new transaction id if the partitions' lock queues will not " +
+                        "accept its transaction id.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean exec_mispredict_escalation;
+        
+        @ConfigProperty(
+            description="Execute distributed transactions whose partitions are all at the same HStoreSite " +
+                        "in short epochs. The transactions that arrive during an epoch are added to the " +
+                        "partitions' lock queues together in the order of their transaction ids, and they " +
+                        "commit without the prepare round of two-phase commit. This has to be enabled when " +
+                        "the HStoreSite starts, but it can be turned off and on again while it is running.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean exec_epoch_enable;
+        
+        @ConfigProperty(
+            description="The length of each epoch (in milliseconds) when ${site.exec_epoch_enable} " +
+                        "is enabled. If this is shorter than ${site.txn_incoming_delay}, then the " +
+                        "EpochCoordinator will use ${site.txn_incoming_delay} instead so that the transactions' " +
+                        "wait in the partitions' lock queues overlaps with the epoch.",
+            defaultInt=5,
+            experimental=true
+        )
+        public int exec_epoch_interval;
+        
+        @ConfigProperty(
+            description="Allow read-only distributed transactions whose partitions are all at the same " +
+                        "HStoreSite to execute without acquiring the locks for their partitions. The txn " +
+                        "will be restarted with locks if one of its partitions is running another " +
+                        "distributed txn when it gets its queries, or if any other txn that modified " +
+                        "one of its partitions commits before it finishes.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean exec_readonly_snapshot;
+        
         @ConfigProperty(
             description="Use the VoltDB @ProcInfo annotations for stored procedures to determine whether " +
             		    "a new request will be executed as a single-partitioned or distributed transaction. " +
@@ -432,6 +549,25 @@ public final class HStoreConf {
         )
         public boolean exec_adhoc_sql;
         
+        @ConfigProperty(
+            description="The number of planner processes that each HStoreSite will use to plan " +
+                        "ad hoc queries concurrently. The processes are only started when the " +
+                        "first ad hoc query that is not in the plan cache arrives.",
+            defaultInt=2,
+            experimental=false
+        )
+        public int exec_adhoc_planners;
+        
+        @ConfigProperty(
+            description="The maximum number of ad hoc plans that each HStoreSite will cache. " +
+                        "Plans are cached with the literals of the query replaced by parameters, " +
+                        "so queries that only differ in their constants will skip the planner. " +
+                        "Setting this to zero disables the cache.",
+            defaultInt=1000,
+            experimental=false
+        )
+        public int exec_adhoc_plan_cache_size;
+        
         @ConfigProperty(
             description="If this parameter is enabled, then the DBMS will attempt to prefetch commutative " +
             		    "queries on remote partitions for distributed transactions.",
@@ -623,6 +759,34 @@ public final class HStoreConf {
                 experimental=true
         )
         public boolean mr_reduce_blocking;
+        
+        @ConfigProperty(
+                description="If set to true, then the REDUCE phase of a MapReduceTransaction will group " +
+                            "its input by key with a hash table instead of sorting it. This also applies " +
+                            "to the combiner of a VoltMapReduceProcedure that runs at the end of the MAP phase.",
+                defaultBoolean=true,
+                experimental=true
+        )
+        public boolean mr_reduce_hash_grouping;
+        
+        @ConfigProperty(
+                description="The maximum number of rows that the hash grouping of a MapReduceTransaction " +
+                            "will index at once. Larger inputs are grouped in multiple passes that each " +
+                            "handle a slice of the keys. Set this to zero to always group in a single pass.",
+                defaultInt=1000000,
+                experimental=true
+        )
+        public int mr_reduce_max_group_rows;
+        
+        @ConfigProperty(
+                description="The SHUFFLE phase of a MapReduceTransaction will send the MAP output " +
+                            "for a partition as soon as it has collected this many bytes for it, " +
+                            "instead of waiting until it has partitioned all of the output. " +
+                            "Set this to zero to send all of the data at once.",
+                defaultInt=1048576,
+                experimental=true
+        )
+        public int mr_shuffle_chunk_size;
 
         // ----------------------------------------------------------------------------
         // Networking Options
@@ -675,6 +839,17 @@ public final class HStoreConf {
         )
         public long network_incoming_limit_bytes;
         
+        @ConfigProperty(
+            description="The number of selector threads that the HStoreSite's VoltNetwork will use for " +
+                        "client connections. New connections are given to the selector with the fewest " +
+                        "connections and each selector processes the requests of its own connections. " +
+                        "If this is set to one, then a single selector hands off its requests to a " +
+                        "pool of worker threads.",
+            defaultInt=1,
+            experimental=true
+        )
+        public int network_reactors;
+        
         // ----------------------------------------------------------------------------
         // Transaction Execution Options
         // ----------------------------------------------------------------------------
@@ -694,7 +869,8 @@ public final class HStoreConf {
             description="Enable transaction profiling. This will measure the amount of time a " +
             		    "transaction spends in different parts of the system (e.g., waiting in " +
             		    "the work queue, planning, executing). " +
-            		    "The profiling data collected can be retrieved using the @Statistics sysproc.",
+            		    "The profiling data collected can be retrieved using the @Statistics sysproc. " +
+            		    "The latency percentiles of each procedure are always collected, even if this is disabled.",
             defaultBoolean=false,
             experimental=false
         )
@@ -768,6 +944,18 @@ public final class HStoreConf {
         )
         public double queue_release_factor;
         
+        @ConfigProperty(
+            description="The number of threads that the TransactionQueueManager will use to insert new " +
+                        "transactions into the lock queues of the partitions at this HStoreSite. " +
+                        "Transactions are assigned to these threads based on their base partition. " +
+                        "If set to zero, then the thread that initializes the transaction will insert it " +
+                        "into the lock queues itself. Note that the init queue profiling measurements " +
+                        "enabled by ${site.queue_profiling} are only collected when this is set to one.",
+            defaultInt=1,
+            experimental=true
+        )
+        public int queue_init_threads;
+        
         // ----------------------------------------------------------------------------
         // Parameter Mapping Options
         // ----------------------------------------------------------------------------
@@ -889,6 +1077,18 @@ public final class HStoreConf {
         )
         public boolean markov_fixed;
         
+        @ConfigProperty(
+            description="The path to a workload trace file that is used to check the fixed transaction " +
+                        "estimators that are generated from the catalog's parameter mappings when " +
+                        "${site.markov_fixed} is enabled for a benchmark that does not have its own fixed " +
+                        "estimator. Any procedure whose generated model mispredicts too many of the " +
+                        "transactions in this workload is not estimated. If this is not set, then no " +
+                        "estimators are generated and these benchmarks only predict the base partition.",
+            defaultNull=true,
+            experimental=true
+        )
+        public String markov_fixed_workload;
+        
         @ConfigProperty(
             description="Enable profiling in the MarkovEstimator. " +
                         "The profiling data collected can be retrieved using the @Statistics sysproc.",
@@ -980,6 +1180,26 @@ public final class HStoreConf {
             experimental=false
         )
         public boolean coordinator_sync_time;
+        
+        @ConfigProperty(
+            description="If this is enabled, the HStoreCoordinator will buffer outbound messages to " +
+                        "another HStoreSite until the next pass of its event loop so that they can be sent " +
+                        "together in a single network write. This lets the work, prepare, and finish messages " +
+                        "from different distributed transactions share the cost of going out over the network. " +
+                        "Otherwise every message is sent right away.",
+            defaultBoolean=false,
+            experimental=true
+        )
+        public boolean coordinator_coalesce;
+        
+        @ConfigProperty(
+            description="The number of event loop threads that the HStoreCoordinator will use for its " +
+                        "network connections. The connections to other HStoreSites are divided up " +
+                        "between the event loops. The first event loop also accepts new connections.",
+            defaultInt=1,
+            experimental=true
+        )
+        public int coordinator_event_loops;
 
         // ----------------------------------------------------------------------------
         // Output Tracing
@@ -1331,6 +1551,28 @@ public final class HStoreConf {
         )
         public int blocking_concurrent;
         
+        @ConfigProperty(
+            description="When this parameter is enabled, each client thread will submit transactions on a " +
+                        "fixed arrival schedule that is derived from ${client.txnrate}, regardless of whether " +
+                        "its earlier transactions have completed. The latency of each transaction is measured " +
+                        "from the time that it was scheduled to be sent, so that any delays in the cluster " +
+                        "or the client are included in the latency results. Transactions that could not be " +
+                        "queued because of backpressure are counted separately as unsent. " +
+                        "This cannot be used together with ${client.blocking}.",
+            defaultBoolean=false,
+            experimental=false
+        )
+        public boolean open_loop;
+        
+        @ConfigProperty(
+            description="The distribution of the transaction inter-arrival times for each client thread " +
+                        "when ${client.open_loop} is enabled. Either 'constant' for fixed intervals or " +
+                        "'poisson' for exponentially distributed intervals with the same mean.",
+            defaultString="constant",
+            experimental=false
+        )
+        public String open_loop_arrivals;
+        
         @ConfigProperty(
             description="When this parameter is enabled, the benchmark's loaders will only be " +
                         "allowed to load tables into the database cluster one at a time. This is " +
@@ -1340,6 +1582,34 @@ public final class HStoreConf {
         )
         public boolean blocking_loader;
 
+        @ConfigProperty(
+            description="When this parameter is enabled, the benchmark's loaders will split up the " +
+                        "tuples of partitioned tables themselves and load each partition's tuples with " +
+                        "the single-partition @LoadPartitionTable sysproc instead of locking every " +
+                        "partition with @LoadMultipartitionTable. Replicated tables are always loaded " +
+                        "with @LoadMultipartitionTable.",
+            defaultBoolean=false,
+            experimental=false
+        )
+        public boolean partitioned_loader;
+
+        @ConfigProperty(
+            description="The max number of tuples that the loaders will send to a partition in " +
+                        "a single @LoadPartitionTable request when ${client.partitioned_loader} is enabled.",
+            defaultInt=5000,
+            experimental=false
+        )
+        public int partitioned_loader_chunk_size;
+
+        @ConfigProperty(
+            description="The max number of outstanding load requests that the loaders will have for " +
+                        "each partition when ${client.partitioned_loader} is enabled. Loader threads " +
+                        "block until a partition has room for another request.",
+            defaultInt=2,
+            experimental=false
+        )
+        public int partitioned_loader_outstanding;
+
         @ConfigProperty(
             description="The scaling factor determines how large to make the target benchmark's data set. " +
                         "A scalefactor greater than one makes the data set larger, while less than one " +
@@ -3,6 +3,7 @@ package edu.brown.hstore.estimators.fixed;
 import java.util.List;
 
 import org.apache.commons.collections15.CollectionUtils;
+import org.apache.log4j.Logger;
 import org.voltdb.CatalogContext;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
@@ -14,12 +15,21 @@ import edu.brown.hstore.estimators.EstimatorState;
 import edu.brown.hstore.estimators.Estimate;
 import edu.brown.hstore.estimators.EstimatorUtil;
 import edu.brown.hstore.estimators.TransactionEstimator;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.markov.EstimationThresholds;
 import edu.brown.utils.PartitionEstimator;
 import edu.brown.utils.PartitionSet;
 import edu.brown.utils.ProjectType;
+import edu.brown.workload.TransactionTrace;
 
 public abstract class AbstractFixedEstimator extends TransactionEstimator {
+    private static final Logger LOG = Logger.getLogger(AbstractFixedEstimator.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
     
     protected static final PartitionSet EMPTY_PARTITION_SET = new PartitionSet();
     
@@ -43,8 +53,24 @@ public abstract class AbstractFixedEstimator extends TransactionEstimator {
         // Nothing to do...
     }
     
-    @SuppressWarnings("unchecked")
     public static <T extends AbstractFixedEstimator> T factory(PartitionEstimator p_estimator, CatalogContext catalogContext) {
+        return (AbstractFixedEstimator.<T>factory(p_estimator, catalogContext, null));
+    }
+    
+    /**
+     * Create the fixed estimator for the catalog's project. Projects that do not have
+     * their own fixed estimator get a MappedFixedEstimator generated from the catalog's
+     * ParameterMappings, but only if we are also given a workload to validate it with.
+     * Otherwise they get an estimator that only predicts the base partition.
+     * @param p_estimator
+     * @param catalogContext
+     * @param workload (may be null)
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends AbstractFixedEstimator> T factory(PartitionEstimator p_estimator,
+                                                               CatalogContext catalogContext,
+                                                               Iterable<TransactionTrace> workload) {
         AbstractFixedEstimator estimator = null;
         ProjectType ptype = ProjectType.get(catalogContext.database.getProject());
         switch (ptype) {
@@ -61,7 +87,22 @@ public abstract class AbstractFixedEstimator extends TransactionEstimator {
                 estimator = new FixedVoterEstimator(p_estimator);
                 break;
             default:
-                estimator = new DefaultFixedEstimator(p_estimator);
+                // Generate an estimator from the ParameterMappings if we have them
+                // and a workload to check that its models are accurate enough
+                if (catalogContext.paramMappings != null && catalogContext.paramMappings.isEmpty() == false &&
+                    workload != null) {
+                    MappedFixedEstimator mapped = new MappedFixedEstimator(p_estimator, catalogContext.paramMappings);
+                    try {
+                        int disabled = mapped.validate(workload);
+                        if (debug.val)
+                            LOG.debug(String.format("Disabled %d generated procedure models", disabled));
+                    } catch (Exception ex) {
+                        throw new RuntimeException("Failed to validate " + mapped.getClass().getSimpleName(), ex);
+                    }
+                    estimator = mapped;
+                } else {
+                    estimator = new DefaultFixedEstimator(p_estimator);
+                }
         } // SWITCH
         return ((T)estimator);
     }
@@ -0,0 +1,377 @@
+package edu.brown.hstore.estimators.fixed;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.ProcParameter;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Statement;
+import org.voltdb.catalog.StmtParameter;
+
+import edu.brown.hstore.estimators.EstimatorState;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.mappings.ParameterMapping;
+import edu.brown.mappings.ParameterMappingsSet;
+import edu.brown.utils.PartitionEstimator;
+import edu.brown.utils.PartitionSet;
+import edu.brown.workload.TransactionTrace;
+
+/**
+ * Fixed Estimator that is generated automatically from a ParameterMappingsSet.
+ * For each Statement in a Procedure we look up the StmtParameters that are used
+ * to route it to a partition and then use the mappings to find the ProcParameters
+ * that they are derived from. The estimate for a new txn is then just a matter
+ * of hashing those input parameters, so we get the same partitions that the
+ * MarkovEstimator would predict without having to traverse any models.
+ * <B>NOTE:</B> Procedures that have a Statement that we cannot map back to
+ * the input parameters fall back to the DefaultFixedEstimator behavior.
+ */
+public class MappedFixedEstimator extends AbstractFixedEstimator {
+    private static final Logger LOG = Logger.getLogger(MappedFixedEstimator.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    /**
+     * The minimum ParameterMapping coefficient that we will accept
+     */
+    public static final double DEFAULT_MIN_COEFFICIENT = 1.0d;
+
+    /**
+     * The minimum fraction of the txns in a workload that a ProcedureModel
+     * must correctly predict in order for us to use it
+     */
+    public static final double DEFAULT_MIN_ACCURACY = 0.95d;
+
+    /**
+     * An input to a ProcedureModel's partition function.
+     * The value(s) of the ProcParameter are hashed on the partitioning Column.
+     * If the ProcParameter is an array, then every element is hashed.
+     */
+    protected static class PartitionTerm {
+        protected final int param_idx;
+        protected final boolean is_array;
+        protected final Column catalog_col;
+
+        private PartitionTerm(ProcParameter catalog_param, Column catalog_col) {
+            this.param_idx = catalog_param.getIndex();
+            this.is_array = catalog_param.getIsarray();
+            this.catalog_col = catalog_col;
+        }
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return (true);
+            if ((obj instanceof PartitionTerm) == false) return (false);
+            PartitionTerm other = (PartitionTerm)obj;
+            return (this.param_idx == other.param_idx &&
+                    this.is_array == other.is_array &&
+                    this.catalog_col.equals(other.catalog_col));
+        }
+        @Override
+        public int hashCode() {
+            return (31 * this.param_idx + this.catalog_col.hashCode());
+        }
+        @Override
+        public String toString() {
+            return String.format("%s%s->%s", (this.is_array ? "ARRAY" : "PARAM"),
+                                 this.param_idx, this.catalog_col.fullName());
+        }
+    } // CLASS
+
+    /**
+     * The closed-form partition function for a single Procedure
+     */
+    protected static class ProcedureModel {
+        protected final Procedure catalog_proc;
+        protected final Set<PartitionTerm> readTerms = new LinkedHashSet<PartitionTerm>();
+        protected final Set<PartitionTerm> writeTerms = new LinkedHashSet<PartitionTerm>();
+        protected boolean broadcastRead = false;
+        protected boolean broadcastWrite = false;
+        protected boolean valid = true;
+
+        private ProcedureModel(Procedure catalog_proc) {
+            this.catalog_proc = catalog_proc;
+        }
+        public boolean isValid() {
+            return (this.valid);
+        }
+        @Override
+        public String toString() {
+            return String.format("%s[read=%s%s, write=%s%s, valid=%s]",
+                                 this.catalog_proc.getName(),
+                                 this.readTerms, (this.broadcastRead ? "+ALL" : ""),
+                                 this.writeTerms, (this.broadcastWrite ? "+ALL" : ""),
+                                 this.valid);
+        }
+    } // CLASS
+
+    private final ParameterMappingsSet mappings;
+    private final double min_coefficient;
+    private final Map<Procedure, ProcedureModel> models = new HashMap<Procedure, ProcedureModel>();
+
+    /**
+     * Constructor
+     * @param p_estimator
+     * @param mappings
+     */
+    public MappedFixedEstimator(PartitionEstimator p_estimator, ParameterMappingsSet mappings) {
+        this(p_estimator, mappings, DEFAULT_MIN_COEFFICIENT);
+    }
+
+    /**
+     * Full Constructor
+     * @param p_estimator
+     * @param mappings
+     * @param min_coefficient
+     */
+    public MappedFixedEstimator(PartitionEstimator p_estimator, ParameterMappingsSet mappings, double min_coefficient) {
+        super(p_estimator);
+        this.mappings = mappings;
+        this.min_coefficient = min_coefficient;
+
+        for (Procedure catalog_proc : this.catalogContext.database.getProcedures()) {
+            if (catalog_proc.getSystemproc()) continue;
+            ProcedureModel model = this.generateModel(catalog_proc);
+            this.models.put(catalog_proc, model);
+            if (debug.val) LOG.debug("Generated " + model);
+        } // FOR
+    }
+
+    /**
+     * Return the ProcedureModel that was generated for the given Procedure.
+     * Returns null if the Procedure is a sysproc.
+     * @param catalog_proc
+     * @return
+     */
+    protected ProcedureModel getModel(Procedure catalog_proc) {
+        return (this.models.get(catalog_proc));
+    }
+
+    // ----------------------------------------------------------------------------
+    // MODEL GENERATION
+    // ----------------------------------------------------------------------------
+
+    private ProcedureModel generateModel(Procedure catalog_proc) {
+        ProcedureModel model = new ProcedureModel(catalog_proc);
+        for (Statement catalog_stmt : catalog_proc.getStatements()) {
+            boolean write = (catalog_stmt.getReadonly() == false);
+
+            // Replicated tables are always available at the base partition,
+            // but writes to them have to go to every partition
+            if (catalog_stmt.getReplicatedonly()) {
+                if (write) model.broadcastWrite = true;
+                continue;
+            }
+
+            // If the PartitionEstimator can't route this Statement using its
+            // input parameters, then it has to be broadcast
+            int param_idxs[] = this.p_estimator.getStatementEstimationParameters(catalog_stmt);
+            if (param_idxs == null) {
+                if (debug.val)
+                    LOG.debug(String.format("%s cannot be routed using its parameters. Assuming broadcast",
+                              catalog_stmt.fullName()));
+                if (write) model.broadcastWrite = true;
+                else model.broadcastRead = true;
+                continue;
+            }
+
+            StmtParameter stmt_params[] = catalog_stmt.getParameters().values();
+            for (int param_idx : param_idxs) {
+                Collection<PartitionTerm> terms = this.mapStmtParameter(catalog_stmt, stmt_params[param_idx]);
+                if (terms.isEmpty()) {
+                    if (debug.val)
+                        LOG.warn(String.format("No mapping for %s with coefficient >= %.2f. " +
+                                 "Disabling generated estimates for %s",
+                                 stmt_params[param_idx].fullName(), this.min_coefficient, catalog_proc.getName()));
+                    model.valid = false;
+                    return (model);
+                }
+                (write ? model.writeTerms : model.readTerms).addAll(terms);
+            } // FOR
+        } // FOR
+        return (model);
+    }
+
+    /**
+     * Find all of the ProcParameters that the given StmtParameter is mapped to
+     * across every invocation of its Statement
+     * @param catalog_stmt
+     * @param catalog_stmt_param
+     * @return
+     */
+    private Collection<PartitionTerm> mapStmtParameter(Statement catalog_stmt, StmtParameter catalog_stmt_param) {
+        Set<PartitionTerm> terms = new LinkedHashSet<PartitionTerm>();
+        if (this.mappings == null) return (terms);
+
+        for (ParameterMapping m : this.mappings.get(catalog_stmt, catalog_stmt_param)) {
+            if (m.getCoefficient() < this.min_coefficient) continue;
+            Column catalog_col = m.getColumn();
+            if (catalog_col == null) continue;
+            if (trace.val) LOG.trace("Mapping: " + m);
+            terms.add(new PartitionTerm(m.getProcParameter(), catalog_col));
+        } // FOR
+        return (terms);
+    }
+
+    // ----------------------------------------------------------------------------
+    // WORKLOAD VALIDATION
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Validate the generated models against a workload using the default accuracy
+     * @param workload
+     * @return
+     * @throws Exception
+     * @see MappedFixedEstimator#validate(Iterable, double)
+     */
+    public int validate(Iterable<TransactionTrace> workload) throws Exception {
+        return (this.validate(workload, DEFAULT_MIN_ACCURACY));
+    }
+
+    /**
+     * Replay the given transaction traces through the generated models and
+     * disable any ProcedureModel that does not correctly predict every
+     * partition touched by at least <code>min_accuracy</code> of its txns.
+     * Returns the number of ProcedureModels that were disabled.
+     * @param workload
+     * @param min_accuracy
+     * @return
+     * @throws Exception
+     */
+    public int validate(Iterable<TransactionTrace> workload, double min_accuracy) throws Exception {
+        Map<Procedure, int[]> counters = new HashMap<Procedure, int[]>();
+        PartitionSet actual = new PartitionSet();
+        PartitionSet touched = new PartitionSet();
+        PartitionSet written = new PartitionSet();
+
+        for (TransactionTrace txn_trace : workload) {
+            Procedure catalog_proc = txn_trace.getCatalogItem(this.catalogContext.database);
+            ProcedureModel model = this.models.get(catalog_proc);
+            if (model == null || model.valid == false) continue;
+
+            Object args[] = txn_trace.getParams();
+            int base_partition = this.p_estimator.getBasePartition(catalog_proc, args, true);
+            actual.clear();
+            this.p_estimator.getAllPartitions(actual, txn_trace);
+            touched.clear();
+            written.clear();
+            this.populatePartitions(model, base_partition, args, touched, written);
+
+            int ctrs[] = counters.get(catalog_proc);
+            if (ctrs == null) {
+                ctrs = new int[2];
+                counters.put(catalog_proc, ctrs);
+            }
+            if (touched.containsAll(actual)) ctrs[0]++;
+            ctrs[1]++;
+        } // FOR
+
+        int disabled = 0;
+        for (Procedure catalog_proc : counters.keySet()) {
+            int ctrs[] = counters.get(catalog_proc);
+            double accuracy = ctrs[0] / (double)ctrs[1];
+            if (debug.val)
+                LOG.debug(String.format("%s Accuracy: %d / %d [%.2f]",
+                          catalog_proc.getName(), ctrs[0], ctrs[1], accuracy));
+            if (accuracy < min_accuracy) {
+                LOG.warn(String.format("Disabling generated estimates for %s [accuracy=%.2f]",
+                         catalog_proc.getName(), accuracy));
+                this.models.get(catalog_proc).valid = false;
+                disabled++;
+            }
+        } // FOR
+        return (disabled);
+    }
+
+    // ----------------------------------------------------------------------------
+    // ESTIMATION
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Populate the set of partitions that the txn will touch and the subset
+     * of those partitions that it will write to.
+     * @param model
+     * @param base_partition
+     * @param args
+     * @param touched
+     * @param written
+     */
+    private void populatePartitions(ProcedureModel model, int base_partition, Object args[],
+                                    PartitionSet touched, PartitionSet written) {
+        touched.add(base_partition);
+        if (model.broadcastWrite) {
+            written.addAll(this.catalogContext.getAllPartitionIds());
+        } else {
+            for (PartitionTerm term : model.writeTerms) {
+                this.hashTerm(term, args, written);
+            } // FOR
+        }
+        if (model.broadcastRead) {
+            touched.addAll(this.catalogContext.getAllPartitionIds());
+        } else {
+            for (PartitionTerm term : model.readTerms) {
+                this.hashTerm(term, args, touched);
+            } // FOR
+        }
+        touched.addAll(written);
+    }
+
+    private void hashTerm(PartitionTerm term, Object args[], PartitionSet partitions) {
+        if (term.param_idx >= args.length) return;
+        Object value = args[term.param_idx];
+        if (value == null) return;
+
+        if (term.is_array) {
+            for (int i = 0, cnt = Array.getLength(value); i < cnt; i++) {
+                Object inner = Array.get(value, i);
+                if (inner != null) partitions.add(this.hasher.hash(inner, term.catalog_col));
+            } // FOR
+        } else {
+            partitions.add(this.hasher.hash(value, term.catalog_col));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <T extends EstimatorState> T startTransactionImpl(Long txn_id, int base_partition, Procedure catalog_proc, Object[] args) {
+        FixedEstimatorState ret = new FixedEstimatorState(this.catalogContext, txn_id, base_partition);
+        ProcedureModel model = this.models.get(catalog_proc);
+
+        PartitionSet partitions = null;
+        PartitionSet readonly = null;
+        if (model == null || model.valid == false) {
+            partitions = this.singlePartitionSets.get(base_partition);
+            readonly = EMPTY_PARTITION_SET;
+        }
+        else {
+            PartitionSet touched = new PartitionSet();
+            PartitionSet written = new PartitionSet();
+            this.populatePartitions(model, base_partition, args, touched, written);
+
+            // Reuse our cached singleton sets for single-partition txns
+            if (touched.size() == 1) {
+                partitions = this.singlePartitionSets.get(base_partition);
+                readonly = (written.isEmpty() ? partitions : EMPTY_PARTITION_SET);
+            } else {
+                partitions = touched;
+                readonly = new PartitionSet(touched);
+                readonly.removeAll(written);
+            }
+        }
+        if (debug.val)
+            LOG.debug(String.format("%s #%d - [BasePartition=%d / Partitions=%s / ReadOnly=%s]",
+                      catalog_proc.getName(), txn_id, base_partition, partitions, readonly));
+
+        ret.createInitialEstimate(partitions, readonly, EMPTY_PARTITION_SET);
+        return ((T)ret);
+    }
+}
@@ -16,6 +16,7 @@ import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.AntiCacheManagerProfiler;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 
 public class AntiCacheManagerProfilerStats extends StatsSource {
     private static final Logger LOG = Logger.getLogger(AntiCacheManagerProfilerStats.class);
@@ -66,6 +67,7 @@ public class AntiCacheManagerProfilerStats extends StatsSource {
             String name = pm.getType().toUpperCase();
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
     }
 
@@ -82,6 +84,7 @@ public class AntiCacheManagerProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
 
         super.updateStatsRow(rowKey, rowValues);
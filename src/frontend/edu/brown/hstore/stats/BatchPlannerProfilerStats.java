@@ -22,6 +22,7 @@ import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.BatchPlannerProfiler;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 
 public class BatchPlannerProfilerStats extends StatsSource {
     private static final Logger LOG = Logger.getLogger(BatchPlannerProfilerStats.class);
@@ -72,6 +73,7 @@ public class BatchPlannerProfilerStats extends StatsSource {
             String name = pm.getType().toUpperCase();
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
     }
 
@@ -117,6 +119,7 @@ public class BatchPlannerProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : totalPMs) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
 
         super.updateStatsRow(rowKey, rowValues);
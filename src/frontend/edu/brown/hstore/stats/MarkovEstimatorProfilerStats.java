@@ -17,6 +17,7 @@ import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.MarkovEstimatorProfiler;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 
 public class MarkovEstimatorProfilerStats extends StatsSource {
     private static final Logger LOG = Logger.getLogger(MarkovEstimatorProfilerStats.class);
@@ -68,6 +69,7 @@ public class MarkovEstimatorProfilerStats extends StatsSource {
             //  (2) The number of invocations
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
     }
 
@@ -86,6 +88,7 @@ public class MarkovEstimatorProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
         super.updateStatsRow(rowKey, rowValues);
     }
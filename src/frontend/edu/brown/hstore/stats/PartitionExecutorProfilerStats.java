@@ -16,6 +16,7 @@ import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.PartitionExecutorProfiler;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 
 public class PartitionExecutorProfilerStats extends StatsSource {
     private static final Logger LOG = Logger.getLogger(PartitionExecutorProfilerStats.class);
@@ -68,6 +69,7 @@ public class PartitionExecutorProfilerStats extends StatsSource {
             //  (2) The number of invocations
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
     }
 
@@ -84,6 +86,7 @@ public class PartitionExecutorProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
         super.updateStatsRow(rowKey, rowValues);
     }
@@ -16,6 +16,7 @@ import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.HStoreSiteProfiler;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 
 public class SiteProfilerStats extends StatsSource {
     private static final Logger LOG = Logger.getLogger(SiteProfilerStats.class);
@@ -68,6 +69,7 @@ public class SiteProfilerStats extends StatsSource {
             //  (2) The number of invocations
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
     }
 
@@ -78,6 +80,7 @@ public class SiteProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
         super.updateStatsRow(rowKey, rowValues);
     }
@@ -20,6 +20,7 @@ import edu.brown.hstore.SpecExecScheduler;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 import edu.brown.profilers.SpecExecProfiler;
 import edu.brown.statistics.HistogramUtil;
 import edu.brown.utils.MathUtil;
@@ -92,6 +93,7 @@ public class SpecExecProfilerStats extends StatsSource {
             //  (2) The number of invocations
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
     }
 
@@ -119,6 +121,7 @@ public class SpecExecProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
         super.updateStatsRow(rowKey, rowValues);
     }
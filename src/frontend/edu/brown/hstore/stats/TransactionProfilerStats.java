@@ -2,13 +2,13 @@ package edu.brown.hstore.stats;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.apache.log4j.Logger;
 import org.voltdb.CatalogContext;
@@ -22,7 +22,10 @@ import org.voltdb.catalog.Procedure;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 import edu.brown.profilers.TransactionProfiler;
+import edu.brown.statistics.LatencyHistogram;
+import edu.brown.statistics.ThreadLocalLatencyHistogram;
 import edu.brown.utils.CollectionUtil;
 import edu.brown.utils.MathUtil;
 
@@ -38,11 +41,28 @@ public class TransactionProfilerStats extends StatsSource {
     private final CatalogContext catalogContext;
     private int proc_offset;
     private int stdev_offset;
+    private int percentile_offset;
+    private int latency_offset;
+    private int num_pms;
     
     /**
      * Maintain a set of tuples for the transaction profile times
      */
-    private final Map<Procedure, Queue<long[]>> profileQueues = Collections.synchronizedSortedMap(new TreeMap<Procedure, Queue<long[]>>());
+    private final ConcurrentMap<Procedure, Queue<long[]>> profileQueues = new ConcurrentSkipListMap<Procedure, Queue<long[]>>();
+    
+    /**
+     * The distribution of the think times for each ProfileMeasurement per Procedure.
+     * These are drained every time that we collect the stats for a Procedure
+     * so that they cover the same txns as the totals. A txn that finishes
+     * while we are collecting the stats may be counted in the next row instead.
+     */
+    private final ConcurrentMap<Procedure, ThreadLocalLatencyHistogram[]> profileHistograms = new ConcurrentHashMap<Procedure, ThreadLocalLatencyHistogram[]>();
+    
+    /**
+     * The distribution of the latencies of every txn per Procedure.
+     * Unlike the ProfileMeasurement histograms, these do not need ${site.txn_profiling}.
+     */
+    private final ConcurrentMap<Procedure, ThreadLocalLatencyHistogram> latencyHistograms = new ConcurrentHashMap<Procedure, ThreadLocalLatencyHistogram>();
     // private final Map<Procedure, long[]> profileTotals = Collections.synchronizedSortedMap(new TreeMap<Procedure, long[]>());
 
     public TransactionProfilerStats(CatalogContext catalogContext) {
@@ -59,22 +79,57 @@ public class TransactionProfilerStats extends StatsSource {
         assert(tp.isStopped());
         if (trace.val) LOG.info("Calculating TransactionProfile information");
 
-        Queue<long[]> queue = this.profileQueues.get(catalog_proc);
-        if (queue == null) {
-            synchronized (this) {
-                queue = this.profileQueues.get(catalog_proc);
-                if (queue == null) {
-                    queue = new ConcurrentLinkedQueue<long[]>();
-                    this.profileQueues.put(catalog_proc, queue);
-                }
-            } // SYNCH
-        }
-        
         long tuple[] = tp.getTuple();
         assert(tuple != null);
         if (trace.val)
             LOG.trace(String.format("Appending TransactionProfile: %s", Arrays.toString(tuple)));
-        queue.offer(tuple);
+        
+        // Each tuple pair is the total time and the number of invocations
+        // of that ProfileMeasurement for this txn
+        ThreadLocalLatencyHistogram histograms[] = this.profileHistograms.get(catalog_proc);
+        if (histograms == null) {
+            histograms = new ThreadLocalLatencyHistogram[tuple.length / 2];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new ThreadLocalLatencyHistogram();
+            } // FOR
+            ThreadLocalLatencyHistogram existing[] = this.profileHistograms.putIfAbsent(catalog_proc, histograms);
+            if (existing != null) histograms = existing;
+        }
+        for (int i = 0; i < histograms.length; i++) {
+            if (tuple[i*2+1] > 0) histograms[i].record(tuple[i*2]);
+        } // FOR
+        this.getQueue(catalog_proc).offer(tuple);
+    }
+    
+    /**
+     * Record the latency of a txn (in nanoseconds) for the given Procedure.
+     * This is always called for every txn, even if its TransactionProfiler is disabled.
+     * @param catalog_proc
+     * @param latency
+     */
+    public void addTxnLatency(Procedure catalog_proc, long latency) {
+        assert(catalog_proc != null);
+        ThreadLocalLatencyHistogram histogram = this.latencyHistograms.get(catalog_proc);
+        if (histogram == null) {
+            histogram = new ThreadLocalLatencyHistogram();
+            ThreadLocalLatencyHistogram existing = this.latencyHistograms.putIfAbsent(catalog_proc, histogram);
+            if (existing != null) histogram = existing;
+            
+            // Make sure that there is a row for this Procedure even if
+            // nobody ever gives us a TransactionProfiler for it
+            this.getQueue(catalog_proc);
+        }
+        histogram.record(latency);
+    }
+    
+    private Queue<long[]> getQueue(Procedure catalog_proc) {
+        Queue<long[]> queue = this.profileQueues.get(catalog_proc);
+        if (queue == null) {
+            queue = new ConcurrentLinkedQueue<long[]>();
+            Queue<long[]> existing = this.profileQueues.putIfAbsent(catalog_proc, queue);
+            if (existing != null) queue = existing;
+        }
+        return (queue);
     }
     
     @SuppressWarnings("unchecked")
@@ -180,20 +235,43 @@ public class TransactionProfilerStats extends StatsSource {
             }
         } // FOR
         
+        // The think time percentiles for each ProfileMeasurement go at the end
+        // so that they don't mess up the offsets for the totals
+        this.percentile_offset = columns.size();
+        for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
+            ProfileMeasurementUtil.addPercentileColumns(columns, pm.getType().toUpperCase());
+        } // FOR
+        this.num_pms = profiler.getProfileMeasurements().length;
+        
+        // The latency percentiles are always available
+        this.latency_offset = columns.size();
+        ProfileMeasurementUtil.addPercentileColumns(columns, "LATENCY");
+        
         assert(this.proc_offset >= 0);
         assert(this.stdev_offset >= 0);
     }
 
     @Override
-    protected synchronized void updateStatsRow(Object rowKey, Object[] rowValues) {
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
         Procedure proc = (Procedure)rowKey;
         if (debug.val) LOG.debug("Collecting txn profiling stats for " + proc.getName());
         
         rowValues[this.proc_offset] = proc.getName();
         Object row[] = this.calculateTxnProfileTotals(proc);
-        for (int i = 0; i < row.length; i++) {
-            rowValues[this.proc_offset + i + 1] = row[i];    
+        for (int i = this.proc_offset + 1; i < this.percentile_offset; i++) {
+            rowValues[i] = (row != null ? row[i - this.proc_offset - 1] : 0l);
+        } // FOR
+        
+        // Drain the histograms so that the next row only has the txns
+        // that finished after this one
+        ThreadLocalLatencyHistogram histograms[] = this.profileHistograms.get(proc);
+        for (int offset = this.percentile_offset, i = 0; i < this.num_pms; i++) {
+            LatencyHistogram h = (histograms != null ? histograms[i].drain() : null);
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, h);
         } // FOR
+        ThreadLocalLatencyHistogram latencies = this.latencyHistograms.get(proc);
+        ProfileMeasurementUtil.populatePercentiles(rowValues, this.latency_offset,
+                                                   (latencies != null ? latencies.drain() : null));
         super.updateStatsRow(rowKey, rowValues);
     }
 }
@@ -16,6 +16,7 @@ import edu.brown.hstore.TransactionQueueManager;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.profilers.ProfileMeasurementUtil;
 import edu.brown.profilers.PartitionLockQueueProfiler;
 import edu.brown.profilers.TransactionQueueManagerProfiler;
 import edu.brown.utils.MathUtil;
@@ -70,6 +71,7 @@ public class TransactionQueueManagerProfilerStats extends StatsSource {
             String name = pm.getType().toUpperCase();
             columns.add(new VoltTable.ColumnInfo(name, VoltType.BIGINT));
             columns.add(new VoltTable.ColumnInfo(name+"_CNT", VoltType.BIGINT));
+            ProfileMeasurementUtil.addPercentileColumns(columns, name);
         } // FOR
         
         // ThrottlingQueue
@@ -101,6 +103,7 @@ public class TransactionQueueManagerProfilerStats extends StatsSource {
         for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
             rowValues[offset++] = pm.getTotalThinkTime();
             rowValues[offset++] = pm.getInvocations();
+            offset = ProfileMeasurementUtil.populatePercentiles(rowValues, offset, pm);
         } // FOR
         
         // ThrottlingQueue
@@ -376,19 +376,7 @@ public abstract class AbstractTransaction implements Poolable, Comparable<Abstra
         }
         
         for (int partition : this.local_partitions) {
-            this.prepared[partition] = false;
-            this.finished[partition] = false;
-            this.round_state[partition] = null;
-            this.round_ctr[partition] = 0;
-            this.exec_readOnly[partition] = true;
-            this.exec_queueWork[partition] = false;
-            this.exec_eeWork[partition] = false;
-            this.exec_firstUndoToken[partition] = HStoreConstants.NULL_UNDO_LOGGING_TOKEN;
-            this.exec_lastUndoToken[partition] = HStoreConstants.NULL_UNDO_LOGGING_TOKEN;
-            this.exec_noUndoBuffer[partition] = false;
-            
-            this.readTables[partition].clear();
-            this.writeTables[partition].clear();
+            this.resetPartitionState(partition);
         } // FOR
 
         if (debug.val)
@@ -403,6 +391,26 @@ public abstract class AbstractTransaction implements Poolable, Comparable<Abstra
         this.txn_id = null;
     }
     
+    /**
+     * Clear out everything that this txn has done at the given partition so far
+     * @param partition
+     */
+    protected void resetPartitionState(int partition) {
+        this.prepared[partition] = false;
+        this.finished[partition] = false;
+        this.round_state[partition] = null;
+        this.round_ctr[partition] = 0;
+        this.exec_readOnly[partition] = true;
+        this.exec_queueWork[partition] = false;
+        this.exec_eeWork[partition] = false;
+        this.exec_firstUndoToken[partition] = HStoreConstants.NULL_UNDO_LOGGING_TOKEN;
+        this.exec_lastUndoToken[partition] = HStoreConstants.NULL_UNDO_LOGGING_TOKEN;
+        this.exec_noUndoBuffer[partition] = false;
+        
+        this.readTables[partition].clear();
+        this.writeTables[partition].clear();
+    }
+    
     // ----------------------------------------------------------------------------
     // DATA STORAGE
     // ----------------------------------------------------------------------------
@@ -140,6 +140,13 @@ public class LocalTransaction extends AbstractTransaction {
      */
     private DistributedState dtxnState;
     
+    /**
+     * The partitions that this txn was predicted to touch before it was escalated
+     * to be a distributed txn. This is only set while the txn is waiting to get the
+     * locks for its new partitions so that it can be executed again.
+     */
+    private PartitionSet escalate_origPartitions = null;
+    
     /**
      * The table that this txn needs to merge the results for in the EE
      * before it starts executing
@@ -202,6 +209,23 @@ public class LocalTransaction extends AbstractTransaction {
      */
     private boolean exec_controlCode = false;
     
+    /**
+     * Whether this transaction was added to the lock queues by the EpochCoordinator.
+     * If it was, then we can skip the prepare phase when it commits.
+     */
+    private boolean exec_epochBatched = false;
+    
+    /**
+     * Whether this read-only transaction is executing without the locks for
+     * its partitions. If it is, then exec_snapshotWatermarks contains
+     * the number of transactions that had committed changes at each partition
+     * when this transaction started. exec_snapshotConflict is set if one of its
+     * partitions had a distributed transaction running when it got our queries.
+     */
+    private boolean exec_snapshotRead = false;
+    private boolean exec_snapshotConflict = false;
+    private final long exec_snapshotWatermarks[];
+    
     // ----------------------------------------------------------------------------
     // INITIALIZATION
     // ----------------------------------------------------------------------------
@@ -216,6 +240,7 @@ public class LocalTransaction extends AbstractTransaction {
         this.init_callback = new LocalInitQueueCallback(hstore_site);
         this.start_msg = new StartTxnMessage(this);
         this.exec_touchedPartitions = new FastIntHistogram(hstore_site.getCatalogContext().numberOfPartitions);
+        this.exec_snapshotWatermarks = new long[hstore_site.getCatalogContext().numberOfPartitions];
     }
 
     /**
@@ -259,23 +284,105 @@ public class LocalTransaction extends AbstractTransaction {
         // Grab a DistributedState that will have all the goodies that we need
         // to execute a distributed transaction
         if (this.predict_singlePartition == false) {
-            try {
-                if (hstore_site.getHStoreConf().site.pool_txn_enable) {
-                    this.dtxnState = hstore_site.getObjectPools()
-                                                .getDistributedStatePool(base_partition)
-                                                .borrowObject();
-                } else {
-                    this.dtxnState = new DistributedState(hstore_site);
-                }
-                this.dtxnState.init(this);
-            } catch (Exception ex) {
-                throw new RuntimeException("Unexpected error when trying to initialize " + this, ex);
-            }
+            this.initDistributedState();
         }
         
         return (this);
     }
     
+    private void initDistributedState() {
+        try {
+            if (hstore_site.getHStoreConf().site.pool_txn_enable) {
+                this.dtxnState = hstore_site.getObjectPools()
+                                            .getDistributedStatePool(base_partition)
+                                            .borrowObject();
+            } else {
+                this.dtxnState = new DistributedState(hstore_site);
+            }
+            this.dtxnState.init(this);
+        } catch (Exception ex) {
+            throw new RuntimeException("Unexpected error when trying to initialize " + this, ex);
+        }
+    }
+    
+    /**
+     * Turn this running single-partition txn into a distributed txn that also
+     * needs the given partitions. The txn's init callback is reset so that it can
+     * be used to acquire the locks for the new partitions. The txn keeps its id and
+     * the lock for its base partition, but whatever it has executed so far has to be 
+     * rolled back and then executed again once it gets the other locks.
+     * <B>NOTE:</B> This should only be called by the txn's base PartitionExecutor
+     * @param partitions The partitions that the txn needs in addition to the ones it was predicted to touch
+     * @return the callback to use when adding the txn to the new partitions' lock queues
+     */
+    public LocalInitQueueCallback escalate(PartitionSet partitions) {
+        assert(this.predict_singlePartition) :
+            "Trying to escalate distributed " + this;
+        PartitionSet newPartitions = new PartitionSet(this.predict_touchedPartitions);
+        newPartitions.addAll(partitions);
+        if (debug.val)
+            LOG.debug(String.format("%s - Escalating to multi-partition txn %s -> %s",
+                      this, this.predict_touchedPartitions, newPartitions));
+        
+        this.escalate_origPartitions = this.predict_touchedPartitions;
+        this.predict_touchedPartitions = newPartitions;
+        this.predict_singlePartition = false;
+        this.predict_abortable = true;
+        this.initDistributedState();
+        this.init_callback.initEscalation(this, partitions);
+        return (this.init_callback);
+    }
+    
+    /**
+     * Returns true if this txn was escalated but it has not been
+     * executed again as a distributed txn yet.
+     */
+    public boolean isEscalating() {
+        return (this.escalate_origPartitions != null);
+    }
+    
+    /**
+     * Clear out what this txn did at its base partition before it was escalated
+     * so that it can be executed again under the same txn id. The PartitionExecutor
+     * has to roll back its changes in the EE before calling this.
+     */
+    public void resetEscalatedExecution() {
+        assert(this.isEscalating()) :
+            "Trying to reset the execution of non-escalated " + this;
+        this.resetPartitionState(this.base_partition);
+    }
+    
+    /**
+     * This txn got all of the locks for its new partitions and it is
+     * now going to be executed again as a regular distributed txn.
+     */
+    public void finishEscalation() {
+        assert(this.isEscalating()) :
+            "Trying to finish the escalation of non-escalated " + this;
+        this.escalate_origPartitions = null;
+        this.pending_error = null;
+        this.exec_touchedPartitions.clear();
+        
+        // The estimator already saw the queries from the first attempt, so
+        // it can't follow along with the second one
+        EstimatorState t_state = this.getEstimatorState();
+        if (t_state != null) t_state.disableUpdates();
+    }
+    
+    /**
+     * This txn could not get the locks for its new partitions. It stays a distributed 
+     * txn over all of them so that the TransactionFinish round that aborts it reaches
+     * every partition that did grant it the lock. It gets restarted after that.
+     */
+    public void cancelEscalation() {
+        assert(this.isEscalating()) :
+            "Trying to cancel the escalation of non-escalated " + this;
+        if (debug.val)
+            LOG.debug(String.format("%s - Cancelling escalation to multi-partition txn %s",
+                      this, this.predict_touchedPartitions));
+        this.escalate_origPartitions = null;
+    }
+    
     /**
      * Testing Constructor
      * @param txn_id
@@ -345,6 +452,7 @@ public class LocalTransaction extends AbstractTransaction {
         }
         
         this.resetExecutionState();
+        this.escalate_origPartitions = null;
         super.finish();
         
         this.client_callback = null;
@@ -353,6 +461,9 @@ public class LocalTransaction extends AbstractTransaction {
         this.cresponse = null;
         
         this.exec_controlCode = false;
+        this.exec_epochBatched = false;
+        this.exec_snapshotRead = false;
+        this.exec_snapshotConflict = false;
         this.exec_specExecType = SpeculationType.NULL;
         this.exec_touchedPartitions.clear();
         this.predict_touchedPartitions = null;
@@ -729,6 +840,63 @@ public class LocalTransaction extends AbstractTransaction {
         return (this.exec_controlCode);
     }
     
+    /**
+     * Marks that this transaction will be released to its partitions
+     * as part of an epoch by the EpochCoordinator
+     */
+    public void markEpochBatched() {
+        this.exec_epochBatched = true;
+    }
+    
+    /**
+     * Returns true if this transaction was released to its partitions
+     * as part of an epoch by the EpochCoordinator
+     */
+    public boolean isEpochBatched() {
+        return (this.exec_epochBatched);
+    }
+    
+    /**
+     * Marks that this read-only transaction will not acquire the
+     * locks for its partitions
+     */
+    public void markSnapshotRead() {
+        this.exec_snapshotRead = true;
+    }
+    
+    /**
+     * Returns true if this read-only transaction is executing without
+     * the locks for its partitions
+     */
+    public boolean isSnapshotRead() {
+        return (this.exec_snapshotRead);
+    }
+    
+    /**
+     * Marks that this snapshot read could not execute its queries at one of
+     * its partitions because a distributed transaction was running there.
+     * This must be called before the pending error is set.
+     */
+    public void markSnapshotConflict() {
+        this.exec_snapshotConflict = true;
+    }
+    
+    /**
+     * Returns true if this snapshot read ran into a distributed transaction
+     * at one of its partitions and has to be restarted with locks
+     */
+    public boolean hasSnapshotConflict() {
+        return (this.exec_snapshotConflict);
+    }
+    
+    public void setSnapshotWatermark(int partition, long writeCommits) {
+        this.exec_snapshotWatermarks[partition] = writeCommits;
+    }
+    
+    public long getSnapshotWatermark(int partition) {
+        return (this.exec_snapshotWatermarks[partition]);
+    }
+    
 //    @Override
 //    public boolean needsFinish(int partition) {
 //        if (this.base_partition == partition) {
@@ -4,7 +4,6 @@ import org.apache.log4j.Logger;
 import org.voltdb.ClientResponseImpl;
 import org.voltdb.ParameterSet;
 import org.voltdb.VoltTable;
-import org.voltdb.VoltTableRow;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
 
@@ -244,11 +243,13 @@ public class MapReduceTransaction extends LocalTransaction {
     }
     /**
      * Store Data from MapOutput table into reduceInput table
-     * ReduceInput table is the result of all incoming mapOutput table from other partitions
+     * ReduceInput table is the result of all incoming mapOutput table from other partitions.
+     * The SHUFFLE phase sends its data in chunks, so this can be invoked many times
+     * for the same partition and concurrently for different partitions.
      * @see edu.brown.hstore.txns.AbstractTransaction#storeData(int, org.voltdb.VoltTable)
      */
     @Override
-    public synchronized Status storeData(int partition, VoltTable vt) {
+    public Status storeData(int partition, VoltTable vt) {
         VoltTable input = this.getReduceInputByPartition(partition);
         
         assert(input != null);
@@ -258,11 +259,12 @@ public class MapReduceTransaction extends LocalTransaction {
         
         if (debug.val)
             LOG.debug(String.format("<StoreData, change to ReduceInputTable> to Partition:%d>\n %s",partition,vt));
-        while (vt.advanceRow()) {
-            VoltTableRow row = vt.fetchRow(vt.getActiveRowIndex());
-            assert(row != null);
-            input.add(row);
-        }
+        synchronized (input) {
+            vt.resetRowPosition();
+            while (vt.advanceRow()) {
+                input.add(vt);
+            } // WHILE
+        } // SYNCH
         vt.resetRowPosition();
         
         return Status.OK;
@@ -131,8 +131,25 @@ public class MapReduceHelperThread extends AbstractProcessingThread<MapReduceTra
      *      partitioned table data to each of the partitions. Once that is
      *      all done, clean things up and invoke the network-outbound
      *      callback stored in the TransactionMapWrapperCallback
+     *      
+     * Whenever the data for a partition grows past ${site.mr_shuffle_chunk_size},
+     * it is shipped right away as its own chunk so that we never hold on
+     * to more than one chunk per partition. Whatever is left over at the end
+     * goes out with the final HStoreCoordinator.sendData() call.
      */
     protected void shuffle(final MapReduceTransaction ts) {
+        // The SendDataCallback should invoke the TransactionMapCallback to tell it that 
+        // the SHUFFLE phase is complete and that we need to send a message back to the
+        // transaction's base partition to let it know that the MAP phase is complete.
+        // We have to initialize it before we send out any chunks
+        SendDataCallback sendData_callback = ts.getSendDataCallback();
+        sendData_callback.init(ts, new RpcCallback<AbstractTransaction>() {
+            @Override
+            public void run(AbstractTransaction parameter) {
+                ts.getTransactionMapWrapperCallback().runOrigCallback();
+            }
+        });
+        
         // create a table for each partition
         Map<Integer, VoltTable> partitionedTables = new HashMap<Integer, VoltTable>();
         for (Integer partition : hstore_site.getCatalogContext().getAllPartitionIds()) {
@@ -141,6 +158,8 @@ public class MapReduceHelperThread extends AbstractProcessingThread<MapReduceTra
         if (debug.val)
             LOG.debug(String.format("Created %d VoltTables for SHUFFLE phase of %s", partitionedTables.size(), ts));
 
+        final int chunkSize = hstore_conf.site.mr_shuffle_chunk_size;
+        int numChunks = 0;
         VoltTable table = null;
         int rp = -1;
         for (int partition : this.hstore_site.getLocalPartitionIds()) {
@@ -161,27 +180,38 @@ public class MapReduceHelperThread extends AbstractProcessingThread<MapReduceTra
                     LOG.trace(Arrays.toString(table.getRowArray()) + " => " + rowPartition);
                 assert (rowPartition >= 0);
                 // this adds the active row from table
-                partitionedTables.get(rowPartition).add(table);
+                VoltTable output = partitionedTables.get(rowPartition);
+                output.add(table);
                 rp = rowPartition;
+                
+                if (chunkSize > 0 && output.getUnderlyingBufferSize() >= chunkSize) {
+                    this.sendChunk(ts, rowPartition, output, sendData_callback);
+                    numChunks++;
+                }
             } // WHILE
+            table.resetRowPosition();
             if (debug.val)
                 LOG.debug(String.format("<SendTable to Dest Partition>:%d\n %s", rp, partitionedTables.get(rp)));
 
         } // FOR
-
-        // The SendDataCallback should invoke the TransactionMapCallback to tell it that 
-        // the SHUFFLE phase is complete and that we need to send a message back to the
-        // transaction's base partition to let it know that the MAP phase is complete
-        SendDataCallback sendData_callback = ts.getSendDataCallback();
-        sendData_callback.init(ts, new RpcCallback<AbstractTransaction>() {
-            @Override
-            public void run(AbstractTransaction parameter) {
-                ts.getTransactionMapWrapperCallback().runOrigCallback();
-            }
-        });
+        if (debug.val && numChunks > 0)
+            LOG.debug(String.format("Sent %d data chunks during SHUFFLE phase of %s", numChunks, ts));
 
         this.hstore_site.getCoordinator().sendData(ts, partitionedTables, sendData_callback);
     }
+    
+    /**
+     * Ship the rows collected so far for the given partition and then
+     * clear out the table so that it can be reused for the next chunk
+     */
+    private void sendChunk(MapReduceTransaction ts, int partition, VoltTable chunk, SendDataCallback callback) {
+        if (this.hstore_site.isLocalPartition(partition)) {
+            ts.storeData(partition, chunk);
+        } else {
+            this.hstore_site.getCoordinator().sendDataChunk(ts, partition, chunk, callback);
+        }
+        chunk.clearRowData();
+    }
 
     public void reduce(final MapReduceTransaction mr_ts) {
         // Runtime
@@ -0,0 +1,201 @@
+package edu.brown.hstore.util;
+
+import java.lang.reflect.Array;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.voltdb.CatalogContext;
+import org.voltdb.catalog.ProcParameter;
+import org.voltdb.catalog.Procedure;
+
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.utils.PartitionEstimator;
+import edu.brown.utils.PartitionSet;
+
+/**
+ * Remembers which partitions a transaction ended up touching after it was
+ * mispredicted, so that the next request for the same procedure that looks the
+ * same is started on all of those partitions instead of being aborted and restarted again.
+ * <p>
+ * Requests are matched on their base partition (i.e., the hash of the procedure's
+ * partitioning parameter) and the lengths of the procedure's array parameters
+ * (see {@link edu.brown.markov.features.ParamArrayLengthFeature}). Each procedure
+ * keeps at most <tt>maxEntries</tt> entries in LRU order. A new misprediction replaces
+ * the existing entry instead of adding to it, and each entry is only handed out
+ * <tt>maxHits</tt> times before it expires. This keeps a few unusual requests from
+ * slowly turning every request that looks like them into a dtxn on all partitions.
+ * All of the entries are thrown away whenever the PartitionEstimator is given a new catalog.
+ */
+public class MispredictionCache {
+    private static final Logger LOG = Logger.getLogger(MispredictionCache.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    private static class Entry {
+        private final PartitionSet partitions;
+        private int remaining;
+        
+        private Entry(PartitionSet partitions, int remaining) {
+            this.partitions = partitions;
+            this.remaining = remaining;
+        }
+    }
+    
+    private final PartitionEstimator p_estimator;
+    private final int maxEntries;
+    private final int maxHits;
+
+    /**
+     * The CatalogContext that the PartitionEstimator was using when
+     * the current entries were recorded
+     */
+    private volatile CatalogContext catalogContext;
+
+    /**
+     * ProcId -> Offsets of the array ProcParameters
+     */
+    private int arrayParams[][];
+
+    /**
+     * ProcId -> Key -> Touched Partitions
+     */
+    private Map<Long, Entry> cache[];
+
+    /**
+     * Constructor
+     * @param p_estimator
+     * @param maxEntries The max number of entries to keep per procedure
+     * @param maxHits The number of times that an entry is returned before it expires
+     */
+    public MispredictionCache(PartitionEstimator p_estimator, int maxEntries, int maxHits) {
+        assert(maxHits > 0) : "Invalid max hits " + maxHits;
+        this.p_estimator = p_estimator;
+        this.maxEntries = maxEntries;
+        this.maxHits = maxHits;
+        this.init(p_estimator.getCatalogContext());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void init(CatalogContext catalogContext) {
+        int num_procs = catalogContext.procedures.size() + 1;
+        int arrayParams[][] = new int[num_procs][];
+        Map<Long, Entry> cache[] = new Map[num_procs];
+        for (Procedure catalog_proc : catalogContext.procedures) {
+            int id = catalog_proc.getId();
+            int i = 0;
+            arrayParams[id] = new int[CatalogUtil.getArrayProcParameters(catalog_proc).size()];
+            for (ProcParameter catalog_param : CatalogUtil.getArrayProcParameters(catalog_proc)) {
+                arrayParams[id][i++] = catalog_param.getIndex();
+            } // FOR
+            cache[id] = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    return (this.size() > maxEntries);
+                }
+            };
+        } // FOR
+        this.arrayParams = arrayParams;
+        this.cache = cache;
+        this.catalogContext = catalogContext;
+    }
+
+    /**
+     * Throw out all of the entries if the PartitionEstimator has
+     * switched to a different catalog since they were recorded
+     */
+    private void checkCatalog() {
+        CatalogContext current = this.p_estimator.getCatalogContext();
+        if (current != this.catalogContext) {
+            synchronized (this) {
+                if (current != this.catalogContext) {
+                    if (debug.val)
+                        LOG.debug("PartitionEstimator catalog changed. Clearing all cached mispredictions");
+                    this.init(current);
+                }
+            } // SYNCH
+        }
+    }
+
+    private long getKey(int procId, int base_partition, Object params[]) {
+        long key = base_partition;
+        for (int offset : this.arrayParams[procId]) {
+            Object param = (offset < params.length ? params[offset] : null);
+            int length = (param != null && param.getClass().isArray() ? Array.getLength(param) : -1);
+            key = (key * 31) + length;
+        } // FOR
+        return (key);
+    }
+
+    /**
+     * Return the partitions that a previous request that looked like this one
+     * actually needed. Returns null if there is no entry for this request.
+     * Every call that returns an entry counts against its number of hits.
+     * @param catalog_proc
+     * @param base_partition
+     * @param params
+     * @return
+     */
+    public PartitionSet get(Procedure catalog_proc, int base_partition, Object params[]) {
+        this.checkCatalog();
+        int procId = catalog_proc.getId();
+        Map<Long, Entry> procCache = this.cache[procId];
+        if (procCache == null) return (null);
+        long key = this.getKey(procId, base_partition, params);
+        PartitionSet partitions = null;
+        synchronized (procCache) {
+            Entry entry = procCache.get(key);
+            if (entry != null) {
+                partitions = entry.partitions;
+                if (--entry.remaining <= 0) {
+                    if (debug.val)
+                        LOG.debug(String.format("Expired cached mispredicted partitions for %s [basePartition=%d]: %s",
+                                  catalog_proc.getName(), base_partition, partitions));
+                    procCache.remove(key);
+                }
+            }
+        } // SYNCH
+        if (trace.val && partitions != null)
+            LOG.trace(String.format("Cached mispredicted partitions for %s [basePartition=%d]: %s",
+                      catalog_proc.getName(), base_partition, partitions));
+        return (partitions);
+    }
+
+    /**
+     * Record the partitions that a mispredicted request really touched.
+     * This replaces any existing entry for the same kind of request.
+     * @param catalog_proc
+     * @param base_partition the base partition that the original request was started on
+     * @param params
+     * @param touched
+     */
+    public void put(Procedure catalog_proc, int base_partition, Object params[], PartitionSet touched) {
+        this.checkCatalog();
+        int procId = catalog_proc.getId();
+        Map<Long, Entry> procCache = this.cache[procId];
+        if (procCache == null) return;
+        long key = this.getKey(procId, base_partition, params);
+        // Entries are replaced instead of modified so that callers
+        // can read their partitions without holding the lock
+        Entry entry = new Entry(new PartitionSet(touched), this.maxHits);
+        synchronized (procCache) {
+            procCache.put(key, entry);
+        } // SYNCH
+        if (debug.val)
+            LOG.debug(String.format("Cached mispredicted partitions for %s [basePartition=%d]: %s",
+                      catalog_proc.getName(), base_partition, entry.partitions));
+    }
+
+    /**
+     * Remove all of the cached entries
+     */
+    public synchronized void clear() {
+        this.init(this.catalogContext);
+    }
+}
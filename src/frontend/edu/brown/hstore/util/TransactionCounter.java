@@ -37,6 +37,10 @@ public enum TransactionCounter {
     SYSPROCS,
     /** The number of transactions that were mispredicted (and thus re-executed) */
     MISPREDICTED,
+    /** Of the mispredicted transactions, the number that became multi-partitioned without restarting */
+    ESCALATED,
+    /** The number of distributed transactions that were added to the lock queues by the EpochCoordinator */
+    EPOCH_BATCHED,
     /** Of the locally executed transactions, how many were aborted by the user */
     ABORTED,
     /** The number of transactions that were unexpectedly aborted (e.g., because of an assert) */
@@ -175,7 +175,7 @@ public class ParameterMappingsSet extends HashSet<ParameterMapping> implements J
      * @param catalog_stmt_param
      * @return
      */
-    protected Collection<ParameterMapping> get(Statement catalog_stmt, StmtParameter catalog_stmt_param) {
+    public Collection<ParameterMapping> get(Statement catalog_stmt, StmtParameter catalog_stmt_param) {
         assert(catalog_stmt != null);
         assert(catalog_stmt_param != null);
         
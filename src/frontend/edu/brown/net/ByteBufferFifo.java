@@ -3,6 +3,9 @@ package edu.brown.net;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 public class ByteBufferFifo {
     /** These buffers are available for reading (taking data). */
@@ -14,6 +17,11 @@ public class ByteBufferFifo {
     /** Cache of available ByteBuffers, since direct ByteBuffers are "expensive" to allocate. */
     private final ArrayDeque<ByteBuffer> emptyBuffers = new ArrayDeque<ByteBuffer>();
 
+    /** Buffers that were handed to us by {@link #addReadBuffer(ByteBuffer)}. These are read
+     * but never written to or recycled. */
+    private final Set<ByteBuffer> attachedBuffers =
+            Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+
     /** If we alternate reads and writes, this is used to save the read position of the buffer. */
     private int savedReadPosition = 0;
 
@@ -24,30 +32,26 @@ public class ByteBufferFifo {
     public void clear() {
         readBuffers.clear();
         emptyBuffers.clear();
+        attachedBuffers.clear();
         currentWrite = null;
     }
 
     public ByteBuffer getWriteBuffer() {
         if (currentWrite == null) {
-            // If we have a single read buffer, there may be space left in it (combine writes!)
-            if (readBuffers.size() == 1) {
-                ByteBuffer lastRead = readBuffers.peekLast();
-                if (!lastRead.hasRemaining()) {
-                    // The buffer is empty: remove it
-                    removeEmptyReadBuffer();
-                } else if (lastRead.limit() < lastRead.capacity()) {
-                    // There is space! Remember its read position and make it a write buffer
-                    readBuffers.removeLast();
-                    assert savedReadPosition == 0;
-                    savedReadPosition = lastRead.position();
-                    lastRead.position(lastRead.limit());
-                    lastRead.limit(lastRead.capacity());
-                    currentWrite = lastRead;
-                }
-           } else {
-                // if more than 1 read buffer, the buffer is full
-                assert readBuffers.isEmpty() ||
-                        readBuffers.peekLast().limit() == readBuffers.peekLast().capacity();
+            // A gathering write may have left several consumed buffers
+            removeConsumedReadBuffers();
+
+            // The last read buffer may have space left in it (combine writes!)
+            ByteBuffer lastRead = readBuffers.peekLast();
+            if (lastRead != null && lastRead.limit() < lastRead.capacity() &&
+                    !attachedBuffers.contains(lastRead)) {
+                // There is space! Remember its read position and make it a write buffer
+                readBuffers.removeLast();
+                assert savedReadPosition == 0;
+                savedReadPosition = lastRead.position();
+                lastRead.position(lastRead.limit());
+                lastRead.limit(lastRead.capacity());
+                currentWrite = lastRead;
             }
 
             if (currentWrite == null) {
@@ -93,9 +97,61 @@ public class ByteBufferFifo {
         return buffer;
     }
 
+    /** Fills array with the buffers that are waiting to be read, in order, so they can be
+     * passed to a single gathering write. Any data in the current write buffer is included.
+     * Buffers that are already consumed are discarded first.
+     * @return the number of buffers placed in array (at most array.length).
+     */
+    public int getReadBuffers(ByteBuffer[] array) {
+        removeConsumedReadBuffers();
+        if (currentWrite != null && currentWrite.position() > savedReadPosition) {
+            queueWriteBuffer();
+        }
+
+        int count = 0;
+        for (ByteBuffer buffer : readBuffers) {
+            if (count == array.length) break;
+            assert buffer.remaining() > 0;
+            array[count++] = buffer;
+        }
+        return count;
+    }
+
+    /** Queues buffer to be read after all the data that has already been written, without
+     * copying it. The data between buffer's position and limit will be read. The caller must
+     * not modify buffer until it has been completely read.
+     */
+    public void addReadBuffer(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) return;
+        if (currentWrite != null) {
+            if (currentWrite.position() > savedReadPosition) {
+                // Keep the order: data written so far must be read before this buffer
+                queueWriteBuffer();
+            } else {
+                // Nothing new was written: recycle the buffer
+                currentWrite.clear();
+                emptyBuffers.add(currentWrite);
+                currentWrite = null;
+                savedReadPosition = 0;
+            }
+        }
+        attachedBuffers.add(buffer);
+        readBuffers.add(buffer);
+    }
+
+    private void removeConsumedReadBuffers() {
+        while (!readBuffers.isEmpty() && !readBuffers.peekFirst().hasRemaining()) {
+            removeEmptyReadBuffer();
+        }
+    }
+
     private void removeEmptyReadBuffer() {
         ByteBuffer buffer = readBuffers.removeFirst();
         assert !buffer.hasRemaining();
+        if (attachedBuffers.remove(buffer)) {
+            // Not ours: do not recycle it
+            return;
+        }
         buffer.clear();
         emptyBuffers.add(buffer);
     }
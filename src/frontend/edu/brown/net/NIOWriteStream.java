@@ -2,14 +2,22 @@ package edu.brown.net;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
 
 public class NIOWriteStream implements ZeroCopyOutputStream {
     private final WritableByteChannel channel;
     private final ByteBufferFifo buffers = new ByteBufferFifo();
 
+    /** Maximum number of buffers passed to a single gathering write. */
+    private static final int MAX_GATHER_BUFFERS = 64;
+    private final ByteBuffer[] gatherBuffers;
+
     public NIOWriteStream(WritableByteChannel channel) {
         this.channel = channel;
+        gatherBuffers = (channel instanceof GatheringByteChannel) ?
+                new ByteBuffer[MAX_GATHER_BUFFERS] : null;
     }
 
     @Override
@@ -17,8 +25,19 @@ public class NIOWriteStream implements ZeroCopyOutputStream {
         return buffers.getWriteBuffer();
     }
 
+    /** Queues buffer to be written after everything that has been written so far, without
+     * copying it into our own buffers. See {@link ByteBufferFifo#addReadBuffer(ByteBuffer)}.
+     */
+    public void attach(ByteBuffer buffer) {
+        buffers.addReadBuffer(buffer);
+    }
+
     /** @return true if there is more data to write and the write blocked. */
     public boolean flush() {
+        if (gatherBuffers != null) {
+            return gatheringFlush();
+        }
+
         ByteBuffer buffer;
         while ((buffer = buffers.getReadBuffer()) != null) {
             try {
@@ -36,6 +55,33 @@ public class NIOWriteStream implements ZeroCopyOutputStream {
         return false;
     }
 
+    /** Writes all the queued buffers with as few system calls as possible. */
+    private boolean gatheringFlush() {
+        GatheringByteChannel gathering = (GatheringByteChannel) channel;
+        int count;
+        while ((count = buffers.getReadBuffers(gatherBuffers)) > 0) {
+            long bytes = 0;
+            for (int i = 0; i < count; i++) {
+                bytes += gatherBuffers[i].remaining();
+            }
+            long written;
+            try {
+                written = gathering.write(gatherBuffers, 0, count);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            // Don't keep references to buffers that may be recycled or belong to someone else
+            Arrays.fill(gatherBuffers, 0, count, null);
+
+            if (written < bytes) {
+                // write blocked: we are done
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public void setBigEndian() {
         buffers.setBigEndian();
     }
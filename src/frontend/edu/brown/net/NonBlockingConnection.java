@@ -3,6 +3,7 @@ package edu.brown.net;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
@@ -57,6 +58,13 @@ public class NonBlockingConnection {
         return new ZeroCopyOutputStreamAdaptor(write);
     }
 
+    /** Queues buffer to be sent after the data in the output stream, without copying it. The
+     *  caller must not modify buffer until it has been sent.
+     *  @see NIOWriteStream#attach(ByteBuffer) */
+    public void attach(ByteBuffer buffer) {
+        write.attach(buffer);
+    }
+
     /** Attempt to write the data out to the buffer, if we can. This will either immediately
      *  perform the write, or it will buffer it.
      *  @return true if this connection blocked and now needs a write callback. */
@@ -6,6 +6,7 @@ import java.util.Comparator;
 import org.apache.log4j.Logger;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.planner.PlannerContext;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.types.PlanNodeType;
@@ -14,6 +15,7 @@ import org.voltdb.utils.Pair;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.optimizer.optimizations.AbstractOptimization;
 import edu.brown.optimizer.optimizations.AggregatePushdownOptimization;
+import edu.brown.optimizer.optimizations.BloomFilterJoinOptimization;
 import edu.brown.optimizer.optimizations.CombineOptimization;
 import edu.brown.optimizer.optimizations.LimitPushdownOptimization;
 import edu.brown.optimizer.optimizations.ProjectionPushdownOptimization;
@@ -40,7 +42,7 @@ public class PlanOptimizer {
     /**
      * The list of PlanNodeTypes that we do not want to try to optimize
      */
-    private static final PlanNodeType TO_IGNORE[] = { PlanNodeType.AGGREGATE, PlanNodeType.NESTLOOP, };
+    private static final PlanNodeType TO_IGNORE[] = { PlanNodeType.AGGREGATE, PlanNodeType.NESTLOOP, PlanNodeType.HASHJOIN, };
     private static final String BROKEN_SQL[] = {
             // "FROM CUSTOMER, FLIGHT, RESERVATION", // Airline DeleteReservation.GetCustomerReservation
             // "SELECT imb_ib_id, ib_bid", // AuctionMark NewBid.getMaxBidId
@@ -71,6 +73,7 @@ public class PlanOptimizer {
             LimitPushdownOptimization.class,
             RemoveRedundantProjectionsOptimizations.class,
             CombineOptimization.class,
+            BloomFilterJoinOptimization.class,
     };
 
     // ----------------------------------------------------------------------------
@@ -90,7 +93,19 @@ public class PlanOptimizer {
      *            Catalog info about schema, metadata and procedures
      */
     public PlanOptimizer(PlannerContext context, Database catalogDb) {
-        this.state = new PlanOptimizerState(catalogDb, context);
+        this(context, catalogDb, null);
+    }
+
+    /**
+     * @param context
+     *            Information about context
+     * @param catalogDb
+     *            Catalog info about schema, metadata and procedures
+     * @param estimates
+     *            Table size estimates used to cost optimizations (may be null)
+     */
+    public PlanOptimizer(PlannerContext context, Database catalogDb, DatabaseEstimates estimates) {
+        this.state = new PlanOptimizerState(catalogDb, context, estimates);
     }
 
     // ----------------------------------------------------------------------------
@@ -17,6 +17,7 @@ import org.apache.log4j.Logger;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Table;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.planner.PlannerContext;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
@@ -40,6 +41,11 @@ public class PlanOptimizerState {
      */
     public final PlannerContext plannerContext;
 
+    /**
+     * Table size and column cardinality estimates (may be null)
+     */
+    public final DatabaseEstimates estimates;
+
     /**
      * All the columns a plan node references
      */
@@ -95,8 +101,13 @@ public class PlanOptimizerState {
     // ------------------------------------------------------------
 
     public PlanOptimizerState(Database catalog_db, PlannerContext context) {
+        this(catalog_db, context, null);
+    }
+
+    public PlanOptimizerState(Database catalog_db, PlannerContext context, DatabaseEstimates estimates) {
         this.catalog_db = catalog_db;
         this.plannerContext = context;
+        this.estimates = estimates;
     }
 
     // ------------------------------------------------------------
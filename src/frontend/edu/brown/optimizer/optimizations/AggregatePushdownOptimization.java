@@ -1,10 +1,16 @@
 package edu.brown.optimizer.optimizations;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.voltdb.VoltType;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.Index;
+import org.voltdb.catalog.Table;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.planner.PlanAssembler;
@@ -18,6 +24,7 @@ import org.voltdb.plannodes.SendPlanNode;
 import org.voltdb.types.ExpressionType;
 import org.voltdb.utils.Pair;
 
+import edu.brown.catalog.CatalogUtil;
 import edu.brown.expressions.ExpressionUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
 import edu.brown.optimizer.PlanOptimizerState;
@@ -29,6 +36,12 @@ public class AggregatePushdownOptimization extends AbstractOptimization {
     private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
     private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
 
+    /**
+     * We only push down an aggregate if the estimated number of groups at each
+     * partition is at most this fraction of the number of tuples at that partition
+     */
+    public static final double PUSHDOWN_MAX_GROUP_RATIO = 0.5;
+
     public AggregatePushdownOptimization(PlanOptimizerState state) {
         super(state);
     }
@@ -83,6 +96,20 @@ public class AggregatePushdownOptimization extends AbstractOptimization {
             return (Pair.of(false, rootNode));
         }
         
+        // Skip if the partial aggregates would not be any smaller than the tuples
+        // that we are already sending to the base partition. This is the case when
+        // every tuple is its own group (e.g., GROUP BY on the table's primary key)
+        Table catalog_tbl = state.catalog_db.getTables().getIgnoreCase(scan_node.getTargetTableName());
+        if (catalog_tbl != null) {
+            Collection<Column> groupByCols = this.getGroupByColumns(node, catalog_tbl);
+            if (shouldPushdown(state.catalog_db, catalog_tbl, groupByCols, state.estimates) == false) {
+                if (debug.val)
+                    LOG.debug(String.format("SKIP - Partial aggregates on %s would not reduce the number of tuples sent [groupBy=%s]",
+                              catalog_tbl.getName(), groupByCols));
+                return (Pair.of(false, rootNode));
+            }
+        }
+        
         // Check if this is COUNT(DISTINCT) query
         // If it is then we can only pushdown the DISTINCT
         AbstractPlanNode clone_node = null;
@@ -158,6 +185,87 @@ public class AggregatePushdownOptimization extends AbstractOptimization {
         return Pair.of(true, rootNode);
     }
     
+    /**
+     * Returns the catalog Columns of the given table that the aggregate groups by.
+     * Returns null if any of the GROUP BY columns can not be mapped back to that table.
+     * @param node
+     * @param catalog_tbl
+     * @return
+     */
+    protected Collection<Column> getGroupByColumns(final HashAggregatePlanNode node, final Table catalog_tbl) {
+        Collection<Column> columns = new HashSet<Column>();
+        for (Integer guid : node.getGroupByColumnGuids()) {
+            PlanColumn planCol = state.plannerContext.get(guid);
+            if (planCol == null || (planCol.getExpression() instanceof TupleValueExpression) == false) {
+                return (null);
+            }
+            TupleValueExpression exp = (TupleValueExpression)planCol.getExpression();
+            if (catalog_tbl.getName().equalsIgnoreCase(exp.getTableName()) == false) {
+                return (null);
+            }
+            Column catalog_col = catalog_tbl.getColumns().getIgnoreCase(exp.getColumnName());
+            if (catalog_col == null) {
+                return (null);
+            }
+            columns.add(catalog_col);
+        } // FOR
+        return (columns);
+    }
+    
+    /**
+     * Returns true if computing partial aggregates at each partition is expected
+     * to send fewer tuples to the base partition than sending the scanned tuples.
+     * If the GROUP BY columns include all of the columns of a unique index, then
+     * every tuple is its own group and the pushdown would only add work.
+     * Otherwise, if we have estimates for the table and the number of distinct
+     * values in each of the GROUP BY columns, then we only push down the aggregate
+     * if the number of groups at each partition is at most PUSHDOWN_MAX_GROUP_RATIO
+     * of the number of tuples at that partition. Without estimates we always push down.
+     * @param catalog_db
+     * @param catalog_tbl
+     * @param groupByCols The GROUP BY columns (null if they are unknown)
+     * @param estimates Table estimates (may be null)
+     * @return
+     */
+    public static boolean shouldPushdown(Database catalog_db, Table catalog_tbl, Collection<Column> groupByCols, DatabaseEstimates estimates) {
+        // No GROUP BY means a single group per partition. If we don't know
+        // what we are grouping on, then we'll just assume that it helps
+        if (groupByCols == null || groupByCols.isEmpty()) return (true);
+        
+        for (Index catalog_idx : catalog_tbl.getIndexes()) {
+            if (catalog_idx.getUnique() == false) continue;
+            Collection<Column> idxCols = CatalogUtil.getColumns(catalog_idx.getColumns());
+            if (idxCols.isEmpty() == false && groupByCols.containsAll(idxCols)) {
+                if (trace.val)
+                    LOG.trace(String.format("GROUP BY %s covers unique index %s", groupByCols, catalog_idx.fullName()));
+                return (false);
+            }
+        } // FOR
+        
+        if (estimates == null || estimates.hasEstimatesForTable(catalog_tbl.getName()) == false) return (true);
+        DatabaseEstimates.TableEstimates tableEst = estimates.getEstimatesForTable(catalog_tbl.getName());
+        if (tableEst.maxTuples <= 0) return (true);
+        
+        // The catalog won't have any partitions yet when the VoltCompiler is planning
+        // its Statements, so in that case we can only look at the whole table
+        double tuples = tableEst.maxTuples;
+        int num_partitions = CatalogUtil.getNumberOfPartitions(catalog_db);
+        if (catalog_tbl.getIsreplicated() == false && num_partitions > 0) {
+            tuples /= num_partitions;
+        }
+        double groups = 1;
+        for (Column catalog_col : groupByCols) {
+            Long distinct = tableEst.distinctValues.get(catalog_col.getName());
+            if (distinct == null) return (true);
+            groups *= distinct.longValue();
+        } // FOR
+        groups = Math.min(groups, tuples);
+        if (debug.val)
+            LOG.debug(String.format("Estimated %.0f groups for %.0f tuples per partition of %s",
+                      groups, tuples, catalog_tbl.getName()));
+        return (groups <= tuples * PUSHDOWN_MAX_GROUP_RATIO);
+    }
+    
     /**
 *
 * @param node
@@ -0,0 +1,372 @@
+package edu.brown.optimizer.optimizations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.ColumnRef;
+import org.voltdb.catalog.Index;
+import org.voltdb.catalog.Table;
+import org.voltdb.expressions.AbstractExpression;
+import org.voltdb.expressions.ExpressionUtil;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.planner.PlanAssembler;
+import org.voltdb.planner.PlanColumn;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.AbstractScanPlanNode;
+import org.voltdb.plannodes.BloomFilterPlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
+import org.voltdb.plannodes.IndexScanPlanNode;
+import org.voltdb.plannodes.NestLoopIndexPlanNode;
+import org.voltdb.plannodes.ReceivePlanNode;
+import org.voltdb.plannodes.SendPlanNode;
+import org.voltdb.plannodes.SeqScanPlanNode;
+import org.voltdb.types.ExpressionType;
+import org.voltdb.types.IndexLookupType;
+import org.voltdb.types.JoinType;
+import org.voltdb.types.PlanNodeType;
+import org.voltdb.utils.Pair;
+
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.optimizer.PlanOptimizerState;
+import edu.brown.plannodes.PlanNodeUtil;
+
+/**
+ * Bloom filter semi-join reduction for distributed joins.
+ * <p>
+ * When one side of a join is scanned at every partition and sent in full to the
+ * partitions that execute the join (the outer table of a NestLoopIndex join or the inner
+ * table of a HashJoin), we first scan the other table with its own (non-join) predicates
+ * at every partition and build a Bloom filter on its join key. The filters are sent to
+ * the partitions that scan the shipped table, which then drop the tuples that can not
+ * possibly join with anything before sending them. This adds one more round of
+ * PlanFragments to the query plan:
+ * <pre>
+ * JOIN -> RECEIVE -> SEND -> BLOOMFILTER(probe) -> SCAN(shipped)
+ *                                               -> RECEIVE -> SEND -> BLOOMFILTER(build) -> SEQSCAN(other)
+ * </pre>
+ * We only do this when the other table has a predicate of its own, since otherwise the
+ * filter would contain every key in that table. This is off unless HStoreConf's
+ * global.compiler_bloom_filter_join is enabled.
+ */
+public class BloomFilterJoinOptimization extends AbstractOptimization {
+    private static final Logger LOG = Logger.getLogger(BloomFilterJoinOptimization.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    public BloomFilterJoinOptimization(PlanOptimizerState state) {
+        super(state);
+    }
+
+    @Override
+    public Pair<Boolean, AbstractPlanNode> optimize(final AbstractPlanNode rootNode) {
+        if (HStoreConf.isInitialized() == false || HStoreConf.singleton().global.compiler_bloom_filter_join == false) {
+            if (debug.val)
+                LOG.debug("SKIP - Bloom filter joins are disabled");
+            return (Pair.of(false, rootNode));
+        }
+        // Skip single-partition query plans
+        if (PlanNodeUtil.isDistributedQuery(rootNode) == false) {
+            if (debug.val)
+                LOG.debug("SKIP - Not a distributed query plan");
+            return (Pair.of(false, rootNode));
+        }
+
+        boolean modified = false;
+        for (HashJoinPlanNode join_node : PlanNodeUtil.getPlanNodes(rootNode, HashJoinPlanNode.class)) {
+            if (this.optimizeHashJoin(join_node)) {
+                modified = true;
+            }
+        } // FOR
+        for (NestLoopIndexPlanNode join_node : PlanNodeUtil.getPlanNodes(rootNode, NestLoopIndexPlanNode.class)) {
+            if (this.optimizeNestLoopIndex(join_node)) {
+                modified = true;
+            }
+        } // FOR
+        return (Pair.of(modified, rootNode));
+    }
+
+    /**
+     * Return the scan below the SEND below the given RECEIVE if that is all
+     * that the RECEIVE's fragment does. Otherwise returns null.
+     */
+    private AbstractScanPlanNode getShippedScan(AbstractPlanNode node) {
+        if ((node instanceof ReceivePlanNode) == false) return (null);
+        AbstractPlanNode send_node = node.getChild(0);
+        if (send_node.getChildPlanNodeCount() != 1) return (null);
+        AbstractPlanNode child = send_node.getChild(0);
+        if ((child instanceof AbstractScanPlanNode) == false || child.getChildPlanNodeCount() != 0) return (null);
+        return ((AbstractScanPlanNode)child);
+    }
+
+    /**
+     * NestLoopIndex join where the outer table is sent to every partition:
+     * the filter is built on the inner table's index columns.
+     * Returns true if the query plan tree was modified.
+     * @param join_node
+     * @return
+     */
+    protected boolean optimizeNestLoopIndex(NestLoopIndexPlanNode join_node) {
+        if (join_node.getJoinType() != JoinType.INNER) {
+            if (debug.val)
+                LOG.debug(String.format("SKIP - %s is not an inner join", join_node));
+            return (false);
+        }
+        AbstractScanPlanNode probe_scan = this.getShippedScan(join_node.getChild(0));
+        if (probe_scan == null) {
+            if (debug.val)
+                LOG.debug(String.format("SKIP - The outer table of %s is not sent over the network", join_node));
+            return (false);
+        }
+        IndexScanPlanNode idx_node = join_node.getInlinePlanNode(PlanNodeType.INDEXSCAN);
+        if (idx_node == null || idx_node.getLookupType() != IndexLookupType.EQ) {
+            return (false);
+        }
+        Table probe_tbl = state.catalog_db.getTables().getIgnoreCase(probe_scan.getTargetTableName());
+        Table build_tbl = state.catalog_db.getTables().getIgnoreCase(idx_node.getTargetTableName());
+        if (probe_tbl == null || build_tbl == null) {
+            return (false);
+        }
+        Index catalog_idx = build_tbl.getIndexes().getIgnoreCase(idx_node.getTargetIndexName());
+        if (catalog_idx == null) {
+            return (false);
+        }
+
+        // Figure out which columns of the outer table are compared with
+        // the inner table's index columns. These are our filter's keys.
+        List<ColumnRef> idx_cols = CatalogUtil.getSortedCatalogItems(catalog_idx.getColumns(), "index");
+        List<AbstractExpression> searchKeys = idx_node.getSearchKeyExpressions();
+        List<Column> build_keys = new ArrayList<Column>();
+        List<Column> probe_keys = new ArrayList<Column>();
+        for (int i = 0, cnt = Math.min(searchKeys.size(), idx_cols.size()); i < cnt; i++) {
+            Column probe_col = this.getColumn(searchKeys.get(i), probe_tbl);
+            if (probe_col == null) continue;
+            probe_keys.add(probe_col);
+            build_keys.add(idx_cols.get(i).getColumn());
+        } // FOR
+
+        // Grab the predicates that only reference the inner table
+        List<AbstractExpression> filters = new ArrayList<AbstractExpression>();
+        this.getTablePredicates(idx_node.getPredicate(), build_tbl, filters);
+        this.getTablePredicates(join_node.getPredicate(), build_tbl, filters);
+        return (this.applyBloomFilter(build_tbl, build_keys, filters, probe_scan, probe_keys));
+    }
+
+    /**
+     * HashJoin where the inner table is sent to every partition: the filter is
+     * built on the outer table's columns from the join's equality conjuncts.
+     * Returns true if the query plan tree was modified.
+     * @param join_node
+     * @return
+     */
+    protected boolean optimizeHashJoin(HashJoinPlanNode join_node) {
+        if (join_node.getJoinType() != JoinType.INNER) {
+            if (debug.val)
+                LOG.debug(String.format("SKIP - %s is not an inner join", join_node));
+            return (false);
+        }
+        AbstractScanPlanNode probe_scan = this.getShippedScan(join_node.getChild(1));
+        if (probe_scan == null) {
+            if (debug.val)
+                LOG.debug(String.format("SKIP - The inner table of %s is not sent over the network", join_node));
+            return (false);
+        }
+        if ((join_node.getChild(0) instanceof SeqScanPlanNode) == false ||
+            join_node.getChild(0).getChildPlanNodeCount() != 0) {
+            return (false);
+        }
+        SeqScanPlanNode outer_scan = (SeqScanPlanNode)join_node.getChild(0);
+        Table probe_tbl = state.catalog_db.getTables().getIgnoreCase(probe_scan.getTargetTableName());
+        Table build_tbl = state.catalog_db.getTables().getIgnoreCase(outer_scan.getTargetTableName());
+        if (probe_tbl == null || build_tbl == null) {
+            return (false);
+        }
+
+        List<Column> build_keys = new ArrayList<Column>();
+        List<Column> probe_keys = new ArrayList<Column>();
+        for (AbstractExpression exp : this.getConjuncts(join_node.getPredicate())) {
+            if (exp.getExpressionType() != ExpressionType.COMPARE_EQUAL) continue;
+            Column left = this.getColumn(exp.getLeft(), build_tbl);
+            Column right = this.getColumn(exp.getRight(), probe_tbl);
+            if (left == null || right == null) {
+                left = this.getColumn(exp.getRight(), build_tbl);
+                right = this.getColumn(exp.getLeft(), probe_tbl);
+            }
+            if (left == null || right == null) continue;
+            build_keys.add(left);
+            probe_keys.add(right);
+        } // FOR
+
+        // Grab the predicates that only reference the outer table
+        List<AbstractExpression> filters = new ArrayList<AbstractExpression>();
+        this.getTablePredicates(outer_scan.getPredicate(), build_tbl, filters);
+        this.getTablePredicates(join_node.getPredicate(), build_tbl, filters);
+        return (this.applyBloomFilter(build_tbl, build_keys, filters, probe_scan, probe_keys));
+    }
+
+    /**
+     * Insert the Bloom filter build and probe nodes below the SEND of the probe scan.
+     * Returns true if the query plan tree was modified.
+     * @param build_tbl the table that we build the filter on
+     * @param build_keys the columns of build_tbl that we put in the filter
+     * @param filters the predicates on build_tbl
+     * @param probe_scan the scan whose output gets sent to every partition
+     * @param probe_keys the columns of the probe table to look up in the filter
+     * @return
+     */
+    protected boolean applyBloomFilter(Table build_tbl, List<Column> build_keys, List<AbstractExpression> filters,
+                                       AbstractScanPlanNode probe_scan, List<Column> probe_keys) {
+        Table probe_tbl = state.catalog_db.getTables().getIgnoreCase(probe_scan.getTargetTableName());
+        if (probe_tbl == null || build_tbl == null || probe_tbl.equals(build_tbl) || probe_tbl.getIsreplicated()) {
+            return (false);
+        }
+        if (probe_keys.isEmpty()) {
+            if (debug.val)
+                LOG.debug(String.format("SKIP - No join keys between %s and %s", probe_tbl.getName(), build_tbl.getName()));
+            return (false);
+        }
+        // If there aren't any predicates, then every key in the build table
+        // would be in the filter so there is no point
+        if (filters.isEmpty()) {
+            if (debug.val)
+                LOG.debug(String.format("SKIP - %s does not have any predicates of its own", build_tbl.getName()));
+            return (false);
+        }
+        List<Integer> probe_guids = new ArrayList<Integer>();
+        for (Column catalog_col : probe_keys) {
+            Integer guid = this.findOutputColumn(probe_scan, probe_tbl.getName(), catalog_col.getName());
+            if (guid == null) {
+                if (debug.val)
+                    LOG.debug(String.format("SKIP - %s is not in the output of %s", catalog_col.fullName(), probe_scan));
+                return (false);
+            }
+            probe_guids.add(guid);
+        } // FOR
+
+        // BUILD: SEND -> BLOOMFILTER -> SEQSCAN
+        SeqScanPlanNode build_scan = new SeqScanPlanNode(state.plannerContext, PlanAssembler.getNextPlanNodeId());
+        build_scan.setTargetTableName(build_tbl.getTypeName());
+        build_scan.setPredicate(ExpressionUtil.combine(filters));
+        build_scan.updateOutputColumns(state.catalog_db);
+
+        BloomFilterPlanNode build_node = new BloomFilterPlanNode(state.plannerContext, PlanAssembler.getNextPlanNodeId());
+        build_node.setBuild(true);
+        for (Column catalog_col : build_keys) {
+            Integer guid = this.findOutputColumn(build_scan, build_tbl.getName(), catalog_col.getName());
+            assert(guid != null) : "Missing " + catalog_col.fullName() + " in " + build_scan;
+            build_node.getKeyColumnGuids().add(guid);
+        } // FOR
+        build_node.addAndLinkChild(build_scan);
+        build_node.updateOutputColumns(state.catalog_db);
+
+        SendPlanNode build_send = new SendPlanNode(state.plannerContext, PlanAssembler.getNextPlanNodeId());
+        build_send.isMultiPartition = true;
+        build_send.addAndLinkChild(build_node);
+        build_send.setOutputColumns(build_node.getOutputColumnGUIDs());
+        ReceivePlanNode build_recv = new ReceivePlanNode(state.plannerContext, PlanAssembler.getNextPlanNodeId());
+        build_recv.addAndLinkChild(build_send);
+        build_recv.setOutputColumns(build_node.getOutputColumnGUIDs());
+
+        // PROBE: SEND -> BLOOMFILTER -> [ SCAN, RECEIVE ]
+        AbstractPlanNode send_node = probe_scan.getParent(0);
+        BloomFilterPlanNode probe_node = new BloomFilterPlanNode(state.plannerContext, PlanAssembler.getNextPlanNodeId());
+        probe_node.setBuild(false);
+        probe_node.getKeyColumnGuids().addAll(probe_guids);
+        send_node.clearChildren();
+        probe_scan.clearParents();
+        probe_node.addAndLinkChild(probe_scan);
+        probe_node.addAndLinkChild(build_recv);
+        probe_node.setOutputColumns(probe_scan.getOutputColumnGUIDs());
+        send_node.addAndLinkChild(probe_node);
+
+        state.markDirty(build_scan);
+        state.markDirty(build_node);
+        state.markDirty(build_send);
+        state.markDirty(build_recv);
+        state.markDirty(probe_node);
+        state.markDirty(send_node);
+        if (debug.val)
+            LOG.debug(String.format("Added Bloom filter on %s%s for %s%s",
+                      build_tbl.getName(), build_keys, probe_tbl.getName(), probe_keys));
+        return (true);
+    }
+
+    /**
+     * Return the catalog Column if the given expression is a column of the given table
+     */
+    private Column getColumn(AbstractExpression exp, Table catalog_tbl) {
+        if ((exp instanceof TupleValueExpression) == false) return (null);
+        TupleValueExpression tve = (TupleValueExpression)exp;
+        if (catalog_tbl.getName().equalsIgnoreCase(tve.getTableName()) == false) return (null);
+        return (catalog_tbl.getColumns().getIgnoreCase(tve.getColumnName()));
+    }
+
+    /**
+     * Split the given expression into its AND conjuncts
+     */
+    private List<AbstractExpression> getConjuncts(AbstractExpression exp) {
+        List<AbstractExpression> conjuncts = new ArrayList<AbstractExpression>();
+        if (exp == null) {
+            // Nothing to do...
+        } else if (exp.getExpressionType() == ExpressionType.CONJUNCTION_AND) {
+            conjuncts.addAll(this.getConjuncts(exp.getLeft()));
+            conjuncts.addAll(this.getConjuncts(exp.getRight()));
+        } else {
+            conjuncts.add(exp);
+        }
+        return (conjuncts);
+    }
+
+    /**
+     * Return the GUID of the output column of the scan for the given table column
+     */
+    private Integer findOutputColumn(AbstractScanPlanNode scan_node, String table_name, String column_name) {
+        for (Integer guid : scan_node.getOutputColumnGUIDs()) {
+            PlanColumn planCol = state.plannerContext.get(guid);
+            if (planCol == null || (planCol.getExpression() instanceof TupleValueExpression) == false) continue;
+            TupleValueExpression tve = (TupleValueExpression)planCol.getExpression();
+            if (table_name.equalsIgnoreCase(tve.getTableName()) && column_name.equalsIgnoreCase(tve.getColumnName())) {
+                return (guid);
+            }
+        } // FOR
+        return (null);
+    }
+
+    /**
+     * Add copies of the AND conjuncts of the given expression that only reference
+     * the given table to the list. The column indexes of the copies are reset to
+     * the table's column indexes so that they can be used by a plain scan.
+     */
+    private void getTablePredicates(AbstractExpression exp, Table catalog_tbl, List<AbstractExpression> filters) {
+        for (AbstractExpression conjunct : this.getConjuncts(exp)) {
+            Collection<String> tableNames = edu.brown.expressions.ExpressionUtil.getReferencedTableNames(conjunct);
+            if (tableNames.size() != 1 || catalog_tbl.getName().equalsIgnoreCase(tableNames.iterator().next()) == false) {
+                continue;
+            }
+            AbstractExpression clone = null;
+            try {
+                clone = ExpressionUtil.clone(conjunct);
+            } catch (Exception ex) {
+                throw new RuntimeException("Failed to clone " + conjunct, ex);
+            }
+            boolean valid = true;
+            for (TupleValueExpression tve : edu.brown.expressions.ExpressionUtil.getExpressions(clone, TupleValueExpression.class)) {
+                Column catalog_col = catalog_tbl.getColumns().getIgnoreCase(tve.getColumnName());
+                if (catalog_col == null) {
+                    valid = false;
+                    break;
+                }
+                tve.setColumnIndex(catalog_col.getIndex());
+            } // FOR
+            if (valid) filters.add(clone);
+        } // FOR
+    }
+}
@@ -31,6 +31,7 @@ import org.voltdb.plannodes.AbstractOperationPlanNode;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.AbstractScanPlanNode;
 import org.voltdb.plannodes.AggregatePlanNode;
+import org.voltdb.plannodes.BloomFilterPlanNode;
 import org.voltdb.plannodes.DeletePlanNode;
 import org.voltdb.plannodes.DistinctPlanNode;
 import org.voltdb.plannodes.IndexScanPlanNode;
@@ -236,6 +237,7 @@ public abstract class PlanNodeUtil {
             // JOINS
             // ---------------------------------------------------
             case NESTLOOP:
+            case HASHJOIN:
             case NESTLOOPINDEX: {
                 AbstractJoinPlanNode cast_node = (AbstractJoinPlanNode) node;
                 if (cast_node.getPredicate() != null)
@@ -328,6 +330,7 @@ public abstract class PlanNodeUtil {
                     }
                     // JOINS
                     case NESTLOOP:
+                    case HASHJOIN:
                     case NESTLOOPINDEX: {
                         AbstractJoinPlanNode cast_node = (AbstractJoinPlanNode) node;
                         exps.add(cast_node.getPredicate());
@@ -725,6 +728,13 @@ public abstract class PlanNodeUtil {
             sb.append(inner_spacer).append(PlanNodeUtil.debugOutputColumns("AggregateColumns", cast_node.getAggregateColumnGuids(), line_spacer));
             sb.append(inner_spacer).append(PlanNodeUtil.debugOutputColumns("GroupByColumns", cast_node.getGroupByColumnGuids(), line_spacer));
 
+            // BloomFilterPlanNode
+        } else if (node instanceof BloomFilterPlanNode) {
+            BloomFilterPlanNode cast_node = (BloomFilterPlanNode) node;
+            sb.append(inner_spacer).append("Build[" + cast_node.isBuild() + "]\n");
+            sb.append(inner_spacer).append("NumWords[" + cast_node.getNumWords() + "]\n");
+            sb.append(inner_spacer).append(PlanNodeUtil.debugOutputColumns("KeyColumns", cast_node.getKeyColumnGuids(), line_spacer));
+
             // DeletePlanNode
         } else if (node instanceof DeletePlanNode) {
             sb.append(inner_spacer).append("Truncate[" + ((DeletePlanNode) node).isTruncate() + "\n");
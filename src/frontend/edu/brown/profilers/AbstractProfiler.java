@@ -57,6 +57,17 @@ public abstract class AbstractProfiler {
         } // FOR
     }
 
+    /**
+     * Disable the latency histograms for all of the ProfileMeasurements within this profiler.
+     * Each thread that records into a histogram has a fixed memory cost, so this
+     * should be used by profilers that are created for short-lived objects.
+     */
+    public void disableHistograms() {
+        for (ProfileMeasurement pm : this.getProfileMeasurements()) {
+            pm.disableHistogram();
+        } // FOR
+    }
+
     /**
      * Reset all of the ProfileMeasurements within this profiler
      */
@@ -38,6 +38,8 @@ import org.voltdb.catalog.Database;
 
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.statistics.LatencyHistogram;
+import edu.brown.statistics.ThreadLocalLatencyHistogram;
 import edu.brown.utils.EventObservable;
 import edu.brown.utils.EventObserver;
 import edu.brown.utils.JSONSerializable;
@@ -72,6 +74,13 @@ public class ProfileMeasurement implements JSONSerializable {
 
     private transient boolean reset = false;
 
+    /**
+     * The distribution of the think times for each invocation.
+     * Each thread records into its own histogram. This is null if somebody
+     * called disableHistogram()
+     */
+    private transient ThreadLocalLatencyHistogram histogram = new ThreadLocalLatencyHistogram();
+
     private transient EventObservable<ProfileMeasurement> start_observable;
     private transient EventObservable<ProfileMeasurement> stop_observable;
 
@@ -113,12 +122,45 @@ public class ProfileMeasurement implements JSONSerializable {
         }
         this.total_time = 0;
         this.invocations = 0;
+        if (this.histogram != null) this.histogram.reset();
     }
 
     public void clear() {
         this.marker = NULL_MARKER;
         this.invocations = 0;
         this.total_time = 0;
+        if (this.histogram != null) this.histogram.reset();
+    }
+
+    /**
+     * Stop keeping track of the distribution of the think times for this
+     * ProfileMeasurement. This is only meant for short-lived ProfileMeasurements
+     * whose think times are already recorded somewhere else.
+     * @return this
+     */
+    public ProfileMeasurement disableHistogram() {
+        this.histogram = null;
+        return (this);
+    }
+
+    /**
+     * Returns the histogram of think times (in nanoseconds) for this ProfileMeasurement
+     * merged across all of the threads that updated it. Returns null if
+     * disableHistogram() was called.
+     * @return
+     */
+    public LatencyHistogram getHistogram() {
+        return (this.histogram != null ? this.histogram.get() : null);
+    }
+
+    /**
+     * Get the think time at the given percentile (0-100] in nanoseconds.
+     * Returns zero if this ProfileMeasurement does not have a histogram.
+     * @param percentile
+     * @return
+     */
+    public long getThinkTimePercentile(double percentile) {
+        return (this.histogram != null ? this.histogram.get().getValueAtPercentile(percentile) : 0l);
     }
 
     /**
@@ -268,6 +310,7 @@ public class ProfileMeasurement implements JSONSerializable {
                                    this.type, timestamp, this.marker, added));
         } else {
             this.total_time += added;
+            if (this.histogram != null) this.histogram.record(added);
         }
         this.marker = NULL_MARKER;
         if (this.stop_observable != null)
@@ -329,9 +372,29 @@ public class ProfileMeasurement implements JSONSerializable {
         this.total_time += other.total_time;
         this.marker = other.marker;
         this.invocations += other.invocations;
+        if (this.histogram != null) {
+            if (other.histogram != null) {
+                this.histogram.merge(other.histogram.get());
+            } else {
+                this.recordHistogram(other.total_time, other.invocations);
+            }
+        }
         return (this);
     }
     
+    /**
+     * Record the total think time of the given number of invocations in the histogram.
+     * We don't know how that time was split up between the invocations, so each
+     * of them is counted as taking the average time.
+     * @param time
+     * @param invocations
+     */
+    private void recordHistogram(long time, int invocations) {
+        if (this.histogram != null && invocations > 0) {
+            this.histogram.record(time / invocations, invocations);
+        }
+    }
+    
     /**
      * Append the think time without locking the marker. This is the preferred
      * way to update the ProfileMeasurement when multiple threads are using it.
@@ -344,6 +407,7 @@ public class ProfileMeasurement implements JSONSerializable {
         assert(stop >= 0);
         this.total_time += (stop - start);
         this.invocations += invocations;
+        this.recordHistogram(stop - start, invocations);
     }
 
     /**
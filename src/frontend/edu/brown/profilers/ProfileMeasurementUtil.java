@@ -1,9 +1,14 @@
 package edu.brown.profilers;
 
+import java.util.List;
+
 import org.apache.log4j.Logger;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
 
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.statistics.LatencyHistogram;
 
 public abstract class ProfileMeasurementUtil {
     private static final Logger LOG = Logger.getLogger(ProfileMeasurementUtil.class);
@@ -13,6 +18,57 @@ public abstract class ProfileMeasurementUtil {
         LoggerUtil.attachObserver(LOG, debug, trace);
     }
 
+    /**
+     * The think time percentiles that the ProfilerStats sources report for
+     * each ProfileMeasurement, along with the column name suffix for each one
+     */
+    public static final double STATS_PERCENTILES[] = { 50d, 99d, 99.9d };
+    public static final String STATS_PERCENTILE_SUFFIXES[] = { "_P50", "_P99", "_P999" };
+
+    // --------------------------------------------------------------------------------------------
+    // STATS METHODS
+    // --------------------------------------------------------------------------------------------
+    
+    /**
+     * Add a BIGINT column for each of the STATS_PERCENTILES of the
+     * ProfileMeasurement with the given column name prefix
+     * @param columns
+     * @param name
+     */
+    public static void addPercentileColumns(List<VoltTable.ColumnInfo> columns, String name) {
+        for (String suffix : STATS_PERCENTILE_SUFFIXES) {
+            columns.add(new VoltTable.ColumnInfo(name+suffix, VoltType.BIGINT));
+        } // FOR
+    }
+    
+    /**
+     * Write the STATS_PERCENTILES of the given ProfileMeasurement's think times
+     * into rowValues starting at offset. Returns the offset after the last value.
+     * @param rowValues
+     * @param offset
+     * @param pm
+     * @return
+     */
+    public static int populatePercentiles(Object rowValues[], int offset, ProfileMeasurement pm) {
+        return populatePercentiles(rowValues, offset, pm.getHistogram());
+    }
+    
+    /**
+     * Write the STATS_PERCENTILES of the given histogram into rowValues starting
+     * at offset. If the histogram is null, then the values will all be zero.
+     * Returns the offset after the last value.
+     * @param rowValues
+     * @param offset
+     * @param histogram
+     * @return
+     */
+    public static int populatePercentiles(Object rowValues[], int offset, LatencyHistogram histogram) {
+        for (double percentile : STATS_PERCENTILES) {
+            rowValues[offset++] = (histogram != null ? histogram.getValueAtPercentile(percentile) : 0l);
+        } // FOR
+        return (offset);
+    }
+
     // --------------------------------------------------------------------------------------------
     // SWAP METHODS
     // --------------------------------------------------------------------------------------------
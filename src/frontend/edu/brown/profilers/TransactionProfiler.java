@@ -41,6 +41,13 @@ public class TransactionProfiler extends AbstractProfiler implements Poolable {
 
     private transient boolean disabled = false;
 
+    public TransactionProfiler() {
+        // There is one of these for every txn, so we don't want each of them to
+        // keep their own histograms. The per-txn think times are recorded in
+        // TransactionProfilerStats for each Procedure instead.
+        this.disableHistograms();
+    }
+
     /**
      * 
      * @param expected_parent
@@ -160,17 +160,25 @@ public class NIOEventLoop implements EventLoop {
     public void runOnce() {
         long timeoutMs = 0;
         if (!timers.isEmpty()) {
+            long start = System.nanoTime();
             long now = System.currentTimeMillis();
             timeoutMs = triggerExpiredTimers(now);
+            busyNanos += System.nanoTime() - start;
         }
 
         try {
             int readyCount = selector.select(timeoutMs);
+            long start = System.nanoTime();
             handleSelectedKeys();
+            handleThreadEvents(start);
             if (readyCount == 0) {
                 // TODO: Avoid checking this at both the top and the bottom of the loop.
                 triggerExpiredTimers(System.currentTimeMillis());
             }
+            long elapsed = System.nanoTime() - start;
+            busyNanos += elapsed;
+            if (elapsed > maxLoopNanos) maxLoopNanos = elapsed;
+            loopCount += 1;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -216,6 +224,7 @@ public class NIOEventLoop implements EventLoop {
         for (Iterator<SelectionKey> it = selectedKeys.iterator(); it.hasNext(); ) {
             SelectionKey key = it.next();
             EventLoop.Handler callback = (EventLoop.Handler) key.attachment();
+            eventCount += 1;
 
             // only handle one event per loop. more efficient: most times only one event is ready,
             // and it avoids canceled key exceptions
@@ -247,19 +256,63 @@ public class NIOEventLoop implements EventLoop {
 
         // Must remove the keys from the selected set
         selectedKeys.clear();
+    }
 
-        // Handle any queued thread events
-        Runnable callback = null;
-        while ((callback = threadEvents.poll()) != null) {
-            callback.run();
+    /** Runs the callbacks that were queued by runInEventThread(). */
+    private void handleThreadEvents(long now) {
+        ThreadEvent event = null;
+        while ((event = threadEvents.poll()) != null) {
+            // Callbacks that are queued while we are draining were not waiting when this pass started
+            long waited = Math.max(0, now - event.queuedNanos);
+            threadEventLatencyNanos += waited;
+            if (waited > maxThreadEventLatencyNanos) maxThreadEventLatencyNanos = waited;
+            event.callback.run();
+            threadEventCount += 1;
         }
     }
 
     public void runInEventThread(Runnable callback) {
-        threadEvents.add(callback);
+        threadEvents.add(new ThreadEvent(callback, System.nanoTime()));
         selector.wakeup();
     }
 
+    /** @return the number of channel events that this loop has dispatched. */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /** @return the number of callbacks from runInEventThread() that this loop has executed. */
+    public long getThreadEventCount() {
+        return threadEventCount;
+    }
+
+    /** @return the total nanoseconds that this loop has spent in callbacks instead of select().
+     * This includes channel events, timers, and the callbacks from runInEventThread(). */
+    public long getBusyTime() {
+        return busyNanos;
+    }
+
+    /** @return the number of passes that this loop has made through select(). */
+    public long getLoopCount() {
+        return loopCount;
+    }
+
+    /** @return the most nanoseconds that this loop has spent handling callbacks in a single pass. */
+    public long getMaxLoopTime() {
+        return maxLoopNanos;
+    }
+
+    /** @return the total nanoseconds that callbacks from runInEventThread() waited in the queue
+     * before the pass of this loop that ran them started. */
+    public long getThreadEventLatency() {
+        return threadEventLatencyNanos;
+    }
+
+    /** @return the most nanoseconds that a single callback from runInEventThread() waited. */
+    public long getMaxThreadEventLatency() {
+        return maxThreadEventLatencyNanos;
+    }
+
     public void exitLoop() {
         if (LOG.isDebugEnabled()) LOG.debug("Stopping running loop");
         exitLoop = true;
@@ -270,8 +323,27 @@ public class NIOEventLoop implements EventLoop {
     private SigintHandler sigintHandler;
     // volatile because signal handlers run in other threads
     private volatile boolean exitLoop = false;
-    private final ConcurrentLinkedQueue<Runnable> threadEvents =
-            new ConcurrentLinkedQueue<Runnable>();
+    private final ConcurrentLinkedQueue<ThreadEvent> threadEvents =
+            new ConcurrentLinkedQueue<ThreadEvent>();
+
+    // Statistics: only updated by the thread running the loop, so readers may see stale values
+    private long eventCount = 0;
+    private long threadEventCount = 0;
+    private long busyNanos = 0;
+    private long loopCount = 0;
+    private long maxLoopNanos = 0;
+    private long threadEventLatencyNanos = 0;
+    private long maxThreadEventLatencyNanos = 0;
+
+    private static final class ThreadEvent {
+        public final Runnable callback;
+        public final long queuedNanos;
+
+        public ThreadEvent(Runnable callback, long queuedNanos) {
+            this.callback = callback;
+            this.queuedNanos = queuedNanos;
+        }
+    }
 
     private static final class Timer implements Comparable<Timer> {
         public final long expirationMs;
@@ -2,6 +2,7 @@ package edu.brown.protorpc;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 
 import com.google.protobuf.CodedInputStream;
@@ -24,6 +25,9 @@ public class ProtoConnection {
     private final CodedOutputStream codedOutput;
     private int nextMessageLength = -1;
 
+    /** Wire type for bytes and embedded messages (WireFormat's constants are not public). */
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
     public ProtoConnection(NonBlockingConnection connection) {
         this.connection = connection;
         input = connection.getInputStream();
@@ -84,16 +88,84 @@ public class ProtoConnection {
     }
 
     public boolean tryWrite(MessageLite message) {
+        bufferWrite(message);
+        return tryFlush();
+    }
+
+    /** Serializes message into this connection's output buffer without sending it. Several
+     * messages can be buffered and then sent together with a single call to {@link #tryFlush()}.
+     * The receiver reads them as separate messages.
+     */
+    public void bufferWrite(MessageLite message) {
         try {
             codedOutput.writeRawLittleEndian32(message.getSerializedSize());
             message.writeTo(codedOutput);
             // writes to the underlying output stream 
             codedOutput.flush();  
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public boolean tryWrite(MessageLite header, int fieldNumber, MessageLite body) {
+        bufferWrite(header, fieldNumber, body);
+        return tryFlush();
+    }
+
+    /** Serializes header followed by body as field fieldNumber of the same message. This is
+     * the same encoding as setting the field to body.toByteString() and then writing the
+     * whole message, but body is serialized straight into the output buffers instead of
+     * being copied into a temporary ByteString first. header is usually built with
+     * buildPartial() since the required field is missing.
+     */
+    public void bufferWrite(MessageLite header, int fieldNumber, MessageLite body) {
+        try {
+            int size = header.getSerializedSize() +
+                    CodedOutputStream.computeMessageSize(fieldNumber, body);
+            codedOutput.writeRawLittleEndian32(size);
+            header.writeTo(codedOutput);
+            codedOutput.writeMessage(fieldNumber, body);
+            codedOutput.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public boolean tryWrite(MessageLite header, int fieldNumber, ByteBuffer payload) {
+        bufferWrite(header, fieldNumber, payload);
+        return tryFlush();
+    }
 
-            return connection.tryFlush();
+    /** Like {@link #bufferWrite(MessageLite, int, MessageLite)}, except that the bytes
+     * between payload's position and limit are the value of the field. Only the header and the
+     * field's tag and length are copied: payload is queued on the connection as is and is
+     * written by the same gathering write. The caller must not modify payload until it has
+     * been sent.
+     */
+    public void bufferWrite(MessageLite header, int fieldNumber, ByteBuffer payload) {
+        int length = payload.remaining();
+        try {
+            int size = header.getSerializedSize() +
+                    CodedOutputStream.computeTagSize(fieldNumber) +
+                    CodedOutputStream.computeRawVarint32Size(length) +
+                    length;
+            codedOutput.writeRawLittleEndian32(size);
+            header.writeTo(codedOutput);
+            codedOutput.writeTag(fieldNumber, WIRETYPE_LENGTH_DELIMITED);
+            codedOutput.writeRawVarint32(length);
+            // everything before the payload must be in the connection's buffers
+            codedOutput.flush();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        connection.attach(payload);
+    }
+
+    /** Attempts to send all buffered messages.
+     * @return true if the write blocked and the connection now needs a write callback.
+     */
+    public boolean tryFlush() {
+        return connection.tryFlush();
     }
 
     // TODO: Only keep one of getConnection and getChannel?
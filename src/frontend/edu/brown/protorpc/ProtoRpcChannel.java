@@ -31,6 +31,14 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
     private final HashMap<Integer, ProtoRpcController> pendingRpcs =
             new HashMap<Integer, ProtoRpcController>();
     private int reconnectIntervalSeconds;
+    private boolean coalesce = false;
+    private boolean flushPending = false;
+    private final Runnable flushCallback = new Runnable() {
+        @Override
+        public void run() {
+            flushCoalesced();
+        }
+    };
 
     /** A factory interface for connecting to an RPC server. */
     public interface ConnectFactory {
@@ -112,6 +120,19 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
         reconnectIntervalSeconds = reconnectSeconds;
     }
 
+    /**
+     * Sets whether outbound requests are buffered so that they can be sent together
+     * with other requests. The requests are still separate messages on the wire, but
+     * everything that is buffered before the event loop gets to this channel goes out
+     * with one write on the event loop thread instead of one write per request.
+     *
+     * @param coalesce true to buffer requests until the next pass of the event loop.
+     *          false sends every request right away (default).
+     */
+    public void setCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
     public void callMethod(Descriptors.MethodDescriptor method,
             RpcController controller, Message request,
             Message responsePrototype, RpcCallback<Message> done) {
@@ -128,9 +149,21 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
         synchronized (this) {
             pendingRpcs.put(sequence, rpc);
             // System.err.println("Sending RPC sequence " + sequence);
-            RpcRequest rpcRequest = makeRpcRequest(sequence, method, request);
+            // request is serialized directly into the connection's buffers
+            RpcRequest rpcRequest = makeRpcRequestHeader(sequence, method);
             sequence += 1;
-            boolean blocked = connection.tryWrite(rpcRequest);
+            if (coalesce) {
+                // the event loop will send this along with anything else that
+                // gets buffered before it runs the flush
+                connection.bufferWrite(rpcRequest, RpcRequest.REQUEST_FIELD_NUMBER, request);
+                if (!flushPending) {
+                    flushPending = true;
+                    eventLoop.runInEventThread(flushCallback);
+                }
+                if (debug) LOG.debug(String.format("%d: Buffering RPC %s sequence %d", hashCode(), method.getFullName(), sequence));
+                return;
+            }
+            boolean blocked = connection.tryWrite(rpcRequest, RpcRequest.REQUEST_FIELD_NUMBER, request);
             if (blocked) {
                 // the write blocked: wait for write callbacks
                 if (debug) LOG.debug("registering write with eventLoop: " + eventLoop);
@@ -140,6 +173,21 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
         }
     }
 
+    /**
+     * Sends all of the requests that were buffered by callMethod(). Runs in the event thread.
+     * This must never wait for more requests: the event loop thread is shared by every
+     * channel and server that is registered with it.
+     */
+    private synchronized void flushCoalesced() {
+        flushPending = false;
+        if (connection == null) return;
+        boolean blocked = connection.tryFlush();
+        if (blocked) {
+            eventLoop.registerWrite(connection.getChannel(), this);
+        }
+        if (LOG.isDebugEnabled()) LOG.debug(String.format("%d: Flushed buffered RPCs blocked = %b", hashCode(), blocked));
+    }
+
     public static RpcRequest makeRpcRequest(
             int sequence, Descriptors.MethodDescriptor method, Message request) {
         RpcRequest.Builder requestBuilder = RpcRequest.newBuilder();
@@ -149,6 +197,16 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
         return requestBuilder.build();
     }
 
+    /** Returns an RpcRequest without the request field. This must be sent with
+     * {@link ProtoConnection#tryWrite(com.google.protobuf.MessageLite, int, com.google.protobuf.MessageLite)}. */
+    public static RpcRequest makeRpcRequestHeader(
+            int sequence, Descriptors.MethodDescriptor method) {
+        RpcRequest.Builder requestBuilder = RpcRequest.newBuilder();
+        requestBuilder.setSequenceNumber(sequence);
+        requestBuilder.setMethodName(method.getFullName());
+        return requestBuilder.buildPartial();
+    }
+
     @Override
     public void readCallback(SelectableChannel channel) {
         boolean isOpen = connection.readAllAvailable();
@@ -245,6 +303,16 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
     }
     
     public static ProtoRpcChannel[] connectParallel(final EventLoop eventLoop, final InetSocketAddress[] addresses, final int total_time) {
+        return connectParallel(eventLoop, new EventLoop[]{ eventLoop }, addresses, total_time);
+    }
+
+    /**
+     * Connects to all of the addresses using eventLoop, and then assigns the resulting channels
+     * to channelLoops in round-robin order. The channelLoops must not be running yet.
+     */
+    public static ProtoRpcChannel[] connectParallel(final EventLoop eventLoop, final EventLoop[] channelLoops,
+                                                    final InetSocketAddress[] addresses, final int total_time) {
+        assert channelLoops.length > 0;
         class ExitLoopHandler extends AbstractEventHandler {
             @Override
             public void timerCallback() {
@@ -326,7 +394,7 @@ public class ProtoRpcChannel extends AbstractEventHandler implements RpcChannel
         if (exitLoopHandler.barrierCount == 0) {
             ProtoRpcChannel[] rpcChannels = new ProtoRpcChannel[addresses.length];
             for (int i = 0; i < channels.length; ++i) {
-                rpcChannels[i] = new ProtoRpcChannel(eventLoop,
+                rpcChannels[i] = new ProtoRpcChannel(channelLoops[i % channelLoops.length],
                         new StaticConnectFactory(new NonBlockingConnection(channels[i].channel)));
             }
             return rpcChannels;
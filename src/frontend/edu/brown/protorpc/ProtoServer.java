@@ -25,6 +25,17 @@ public class ProtoServer extends AbstractEventHandler {
     
     public ProtoServer(EventLoop eventLoop) {
         this.eventLoop = eventLoop;
+        this.connectionLoops = new EventLoop[]{ eventLoop };
+    }
+
+    /**
+     * Sets the event loops that will handle the connections accepted by this server. Each new
+     * connection is handed off to the next loop in round-robin order. The server socket itself
+     * stays with the event loop passed to the constructor.
+     */
+    public void setConnectionEventLoops(EventLoop[] loops) {
+        assert loops.length > 0;
+        this.connectionLoops = loops;
     }
 
     @Override
@@ -42,14 +53,29 @@ public class ProtoServer extends AbstractEventHandler {
         // wrap it in a message connection and register with event loop
         ProtoConnection connection = new ProtoConnection(new NonBlockingConnection(client));
 
-        eventLoop.registerRead(client, new EventCallbackWrapper(connection));
+        final EventLoop target = connectionLoops[nextConnectionLoop];
+        nextConnectionLoop = (nextConnectionLoop + 1) % connectionLoops.length;
+        final SocketChannel clientChannel = client;
+        final EventCallbackWrapper wrapper = new EventCallbackWrapper(target, connection);
+        if (target == eventLoop) {
+            target.registerRead(clientChannel, wrapper);
+        } else {
+            // The channel must be registered by the thread that runs the other loop
+            target.runInEventThread(new Runnable() {
+                @Override
+                public void run() {
+                    target.registerRead(clientChannel, wrapper);
+                }
+            });
+        }
 //        SelectionKey clientKey = connection.register(selector);
 //        clientKey.attach(connection);
 //        eventQueue.add(new Event(connection, null));
     }
 
     private class EventCallbackWrapper extends AbstractEventHandler {
-        public EventCallbackWrapper(ProtoConnection connection) {
+        public EventCallbackWrapper(EventLoop eventLoop, ProtoConnection connection) {
+            this.eventLoop = eventLoop;
             this.connection = connection;
         }
 
@@ -63,10 +89,17 @@ public class ProtoServer extends AbstractEventHandler {
             return connection.writeAvailable();
         }
 
+        private final EventLoop eventLoop;
         private final ProtoConnection connection;
 
-        public synchronized void writeResponse(RpcResponse output) {
-            boolean blocked = connection.tryWrite(output);
+        public synchronized void writeResponse(RpcResponse output, Message response) {
+            boolean blocked;
+            if (response != null) {
+                // response is serialized directly into the connection's buffers
+                blocked = connection.tryWrite(output, RpcResponse.RESPONSE_FIELD_NUMBER, response);
+            } else {
+                blocked = connection.tryWrite(output);
+            }
             if (blocked) {
                 // write blocked: wait for the write callback
                 eventLoop.registerWrite(connection.getChannel(), this);
@@ -176,9 +209,7 @@ public class ProtoServer extends AbstractEventHandler {
             responseMessage.setSequenceNumber(sequence);
             assert controller.status != Protocol.Status.INVALID;
             responseMessage.setStatus(controller.status);
-            if (response != null) {
-                responseMessage.setResponse(response.toByteString());
-            } else {
+            if (response == null) {
                 // No message: we must have failed
                 assert controller.status != Protocol.Status.OK;
             }
@@ -187,7 +218,7 @@ public class ProtoServer extends AbstractEventHandler {
                 responseMessage.setErrorReason(controller.errorReason);
             }
 
-            eventLoopCallback.writeResponse(responseMessage.build());
+            eventLoopCallback.writeResponse(responseMessage.build(), response);
             eventLoopCallback = null;
         }
     }
@@ -218,6 +249,8 @@ public class ProtoServer extends AbstractEventHandler {
     }
 
     private EventLoop eventLoop;
+    private EventLoop[] connectionLoops;
+    private int nextConnectionLoop = 0;
     private ServerSocketChannel serverSocket;
     private final ServiceRegistry serviceRegistry = new ServiceRegistry();
 }
@@ -0,0 +1,338 @@
+package edu.brown.statistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONStringer;
+import org.voltdb.catalog.Database;
+
+import edu.brown.utils.JSONSerializable;
+import edu.brown.utils.JSONUtil;
+
+/**
+ * Fixed-memory log-linear histogram for latency measurements.
+ * Each power-of-two range of values is split into SUB_BUCKETS linear buckets,
+ * so any recorded value is within 1/SUB_BUCKETS of the bucket that it falls in
+ * (12.5%). Values larger than 2^MAX_EXPONENT are counted in the last bucket.
+ * <B>NOTE:</B> Recording and merging only use atomic primitives, so one thread
+ * can record into a histogram while another thread merges it somewhere else
+ * without having to lock anything.
+ */
+public class LatencyHistogram implements JSONSerializable {
+
+    public enum Members {
+        COUNTS,
+        SUM,
+        MIN,
+        MAX,
+    }
+
+    protected static final int SUB_BUCKET_BITS = 3;
+    protected static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    protected static final int MAX_EXPONENT = 40;
+    protected static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong num_samples = new AtomicLong(0);
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    public LatencyHistogram() {
+        // Nothing to do...
+    }
+
+    /**
+     * Copy Constructor
+     * @param copy
+     */
+    public LatencyHistogram(LatencyHistogram copy) {
+        this.merge(copy);
+    }
+
+    // ----------------------------------------------------------------------------
+    // BUCKETS
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Return the offset of the bucket that the given value falls in
+     * @param value
+     * @return
+     */
+    protected static int getBucket(long value) {
+        if (value < SUB_BUCKETS) return ((int)value);
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        if (exp > MAX_EXPONENT) return (NUM_BUCKETS - 1);
+        int sub = (int)(value >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * Return the smallest value that is counted in the given bucket
+     * @param bucket
+     * @return
+     */
+    protected static long getBucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return (bucket);
+        int exp = (bucket / SUB_BUCKETS) + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS));
+    }
+
+    /**
+     * Return the largest value that is counted in the given bucket
+     * @param bucket
+     * @return
+     */
+    protected static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return (bucket);
+        if (bucket == NUM_BUCKETS - 1) return (Long.MAX_VALUE);
+        return (getBucketLowerBound(bucket + 1) - 1);
+    }
+
+    // ----------------------------------------------------------------------------
+    // RECORDING
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Record a single measurement. Negative values are ignored.
+     * @param value
+     */
+    public void record(long value) {
+        this.record(value, 1);
+    }
+
+    /**
+     * Record the same measurement multiple times. Negative values are ignored.
+     * @param value
+     * @param count
+     */
+    public void record(long value, long count) {
+        if (value < 0 || count <= 0) return;
+        this.counts.addAndGet(getBucket(value), count);
+        this.num_samples.addAndGet(count);
+        this.sum.addAndGet(value * count);
+        this.updateMin(value);
+        this.updateMax(value);
+    }
+
+    /**
+     * Add all of the measurements from the other histogram into this one
+     * @param other
+     * @return this
+     */
+    public LatencyHistogram merge(LatencyHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long cnt = other.counts.get(i);
+            if (cnt != 0) this.counts.addAndGet(i, cnt);
+        } // FOR
+        this.num_samples.addAndGet(other.num_samples.get());
+        this.sum.addAndGet(other.sum.get());
+        this.updateMin(other.min.get());
+        this.updateMax(other.max.get());
+        return (this);
+    }
+
+    /**
+     * Move all of the measurements in this histogram into the target histogram.
+     * Unlike calling merge() and then reset(), every counter is swapped out
+     * atomically, so a measurement that another thread records into this histogram
+     * at the same time is either moved now or left behind for the next call.
+     * It is never lost. Such a measurement may show up in the target's bucket
+     * counts before it shows up in the target's sample count.
+     * @param target
+     * @return the target histogram
+     */
+    public LatencyHistogram drainTo(LatencyHistogram target) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            if (this.counts.get(i) == 0) continue;
+            long cnt = this.counts.getAndSet(i, 0);
+            if (cnt != 0) target.counts.addAndGet(i, cnt);
+        } // FOR
+        target.num_samples.addAndGet(this.num_samples.getAndSet(0));
+        target.sum.addAndGet(this.sum.getAndSet(0));
+        target.updateMin(this.min.getAndSet(Long.MAX_VALUE));
+        target.updateMax(this.max.getAndSet(0));
+        return (target);
+    }
+
+    private void updateMin(long value) {
+        long current;
+        while (value < (current = this.min.get())) {
+            if (this.min.compareAndSet(current, value)) break;
+        } // WHILE
+    }
+
+    private void updateMax(long value) {
+        long current;
+        while (value > (current = this.max.get())) {
+            if (this.max.compareAndSet(current, value)) break;
+        } // WHILE
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            this.counts.set(i, 0);
+        } // FOR
+        this.num_samples.set(0);
+        this.sum.set(0);
+        this.min.set(Long.MAX_VALUE);
+        this.max.set(0);
+    }
+
+    // ----------------------------------------------------------------------------
+    // ACCESS METHODS
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Return the total number of measurements recorded in this histogram
+     * @return
+     */
+    public long getSampleCount() {
+        return (this.num_samples.get());
+    }
+
+    public boolean isEmpty() {
+        return (this.num_samples.get() == 0);
+    }
+
+    public long getSum() {
+        return (this.sum.get());
+    }
+
+    /**
+     * Return the smallest value recorded in this histogram.
+     * Returns zero if the histogram is empty.
+     * @return
+     */
+    public long getMin() {
+        long val = this.min.get();
+        return (val == Long.MAX_VALUE ? 0 : val);
+    }
+
+    public long getMax() {
+        return (this.max.get());
+    }
+
+    public double getMean() {
+        long cnt = this.num_samples.get();
+        return (cnt > 0 ? this.sum.get() / (double)cnt : 0d);
+    }
+
+    /**
+     * Return the standard deviation of the recorded values. Since we do not keep
+     * the individual values, this is computed from the midpoint of each bucket
+     * (bounded by the min/max values) and is only as accurate as the buckets.
+     * @return
+     */
+    public double getStandardDeviation() {
+        long cnt = this.num_samples.get();
+        if (cnt == 0) return (0d);
+        double mean = this.getMean();
+        long lower = this.getMin();
+        long upper = this.max.get();
+        double var = 0d;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long bucketCnt = this.counts.get(i);
+            if (bucketCnt == 0) continue;
+            long lo = Math.max(getBucketLowerBound(i), lower);
+            long hi = Math.min(getBucketUpperBound(i), upper);
+            double diff = (lo + (hi - lo) / 2d) - mean;
+            var += diff * diff * bucketCnt;
+        } // FOR
+        return (Math.sqrt(var / cnt));
+    }
+
+    /**
+     * Return the value at the given percentile (0-100]. The result is the upper
+     * bound of the bucket that contains that percentile, capped by the largest
+     * value that was ever recorded. Returns zero if the histogram is empty.
+     * @param percentile
+     * @return
+     */
+    public long getValueAtPercentile(double percentile) {
+        assert(percentile > 0 && percentile <= 100) : "Invalid percentile " + percentile;
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += this.counts.get(i);
+        } // FOR
+        if (total == 0) return (0);
+
+        long rank = Math.max(1, (long)Math.ceil((percentile / 100d) * total));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return (Math.min(getBucketUpperBound(i), this.max.get()));
+            }
+        } // FOR
+        return (this.max.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[samples=%d, mean=%.2f, p50=%d, p99=%d, p999=%d, max=%d]",
+                             this.getClass().getSimpleName(),
+                             this.getSampleCount(), this.getMean(),
+                             this.getValueAtPercentile(50), this.getValueAtPercentile(99),
+                             this.getValueAtPercentile(99.9), this.getMax());
+    }
+
+    // ----------------------------------------------------------------------------
+    // SERIALIZATION METHODS
+    // ----------------------------------------------------------------------------
+
+    @Override
+    public void load(File input_path, Database catalog_db) throws IOException {
+        JSONUtil.load(this, catalog_db, input_path);
+    }
+
+    @Override
+    public void save(File output_path) throws IOException {
+        JSONUtil.save(this, output_path);
+    }
+
+    @Override
+    public String toJSONString() {
+        return (JSONUtil.toJSONString(this));
+    }
+
+    @Override
+    public void toJSON(JSONStringer stringer) throws JSONException {
+        // Only write out the non-empty buckets
+        stringer.key(Members.COUNTS.name()).object();
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long cnt = this.counts.get(i);
+            if (cnt != 0) stringer.key(Integer.toString(i)).value(cnt);
+        } // FOR
+        stringer.endObject();
+        stringer.key(Members.SUM.name()).value(this.sum.get());
+        stringer.key(Members.MIN.name()).value(this.min.get());
+        stringer.key(Members.MAX.name()).value(this.max.get());
+    }
+
+    @Override
+    public void fromJSON(JSONObject json_object, Database catalog_db) throws JSONException {
+        this.reset();
+        JSONObject jsonCounts = json_object.getJSONObject(Members.COUNTS.name());
+        long total = 0;
+        Iterator<String> it = jsonCounts.keys();
+        while (it.hasNext()) {
+            String key = it.next();
+            long cnt = jsonCounts.getLong(key);
+            this.counts.set(Integer.parseInt(key), cnt);
+            total += cnt;
+        } // WHILE
+        this.num_samples.set(total);
+        this.sum.set(json_object.getLong(Members.SUM.name()));
+        if (json_object.has(Members.MIN.name())) {
+            this.min.set(json_object.getLong(Members.MIN.name()));
+        }
+        this.max.set(json_object.getLong(Members.MAX.name()));
+    }
+}
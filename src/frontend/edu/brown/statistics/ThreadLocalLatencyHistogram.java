@@ -0,0 +1,106 @@
+package edu.brown.statistics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A LatencyHistogram that is split into one histogram per recording thread.
+ * Threads only ever record into their own histogram, so they do not contend
+ * on the same counters. Readers merge all of the per-thread histograms
+ * together when they want to compute something from them.
+ * The per-thread histograms are only allocated once a thread records
+ * its first measurement.
+ */
+public class ThreadLocalLatencyHistogram {
+
+    /**
+     * All of the histograms that any thread has ever recorded into
+     */
+    private final Queue<LatencyHistogram> histograms = new ConcurrentLinkedQueue<LatencyHistogram>();
+
+    private final ThreadLocal<LatencyHistogram> local = new ThreadLocal<LatencyHistogram>() {
+        @Override
+        protected LatencyHistogram initialValue() {
+            LatencyHistogram h = new LatencyHistogram();
+            ThreadLocalLatencyHistogram.this.histograms.add(h);
+            return (h);
+        }
+    };
+
+    // ----------------------------------------------------------------------------
+    // RECORDING
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Record a single measurement in the current thread's histogram.
+     * @param value
+     */
+    public void record(long value) {
+        this.local.get().record(value);
+    }
+
+    /**
+     * Record the same measurement multiple times in the current thread's histogram.
+     * @param value
+     * @param count
+     */
+    public void record(long value, long count) {
+        if (value < 0 || count <= 0) return;
+        this.local.get().record(value, count);
+    }
+
+    /**
+     * Add all of the measurements from the other histogram into the
+     * current thread's histogram.
+     * @param other
+     */
+    public void merge(LatencyHistogram other) {
+        if (other.isEmpty()) return;
+        this.local.get().merge(other);
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : this.histograms) {
+            h.reset();
+        } // FOR
+    }
+
+    // ----------------------------------------------------------------------------
+    // ACCESS METHODS
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Return a new histogram with the measurements of all threads merged together.
+     * This does not change any of the per-thread histograms.
+     * @return
+     */
+    public LatencyHistogram get() {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram h : this.histograms) {
+            merged.merge(h);
+        } // FOR
+        return (merged);
+    }
+
+    /**
+     * Return a new histogram with the measurements of all threads merged together
+     * and take them out of the per-thread histograms. Measurements that are recorded
+     * while this is running end up either in the returned histogram or in the
+     * next one. They are never lost.
+     * @return
+     */
+    public LatencyHistogram drain() {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram h : this.histograms) {
+            h.drainTo(merged);
+        } // FOR
+        return (merged);
+    }
+
+    public boolean isEmpty() {
+        for (LatencyHistogram h : this.histograms) {
+            if (h.isEmpty() == false) return (false);
+        } // FOR
+        return (true);
+    }
+}
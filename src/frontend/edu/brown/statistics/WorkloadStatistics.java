@@ -248,6 +248,26 @@ public class WorkloadStatistics implements JSONSerializable {
         JSONUtil.load(this, catalog_db, input_path);
     }
 
+    /**
+     * Load only the TableStatistics from the given file. This can be used with
+     * a catalog that does not have all of the Procedures in it yet.
+     * 
+     * @param input_path
+     * @param catalog_db
+     * @throws IOException
+     */
+    public void loadTableStatistics(File input_path, Database catalog_db) throws IOException {
+        String contents = FileUtil.readFile(input_path);
+        if (contents.isEmpty()) {
+            throw new IOException("The " + this.getClass().getSimpleName() + " file '" + input_path + "' is empty");
+        }
+        try {
+            this.fromJSONTableStatistics(new JSONObject(contents), catalog_db);
+        } catch (JSONException ex) {
+            throw new IOException(ex);
+        }
+    }
+
     @Override
     public String toJSONString() {
         return (JSONUtil.toJSONString(this));
@@ -290,6 +310,10 @@ public class WorkloadStatistics implements JSONSerializable {
             this.proc_stats.put(CatalogKey.createKey(catalog_proc), proc_stat);
         } // WHILE
 
+        this.fromJSONTableStatistics(json_object, catalog_db);
+    }
+
+    private void fromJSONTableStatistics(JSONObject json_object, Database catalog_db) throws JSONException {
         // Table Statistics
         JSONObject jsonTableStats = json_object.getJSONObject(Members.TABLE_STATS.name());
         for (String table_key : CollectionUtil.iterable(jsonTableStats.keys())) {
@@ -92,6 +92,8 @@ public class PartitionEstimator {
     static {
         LoggerUtil.attachObserver(LOG, debug, trace);
     }
+    
+    private static final int EMPTY_OFFSETS[] = new int[0];
 
     // ----------------------------------------------------------------------------
     // DATA MEMBERS
@@ -102,6 +104,7 @@ public class PartitionEstimator {
     private int num_partitions;
 
     private final Map<Procedure, ProcParameter> cache_procPartitionParameters = new HashMap<Procedure, ProcParameter>();
+    private final Map<Procedure, int[]> cache_procPartitionOffsets = new HashMap<Procedure, int[]>();
     private final Map<Table, Column> cache_tablePartitionColumns = new HashMap<Table, Column>();
     
     /**
@@ -362,6 +365,7 @@ public class PartitionEstimator {
                     catalog_param = catalog_proc.getParameters().get(param_idx);
                 }
                 this.cache_procPartitionParameters.put(catalog_proc, catalog_param);
+                this.cache_procPartitionOffsets.put(catalog_proc, this.getParameterOffsets(catalog_param));
                 if (debug.val)
                     LOG.debug(catalog_proc + " ProcParameter Cache: " + (catalog_param != null ? catalog_param.fullName() : catalog_param));
             }
@@ -409,6 +413,7 @@ public class PartitionEstimator {
      */
     public void clear() {
         this.cache_procPartitionParameters.clear();
+        this.cache_procPartitionOffsets.clear();
         this.cache_tablePartitionColumns.clear();
         this.cache_fragmentEntries.clear();
         this.cache_statementEntries.clear();
@@ -818,6 +823,28 @@ public class PartitionEstimator {
         return (this.getBasePartition(catalog_proc, params, false));
     }
 
+    /**
+     * Return the partition that a single-partition system procedure was told to
+     * execute at through its partitioning parameter (e.g., @LoadPartitionTable).
+     * All other system procedures can run anywhere, so we return NULL_PARTITION_ID.
+     * @param catalog_proc
+     * @param params
+     * @return
+     */
+    public int getSysProcBasePartition(final Procedure catalog_proc, Object params[]) {
+        assert(catalog_proc.getSystemproc()) : catalog_proc + " is not a sysproc";
+        int idx = catalog_proc.getPartitionparameter();
+        if (catalog_proc.getSinglepartition() == false || catalog_proc.getEverysite() ||
+            idx < 0 || params == null || idx >= params.length || (params[idx] instanceof Number) == false) {
+            return (HStoreConstants.NULL_PARTITION_ID);
+        }
+        int partition = ((Number)params[idx]).intValue();
+        if (partition < 0 || partition >= this.num_partitions) {
+            return (HStoreConstants.NULL_PARTITION_ID);
+        }
+        return (partition);
+    }
+
     /**
      * Return the target partition for a TransactionTrace
      * @param txn_trace
@@ -830,6 +857,34 @@ public class PartitionEstimator {
         return (this.getBasePartition(txn_trace.getCatalogItem(this.catalogContext.database), txn_trace.getParams(), true));
     }
 
+    /**
+     * Return the offsets of the Procedure's input parameters that getBasePartition()
+     * will look at when it is not forced. This allows the caller to only deserialize
+     * those parameters from an incoming request. The array is empty if the
+     * base partition does not depend on any parameter.
+     * @param catalog_proc
+     * @return
+     */
+    public int[] getBasePartitionParameterOffsets(final Procedure catalog_proc) {
+        int offsets[] = this.cache_procPartitionOffsets.get(catalog_proc);
+        return (offsets != null ? offsets : EMPTY_OFFSETS);
+    }
+    
+    private int[] getParameterOffsets(ProcParameter catalog_param) {
+        if (catalog_param instanceof NullProcParameter || catalog_param instanceof RandomProcParameter) {
+            return (EMPTY_OFFSETS);
+        }
+        else if (catalog_param instanceof MultiProcParameter) {
+            MultiProcParameter mpp = (MultiProcParameter) catalog_param;
+            int offsets[] = new int[mpp.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = mpp.get(i).getIndex();
+            } // FOR
+            return (offsets);
+        }
+        return (new int[]{ catalog_param.getIndex() });
+    }
+
     /**
      * Main method for calculating the base partition for a stored procedure
      * 
@@ -48,6 +48,7 @@ public enum ProjectType {
     WIKIPEDIA("Wikipedia", "edu.brown.benchmark.wikipedia"),
     YCSB("YCSB", "edu.brown.benchmark.ycsb"), 
     VOTER("Voter", "edu.brown.benchmark.voter"),
+    REPORTING("Reporting", "edu.brown.benchmark.reporting"),
     EXAMPLE("Example", "edu.brown.benchmark.example"),
     TEST("Test", null),
     ;
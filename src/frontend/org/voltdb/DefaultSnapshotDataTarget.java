@@ -141,6 +141,42 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             final long createTime,
             int version[]
             ) throws IOException {
+        this(
+            file,
+            hostId,
+            clusterName,
+            databaseName,
+            tableName,
+            numPartitions,
+            isReplicated,
+            partitionIds,
+            schemaTable,
+            createTime,
+            version,
+            null,
+            null);
+    }
+
+    /**
+     * Create a target for a delta snapshot. The nonce of the snapshot and the nonce of the
+     * snapshot it is a delta of are appended to the header. An empty parentNonce indicates
+     * that this file is the base of a delta chain.
+     */
+    public DefaultSnapshotDataTarget(
+            final File file,
+            final int hostId,
+            final String clusterName,
+            final String databaseName,
+            final String tableName,
+            final int numPartitions,
+            final boolean isReplicated,
+            final int partitionIds[],
+            final VoltTable schemaTable,
+            final long createTime,
+            int version[],
+            final String deltaNonce,
+            final String parentNonce
+            ) throws IOException {
         String hostname = ConnectionUtil.getHostnameOrAddress();
         m_file = file;
         m_tableName = tableName;
@@ -164,6 +200,11 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
             fs.writeArray(partitionIds);
             fs.writeInt(numPartitions);
         }
+        if (deltaNonce != null) {
+            fs.writeBoolean(true);
+            fs.writeString(deltaNonce);
+            fs.writeString(parentNonce == null ? "" : parentNonce);
+        }
         final BBContainer container = fs.getBBContainer();
         container.b.position(4);
         container.b.putInt(container.b.remaining() - 4);
@@ -116,6 +116,42 @@ public class ParameterSet implements FastSerializable, Poolable {
         return retval;
     }
 
+    /**
+     * Decode only the parameters at the given offsets from a serialized ParameterSet.
+     * The returned array is as long as the full ParameterSet, but every entry that was
+     * not requested is left null. The deserializer stops reading right after the last
+     * requested parameter, so the parameters that come after it are never touched.
+     * @param in FastDeserializer positioned at the start of a serialized ParameterSet
+     * @param offsets the parameter offsets to decode
+     * @return
+     * @throws IOException
+     */
+    public static Object[] readSparse(FastDeserializer in, int offsets[]) throws IOException {
+        int paramLen = in.readShort();
+        Object params[] = new Object[paramLen];
+        int last = -1;
+        for (int offset : offsets) {
+            if (offset > last) last = offset;
+        } // FOR
+        if (last >= paramLen) last = paramLen - 1;
+        
+        for (int i = 0; i <= last; i++) {
+            boolean wanted = false;
+            for (int offset : offsets) {
+                if (offset == i) {
+                    wanted = true;
+                    break;
+                }
+            } // FOR
+            if (wanted) {
+                params[i] = readOneParameter(in);
+            } else {
+                skipOneParameter(in);
+            }
+        } // FOR
+        return (params);
+    }
+    
     @Override
     public void readExternal(FastDeserializer in) throws IOException {
         int paramLen = in.readShort();
@@ -315,6 +351,88 @@ public class ParameterSet implements FastSerializable, Poolable {
         }
     }
     
+    /**
+     * Move the deserializer past the next parameter without materializing it.
+     * Fixed-width values and strings are skipped by their length. Everything else
+     * is decoded and thrown away.
+     * @param in
+     * @throws IOException
+     */
+    static private void skipOneParameter(FastDeserializer in) throws IOException {
+        ByteBuffer buffer = in.buffer();
+        int position = buffer.position();
+        byte nextTypeByte = buffer.get(position);
+        VoltType nextType = (nextTypeByte == ARRAY ? VoltType.get(buffer.get(position + 1)) : VoltType.get(nextTypeByte));
+        if (nextType == null) {
+            readOneParameter(in);
+            return;
+        }
+        
+        // Arrays
+        if (nextTypeByte == ARRAY) {
+            switch (nextType) {
+                case TINYINT:
+                    buffer.position(position + 2);
+                    skipBytes(buffer, buffer.getInt());
+                    return;
+                case SMALLINT:
+                case INTEGER:
+                case BIGINT:
+                case FLOAT:
+                    buffer.position(position + 2);
+                    skipBytes(buffer, buffer.getShort() * nextType.getLengthInBytesForFixedTypes());
+                    return;
+                case STRING: {
+                    buffer.position(position + 2);
+                    int count = buffer.getShort();
+                    for (int i = 0; i < count; i++) {
+                        int len = buffer.getInt();
+                        if (len > 0) skipBytes(buffer, len);
+                    } // FOR
+                    return;
+                }
+                default:
+                    readOneParameter(in);
+                    return;
+            } // SWITCH
+        }
+        
+        // Scalars
+        switch (nextType) {
+            case NULL:
+                buffer.position(position + 1);
+                return;
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case FLOAT:
+            case TIMESTAMP:
+            case BOOLEAN:
+            case DECIMAL:
+                buffer.position(position + 1);
+                skipBytes(buffer, nextType.getLengthInBytesForFixedTypes());
+                return;
+            case STRING:
+            case DECIMAL_STRING: {
+                buffer.position(position + 1);
+                int len = buffer.getInt();
+                if (len > 0) skipBytes(buffer, len);
+                return;
+            }
+            default:
+                readOneParameter(in);
+                return;
+        } // SWITCH
+    }
+    
+    private static void skipBytes(ByteBuffer buffer, int len) throws IOException {
+        if (len < 0 || len > buffer.remaining()) {
+            throw new IOException("Invalid parameter length " + len);
+        }
+        buffer.position(buffer.position() + len);
+    }
+    
     static Object limitType(Object o) {
         Class<?> ctype = o.getClass();
         if (ctype == Integer.class) {
@@ -58,6 +58,17 @@ public class SnapshotSaveAPI
      */
     public VoltTable startSnapshotting(String file_path, String file_nonce, byte block,
             long startTime, SystemProcedureExecutionContext context, String hostname)
+    {
+        return startSnapshotting(file_path, file_nonce, null, block, startTime, context, hostname);
+    }
+
+    /**
+     * Start a delta snapshot if parent_nonce is not null. A delta only contains the table
+     * blocks modified since the snapshot identified by parent_nonce was taken. An empty
+     * parent_nonce starts a new delta chain with a snapshot of every block.
+     */
+    public VoltTable startSnapshotting(String file_path, String file_nonce, String parent_nonce,
+            byte block, long startTime, SystemProcedureExecutionContext context, String hostname)
     {
         LOG.trace("Creating snapshot target and handing to EEs");
         final VoltTable result = SnapshotSave.constructNodeResultsTable();
@@ -66,7 +77,7 @@ public class SnapshotSaveAPI
         // m_taskListsForSites for the other sites and creating an appropriate
         // number of snapshot permits
         if (SnapshotSiteProcessor.m_snapshotCreateSetupPermit.tryAcquire()) {
-            createSetup(file_path, file_nonce, startTime, context, hostname, result);
+            createSetup(file_path, file_nonce, parent_nonce, startTime, context, hostname, result);
         }
 
         // All sites wait for a permit to start their individual snapshot tasks
@@ -127,10 +138,18 @@ public class SnapshotSaveAPI
     }
 
 
-    private void createSetup(String file_path, String file_nonce,
+    private void createSetup(String file_path, String file_nonce, String parent_nonce,
             long startTime, SystemProcedureExecutionContext context,
             String hostname, final VoltTable result) {
         {
+            final TableStreamType streamType;
+            if (parent_nonce == null) {
+                streamType = TableStreamType.SNAPSHOT;
+            } else if (parent_nonce.isEmpty()) {
+                streamType = TableStreamType.SNAPSHOT_DELTA_BASE;
+            } else {
+                streamType = TableStreamType.SNAPSHOT_DELTA;
+            }
             final int numLocalSites = VoltDB.instance().getLocalSites().values().size();
 
             /*
@@ -175,7 +194,9 @@ public class SnapshotSaveAPI
                                     table,
                                     context.getSite().getHost(),
                                     CatalogUtil.getNumberOfPartitions(context.getCluster()),
-                                    startTime);
+                                    startTime,
+                                    file_nonce,
+                                    parent_nonce);
                         targets.add(sdt);
                         final SnapshotDataTarget sdtFinal = sdt;
                         final Runnable onClose = new Runnable() {
@@ -213,7 +234,8 @@ public class SnapshotSaveAPI
                                     table.getRelativeIndex(),
                                     sdt,
                                     table.getIsreplicated(),
-                                    table.getTypeName());
+                                    table.getTypeName(),
+                                    streamType);
 
                         if (table.getIsreplicated()) {
                             replicatedSnapshotTasks.add(task);
@@ -258,6 +280,9 @@ public class SnapshotSaveAPI
                         for (int ii = 0; ii < numLocalSites; ii++) {
                             SnapshotSiteProcessor.m_taskListsForSites.add(new ArrayDeque<SnapshotTableTask>());
                         }
+                        if (parent_nonce != null) {
+                            SnapshotSiteProcessor.m_lastDeltaNonce = file_nonce;
+                        }
                     } else {
                         SnapshotRegistry.discardSnapshot(snapshotRecord);
                     }
@@ -339,9 +364,26 @@ public class SnapshotSaveAPI
             Table table,
             Host h,
             int numPartitions,
-            long createTime)
+            long createTime,
+            String file_nonce,
+            String parent_nonce)
     throws IOException
     {
+        if (parent_nonce != null) {
+            return new DefaultSnapshotDataTarget(f,
+                                                 Integer.parseInt(h.getTypeName()),
+                                                 context.getCluster().getTypeName(),
+                                                 context.getDatabase().getTypeName(),
+                                                 table.getTypeName(),
+                                                 numPartitions,
+                                                 table.getIsreplicated(),
+                                                 SnapshotUtil.getPartitionsOnHost(context, h),
+                                                 CatalogUtil.getVoltTable(table),
+                                                 createTime,
+                                                 new int[] { 0, 0, 0, 0 },
+                                                 file_nonce,
+                                                 parent_nonce);
+        }
         return new DefaultSnapshotDataTarget(f,
                                              Integer.parseInt(h.getTypeName()),
                                              context.getCluster().getTypeName(),
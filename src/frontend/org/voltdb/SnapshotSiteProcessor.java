@@ -54,6 +54,13 @@ public class SnapshotSiteProcessor {
      */
     public static Semaphore m_snapshotPermits = new Semaphore(0);
 
+    /**
+     * Nonce of the last delta snapshot started by this process. The EE only tracks the
+     * blocks modified since the last delta stream so the next delta has to be taken against
+     * it. Null if no delta snapshot has been started since the process came up.
+     */
+    public static volatile String m_lastDeltaNonce = null;
+
     /**
      * Global collection populated by snapshot creator, poll'd by individual sites
      */
@@ -115,21 +122,33 @@ public class SnapshotSiteProcessor {
         private final SnapshotDataTarget m_target;
         private final boolean m_isReplicated;
         private final String m_name;
+        private final TableStreamType m_streamType;
 
         public SnapshotTableTask(
                 final int tableId,
                 final SnapshotDataTarget target,
                 boolean isReplicated,
                 final String tableName) {
+            this(tableId, target, isReplicated, tableName, TableStreamType.SNAPSHOT);
+        }
+
+        public SnapshotTableTask(
+                final int tableId,
+                final SnapshotDataTarget target,
+                boolean isReplicated,
+                final String tableName,
+                final TableStreamType streamType) {
             m_tableId = tableId;
             m_target = target;
             m_isReplicated = isReplicated;
             m_name = tableName;
+            m_streamType = streamType;
         }
 
         @Override
         public String toString() {
-            return ("SnapshotTableTask for " + m_name + " replicated " + m_isReplicated);
+            return ("SnapshotTableTask for " + m_name + " replicated " + m_isReplicated +
+                    " stream " + m_streamType);
         }
     }
 
@@ -174,7 +193,7 @@ public class SnapshotSiteProcessor {
                 m_snapshotTargets.add(task.m_target);
             }
             // FIXME meng
-//            if (!ee.activateTableStream(task.m_tableId, TableStreamType.SNAPSHOT )) {
+//            if (!ee.activateTableStream(task.m_tableId, task.m_streamType )) {
 //                LOG.error("Attempted to activate copy on write mode for table "
 //                        + task.m_name + " and failed");
 //                LOG.error(task);
@@ -212,7 +231,7 @@ public class SnapshotSiteProcessor {
 //                ee.tableStreamSerializeMore(
 //                    snapshotBuffer,
 //                    currentTask.m_tableId,
-//                    TableStreamType.SNAPSHOT);
+//                    currentTask.m_streamType);
 
             if (serialized < 0) {
                 LOG.error("Failure while serialize data from a table for COW snapshot");
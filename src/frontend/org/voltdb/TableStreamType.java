@@ -17,7 +17,7 @@
 package org.voltdb;
 
 /*
- * Define two different types of ways that a table can be streams
+ * Define the different ways that a table can be streams
  */
 public enum TableStreamType {
     /*
@@ -31,5 +31,16 @@ public enum TableStreamType {
      * that is actively being modified. The stream starts by transporting all the tuple data
      * and then transports the set of modified and deleted tuples in a separate synchronous phase.
      */
-    RECOVERY
+    RECOVERY,
+    /*
+     * A snapshot stream that serializes every block of the table, one block per chunk,
+     * and starts tracking which blocks are modified so that the next SNAPSHOT_DELTA
+     * stream only has to serialize those.
+     */
+    SNAPSHOT_DELTA_BASE,
+    /*
+     * A snapshot stream that only serializes the blocks modified since the previous
+     * SNAPSHOT_DELTA_BASE or SNAPSHOT_DELTA stream of the table, one block per chunk.
+     */
+    SNAPSHOT_DELTA
 }
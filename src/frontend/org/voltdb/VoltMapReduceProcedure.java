@@ -8,6 +8,7 @@ import org.voltdb.catalog.Procedure;
 import org.voltdb.messaging.FastSerializer;
 import org.voltdb.types.SortDirectionType;
 import org.voltdb.utils.Pair;
+import org.voltdb.utils.ReduceInputGroups;
 import org.voltdb.utils.ReduceInputIterator;
 import org.voltdb.utils.VoltTableUtil;
 
@@ -43,6 +44,11 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
     private VoltTable reduce_input;
     private VoltTable reduce_output;
     
+    private VoltTable combine_output;
+    
+    /** Whether the implementation overrides combine() */
+    private boolean has_combiner;
+    
     // -----------------------------------------------------------------
     // MAP REDUCE API
     // -----------------------------------------------------------------
@@ -68,6 +74,23 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
      */
     public abstract void reduce(K key, Iterator<VoltTableRow> rows);
     
+    /**
+     * Optional combiner that is invoked on the MAP output of each partition
+     * before it is shuffled. It gets all of the rows of one key and should
+     * emit the rows that replace them with {@link #combineEmit(Object[])}.
+     * The emitted rows must have the MapOutput schema and the same key.
+     * The default implementation passes all of the rows through unchanged,
+     * so procedures that do not have a combiner do not need to override it.
+     * It is only invoked by the MAP phase when it has been overridden.
+     * @param key
+     * @param rows
+     */
+    public void combine(K key, Iterator<VoltTableRow> rows) {
+        while (rows.hasNext()) {
+            this.combine_output.add(rows.next());
+        } // WHILE
+    }
+    
     // -----------------------------------------------------------------
     // INTERNAL METHODS
     // -----------------------------------------------------------------
@@ -81,6 +104,13 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
         this.mapInputQuery = this.getSQLStmt(catalogProc.getMapinputquery());
         assert (this.mapInputQuery != null) : "Missing MapInputQuery " + catalogProc.getMapinputquery();
         this.reduceInputQuery = this.getSQLStmt(catalogProc.getReduceinputquery());
+        
+        try {
+            this.has_combiner = (this.getClass().getMethod("combine", Object.class, Iterator.class)
+                                                .getDeclaringClass() != VoltMapReduceProcedure.class);
+        } catch (NoSuchMethodException ex) {
+            throw new RuntimeException(ex);
+        }
     }
     
     /**
@@ -141,6 +171,16 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
                 this.map(mapResult[0].getRow());
             } // WHILE
             
+            // Shrink what we have to send to the other partitions
+            if (this.has_combiner) {
+                int numMapRows = this.map_output.getRowCount();
+                this.combineRows(this.map_output);
+                if (debug.val)
+                    LOG.debug(String.format("COMBINE: %s combined %d MAP results into %d on partition %d",
+                              this.m_localTxnState, numMapRows,
+                              this.map_output.getRowCount(), this.partitionId));
+            }
+            
             if (debug.val)
                 LOG.debug(String.format("MAP: %s generated %d results on partition %d",
                           this.m_localTxnState, this.map_output.getRowCount(), this.partitionId));
@@ -174,29 +214,14 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
                 LOG.debug(String.format("<ReduceInputTable> Partition:%d\n %s", this.partitionId,this.reduce_input));
             
             
-            // Sort the the MAP_OUTPUT table
-            // Build an "smart" iterator that loops through the MAP_OUTPUT table key-by-key
-            VoltTable sorted = VoltTableUtil.sort(this.reduce_input, Pair.of(0, SortDirectionType.ASC));
-            //VoltTable sorted = VoltTableUtil.sort(mr_ts.getReduceInputByPartition(this.partitionId), Pair.of(0, SortDirectionType.ASC));
-            assert(sorted != null);
-            if (debug.val)
-                LOG.debug(String.format("<Sorted_ReduceInputTable> Partition:%d\n %s", this.partitionId,sorted));
-            
             this.reduce_output = mr_ts.getReduceOutputByPartition(this.partitionId);
             assert(this.reduce_output != null);
   
-            // Make a Hstore.PartitionResult
-            ReduceInputIterator<K> rows = new ReduceInputIterator<K>(sorted);
-
-            // Loop over that iterator and call runReduce
+            // Loop over the REDUCE input key-by-key and call runReduce
             if (debug.val)
                 LOG.debug(String.format("REDUCE: About to process %d records for %s on partition %d",
-                          sorted.getRowCount(), this.m_localTxnState, this.partitionId));
-            
-            while (rows.hasNext()) {
-                K key = rows.getKey();
-                this.reduce(key, rows); 
-            }
+                          this.reduce_input.getRowCount(), this.m_localTxnState, this.partitionId));
+            this.reduceRows(this.reduce_input, this.reduce_output);
             
             if (debug.val)
                 LOG.debug(String.format("<ReduceOutputTable> Partition:%d\n %s", this.partitionId,this.reduce_output));
@@ -227,6 +252,66 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
         return (result);
     }
     
+    /**
+     * Replace the rows of the given MAP output with the rows that combine()
+     * emits for each of its keys
+     * @param output
+     */
+    protected void combineRows(VoltTable output) {
+        this.combine_output = new VoltTable(this.getMapOutputSchema());
+        this.groupRows(output, true);
+        output.clearRowData();
+        this.combine_output.resetRowPosition();
+        while (this.combine_output.advanceRow()) {
+            output.add(this.combine_output.getRow());
+        } // WHILE
+        this.combine_output = null;
+    }
+
+    /**
+     * Invoke reduce() once for every key of the given REDUCE input and
+     * collect the emitted rows in the given output table
+     * @param input
+     * @param output
+     */
+    protected void reduceRows(VoltTable input, VoltTable output) {
+        this.reduce_output = output;
+        this.groupRows(input, false);
+    }
+
+    /**
+     * Invoke combine() or reduce() once for every key in the given table.
+     * Unless hash grouping is disabled, the rows are grouped with a hash table
+     * that indexes at most mr_reduce_max_group_rows rows at a time. Otherwise the
+     * table is sorted on its key.
+     * @param input
+     * @param combine
+     */
+    private void groupRows(VoltTable input, boolean combine) {
+        if (this.hstore_conf.site.mr_reduce_hash_grouping) {
+            ReduceInputGroups<K> groups = new ReduceInputGroups<K>(input, this.hstore_conf.site.mr_reduce_max_group_rows);
+            if (debug.val && groups.getNumPasses() > 1)
+                LOG.debug(String.format("Grouping %d records for %s on partition %d in %d passes",
+                          input.getRowCount(), this.m_localTxnState, this.partitionId, groups.getNumPasses()));
+            while (groups.advanceGroup()) {
+                if (combine) this.combine(groups.getKey(), groups.getRows());
+                else this.reduce(groups.getKey(), groups.getRows());
+            } // WHILE
+        } else {
+            // Sort the table and build an "smart" iterator that loops through it key-by-key
+            VoltTable sorted = VoltTableUtil.sort(input, Pair.of(0, SortDirectionType.ASC));
+            assert(sorted != null);
+            if (debug.val)
+                LOG.debug(String.format("<Sorted_ReduceInputTable> Partition:%d\n %s", this.partitionId,sorted));
+            ReduceInputIterator<K> rows = new ReduceInputIterator<K>(sorted);
+            while (rows.hasNext()) {
+                K key = rows.getKey();
+                if (combine) this.combine(key, rows);
+                else this.reduce(key, rows); 
+            } // WHILE
+        }
+    }
+    
     /**
      * 
      * @param key
@@ -245,6 +330,15 @@ public abstract class VoltMapReduceProcedure<K> extends VoltProcedure {
         this.reduce_output.addRow(row);
     }
     
+    /**
+     * 
+     * @param row
+     */
+    public final void combineEmit(Object row[]) {
+        assert(this.combine_output != null) : "combineEmit() can only be called from combine()";
+        this.combine_output.addRow(row);
+    }
+    
     @Override
     public void finish() {
 //        for (int i = 0; i < this.mr_ts.getSize(); i++) {
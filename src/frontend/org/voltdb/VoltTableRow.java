@@ -189,6 +189,35 @@ public abstract class VoltTableRow {
         return advanceToRow(m_activeRowIndex + 1);
     }
 
+    /**
+     * Jump to a row whose buffer position was recorded earlier with
+     * {@link #getActiveRowPosition()} on a row of the same table.
+     *
+     * @param rowIndex The index of the row to jump to.
+     * @param position The buffer position of that row's data.
+     * @return True if a valid row became active. False otherwise.
+     */
+    public boolean advanceToRowPosition(int rowIndex, int position) {
+        if (rowIndex < 0 || rowIndex >= getRowCount())
+            return false;
+        m_activeRowIndex = rowIndex;
+        m_position = position;
+        m_hasCalculatedOffsets = false;
+        if (m_offsets == null)
+            m_offsets = new int[getColumnCount()];
+        return true;
+    }
+
+    /**
+     * Get the position in the buffer of the active row's data. Together with
+     * {@link #getActiveRowIndex()} it can be handed to {@link #advanceToRowPosition(int, int)}
+     * to jump back to this row without walking the rows before it.
+     * @return The buffer position of the active row or -1 if none.
+     */
+    public int getActiveRowPosition() {
+        return m_position;
+    }
+
     /**
      * Advance to a specific row so calls to getXXX() will return values from
      * the current record. At initialization time, the active row index is -1,
@@ -42,7 +42,7 @@ import edu.brown.catalog.CatalogUtil;
 public final class CatalogMap<T extends CatalogType> implements Iterable<T>, Collection<T> {
 
     TreeMap<String, T> m_items = new TreeMap<String, T>();
-    T m_fastArray[];
+    volatile T m_fastArray[];
     Class<T> m_cls;
     Catalog m_catalog;
     CatalogType m_parent;
@@ -162,14 +162,18 @@ public final class CatalogMap<T extends CatalogType> implements Iterable<T>, Col
      */
     @SuppressWarnings("unchecked")
     public T[] values() {
-        if (m_fastArray != null) return (m_fastArray);
+        T arr[] = m_fastArray;
+        if (arr != null) return (arr);
+        // Fill the array before we publish it so that other threads
+        // never see it half-built
         int capacity = this.size();
-        m_fastArray = (T[])Array.newInstance(this.m_cls, capacity);
+        arr = (T[])Array.newInstance(this.m_cls, capacity);
         int i = 0;
         for (T t : m_items.values()) {
-            m_fastArray[i++] = t;
+            arr[i++] = t;
         }
-        return m_fastArray;
+        m_fastArray = arr;
+        return arr;
     }
 
     public int getSubTreeVersion() {
@@ -0,0 +1,448 @@
+package org.voltdb.client;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.apache.log4j.Logger;
+import org.voltdb.CatalogContext;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.catalog.Table;
+import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.messaging.FastSerializer;
+import org.voltdb.sysprocs.LoadMultipartitionTable;
+import org.voltdb.sysprocs.LoadPartitionTable;
+
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.hstore.HStoreConstants;
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.utils.PartitionEstimator;
+import edu.brown.utils.TableDataIterable;
+
+/**
+ * Bulk loader that splits up the rows of partitioned tables on the client and sends
+ * every partition its own chunks with @LoadPartitionTable. Each of these requests only
+ * locks the partition that it loads, so all of the partitions are loaded in parallel
+ * instead of waiting for one all-partition @LoadMultipartitionTable txn after another.
+ * Replicated tables and tables with a vertical partition still have to go through
+ * @LoadMultipartitionTable.
+ * <p>
+ * Each partition can only have a fixed number of outstanding requests. A thread that
+ * wants to send another chunk to a partition that is behind blocks until one of that
+ * partition's requests comes back, so a slow partition doesn't get buried.
+ * <p>
+ * load() sends a whole VoltTable and waits until it is loaded. The streaming methods
+ * (add(), addRow(), loadCSV(), and loadBinary()) keep buffering rows until a partition
+ * has a full chunk. Call drain() at the end to send everything that is left and wait
+ * for all of it to get loaded.
+ */
+public class BulkLoader {
+    private static final Logger LOG = Logger.getLogger(BulkLoader.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    /** The default max number of rows in each request */
+    public static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    /** The default max number of outstanding requests per partition */
+    public static final int DEFAULT_MAX_OUTSTANDING = 2;
+
+    /** How many times we will send a chunk that the cluster rejected */
+    private static final int MAX_TRIES = 3;
+
+    private static final String PARTITION_PROC = VoltSystemProcedure.procCallName(LoadPartitionTable.class);
+    private static final String MULTIPARTITION_PROC = VoltSystemProcedure.procCallName(LoadMultipartitionTable.class);
+
+    /**
+     * The requests that were sent for one load() call or for the streaming methods
+     */
+    private static class Tracker {
+        private int pending = 0;
+        private ClientResponse response = null;
+        private ClientResponse error = null;
+        private final List<Chunk> rejected = new ArrayList<Chunk>();
+
+        synchronized void add() {
+            this.pending++;
+        }
+        synchronized void finish(ClientResponse cr) {
+            if (cr.getStatus() != Status.OK) {
+                if (this.error == null) this.error = cr;
+            } else {
+                this.response = cr;
+            }
+            this.pending--;
+            this.notifyAll();
+        }
+        synchronized void reject(Chunk chunk) {
+            this.rejected.add(chunk);
+            this.notifyAll();
+        }
+        /**
+         * Block until all of our requests are done or some of them have to be sent again
+         * @return the chunks to send again (empty if everything is done)
+         */
+        synchronized List<Chunk> await() throws InterruptedException {
+            while (this.pending > 0 && this.rejected.isEmpty()) {
+                this.wait();
+            } // WHILE
+            List<Chunk> ret = new ArrayList<Chunk>(this.rejected);
+            this.rejected.clear();
+            return (ret);
+        }
+        /**
+         * Returns the first failed response or the last successful one
+         */
+        synchronized ClientResponse getResponse() {
+            return (this.error != null ? this.error : this.response);
+        }
+    }
+
+    /**
+     * A set of rows that get loaded with a single request
+     */
+    private class Chunk implements ProcedureCallback {
+        private final Table catalog_tbl;
+        private final int partition;
+        private final VoltTable data;
+        private final Tracker tracker;
+        private int tries = 0;
+
+        Chunk(Table catalog_tbl, int partition, VoltTable data, Tracker tracker) {
+            this.catalog_tbl = catalog_tbl;
+            this.partition = partition;
+            this.data = data;
+            this.tracker = tracker;
+        }
+
+        @Override
+        public void clientCallback(ClientResponse cr) {
+            getPermits(this.partition).release();
+            if (cr.getStatus() == Status.ABORT_REJECT && this.tries < MAX_TRIES) {
+                if (debug.val)
+                    LOG.debug(String.format("Loading %d %s tuples at partition %d was rejected. Going to try again",
+                              this.data.getRowCount(), this.catalog_tbl.getName(), this.partition));
+                this.tracker.reject(this);
+                return;
+            }
+            if (cr.getStatus() != Status.OK) {
+                LOG.warn(String.format("Failed to load %d %s tuples at partition %d: %s",
+                         this.data.getRowCount(), this.catalog_tbl.getName(), this.partition, cr.getStatusString()));
+            }
+            else if (trace.val) {
+                LOG.trace(String.format("Loaded %d %s tuples at partition %d [txn=#%d]",
+                          this.data.getRowCount(), this.catalog_tbl.getName(), this.partition, cr.getTransactionId()));
+            }
+            this.tracker.finish(cr);
+        }
+    }
+
+    private final Client client;
+    private final CatalogContext catalogContext;
+    private final PartitionEstimator p_estimator;
+    private final int chunkSize;
+
+    /** Outstanding request permits for each partition */
+    private final Semaphore permits[];
+    /** Outstanding request permits for @LoadMultipartitionTable */
+    private final Semaphore multiPermits;
+
+    // Streaming State
+    private final Map<Table, VoltTable[]> buffers = new HashMap<Table, VoltTable[]>();
+    private final Map<Table, VoltTable> rows = new HashMap<Table, VoltTable>();
+    private Tracker streamTracker = new Tracker();
+
+    public BulkLoader(Client client, CatalogContext catalogContext) {
+        this(client, catalogContext, new PartitionEstimator(catalogContext), DEFAULT_CHUNK_SIZE, DEFAULT_MAX_OUTSTANDING);
+    }
+
+    /**
+     * Constructor
+     * @param client
+     * @param catalogContext
+     * @param p_estimator This must hash the tuples the same way that the cluster does
+     * @param chunkSize The max number of rows in each request
+     * @param maxOutstanding The max number of outstanding requests per partition
+     */
+    public BulkLoader(Client client, CatalogContext catalogContext, PartitionEstimator p_estimator, int chunkSize, int maxOutstanding) {
+        assert(chunkSize > 0);
+        assert(maxOutstanding > 0);
+        this.client = client;
+        this.catalogContext = catalogContext;
+        this.p_estimator = p_estimator;
+        this.chunkSize = chunkSize;
+        this.permits = new Semaphore[catalogContext.numberOfPartitions];
+        for (int i = 0; i < this.permits.length; i++) {
+            this.permits[i] = new Semaphore(maxOutstanding);
+        } // FOR
+        this.multiPermits = new Semaphore(maxOutstanding);
+    }
+
+    // ----------------------------------------------------------------------------
+    // LOADING METHODS
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Load all of the rows in the given VoltTable into the table and block until the
+     * cluster has loaded every one of them.
+     * @param tableName
+     * @param vt
+     * @return The first failed response or the last successful one (null if there weren't any rows)
+     */
+    public ClientResponse load(String tableName, VoltTable vt) throws IOException, InterruptedException {
+        Table catalog_tbl = this.getTable(tableName);
+        VoltTable tableBuffers[] = new VoltTable[this.getNumBuffers(catalog_tbl)];
+        Tracker tracker = new Tracker();
+        this.add(catalog_tbl, tableBuffers, vt, tracker);
+        this.flush(catalog_tbl, tableBuffers, tracker);
+        this.waitFor(tracker);
+        return (tracker.getResponse());
+    }
+
+    /**
+     * Queue up all of the rows in the given VoltTable to get loaded into the table.
+     * Nothing is sent until a partition has enough rows for a whole chunk.
+     * @param tableName
+     * @param vt
+     */
+    public synchronized void add(String tableName, VoltTable vt) throws IOException, InterruptedException {
+        Table catalog_tbl = this.getTable(tableName);
+        this.add(catalog_tbl, this.getBuffers(catalog_tbl), vt, this.streamTracker);
+    }
+
+    /**
+     * Queue up a single row to get loaded into the table.
+     * Nothing is sent until a partition has enough rows for a whole chunk.
+     * @param tableName
+     * @param values
+     */
+    public synchronized void addRow(String tableName, Object...values) throws IOException, InterruptedException {
+        this.addRow(this.getTable(tableName), values);
+    }
+
+    private void addRow(Table catalog_tbl, Object values[]) throws IOException, InterruptedException {
+        VoltTable vt = this.rows.get(catalog_tbl);
+        if (vt == null) {
+            vt = CatalogUtil.getVoltTable(catalog_tbl);
+            this.rows.put(catalog_tbl, vt);
+        }
+        vt.clearRowData();
+        vt.addRow(values);
+        this.add(catalog_tbl, this.getBuffers(catalog_tbl), vt, this.streamTracker);
+    }
+
+    /**
+     * Queue up all of the rows in the given CSV file to get loaded into the table.
+     * @param tableName
+     * @param file
+     * @param hasHeader Whether the first line of the file is a header
+     * @return The number of rows in the file
+     */
+    public synchronized long loadCSV(String tableName, File file, boolean hasHeader) throws Exception {
+        Table catalog_tbl = this.getTable(tableName);
+        long ctr = 0;
+        for (Object row[] : new TableDataIterable(catalog_tbl, file, hasHeader, false)) {
+            this.addRow(catalog_tbl, row);
+            ctr++;
+        } // FOR
+        if (debug.val)
+            LOG.debug(String.format("Read %d %s tuples from %s", ctr, catalog_tbl.getName(), file));
+        return (ctr);
+    }
+
+    /**
+     * Queue up all of the rows from a stream of serialized VoltTables to get loaded
+     * into the table. Each VoltTable has to be written with writeBinary().
+     * @param tableName
+     * @param in
+     * @return The number of rows in the stream
+     */
+    public synchronized long loadBinary(String tableName, InputStream in) throws IOException, InterruptedException {
+        Table catalog_tbl = this.getTable(tableName);
+        DataInputStream input = new DataInputStream(in);
+        long ctr = 0;
+        while (true) {
+            int length;
+            try {
+                length = input.readInt();
+            } catch (EOFException ex) {
+                break;
+            }
+            byte bytes[] = new byte[length];
+            input.readFully(bytes);
+            VoltTable vt = new FastDeserializer(bytes).readObject(VoltTable.class);
+            this.add(catalog_tbl, this.getBuffers(catalog_tbl), vt, this.streamTracker);
+            ctr += vt.getRowCount();
+        } // WHILE
+        if (debug.val)
+            LOG.debug(String.format("Read %d %s tuples from binary stream", ctr, catalog_tbl.getName()));
+        return (ctr);
+    }
+
+    /**
+     * Write out a VoltTable so that loadBinary() can read it back in
+     * @param vt
+     * @param out
+     */
+    public static void writeBinary(VoltTable vt, OutputStream out) throws IOException {
+        byte bytes[] = FastSerializer.serialize(vt);
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        output.flush();
+    }
+
+    /**
+     * Send all of the rows that were queued up by the streaming methods and block
+     * until the cluster has loaded every one of them.
+     * @return The first failed response or the last successful one (null if there weren't any rows)
+     */
+    public synchronized ClientResponse drain() throws IOException, InterruptedException {
+        for (Map.Entry<Table, VoltTable[]> e : this.buffers.entrySet()) {
+            this.flush(e.getKey(), e.getValue(), this.streamTracker);
+        } // FOR
+        this.waitFor(this.streamTracker);
+        ClientResponse cr = this.streamTracker.getResponse();
+        this.streamTracker = new Tracker();
+        return (cr);
+    }
+
+    // ----------------------------------------------------------------------------
+    // INTERNAL METHODS
+    // ----------------------------------------------------------------------------
+
+    private Table getTable(String tableName) {
+        Table catalog_tbl = this.catalogContext.getTableByName(tableName);
+        if (catalog_tbl == null) {
+            throw new IllegalArgumentException("Invalid table name '" + tableName + "'");
+        }
+        return (catalog_tbl);
+    }
+
+    /**
+     * Returns true if the table has to be loaded with @LoadMultipartitionTable
+     */
+    private boolean isMultiPartition(Table catalog_tbl) {
+        return (catalog_tbl.getIsreplicated() || CatalogUtil.getVerticalPartition(catalog_tbl) != null);
+    }
+
+    private int getNumBuffers(Table catalog_tbl) {
+        return (this.isMultiPartition(catalog_tbl) ? 1 : this.catalogContext.numberOfPartitions);
+    }
+
+    private VoltTable[] getBuffers(Table catalog_tbl) {
+        VoltTable tableBuffers[] = this.buffers.get(catalog_tbl);
+        if (tableBuffers == null) {
+            tableBuffers = new VoltTable[this.getNumBuffers(catalog_tbl)];
+            this.buffers.put(catalog_tbl, tableBuffers);
+        }
+        return (tableBuffers);
+    }
+
+    private Semaphore getPermits(int partition) {
+        return (partition == HStoreConstants.NULL_PARTITION_ID ? this.multiPermits : this.permits[partition]);
+    }
+
+    /**
+     * Copy each row of the given VoltTable into the buffer for its partition.
+     * Any buffer that fills up gets sent right away.
+     */
+    private void add(Table catalog_tbl, VoltTable tableBuffers[], VoltTable vt, Tracker tracker) throws IOException, InterruptedException {
+        boolean multipartition = this.isMultiPartition(catalog_tbl);
+        vt.resetRowPosition();
+        while (vt.advanceRow()) {
+            int idx = 0;
+            if (multipartition == false) {
+                try {
+                    idx = this.p_estimator.getTableRowPartition(catalog_tbl, vt);
+                } catch (Exception ex) {
+                    throw new RuntimeException("Failed to calculate partition for " + catalog_tbl.getName() + " tuple", ex);
+                }
+            }
+            if (tableBuffers[idx] == null) {
+                tableBuffers[idx] = vt.clone(1024);
+            }
+            tableBuffers[idx].add(vt);
+            if (tableBuffers[idx].getRowCount() >= this.chunkSize) {
+                this.send(catalog_tbl, (multipartition ? HStoreConstants.NULL_PARTITION_ID : idx), tableBuffers[idx], tracker);
+                tableBuffers[idx] = null;
+            }
+        } // WHILE
+    }
+
+    /**
+     * Send all of the buffers that have rows in them
+     */
+    private void flush(Table catalog_tbl, VoltTable tableBuffers[], Tracker tracker) throws IOException, InterruptedException {
+        boolean multipartition = this.isMultiPartition(catalog_tbl);
+        for (int idx = 0; idx < tableBuffers.length; idx++) {
+            if (tableBuffers[idx] == null || tableBuffers[idx].getRowCount() == 0) continue;
+            this.send(catalog_tbl, (multipartition ? HStoreConstants.NULL_PARTITION_ID : idx), tableBuffers[idx], tracker);
+            tableBuffers[idx] = null;
+        } // FOR
+    }
+
+    private void send(Table catalog_tbl, int partition, VoltTable vt, Tracker tracker) throws IOException, InterruptedException {
+        tracker.add();
+        this.send(new Chunk(catalog_tbl, partition, vt, tracker));
+    }
+
+    /**
+     * Send the chunk once its partition has room for another outstanding request
+     */
+    private void send(Chunk chunk) throws IOException, InterruptedException {
+        Semaphore partitionPermits = this.getPermits(chunk.partition);
+        partitionPermits.acquire();
+        chunk.tries++;
+        if (trace.val)
+            LOG.trace(String.format("Sending %d %s tuples to partition %d [try=%d]",
+                      chunk.data.getRowCount(), chunk.catalog_tbl.getName(), chunk.partition, chunk.tries));
+
+        Object params[] = null;
+        String procName = null;
+        if (chunk.partition == HStoreConstants.NULL_PARTITION_ID) {
+            procName = MULTIPARTITION_PROC;
+            params = new Object[]{ chunk.catalog_tbl.getName(), chunk.data };
+        } else {
+            procName = PARTITION_PROC;
+            params = new Object[]{ chunk.partition, chunk.catalog_tbl.getName(), chunk.data };
+        }
+        boolean queued = false;
+        try {
+            while ((queued = this.client.callProcedure(chunk, procName, params)) == false) {
+                this.client.backpressureBarrier();
+            } // WHILE
+        } finally {
+            if (queued == false) partitionPermits.release();
+        }
+    }
+
+    /**
+     * Block until all of the tracker's requests are done, sending any of its
+     * rejected chunks again along the way
+     */
+    private void waitFor(Tracker tracker) throws IOException, InterruptedException {
+        while (true) {
+            List<Chunk> rejected = tracker.await();
+            if (rejected.isEmpty()) break;
+            for (Chunk chunk : rejected) {
+                this.send(chunk);
+            } // FOR
+        } // WHILE
+    }
+}
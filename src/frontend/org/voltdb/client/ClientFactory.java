@@ -77,4 +77,17 @@ public abstract class ClientFactory {
     public static Client createClient() {
         return new ClientImpl();
     }
+
+    /**
+     * Set the time (in milliseconds) that the invocations queued by the current
+     * thread should be considered to have started at. The client roundtrip time of
+     * their ClientResponses will then be measured from this time instead of from
+     * when they were actually queued. This is used by open-loop benchmark clients to
+     * measure latencies from when a txn was supposed to be sent.
+     * Pass a negative value to go back to using the current time.
+     * @param timestamp
+     */
+    public static void setInvocationStartTime(long timestamp) {
+        Distributer.setInvocationStartTime(timestamp);
+    }
 }
@@ -301,6 +301,14 @@ final class ClientImpl implements Client {
                         throw new RuntimeException("Failed to estimate base partition for new invocation of '" + procName + "'", ex);
                     }
                 }
+                // Single-partition sysprocs tell us their partition in their parameters
+                else {
+                    int partition = m_pEstimator.getSysProcBasePartition(catalog_proc, parameters);
+                    if (partition != HStoreConstants.NULL_PARTITION_ID) {
+                        site_id = m_partitionSiteXref[partition];
+                        invocation.setBasePartition(partition);
+                    }
+                }
             }
         }
 
@@ -94,6 +94,21 @@ class Distributer {
     
     private final ConcurrentHashMap<Thread, FastSerializer> m_serializers = new ConcurrentHashMap<Thread, FastSerializer>();
 
+    /**
+     * If set for a thread, then the invocations that it queues will use this
+     * timestamp (in milliseconds) as their start time instead of the current time.
+     * @see ClientFactory#setInvocationStartTime(long)
+     */
+    private static final ThreadLocal<long[]> m_invocationStartTime = new ThreadLocal<long[]>() {
+        protected long[] initialValue() {
+            return (new long[]{ -1 });
+        }
+    };
+    
+    static void setInvocationStartTime(long timestamp) {
+        m_invocationStartTime.get()[0] = timestamp;
+    }
+
     /**
      * Server's instances id. Unique for the cluster
      */
@@ -668,7 +683,8 @@ class Distributer {
         throws NoConnectionsException {
         NodeConnection cxn = null;
         boolean backpressure = true;
-        long now = System.currentTimeMillis();
+        long now = m_invocationStartTime.get()[0];
+        if (now < 0) now = System.currentTimeMillis();
         
         final int totalConnections = m_connections.size();
 
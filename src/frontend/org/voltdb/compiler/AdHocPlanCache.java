@@ -0,0 +1,337 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2010 VoltDB L.L.C.
+ *
+ * VoltDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VoltDB is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltType;
+import org.voltdb.types.TimestampType;
+import org.voltdb.types.VoltDecimalHelper;
+
+/**
+ * Cache of ad hoc plans keyed on the text of the statement with its literals
+ * replaced by parameter markers. A statement that only differs from a cached one
+ * in its constants reuses the cached plan and hands the constants to the EE as
+ * the parameters of the fragments.
+ */
+public class AdHocPlanCache {
+
+    /**
+     * A statement with its literals pulled out
+     */
+    public static class ParameterizedSql {
+        /** The statement with every literal replaced by '?' and whitespace collapsed */
+        public final String sql;
+        /** The statement with its literals in place and whitespace collapsed */
+        public final String literalSql;
+        /** String literals are Strings, numeric literals are NumericLiterals with their original text */
+        public final List<Object> literals;
+        /** False if the original statement already had parameter markers */
+        public final boolean parameterizable;
+
+        ParameterizedSql(String sql, String literalSql, List<Object> literals, boolean parameterizable) {
+            this.sql = sql;
+            this.literalSql = literalSql;
+            this.literals = literals;
+            this.parameterizable = parameterizable;
+        }
+    }
+
+    /**
+     * Text of a numeric literal, kept apart from string literals so that binding
+     * can tell 1 from '1'
+     */
+    static class NumericLiteral {
+        final String text;
+        NumericLiteral(String text) {
+            this.text = text;
+        }
+        @Override
+        public String toString() {
+            return this.text;
+        }
+    }
+
+    /**
+     * A cached plan
+     */
+    public static class Entry {
+        public final String aggregatorFragment;
+        public final String collectorFragment;
+        public final boolean isReplicatedTableDML;
+        /** Types of the parameters of the plan, null if the statement can't be planned with parameters */
+        public final VoltType paramTypes[];
+
+        public Entry(String aggregatorFragment, String collectorFragment, boolean isReplicatedTableDML, VoltType paramTypes[]) {
+            this.aggregatorFragment = aggregatorFragment;
+            this.collectorFragment = collectorFragment;
+            this.isReplicatedTableDML = isReplicatedTableDML;
+            this.paramTypes = paramTypes;
+        }
+
+        public boolean isParameterized() {
+            return (this.paramTypes != null);
+        }
+
+        /**
+         * Convert the literals of a statement into the parameters of this plan.
+         * @return null if a literal can't be converted to the type the plan expects
+         */
+        public ParameterSet bind(List<Object> literals) {
+            if (this.paramTypes == null || this.paramTypes.length != literals.size()) {
+                return (null);
+            }
+            Object values[] = new Object[this.paramTypes.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = convert(this.paramTypes[i], literals.get(i));
+                if (values[i] == null) return (null);
+            } // FOR
+            ParameterSet params = new ParameterSet();
+            params.setParameters(values);
+            return (params);
+        }
+    }
+
+    /** Marker for statements that have to be planned with their literals in place */
+    private static final Entry NOT_PARAMETERIZABLE = new Entry(null, null, false, null);
+
+    private final int m_maxSize;
+    private final LinkedHashMap<String, Entry> m_cache;
+    private long m_hits = 0;
+    private long m_misses = 0;
+
+    public AdHocPlanCache(final int maxSize) {
+        m_maxSize = maxSize;
+        m_cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return (size() > m_maxSize);
+            }
+        };
+    }
+
+    /**
+     * Look up the cached plan for the statement, either the parameterized one or the
+     * plan of the exact statement.
+     * @return the plan and its parameters or null on a miss
+     */
+    public synchronized AdHocPlannedStmt lookup(ParameterizedSql stmt, AdHocPlannedStmt plannedStmt) {
+        Entry entry = m_cache.get(stmt.sql);
+        ParameterSet params = null;
+        if (entry != null && entry.isParameterized()) {
+            params = entry.bind(stmt.literals);
+        }
+        if (params == null) {
+            entry = m_cache.get(stmt.literalSql);
+            if (entry != null && entry.isParameterized()) {
+                params = entry.bind(new ArrayList<Object>());
+            }
+        }
+        if (params == null) {
+            m_misses++;
+            return (null);
+        }
+        m_hits++;
+        plannedStmt.aggregatorFragment = entry.aggregatorFragment;
+        plannedStmt.collectorFragment = entry.collectorFragment;
+        plannedStmt.isReplicatedTableDML = entry.isReplicatedTableDML;
+        plannedStmt.params = params;
+        return (plannedStmt);
+    }
+
+    /**
+     * Returns true if the statement is already known to have no parameterized plan
+     */
+    public synchronized boolean isNotParameterizable(ParameterizedSql stmt) {
+        return (m_cache.get(stmt.sql) == NOT_PARAMETERIZABLE);
+    }
+
+    public synchronized void put(String sql, Entry entry) {
+        m_cache.put(sql, entry);
+    }
+
+    public synchronized void putNotParameterizable(String sql) {
+        m_cache.put(sql, NOT_PARAMETERIZABLE);
+    }
+
+    public synchronized void clear() {
+        m_cache.clear();
+    }
+
+    public synchronized int size() {
+        return (m_cache.size());
+    }
+
+    public synchronized long getHits() {
+        return (m_hits);
+    }
+
+    public synchronized long getMisses() {
+        return (m_misses);
+    }
+
+    // ----------------------------------------------------------------------------
+    // NORMALIZATION
+    // ----------------------------------------------------------------------------
+
+    private static boolean isIdentifierChar(char c) {
+        return (Character.isLetterOrDigit(c) || c == '_' || c == '$');
+    }
+
+    /**
+     * Pull the string and numeric literals out of a statement and collapse its
+     * whitespace. Quoted identifiers are left alone.
+     */
+    public static ParameterizedSql parameterize(String sql) {
+        final StringBuilder param = new StringBuilder(sql.length());
+        final StringBuilder literal = new StringBuilder(sql.length());
+        final List<Object> literals = new ArrayList<Object>();
+        boolean parameterizable = true;
+
+        final int len = sql.length();
+        int i = 0;
+        while (i < len) {
+            char c = sql.charAt(i);
+
+            // Whitespace
+            if (Character.isWhitespace(c)) {
+                while (i < len && Character.isWhitespace(sql.charAt(i))) i++;
+                if (param.length() > 0 && i < len) {
+                    param.append(' ');
+                    literal.append(' ');
+                }
+                continue;
+            }
+            // String literal
+            else if (c == '\'') {
+                int start = i;
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (i < len) {
+                    char s = sql.charAt(i++);
+                    if (s == '\'') {
+                        if (i < len && sql.charAt(i) == '\'') {
+                            value.append('\'');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(s);
+                    }
+                } // WHILE
+                literals.add(value.toString());
+                param.append('?');
+                literal.append(sql, start, i);
+                continue;
+            }
+            // Quoted identifier
+            else if (c == '"') {
+                int start = i++;
+                while (i < len && sql.charAt(i++) != '"') ;
+                param.append(sql, start, i);
+                literal.append(sql, start, i);
+                continue;
+            }
+            // Numeric literal (but not the digits at the end of an identifier)
+            else if ((Character.isDigit(c) || (c == '.' && i + 1 < len && Character.isDigit(sql.charAt(i + 1)))) &&
+                     (i == 0 || isIdentifierChar(sql.charAt(i - 1)) == false)) {
+                int start = i;
+                while (i < len && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                if (i < len && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+                    int exp = i + 1;
+                    if (exp < len && (sql.charAt(exp) == '+' || sql.charAt(exp) == '-')) exp++;
+                    if (exp < len && Character.isDigit(sql.charAt(exp))) {
+                        i = exp;
+                        while (i < len && Character.isDigit(sql.charAt(i))) i++;
+                    }
+                }
+                literals.add(new NumericLiteral(sql.substring(start, i)));
+                param.append('?');
+                literal.append(sql, start, i);
+                continue;
+            }
+            // Identifiers and keywords are copied whole so that digits inside them stay put
+            else if (isIdentifierChar(c)) {
+                int start = i;
+                while (i < len && isIdentifierChar(sql.charAt(i))) i++;
+                param.append(sql, start, i);
+                literal.append(sql, start, i);
+                continue;
+            }
+
+            if (c == '?') parameterizable = false;
+            param.append(c);
+            literal.append(c);
+            i++;
+        } // WHILE
+
+        // Trailing semicolons don't change the plan
+        while (param.length() > 0 && param.charAt(param.length() - 1) == ';') {
+            param.setLength(param.length() - 1);
+            literal.setLength(literal.length() - 1);
+        }
+        String literalSql = literal.toString().trim();
+        if (parameterizable == false) {
+            return (new ParameterizedSql(literalSql, literalSql, new ArrayList<Object>(), false));
+        }
+        return (new ParameterizedSql(param.toString().trim(), literalSql, literals, true));
+    }
+
+    /**
+     * Convert a literal into a parameter value of the given type
+     * @return null if the literal can't be used for a parameter of that type
+     */
+    static Object convert(VoltType type, Object literal) {
+        try {
+            if (literal instanceof NumericLiteral) {
+                String text = ((NumericLiteral)literal).text;
+                switch (type) {
+                    case TINYINT:
+                    case SMALLINT:
+                    case INTEGER:
+                    case BIGINT:
+                        return (Long.valueOf(text));
+                    case TIMESTAMP:
+                        return (new TimestampType(Long.parseLong(text)));
+                    case FLOAT:
+                        return (Double.valueOf(text));
+                    case DECIMAL: {
+                        BigDecimal bd = new BigDecimal(text);
+                        if (bd.scale() > VoltDecimalHelper.kDefaultScale) return (null);
+                        return (bd);
+                    }
+                    default:
+                        return (null);
+                } // SWITCH
+            }
+            else if (type == VoltType.STRING) {
+                return (literal);
+            }
+        } catch (NumberFormatException ex) {
+            // Not a value of this type, so it can only be planned as a literal
+        }
+        return (null);
+    }
+}
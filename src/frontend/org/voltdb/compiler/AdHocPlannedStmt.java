@@ -17,6 +17,8 @@
 
 package org.voltdb.compiler;
 
+import org.voltdb.ParameterSet;
+
 import edu.brown.hstore.txns.LocalTransaction;
 
 public class AdHocPlannedStmt extends AsyncCompilerResult {
@@ -26,6 +28,8 @@ public class AdHocPlannedStmt extends AsyncCompilerResult {
     public String collectorFragment;
     public String sql;
     public boolean isReplicatedTableDML;
+    /** Literals of the statement if it runs with a cached parameterized plan */
+    public transient ParameterSet params = new ParameterSet();
     
     public AdHocPlannedStmt(LocalTransaction ts) {
         super(ts);
@@ -19,11 +19,16 @@ package org.voltdb.compiler;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.voltdb.CatalogContext;
+import org.voltdb.ParameterSet;
 import org.voltdb.VoltDB;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.CatalogDiffEngine;
@@ -33,10 +38,12 @@ import org.voltdb.utils.DumpManager;
 import org.voltdb.utils.Encoder;
 
 import edu.brown.hstore.HStoreSite;
+import edu.brown.hstore.conf.HStoreConf;
 import edu.brown.hstore.txns.LocalTransaction;
 import edu.brown.interfaces.Shutdownable;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.utils.ThreadUtil;
 
 public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpable, Shutdownable {
     private static final Logger LOG = Logger.getLogger(AsyncCompilerWorkThread.class);
@@ -46,10 +53,24 @@ public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpa
         LoggerUtil.attachObserver(LOG, debug, trace);
     }
 
+    /**
+     * A planner process together with the version of the catalog it was started with.
+     * The planner has JVM-wide state (plan node ids, the PlannerContext singleton), so
+     * concurrent planning needs one process per slot rather than one thread per slot.
+     */
+    static class PlannerSlot {
+        PlannerTool m_ptool;
+        int m_catalogVersion;
+    }
+
     LinkedBlockingQueue<AsyncCompilerWork> m_work = new LinkedBlockingQueue<AsyncCompilerWork>();
     final ArrayDeque<AsyncCompilerResult> m_finished = new ArrayDeque<AsyncCompilerResult>();
     //HSQLInterface m_hsql;
-    PlannerTool m_ptool;
+    final List<PlannerSlot> m_planners = new ArrayList<PlannerSlot>();
+    final LinkedBlockingQueue<PlannerSlot> m_idlePlanners = new LinkedBlockingQueue<PlannerSlot>();
+    final ExecutorService m_plannerPool;
+    final AdHocPlanCache m_planCache;
+    final AtomicInteger m_catalogVersion = new AtomicInteger(0);
     int counter = 0;
     final int m_siteId;
     boolean m_isLoaded = false;
@@ -64,50 +85,78 @@ public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpa
     long m_currentDumpTimestamp = 0;
 
     public AsyncCompilerWorkThread(CatalogContext context, int siteId) {
-        m_ptool = null;
-        //m_hsql = null;
-        m_siteId = siteId;
-        m_context = context;
-
-        setName("Ad Hoc Planner");
-
-        m_dumpId = "AdHocPlannerThread." + String.valueOf(m_siteId);
-        DumpManager.register(m_dumpId, this);
+        this(null, context, siteId);
     }
     
     public AsyncCompilerWorkThread(HStoreSite hStoreSite, int siteId) {
-        m_ptool = null;
+        this(hStoreSite, null, siteId);
+    }
+
+    private AsyncCompilerWorkThread(HStoreSite hStoreSite, CatalogContext context, int siteId) {
         //m_hsql = null;
         m_siteId = siteId;
-        //m_context = context;
+        m_context = context;
         m_hStoreSite = hStoreSite;
 
         setName("Ad Hoc Planner");
 
+        HStoreConf hstore_conf = HStoreConf.singleton(true);
+        int num_planners = Math.max(1, hstore_conf.site.exec_adhoc_planners);
+        for (int i = 0; i < num_planners; i++) {
+            PlannerSlot slot = new PlannerSlot();
+            m_planners.add(slot);
+            m_idlePlanners.add(slot);
+        } // FOR
+        m_plannerPool = Executors.newFixedThreadPool(num_planners,
+                ThreadUtil.getThreadFactory(getName() + " Worker", Thread.getDefaultUncaughtExceptionHandler()));
+        m_planCache = new AdHocPlanCache(hstore_conf.site.exec_adhoc_plan_cache_size);
+
         m_dumpId = "AdHocPlannerThread." + String.valueOf(m_siteId);
         DumpManager.register(m_dumpId, this);
     }
 
-    public synchronized void ensureLoadedPlanner() {
+    private Catalog getCatalog() {
+        if (m_hStoreSite != null) {
+            return (m_hStoreSite.getCatalogContext().catalog);
+        }
+        return (m_context.catalog);
+    }
+
+    void ensureLoadedPlanner(PlannerSlot slot) {
+        // a planner started with an outdated catalog has to go
+        int catalogVersion = m_catalogVersion.get();
+        if ((slot.m_ptool != null) && (slot.m_catalogVersion != catalogVersion)) {
+            slot.m_ptool.kill();
+            slot.m_ptool = null;
+        }
         // if the process was created but is dead, clear the placeholder
-        if ((m_ptool != null) && (m_ptool.expensiveIsRunningCheck() == false)) {
+        if ((slot.m_ptool != null) && (slot.m_ptool.expensiveIsRunningCheck() == false)) {
             LOG.error("Planner process died on its own. It will be restarted if needed.");
-            m_ptool = null;
+            slot.m_ptool = null;
         }
         // if no placeholder, create a new plannertool
-        if (m_ptool == null) {
-            m_ptool = PlannerTool.createPlannerToolProcess(m_hStoreSite.getCatalogContext().catalog.serialize());
+        if (slot.m_ptool == null) {
+            slot.m_ptool = PlannerTool.createPlannerToolProcess(getCatalog().serialize());
+            slot.m_catalogVersion = catalogVersion;
         }
     }
 
     public void verifyEverthingIsKosher() {
-        if (m_ptool != null) {
-            // check if the planner process has been blocked for 2 seconds
-            if (m_ptool.perhapsIsHung(5000)) {
+        for (PlannerSlot slot : m_planners) {
+            PlannerTool ptool = slot.m_ptool;
+            // check if the planner process has been blocked for 5 seconds
+            if (ptool != null && ptool.perhapsIsHung(5000)) {
                 LOG.error("Was forced to kill the planner process due to a timeout. It will be restarted if needed.");
-                m_ptool.kill();
+                ptool.kill();
             }
-        }
+        } // FOR
+    }
+
+    /**
+     * Returns the cache of parameterized ad hoc plans
+     */
+    public AdHocPlanCache getPlanCache() {
+        return (m_planCache);
     }
 
 
@@ -203,23 +252,37 @@ public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpa
                 if (m_shouldUpdateCatalog.compareAndSet(true, false)) {
                 	//TODO: @AdHoc for hstoresite, how to switch catalogcontext for hstoresite?
                     m_context = VoltDB.instance().getCatalogContext();
-                    // kill the planner process which has an outdated catalog
-                    // it will get created again for the next stmt
-                    if (m_ptool != null) {
-                        m_ptool.kill();
-                        m_ptool = null;
-                    }
+                    // the planner processes have an outdated catalog, they get
+                    // restarted when they plan their next stmt
+                    m_catalogVersion.incrementAndGet();
+                    m_planCache.clear();
                 }
 
                 AsyncCompilerResult result = null;
-                if (work instanceof AdHocPlannerWork)
-                    result = compileAdHocPlan((AdHocPlannerWork) work);
+                if (work instanceof AdHocPlannerWork) {
+                    // statements that are in the plan cache don't need a planner
+                    final AdHocPlannerWork adhocWork = (AdHocPlannerWork) work;
+                    final AdHocPlanCache.ParameterizedSql stmt = AdHocPlanCache.parameterize(adhocWork.sql);
+                    result = m_planCache.lookup(stmt, createPlannedStmt(adhocWork));
+                    if (result == null) {
+                        m_plannerPool.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                AsyncCompilerResult planned = compileAdHocPlan(adhocWork, stmt);
+                                synchronized (m_finished) {
+                                    m_finished.add(planned);
+                                }
+                            }
+                        });
+                    }
+                }
                 if (work instanceof CatalogChangeWork)
                     result = prepareApplicationCatalogDiff((CatalogChangeWork) work);
-                assert(result != null);
 
-                synchronized (m_finished) {
-                    m_finished.add(result);
+                if (result != null) {
+                    synchronized (m_finished) {
+                        m_finished.add(result);
+                    }
                 }
             }
 
@@ -229,8 +292,11 @@ public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpa
                 e.printStackTrace();
             }
         }
-        if (m_ptool != null)
-            m_ptool.kill();
+        m_plannerPool.shutdownNow();
+        for (PlannerSlot slot : m_planners) {
+            if (slot.m_ptool != null)
+                slot.m_ptool.kill();
+        } // FOR
     }
 
     public void notifyShouldUpdateCatalog() {
@@ -277,23 +343,63 @@ public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpa
         return context;
     }
 
-    private AsyncCompilerResult compileAdHocPlan(AdHocPlannerWork work) {
+    private AdHocPlannedStmt createPlannedStmt(AdHocPlannerWork work) {
         AdHocPlannedStmt plannedStmt = new AdHocPlannedStmt(work.ts);
         plannedStmt.clientHandle = work.clientHandle;
 //        plannedStmt.connectionId = work.connectionId;
 //        plannedStmt.hostname = work.hostname;
 //        plannedStmt.clientData = work.clientData;
+        plannedStmt.sql = work.sql;
+        return (plannedStmt);
+    }
 
-        try {
-            ensureLoadedPlanner();
+    /**
+     * Plan the statement on one of the planner processes. The statement is first
+     * planned with its literals replaced by parameters so that the plan can be
+     * cached for every statement that only differs in its constants. If that
+     * doesn't work out, it's planned (and cached) as it was written.
+     */
+    private AsyncCompilerResult compileAdHocPlan(AdHocPlannerWork work, AdHocPlanCache.ParameterizedSql stmt) {
+        AdHocPlannedStmt plannedStmt = createPlannedStmt(work);
 
-            PlannerTool.Result result = m_ptool.planSql(work.sql);
+        PlannerSlot slot = null;
+        try {
+            slot = m_idlePlanners.take();
+            ensureLoadedPlanner(slot);
+
+            PlannerTool.Result result = null;
+            if (stmt.parameterizable && stmt.literals.isEmpty() == false &&
+                m_planCache.isNotParameterizable(stmt) == false) {
+                result = slot.m_ptool.planSql(stmt.sql);
+                AdHocPlanCache.Entry entry = null;
+                if (result.errors == null) {
+                    entry = new AdHocPlanCache.Entry(result.onePlan, result.allPlan,
+                                                     result.replicatedDML, result.paramTypes);
+                    plannedStmt.params = entry.bind(stmt.literals);
+                }
+                if (plannedStmt.params != null) {
+                    m_planCache.put(stmt.sql, entry);
+                } else {
+                    if (debug.val)
+                        LOG.debug("Unable to plan ad hoc statement with parameters: " + stmt.sql);
+                    m_planCache.putNotParameterizable(stmt.sql);
+                    result = null;
+                }
+            }
+            if (result == null) {
+                result = slot.m_ptool.planSql(stmt.literalSql);
+                plannedStmt.params = new ParameterSet();
+                if (result.errors == null && result.paramTypes.length == 0) {
+                    m_planCache.put(stmt.literalSql,
+                                    new AdHocPlanCache.Entry(result.onePlan, result.allPlan,
+                                                             result.replicatedDML, result.paramTypes));
+                }
+            }
 
             plannedStmt.aggregatorFragment = result.onePlan;
             plannedStmt.collectorFragment = result.allPlan;
 
             plannedStmt.isReplicatedTableDML = result.replicatedDML;
-            plannedStmt.sql = work.sql;
             plannedStmt.errorMsg = result.errors;
             if (plannedStmt.errorMsg != null)
                 LOG.error("PlannerTool Error: " + result.errors);
@@ -303,6 +409,9 @@ public class AsyncCompilerWorkThread extends Thread implements DumpManager.Dumpa
             LOG.warn(msg, e);
             plannedStmt.errorMsg = msg + ": " + e.getMessage();
         }
+        finally {
+            if (slot != null) m_idlePlanners.add(slot);
+        }
 
         return plannedStmt;
     }
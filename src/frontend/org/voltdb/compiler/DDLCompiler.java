@@ -23,6 +23,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
@@ -76,6 +77,7 @@ public class DDLCompiler {
     HSQLInterface m_hsql;
     VoltCompiler m_compiler;
     String m_fullDDL = "";
+    List<String> m_ddlStatements = new ArrayList<String>();
 
     HashMap<String, Column> columnMap = new HashMap<String, Column>();
     HashMap<String, Index> indexMap = new HashMap<String, Index>();
@@ -129,6 +131,7 @@ public class DDLCompiler {
             try {
                 m_fullDDL += stmt.statement + " ";
                 m_hsql.runDDLCommand(stmt.statement);
+                m_ddlStatements.add(stmt.statement);
                 stmt = getNextStatement(reader, m_compiler);
             } catch (HSQLParseException e) {
                 String msg = "DDL Error: \"" + e.getMessage() + "\" in statement ending on lineno: " + stmt.lineNo;
@@ -143,6 +146,15 @@ public class DDLCompiler {
         }
     }
 
+    /**
+     * Return the DDL statements that were loaded into HSQLDB, in the order that
+     * they were executed. Running them on a new HSQLInterface will give it the
+     * same schema as ours.
+     */
+    public List<String> getDDLStatements() {
+        return (m_ddlStatements);
+    }
+
     public void compileToCatalog(Catalog catalog, Database db) throws VoltCompilerException {
         String hexDDL = Encoder.hexEncode(m_fullDDL);
         catalog.execute("set " + db.getPath() + " schema \"" + hexDDL + "\"");
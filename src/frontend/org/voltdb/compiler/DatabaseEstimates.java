@@ -26,14 +26,24 @@ public class DatabaseEstimates {
         public long maxTuples = 1000000;
         public long minTuples = 100000;
         public ArrayList<ScalarValueHints> valueHints = new ArrayList<ScalarValueHints>();
+        /** ColumnName -> Estimated # of distinct values (only set when we have real statistics) */
+        public HashMap<String, Long> distinctValues = new HashMap<String, Long>();
     }
 
     HashMap<String, TableEstimates> tables = new HashMap<String, TableEstimates>();
 
-    public TableEstimates getEstimatesForTable(String tableName) {
+    public synchronized TableEstimates getEstimatesForTable(String tableName) {
         if (tables.containsKey(tableName) == false)
             tables.put(tableName, new TableEstimates());
 
         return tables.get(tableName);
     }
+
+    /**
+     * Returns true if there are estimates for the given table.
+     * Unlike getEstimatesForTable(), this will not create a default entry.
+     */
+    public synchronized boolean hasEstimatesForTable(String tableName) {
+        return tables.containsKey(tableName);
+    }
 }
@@ -24,17 +24,21 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 import org.hsqldb.HSQLInterface;
 import org.hsqldb.HSQLInterface.HSQLParseException;
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.Cluster;
 import org.voltdb.catalog.Database;
 import org.voltdb.planner.CompiledPlan;
 import org.voltdb.planner.CompiledPlan.Fragment;
+import org.voltdb.planner.ParameterInfo;
 import org.voltdb.planner.QueryPlanner;
 import org.voltdb.planner.TrivialCostModel;
 import org.voltdb.plannodes.PlanNodeList;
@@ -61,6 +65,7 @@ public class PlannerTool {
         String allPlan = null;
         String errors = null;
         boolean replicatedDML = false;
+        VoltType paramTypes[] = new VoltType[0];
 
         @Override
         public String toString() {
@@ -70,6 +75,7 @@ public class PlannerTool {
             sb.append("  ALL: ").append(allPlan == null ? "null" : allPlan).append("\n");
             sb.append("  ERR: ").append(errors == null ? "null" : errors).append("\n");
             sb.append("  RTD: ").append(replicatedDML ? "true" : "false").append("\n");
+            sb.append("  PRM: ").append(Arrays.toString(paramTypes)).append("\n");
             sb.append("}");
             return sb.toString();
         }
@@ -164,6 +170,21 @@ public class PlannerTool {
         }
 
         // bucket and process the lines into a response
+        retval = parseOutput(output);
+
+        // reset the clock to zero, meaning not currently planning
+        m_timeOfLastPlannerCall.set(0);
+
+        return retval;
+    }
+
+    /**
+     * Bucket the lines the planner process printed for one statement into a Result
+     */
+    static Result parseOutput(List<String> output) {
+        Result retval = new Result();
+        retval.errors = "";
+
         for (String line : output) {
             if (line.startsWith("PLAN-ONE: ")) {
                 // trim PLAN-ONE: from the front
@@ -178,6 +199,23 @@ public class PlannerTool {
             else if (line.startsWith("REPLICATED-DML: ")) {
                 retval.replicatedDML = true;
             }
+            else if (line.startsWith("PARAMS:")) {
+                String types = line.substring(7).trim();
+                if (types.length() > 0) {
+                    String names[] = types.split(",");
+                    retval.paramTypes = new VoltType[names.length];
+                    for (int i = 0; i < names.length; i++) {
+                        try {
+                            retval.paramTypes[i] = VoltType.valueOf(names[i]);
+                        } catch (IllegalArgumentException e) {
+                            retval.paramTypes = new VoltType[0];
+                            retval.errors += "Planner returned unknown type '" + names[i] +
+                                             "' for parameter #" + i + "\n";
+                            break;
+                        }
+                    }
+                }
+            }
             else {
                 // assume error output
                 retval.errors += line.substring(7) + "\n";
@@ -190,12 +228,20 @@ public class PlannerTool {
         // no errors => null
         if (retval.errors.length() == 0) retval.errors = null;
 
-        // reset the clock to zero, meaning not currently planning
-        m_timeOfLastPlannerCall.set(0);
-
         return retval;
     }
 
+    /**
+     * Format parameter types for the PARAMS line of the planner output
+     */
+    static String formatParamTypes(VoltType paramTypes[]) {
+        List<String> names = new ArrayList<String>();
+        for (VoltType type : paramTypes) {
+            names.add(type.name());
+        }
+        return StringUtil.join(",", names);
+    }
+
     public static PlannerTool createPlannerToolProcess(String serializedCatalog) {
         assert(serializedCatalog != null);
 
@@ -391,6 +437,18 @@ public class PlannerTool {
 
             assert(plan.fragments.size() <= 2);
 
+            // parameter types ordered by their position in the statement
+            VoltType paramTypes[] = new VoltType[plan.parameters.size()];
+            for (ParameterInfo param : plan.parameters) {
+                paramTypes[param.index] = param.type;
+            }
+            int untypedParam = Arrays.asList(paramTypes).indexOf(null);
+            if (untypedParam != -1) {
+                log("no type for parameter #" + untypedParam);
+                System.out.println("ERROR: Unable to determine the type of parameter #" + untypedParam + "\n");
+                continue;
+            }
+
             //////////////////////
             // OUTPUT THE RESULT
             //////////////////////
@@ -414,6 +472,8 @@ public class PlannerTool {
             if (plan.replicatedTableDML) {
                 System.out.println("REPLICATED-DML: true");
             }
+
+            System.out.println("PARAMS: " + formatParamTypes(paramTypes));
             
 //            AbstractPlanNode root = plan.fullWinnerPlan;
 //            if (plan.fragments.size() == 2) {
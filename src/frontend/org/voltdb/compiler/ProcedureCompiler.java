@@ -19,6 +19,8 @@ package org.voltdb.compiler;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.hsqldb.HSQLInterface;
 import org.voltdb.ProcInfo;
@@ -70,6 +72,38 @@ public abstract class ProcedureCompiler {
             compileSingleStmtProcedure(compiler, hsql, estimates, catalog, db, procedureDescriptor);
     }
 
+    /**
+     * Return the SQL text of each Statement in the given procedure, keyed by the name
+     * of the Statement, without adding anything to the catalog. This lets the
+     * VoltCompiler plan the Statements ahead of time. Returns null if it can't do
+     * that for this procedure, either because it is a MapReduce procedure (whose
+     * Statements may use the tables that compile() adds for it) or because there is
+     * something wrong with it that compile() will report.
+     */
+    static Map<String, String> getStatements(ProcedureDescriptor procedureDescriptor) {
+        Map<String, String> stmts = new LinkedHashMap<String, String>();
+        if (procedureDescriptor.m_singleStmt != null) {
+            stmts.put(HStoreConstants.ANON_STMT_NAME, procedureDescriptor.m_singleStmt);
+            return (stmts);
+        }
+        try {
+            Class<?> procClass = Class.forName(procedureDescriptor.m_className);
+            if (ClassUtil.getSuperClasses(procClass).contains(VoltMapReduceProcedure.class)) {
+                return (null);
+            }
+            VoltProcedure procInstance = (VoltProcedure) procClass.newInstance();
+            for (Field f : procClass.getFields()) {
+                if (f.getType() == SQLStmt.class) {
+                    SQLStmt stmt = (SQLStmt) f.get(procInstance);
+                    stmts.put(f.getName(), stmt.getText());
+                }
+            } // FOR
+        } catch (Throwable ex) {
+            return (null);
+        }
+        return (stmts);
+    }
+
     static void compileJavaProcedure(VoltCompiler compiler,
                                      HSQLInterface hsql,
                                      DatabaseEstimates estimates,
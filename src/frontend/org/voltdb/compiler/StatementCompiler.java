@@ -27,6 +27,7 @@ import org.hsqldb.HSQLInterface;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Cluster;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.PlanFragment;
@@ -96,6 +97,48 @@ public abstract class StatementCompiler {
                                                               fastCombine));
     }
     
+    /**
+     * A Statement that couldn't be planned. The planner may run in another thread
+     * than the VoltCompiler, so this only turns into a VoltCompilerException (which
+     * records the error in the compiler) when compile() gets to the Statement.
+     */
+    static class PlanningException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        PlanningException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Clean up the SQL text of a Statement the same way before we plan or cache it
+     */
+    static String normalizeSQL(String stmt) {
+        // Strip newlines for catalog compatibility
+        stmt = stmt.replaceAll("\n", " ");
+        // remove leading and trailing whitespace so the lines not
+        // too far below this doesn't fail (starts with "insert", etc...)
+        return (stmt.trim());
+    }
+
+    /**
+     * Determine the type of the query from its SQL text
+     * @return null if the statement is not an INSERT, UPDATE, DELETE, or SELECT
+     */
+    static QueryType getQueryType(String stmt) {
+        String lower = stmt.toLowerCase();
+        if (lower.startsWith("insert")) {
+            return (QueryType.INSERT);
+        } else if (lower.startsWith("update")) {
+            return (QueryType.UPDATE);
+        } else if (lower.startsWith("delete")) {
+            return (QueryType.DELETE);
+        } else if (lower.startsWith("select")) {
+            return (QueryType.SELECT);
+        }
+        return (null);
+    }
+
     public static void compile(VoltCompiler compiler, HSQLInterface hsql,
             Catalog catalog, Database db, DatabaseEstimates estimates,
             Statement catalogStmt, String stmt, boolean singlePartition)
@@ -104,37 +147,18 @@ public abstract class StatementCompiler {
         // Always add in a unique Id
         catalogStmt.setId(compiler.getNextStatementId());
         
-        // Strip newlines for catalog compatibility
-        stmt = stmt.replaceAll("\n", " ");
-        // remove leading and trailing whitespace so the lines not
-        // too far below this doesn't fail (starts with "insert", etc...)
-        stmt = stmt.trim();
+        stmt = normalizeSQL(stmt);
 
         //LOG.fine("Compiling Statement: ");
         //LOG.fine(stmt);
         compiler.addInfo("Compiling Statement: " + stmt);
 
         // determine the type of the query
-        QueryType qtype;
-        if (stmt.toLowerCase().startsWith("insert")) {
-            qtype = QueryType.INSERT;
-            catalogStmt.setReadonly(false);
-        }
-        else if (stmt.toLowerCase().startsWith("update")) {
-            qtype = QueryType.UPDATE;
-            catalogStmt.setReadonly(false);
-        }
-        else if (stmt.toLowerCase().startsWith("delete")) {
-            qtype = QueryType.DELETE;
-            catalogStmt.setReadonly(false);
-        }
-        else if (stmt.toLowerCase().startsWith("select")) {
-            qtype = QueryType.SELECT;
-            catalogStmt.setReadonly(true);
-        }
-        else {
+        QueryType qtype = getQueryType(stmt);
+        if (qtype == null) {
             throw compiler.new VoltCompilerException("Unparsable SQL statement.");
         }
+        catalogStmt.setReadonly(qtype == QueryType.SELECT);
         catalogStmt.setQuerytype(qtype.getValue());
 
         // put the data in the catalog that we have
@@ -151,42 +175,187 @@ public abstract class StatementCompiler {
         Procedure catalog_proc = catalogStmt.getParent();
         boolean isMapReduce = catalog_proc.getMapreduce();
 
+        // The VoltCompiler may have already planned this Statement (or pulled
+        // it out of its StatementPlanCache). Otherwise we have to plan it now.
+        StatementPlanCache.Entry entry = null;
+        try {
+            entry = compiler.getStatementPlan(catalog_proc.getName(), catalogStmt.getName(), stmt);
+            if (entry == null) {
+                entry = plan(hsql, catalog.getClusters().get("cluster"), db, estimates,
+                             catalog_proc.getName(), catalogStmt.getName(), stmt, isMapReduce);
+            }
+        } catch (PlanningException ex) {
+            if (ex.getCause() != null) {
+                throw compiler.new VoltCompilerException(ex.getMessage(), ex.getCause());
+            }
+            throw compiler.new VoltCompilerException(ex.getMessage());
+        }
+
+        for (boolean _singleSited : new boolean[]{ true, false }) {
+            if (_singleSited == false && isMapReduce) continue;
+            String msg = "Creating " + qtype.name() + " query plan for " + catalogStmt.fullName() + ": singleSited=" + _singleSited;
+            if (trace.val) LOG.trace(msg);
+            compiler.addInfo(msg);
+        } // FOR
+        // The last plan that we tried to generate is the one that sticks
+        catalogStmt.setSinglepartition(isMapReduce);
+
+        for (StatementPlanCache.Plan plan : entry.plans) {
+            // serialize full where clause to the catalog
+            // for the benefit of the designer
+            if (plan.fullWhereClause != null) {
+                catalogStmt.setExptree(Encoder.hexEncode(plan.fullWhereClause));
+            }
+
+            // serialize full plan to the catalog
+            // for the benefit of the designer
+            if (plan.fullPlan != null) {
+                String hexString = Encoder.hexEncode(plan.fullPlan);
+                if (plan.singlePartition) {
+                    catalogStmt.setFullplan(hexString);
+                } else {
+                    catalogStmt.setMs_fullplan(hexString);
+                }
+            }
+
+            for (StatementPlanCache.Fragment fragment : plan.fragments) {
+                boolean fastAggregate = false; // FIXME
+                boolean fastCombine = false; // FIXME
+                
+                // Now update our catalog information
+                int id = getNextFragmentId(db, fragment.readonly, fastAggregate, fastCombine);
+                String planFragmentName = Integer.toString(id);
+                PlanFragment planFragment = null;
+                    
+                if (plan.singlePartition) {
+                    planFragment = catalogStmt.getFragments().add(planFragmentName);
+                    catalogStmt.setHas_singlesited(true);
+                    if (trace.val)
+                        LOG.trace(String.format("%s SP PLAN FRAGMENT: %s", catalogStmt.fullName(), planFragment));
+                } else {
+                    planFragment = catalogStmt.getMs_fragments().add(planFragmentName);
+                    catalogStmt.setHas_multisited(true);
+                    if (trace.val)
+                        LOG.trace(String.format("%s DTXN PLAN FRAGMENT: %s", catalogStmt.fullName(), planFragment));
+                }
+    
+                // mark a fragment as non-transactional if it never touches a persistent table
+                planFragment.setNontransactional(fragment.nontransactional);
+                planFragment.setReadonly(fragment.readonly);
+                planFragment.setHasdependencies(fragment.hasDependencies);
+                planFragment.setMultipartition(fragment.multiPartition);
+                planFragment.setId(id);
+
+                //
+                // We then stick a serialized version of PlanNodeTree into a PlanFragment
+                //
+                try {
+                    FastSerializer fs = new FastSerializer(false, false); // C++ needs little-endian
+                    fs.write(fragment.planNodeTree.getBytes());
+                    String hexString = fs.getHexEncodedBytes();
+                    planFragment.setPlannodetree(hexString);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    throw compiler.new VoltCompilerException(e.getMessage());
+                }
+            } // FOR
+        } // FOR (multipartition + singlepartition)
+        
+        // HACK
+        AbstractPlanNode root = null;
+        try {
+            root = PlanNodeUtil.getRootPlanNodeForStatement(catalogStmt, true);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        assert(root != null);
+        Collection<Table> tables_accessed = CatalogUtil.getReferencedTablesForTree(db, root);
+        assert(tables_accessed.isEmpty() == false) : "Failed to find accessed tables for " + catalogStmt + "-- Plan:\n" + PlanNodeUtil.debug(root);
+        boolean all_replicated = true;
+        for (Table catalog_tbl : tables_accessed) {
+            if (catalog_tbl.getIsreplicated() == false) {
+                all_replicated = false;
+                break;
+            }
+        } // FOR
+        catalogStmt.setReplicatedonly(all_replicated);
+        
+        // Input Parameters
+        // We will need to update the system catalogs with this new information
+        // If this is an ad hoc query then there won't be any parameters
+        for (ParameterInfo param : entry.parameters) {
+            StmtParameter catalogParam = catalogStmt.getParameters().add(String.valueOf(param.index));
+            catalogParam.setJavatype(param.type.getValue());
+            catalogParam.setIndex(param.index);
+        }
+
+        // Output Columns
+        int index = 0;
+        for (StatementPlanCache.OutputColumn col : entry.columns) {
+            Column catColumn = catalogStmt.getOutput_columns().add(col.name); // String.valueOf(index));
+            catColumn.setNullable(false);
+            catColumn.setIndex(index);
+            catColumn.setType(col.type.getValue());
+            catColumn.setSize(col.size);
+            index++;
+        }
+
+        catalogStmt.setReplicatedtabledml(entry.replicatedTableDML);
+    }
+
+    /**
+     * Generate the single-partition and multi-partition plans for a Statement. This
+     * doesn't touch the catalog or the VoltCompiler, so the VoltCompiler can call it
+     * from several threads at once as long as each thread has its own HSQLInterface.
+     * @param hsql
+     * @param cluster
+     * @param db
+     * @param estimates
+     * @param procName
+     * @param stmtName
+     * @param stmt The normalized SQL text of the Statement
+     * @param isMapReduce
+     * @return
+     * @throws PlanningException
+     */
+    static StatementPlanCache.Entry plan(HSQLInterface hsql, Cluster cluster, Database db, DatabaseEstimates estimates,
+                                         String procName, String stmtName, String stmt, boolean isMapReduce)
+    throws PlanningException {
+        final String fullName = procName + "." + stmtName;
+        QueryType stmt_type = getQueryType(stmt);
+        if (stmt_type == null) {
+            throw new PlanningException("Unparsable SQL statement.", null);
+        }
+
+        StatementPlanCache.Entry entry = new StatementPlanCache.Entry();
         CompiledPlan plan = null;
         CompiledPlan last_plan = null;
-        PlanNodeList node_list = null;
         
-        QueryPlanner planner = new QueryPlanner(catalog.getClusters().get("cluster"), db, hsql, estimates, true, false);
+        QueryPlanner planner = new QueryPlanner(cluster, db, hsql, estimates, true, false);
 
         Throwable first_exception = null;
         for (boolean _singleSited : new boolean[]{ true, false }) {
             if (_singleSited == false && isMapReduce) continue;
             
-            QueryType stmt_type = QueryType.get(catalogStmt.getQuerytype());
-            String msg = "Creating " + stmt_type.name() + " query plan for " + catalogStmt.fullName() + ": singleSited=" + _singleSited;
-            if (trace.val) LOG.trace(msg);
-            compiler.addInfo(msg);
-
-            catalogStmt.setSinglepartition(_singleSited);
-            String name = catalogStmt.getParent().getName() + "-" + catalogStmt.getName();
+            String msg = null;
+            String name = procName + "-" + stmtName;
     
             TrivialCostModel costModel = new TrivialCostModel();
             try {
-                plan = planner.compilePlan(costModel, catalogStmt.getSqltext(),
-                        catalogStmt.getName(), catalogStmt.getParent().getName(),
-                        catalogStmt.getSinglepartition(), null);
+                plan = planner.compilePlan(costModel, stmt, stmtName, procName, _singleSited, null);
             } catch (Throwable e) {
-                LOG.error("Failed to plan for stmt: " + catalogStmt.fullName(), e);
+                LOG.error("Failed to plan for stmt: " + fullName, e);
                 if (first_exception == null) {
-                    if (debug.val) LOG.warn("Ignoring first error for " + catalogStmt.getName() + " :: " + e.getMessage());
+                    if (debug.val) LOG.warn("Ignoring first error for " + stmtName + " :: " + e.getMessage());
                     first_exception = e;
                     continue;
                 }
                 e.printStackTrace();
-                throw compiler.new VoltCompilerException("Failed to plan for stmt: " + catalogStmt.fullName());
+                throw new PlanningException("Failed to plan for stmt: " + fullName, null);
             }
 
             if (plan == null) {
-                msg = "Failed to plan for stmt: " + catalogStmt.fullName();
+                msg = "Failed to plan for stmt: " + fullName;
                 String plannerMsg = planner.getErrorMessage();
 
                 if (plannerMsg == null) plannerMsg = "PlannerMessage was empty!";
@@ -195,60 +364,48 @@ public abstract class StatementCompiler {
                 //       on a replicated table
                 if (plannerMsg.contains("replicated table") && _singleSited) {
                     if (debug.val) 
-                        LOG.warn(String.format("Ignoring error for %s: %s", catalogStmt.fullName(), plannerMsg));
+                        LOG.warn(String.format("Ignoring error for %s: %s", fullName, plannerMsg));
                     continue;
                 // HACK: If we get an unknown error message on an multi-sited INSERT/UPDATE/DELETE, assume
                 //       that it's because we are trying to insert on a non-replicated table
                 } else if (!_singleSited && stmt_type == QueryType.INSERT && plannerMsg.contains("Error unknown")) {
                     if (debug.val) 
                         LOG.warn(String.format("Ignoring multi-sited %s %s on non-replicated table: %s",
-                                               stmt_type.name(), catalogStmt.fullName(), plannerMsg));
+                                               stmt_type.name(), fullName, plannerMsg));
                     continue;
                 } else if (planner.getError() != null) {
                     if (debug.val) LOG.error(msg);
-                    throw compiler.new VoltCompilerException(msg, planner.getError());
+                    throw new PlanningException(msg, planner.getError());
                 // Otherwise, report the error
                 } else {
                     if (plannerMsg != null)
                         msg += " with error: \"" + plannerMsg + "\"";
                     if (debug.val) LOG.error(msg);
-                    throw compiler.new VoltCompilerException(msg);
+                    throw new PlanningException(msg, null);
                 }
             }
             if (trace.val)
                 LOG.trace(String.format("%s Analyzing %s query plan",
-                                        catalogStmt.fullName(), (_singleSited == false ? "DTXN" : "SP")));  
+                                        fullName, (_singleSited == false ? "DTXN" : "SP")));  
 
-            // serialize full where clause to the catalog
-            // for the benefit of the designer
+            String whereClause = null;
             if (plan.fullWhereClause != null) {
-                String json = "ERROR";
+                whereClause = "ERROR";
                 try {
                     // serialize to pretty printed json
                     String jsonCompact = plan.fullWhereClause.toJSONString();
                     // pretty printing seems to cause issues
                     //JSONObject jobj = new JSONObject(jsonCompact);
                     //json = jobj.toString(4);
-                    json = jsonCompact;
+                    whereClause = jsonCompact;
                 } catch (Exception e) {
                     // hopefully someone will notice
                     e.printStackTrace();
                 }
-                String hexString = Encoder.hexEncode(json);
-                catalogStmt.setExptree(hexString);
-            }
-
-            // serialize full plan to the catalog
-            // for the benefit of the designer
-            if (plan.fullWinnerPlan != null) {
-                String json = plan.fullplan_json;
-                String hexString = Encoder.hexEncode(json);
-                if (_singleSited) {
-                    catalogStmt.setFullplan(hexString);
-                } else {
-                    catalogStmt.setMs_fullplan(hexString);
-                }
             }
+            StatementPlanCache.Plan cachedPlan = new StatementPlanCache.Plan(_singleSited,
+                                                                             (plan.fullWinnerPlan != null ? plan.fullplan_json : null),
+                                                                             whereClause);
     
             //Store the list of parameters types and indexes in the plan node list.
     
@@ -261,38 +418,10 @@ public abstract class StatementCompiler {
             int i = 0;
             Collections.sort(plan.fragments);
             if (trace.val)
-                LOG.trace(catalogStmt.fullName() + " Plan Fragments: " + plan.fragments);
+                LOG.trace(fullName + " Plan Fragments: " + plan.fragments);
             for (CompiledPlan.Fragment fragment : plan.fragments) {
-                node_list = new PlanNodeList(fragment.planGraph);
-                
-                boolean readonly = fragmentReadOnly(fragment.planGraph);
-                boolean fastAggregate = false; // FIXME
-                boolean fastCombine = false; // FIXME
+                PlanNodeList node_list = new PlanNodeList(fragment.planGraph);
                 
-                // Now update our catalog information
-                int id = getNextFragmentId(db, readonly, fastAggregate, fastCombine);
-                String planFragmentName = Integer.toString(id);
-                PlanFragment planFragment = null;
-                    
-                if (_singleSited) {
-                    planFragment = catalogStmt.getFragments().add(planFragmentName);
-                    catalogStmt.setHas_singlesited(true);
-                    if (trace.val)
-                        LOG.trace(String.format("%s SP PLAN FRAGMENT: %s", catalogStmt.fullName(), planFragment));
-                } else {
-                    planFragment = catalogStmt.getMs_fragments().add(planFragmentName);
-                    catalogStmt.setHas_multisited(true);
-                    if (trace.val)
-                        LOG.trace(String.format("%s DTXN PLAN FRAGMENT: %s", catalogStmt.fullName(), planFragment));
-                }
-    
-                // mark a fragment as non-transactional if it never touches a persistent table
-                planFragment.setNontransactional(!fragmentReferencesPersistentTable(fragment.planGraph));
-                planFragment.setReadonly(readonly);
-                planFragment.setHasdependencies(fragment.hasDependencies);
-                planFragment.setMultipartition(fragment.multiPartition);
-                planFragment.setId(id);
-
                 String json = null;
                 try {
                     JSONObject jobj = new JSONObject(node_list.toJSONString());
@@ -315,79 +444,31 @@ public abstract class StatementCompiler {
                 plansOut.println(json);
                 plansOut.close();
     
-                //
-                // We then stick a serialized version of PlanNodeTree into a PlanFragment
-                //
-                try {
-                    FastSerializer fs = new FastSerializer(false, false); // C++ needs little-endian
-                    fs.write(json.getBytes());
-                    String hexString = fs.getHexEncodedBytes();
-                    planFragment.setPlannodetree(hexString);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw compiler.new VoltCompilerException(e.getMessage());
-                }
-            }
-            
+                cachedPlan.fragments.add(new StatementPlanCache.Fragment(json,
+                                                                         fragmentReadOnly(fragment.planGraph),
+                                                                         !fragmentReferencesPersistentTable(fragment.planGraph),
+                                                                         fragment.hasDependencies,
+                                                                         fragment.multiPartition));
+            } // FOR
+            entry.plans.add(cachedPlan);
             last_plan = plan;
         } // FOR (multipartition + singlepartition)
         if (last_plan == null) {
-            throw compiler.new VoltCompilerException("Bad news! We don't have a last plan!!");
+            throw new PlanningException("Bad news! We don't have a last plan!!", null);
         }
         plan = last_plan;
         
-        // HACK
-        AbstractPlanNode root = null;
-        try {
-            root = PlanNodeUtil.getRootPlanNodeForStatement(catalogStmt, true);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
-        assert(root != null);
-        Collection<Table> tables_accessed = CatalogUtil.getReferencedTablesForTree(db, root);
-        assert(tables_accessed.isEmpty() == false) : "Failed to find accessed tables for " + catalogStmt + "-- Plan:\n" + PlanNodeUtil.debug(plan.fullWinnerPlan);
-        boolean all_replicated = true;
-        for (Table catalog_tbl : tables_accessed) {
-            if (catalog_tbl.getIsreplicated() == false) {
-                all_replicated = false;
-                break;
-            }
-        } // FOR
-        catalogStmt.setReplicatedonly(all_replicated);
-        
-        // Input Parameters
-        // We will need to update the system catalogs with this new information
-        // If this is an ad hoc query then there won't be any parameters
         for (ParameterInfo param : plan.parameters) {
-            StmtParameter catalogParam = catalogStmt.getParameters().add(String.valueOf(param.index));
-            catalogParam.setJavatype(param.type.getValue());
-            catalogParam.setIndex(param.index);
-        }
-
-        // Output Columns
-        int index = 0;
+            entry.parameters.add(param);
+        } // FOR
         for (Integer colguid : plan.columns) {
             PlanColumn planColumn = planner.getPlannerContext().get(colguid);
-            Column catColumn = catalogStmt.getOutput_columns().add(planColumn.getDisplayName()); // String.valueOf(index));
-            catColumn.setNullable(false);
-            catColumn.setIndex(index);
-//            catColumn.setName(planColumn.displayName());
-            catColumn.setType(planColumn.type().getValue());
-            catColumn.setSize(planColumn.width());
-            index++;
-        }
-
-        catalogStmt.setReplicatedtabledml(plan.replicatedTableDML);
-
-        //Store the list of parameters types and indexes in the plan node list.
-
-        /*List<Pair<Integer, VoltType>> parameters = node_list.getParameters();
-        for (ParameterInfo param : plan.parameters) {
-            Pair<Integer, VoltType> parameter = new Pair<Integer, VoltType>(param.index, param.type);
-            parameters.add(parameter);
-        }*/
-
-
+            entry.columns.add(new StatementPlanCache.OutputColumn(planColumn.getDisplayName(),
+                                                                  planColumn.type(),
+                                                                  planColumn.width()));
+        } // FOR
+        entry.replicatedTableDML = plan.replicatedTableDML;
+        return (entry);
     }
 
     /**
@@ -0,0 +1,432 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2010 VoltDB L.L.C.
+ *
+ * VoltDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VoltDB is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONStringer;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Database;
+import org.voltdb.planner.ParameterInfo;
+import org.voltdb.planner.PlanColumn;
+import org.voltdb.plannodes.AbstractPlanNode;
+
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.utils.FileUtil;
+import edu.brown.utils.StringUtil;
+
+/**
+ * Cache of the plans that the StatementCompiler generates for the Statements of a
+ * project. Entries are keyed on the schema of the database (its DDL, partitioning, and
+ * table estimates) and the name and SQL text of the Statement, so a Statement only
+ * gets planned again when one of them changes. The entries are shared by every
+ * VoltCompiler in the JVM and can also be kept in a directory so that later builds
+ * of the same project can use them.
+ * <p>
+ * The PlanColumn guids in a plan have to mean the same thing in every plan of a
+ * catalog. A plan that was loaded from disk is only used if its guids don't already
+ * refer to different PlanColumns in this JVM.
+ */
+public class StatementPlanCache {
+    private static final Logger LOG = Logger.getLogger(StatementPlanCache.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    private static final String FILE_EXTENSION = ".plan";
+
+    public enum Members {
+        PLANS,
+        SINGLE_PARTITION,
+        FULL_PLAN,
+        FULL_WHERE_CLAUSE,
+        FRAGMENTS,
+        PLAN_NODE_TREE,
+        READONLY,
+        NONTRANSACTIONAL,
+        HAS_DEPENDENCIES,
+        MULTI_PARTITION,
+        PARAMETERS,
+        INDEX,
+        TYPE,
+        COLUMNS,
+        NAME,
+        SIZE,
+        REPLICATED_TABLE_DML;
+    }
+
+    /**
+     * A PlanFragment of a Statement
+     */
+    public static class Fragment {
+        /** The PlanNodeList in JSON */
+        public final String planNodeTree;
+        public final boolean readonly;
+        public final boolean nontransactional;
+        public final boolean hasDependencies;
+        public final boolean multiPartition;
+
+        public Fragment(String planNodeTree, boolean readonly, boolean nontransactional,
+                        boolean hasDependencies, boolean multiPartition) {
+            this.planNodeTree = planNodeTree;
+            this.readonly = readonly;
+            this.nontransactional = nontransactional;
+            this.hasDependencies = hasDependencies;
+            this.multiPartition = multiPartition;
+        }
+    }
+
+    /**
+     * The single-partition or multi-partition plan of a Statement
+     */
+    public static class Plan {
+        public final boolean singlePartition;
+        /** The full winning plan in JSON (may be null) */
+        public final String fullPlan;
+        /** The full where clause in JSON (may be null) */
+        public final String fullWhereClause;
+        public final List<Fragment> fragments = new ArrayList<Fragment>();
+
+        public Plan(boolean singlePartition, String fullPlan, String fullWhereClause) {
+            this.singlePartition = singlePartition;
+            this.fullPlan = fullPlan;
+            this.fullWhereClause = fullWhereClause;
+        }
+    }
+
+    /**
+     * An output column of a Statement
+     */
+    public static class OutputColumn {
+        public final String name;
+        public final VoltType type;
+        public final int size;
+
+        public OutputColumn(String name, VoltType type, int size) {
+            this.name = name;
+            this.type = type;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Everything that the StatementCompiler needs to put a planned Statement into
+     * the catalog. The plans are in the order that they were generated.
+     */
+    public static class Entry {
+        public final List<Plan> plans = new ArrayList<Plan>();
+        public final List<ParameterInfo> parameters = new ArrayList<ParameterInfo>();
+        public final List<OutputColumn> columns = new ArrayList<OutputColumn>();
+        public boolean replicatedTableDML = false;
+
+        public String toJSONString() {
+            JSONStringer stringer = new JSONStringer();
+            try {
+                stringer.object();
+                stringer.key(Members.PLANS.name()).array();
+                for (Plan plan : this.plans) {
+                    stringer.object();
+                    stringer.key(Members.SINGLE_PARTITION.name()).value(plan.singlePartition);
+                    stringer.key(Members.FULL_PLAN.name()).value(plan.fullPlan == null ? "" : plan.fullPlan);
+                    stringer.key(Members.FULL_WHERE_CLAUSE.name()).value(plan.fullWhereClause == null ? "" : plan.fullWhereClause);
+                    stringer.key(Members.FRAGMENTS.name()).array();
+                    for (Fragment fragment : plan.fragments) {
+                        stringer.object();
+                        stringer.key(Members.PLAN_NODE_TREE.name()).value(fragment.planNodeTree);
+                        stringer.key(Members.READONLY.name()).value(fragment.readonly);
+                        stringer.key(Members.NONTRANSACTIONAL.name()).value(fragment.nontransactional);
+                        stringer.key(Members.HAS_DEPENDENCIES.name()).value(fragment.hasDependencies);
+                        stringer.key(Members.MULTI_PARTITION.name()).value(fragment.multiPartition);
+                        stringer.endObject();
+                    } // FOR
+                    stringer.endArray();
+                    stringer.endObject();
+                } // FOR
+                stringer.endArray();
+
+                stringer.key(Members.PARAMETERS.name()).array();
+                for (ParameterInfo param : this.parameters) {
+                    stringer.object();
+                    stringer.key(Members.INDEX.name()).value(param.index);
+                    stringer.key(Members.TYPE.name()).value(param.type.getValue());
+                    stringer.endObject();
+                } // FOR
+                stringer.endArray();
+
+                stringer.key(Members.COLUMNS.name()).array();
+                for (OutputColumn col : this.columns) {
+                    stringer.object();
+                    stringer.key(Members.NAME.name()).value(col.name);
+                    stringer.key(Members.TYPE.name()).value(col.type.getValue());
+                    stringer.key(Members.SIZE.name()).value(col.size);
+                    stringer.endObject();
+                } // FOR
+                stringer.endArray();
+
+                stringer.key(Members.REPLICATED_TABLE_DML.name()).value(this.replicatedTableDML);
+                stringer.endObject();
+            } catch (JSONException ex) {
+                throw new RuntimeException("Failed to serialize cached Statement plan", ex);
+            }
+            return (stringer.toString());
+        }
+
+        public static Entry fromJSONObject(JSONObject obj) throws JSONException {
+            Entry entry = new Entry();
+            JSONArray jsonPlans = obj.getJSONArray(Members.PLANS.name());
+            for (int i = 0, cnt = jsonPlans.length(); i < cnt; i++) {
+                JSONObject jsonPlan = jsonPlans.getJSONObject(i);
+                String fullPlan = jsonPlan.getString(Members.FULL_PLAN.name());
+                String fullWhereClause = jsonPlan.getString(Members.FULL_WHERE_CLAUSE.name());
+                Plan plan = new Plan(jsonPlan.getBoolean(Members.SINGLE_PARTITION.name()),
+                                     (fullPlan.isEmpty() ? null : fullPlan),
+                                     (fullWhereClause.isEmpty() ? null : fullWhereClause));
+                JSONArray jsonFragments = jsonPlan.getJSONArray(Members.FRAGMENTS.name());
+                for (int j = 0, cnt_j = jsonFragments.length(); j < cnt_j; j++) {
+                    JSONObject jsonFragment = jsonFragments.getJSONObject(j);
+                    plan.fragments.add(new Fragment(jsonFragment.getString(Members.PLAN_NODE_TREE.name()),
+                                                    jsonFragment.getBoolean(Members.READONLY.name()),
+                                                    jsonFragment.getBoolean(Members.NONTRANSACTIONAL.name()),
+                                                    jsonFragment.getBoolean(Members.HAS_DEPENDENCIES.name()),
+                                                    jsonFragment.getBoolean(Members.MULTI_PARTITION.name())));
+                } // FOR
+                entry.plans.add(plan);
+            } // FOR
+
+            JSONArray jsonParams = obj.getJSONArray(Members.PARAMETERS.name());
+            for (int i = 0, cnt = jsonParams.length(); i < cnt; i++) {
+                JSONObject jsonParam = jsonParams.getJSONObject(i);
+                ParameterInfo param = new ParameterInfo();
+                param.index = jsonParam.getInt(Members.INDEX.name());
+                param.type = VoltType.get(jsonParam.getInt(Members.TYPE.name()));
+                entry.parameters.add(param);
+            } // FOR
+
+            JSONArray jsonColumns = obj.getJSONArray(Members.COLUMNS.name());
+            for (int i = 0, cnt = jsonColumns.length(); i < cnt; i++) {
+                JSONObject jsonColumn = jsonColumns.getJSONObject(i);
+                entry.columns.add(new OutputColumn(jsonColumn.getString(Members.NAME.name()),
+                                                   VoltType.get(jsonColumn.getInt(Members.TYPE.name())),
+                                                   jsonColumn.getInt(Members.SIZE.name())));
+            } // FOR
+
+            entry.replicatedTableDML = obj.getBoolean(Members.REPLICATED_TABLE_DML.name());
+            return (entry);
+        }
+    }
+
+    /**
+     * The entries of every StatementPlanCache in this JVM
+     */
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<String, Entry>();
+
+    private final Database m_db;
+    private final String m_schema;
+    private final File m_directory;
+
+    private int m_hits = 0;
+    private int m_misses = 0;
+
+    /**
+     * @param db The Database that the plans will be added to
+     * @param schema The fingerprint of the schema from getSchemaFingerprint()
+     * @param directory Where to keep the entries on disk (may be null)
+     */
+    public StatementPlanCache(Database db, String schema, File directory) {
+        m_db = db;
+        m_schema = schema;
+        m_directory = directory;
+        if (m_directory != null) FileUtil.makeDirIfNotExists(m_directory);
+    }
+
+    /**
+     * Compute the fingerprint of everything besides the Statement itself that the
+     * planner looks at. This has to be called before any procedures are added.
+     * @param catalog
+     * @param estimates
+     * @return
+     */
+    public static String getSchemaFingerprint(Catalog catalog, DatabaseEstimates estimates) {
+        StringBuilder sb = new StringBuilder(catalog.serialize());
+        synchronized (estimates) {
+            for (Map.Entry<String, DatabaseEstimates.TableEstimates> e : new TreeMap<String, DatabaseEstimates.TableEstimates>(estimates.tables).entrySet()) {
+                DatabaseEstimates.TableEstimates tableEst = e.getValue();
+                sb.append("\n").append(e.getKey())
+                  .append(":").append(tableEst.minTuples)
+                  .append(":").append(tableEst.maxTuples)
+                  .append(":").append(new TreeMap<String, Long>(tableEst.distinctValues));
+            } // FOR
+        } // SYNCH
+        // Planner options that change which plans we pick
+        if (HStoreConf.isInitialized()) {
+            HStoreConf hstore_conf = HStoreConf.singleton();
+            sb.append("\nhashjoin:").append(hstore_conf.global.compiler_hash_join);
+            sb.append("\nbloomfilter:").append(hstore_conf.global.compiler_bloom_filter_join);
+        }
+        return (StringUtil.md5sum(sb.toString()));
+    }
+
+    private String getKey(String procName, String stmtName, String sql) {
+        return (StringUtil.md5sum(m_schema + "\n" + procName + "\n" + stmtName + "\n" + sql));
+    }
+
+    /**
+     * Return the cached plan for the Statement or null if it has to be planned.
+     * This must only be called before any new plans are generated for the
+     * catalog that we are building.
+     * @param procName
+     * @param stmtName
+     * @param sql
+     * @return
+     */
+    public synchronized Entry get(String procName, String stmtName, String sql) {
+        String key = this.getKey(procName, stmtName, sql);
+        Entry entry = CACHE.get(key);
+        boolean foreign = false;
+        if (entry == null && m_directory != null) {
+            File f = new File(m_directory, key + FILE_EXTENSION);
+            if (f.exists()) {
+                try {
+                    entry = Entry.fromJSONObject(new JSONObject(FileUtil.readFile(f)));
+                    foreign = true;
+                } catch (Exception ex) {
+                    LOG.warn("Ignoring invalid cached plan file " + f, ex);
+                }
+            }
+        }
+        if (entry != null && foreign) {
+            try {
+                if (this.adopt(entry) == false) {
+                    if (debug.val)
+                        LOG.debug(String.format("Cached plan for %s.%s conflicts with other plans", procName, stmtName));
+                    entry = null;
+                }
+            } catch (JSONException ex) {
+                LOG.warn(String.format("Ignoring invalid cached plan for %s.%s", procName, stmtName), ex);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            m_misses++;
+            return (null);
+        }
+        if (foreign) CACHE.put(key, entry);
+        m_hits++;
+        if (trace.val) LOG.trace(String.format("Using cached plan for %s.%s", procName, stmtName));
+        return (entry);
+    }
+
+    /**
+     * Add the plan of a Statement to the cache
+     * @param procName
+     * @param stmtName
+     * @param sql
+     * @param entry
+     */
+    public void put(String procName, String stmtName, String sql, Entry entry) {
+        String key = this.getKey(procName, stmtName, sql);
+        CACHE.put(key, entry);
+        if (m_directory != null) {
+            // Write to a temp file first so that a concurrent build never sees half of it
+            try {
+                File temp = FileUtil.getTempFile(m_directory, key, ".tmp", false);
+                FileUtil.writeStringToFile(temp, entry.toJSONString());
+                if (temp.renameTo(new File(m_directory, key + FILE_EXTENSION)) == false) {
+                    temp.delete();
+                }
+            } catch (Exception ex) {
+                LOG.warn(String.format("Failed to write cached plan for %s.%s", procName, stmtName), ex);
+            }
+        }
+    }
+
+    public synchronized int getHits() {
+        return (m_hits);
+    }
+
+    public synchronized int getMisses() {
+        return (m_misses);
+    }
+
+    // ----------------------------------------------------------------------------
+    // ADOPTION
+    // ----------------------------------------------------------------------------
+
+    /**
+     * Register the PlanColumns of an entry that was generated in another JVM with
+     * our PlannerContext. The PlanNode ids don't matter because QueryPlanner
+     * renumbers the nodes of every plan starting from one.
+     * @return false if the entry's PlanColumns conflict with the ones that we already have
+     */
+    private boolean adopt(Entry entry) throws JSONException {
+        for (Plan plan : entry.plans) {
+            if (plan.fullPlan != null && this.adopt(new JSONObject(plan.fullPlan)) == false) {
+                return (false);
+            }
+            for (Fragment fragment : plan.fragments) {
+                if (this.adopt(new JSONObject(fragment.planNodeTree)) == false) {
+                    return (false);
+                }
+            } // FOR
+        } // FOR
+        return (true);
+    }
+
+    /**
+     * Register every PlanColumn in the output columns of the PlanNodes in the given JSON
+     */
+    private boolean adopt(JSONObject obj) throws JSONException {
+        if (obj.has(AbstractPlanNode.Members.PLAN_NODE_TYPE.name())) {
+            JSONArray columns = obj.getJSONArray(AbstractPlanNode.Members.OUTPUT_COLUMNS.name());
+            for (int i = 0, cnt = columns.length(); i < cnt; i++) {
+                if (PlanColumn.fromForeignJSONObject(columns.getJSONObject(i), m_db) == null) {
+                    return (false);
+                }
+            } // FOR
+        }
+        String keys[] = JSONObject.getNames(obj);
+        if (keys == null) return (true);
+        for (String key : keys) {
+            Object value = obj.get(key);
+            if (value instanceof JSONObject) {
+                if (this.adopt((JSONObject)value) == false) return (false);
+            } else if (value instanceof JSONArray) {
+                JSONArray arr = (JSONArray)value;
+                for (int i = 0, cnt = arr.length(); i < cnt; i++) {
+                    if (arr.get(i) instanceof JSONObject &&
+                        this.adopt(arr.getJSONObject(i)) == false) return (false);
+                } // FOR
+            }
+        } // FOR
+        return (true);
+    }
+}
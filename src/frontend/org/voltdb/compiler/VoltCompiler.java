@@ -36,6 +36,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -50,12 +53,14 @@ import javax.xml.validation.SchemaFactory;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.hsqldb.HSQLInterface;
+import org.hsqldb.HSQLInterface.HSQLParseException;
 import org.voltdb.ProcInfo;
 import org.voltdb.ProcInfoData;
 import org.voltdb.TransactionIdManager;
 import org.voltdb.VoltSystemProcedure;
 import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.CatalogMap;
+import org.voltdb.catalog.Cluster;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.ColumnRef;
 import org.voltdb.catalog.Database;
@@ -81,6 +86,7 @@ import org.voltdb.compiler.projectfile.SecurityType;
 import org.voltdb.compiler.projectfile.SnapshotType;
 import org.voltdb.compiler.projectfile.UsersType;
 import org.voltdb.compiler.projectfile.VerticalpartitionsType.Verticalpartition;
+import org.voltdb.planner.PlannerContext;
 import org.voltdb.planner.VerticalPartitionPlanner;
 import org.voltdb.sysprocs.AdHoc;
 import org.voltdb.sysprocs.EvictHistory;
@@ -91,6 +97,7 @@ import org.voltdb.sysprocs.GarbageCollection;
 import org.voltdb.sysprocs.GetCatalog;
 import org.voltdb.sysprocs.GetConfiguration;
 import org.voltdb.sysprocs.LoadMultipartitionTable;
+import org.voltdb.sysprocs.LoadPartitionTable;
 import org.voltdb.sysprocs.NoOp;
 import org.voltdb.sysprocs.MarkovUpdate;
 import org.voltdb.sysprocs.Quiesce;
@@ -101,6 +108,7 @@ import org.voltdb.sysprocs.Sleep;
 import org.voltdb.sysprocs.SnapshotDelete;
 import org.voltdb.sysprocs.SnapshotRestore;
 import org.voltdb.sysprocs.SnapshotSave;
+import org.voltdb.sysprocs.SnapshotSaveDelta;
 import org.voltdb.sysprocs.SnapshotScan;
 import org.voltdb.sysprocs.SnapshotStatus;
 import org.voltdb.sysprocs.Statistics;
@@ -117,11 +125,16 @@ import edu.brown.catalog.CatalogUtil;
 import edu.brown.catalog.conflicts.ConflictSetCalculator;
 import edu.brown.catalog.special.MultiColumn;
 import edu.brown.catalog.special.VerticalPartitionColumn;
+import edu.brown.hstore.conf.HStoreConf;
 import edu.brown.logging.LoggerUtil;
 import edu.brown.logging.LoggerUtil.LoggerBoolean;
+import edu.brown.statistics.ColumnStatistics;
+import edu.brown.statistics.TableStatistics;
+import edu.brown.statistics.WorkloadStatistics;
 import edu.brown.utils.ClassUtil;
 import edu.brown.utils.CollectionUtil;
 import edu.brown.utils.StringUtil;
+import edu.brown.utils.ThreadUtil;
 
 /**
  * Compiles a project XML file and some metadata into a Jarfile
@@ -162,7 +175,12 @@ public class VoltCompiler {
 
     DatabaseEstimates m_estimates = new DatabaseEstimates();
 
+    /** The plans of the Statements that were planned before their procedures were compiled */
+    final Map<String, Object> m_statementPlans = new ConcurrentHashMap<String, Object>();
+    StatementPlanCache m_planCache = null;
+
     boolean m_enableVerticalPartitionOptimizations = false;
+    File m_workloadStatsFile = null;
     VerticalPartitionPlanner m_verticalPartitionPlanner;
     
     
@@ -557,6 +575,15 @@ public class VoltCompiler {
         m_enableVerticalPartitionOptimizations = true;
     }
 
+    /**
+     * Use the table and column statistics in the given WorkloadStatistics file 
+     * to fill in the DatabaseEstimates that are handed to the planner
+     * @param statsFile
+     */
+    public void setWorkloadStatisticsFile(File statsFile) {
+        m_workloadStatsFile = statsFile;
+    }
+
     void compileXMLRootNode(ProjectType project) throws VoltCompilerException {
         m_catalog = new Catalog();
         temporaryCatalogInit();
@@ -863,6 +890,10 @@ public class VoltCompiler {
             compileConnector(conn, db);
         }
 
+        // Plan all of the procedures' Statements before we add any of them to the catalog
+        m_planCache = new StatementPlanCache(db, StatementPlanCache.getSchemaFingerprint(m_catalog, m_estimates), getPlanCacheDirectory());
+        planStatements(db, ddlcompiler.getDDLStatements(), procedures);
+
         // Actually parse and handle all the Procedures
         for (final ProcedureDescriptor procedureDescriptor : procedures) {
             final String procedureName = procedureDescriptor.m_className;
@@ -876,9 +907,149 @@ public class VoltCompiler {
             addClassToJar( classDependency, this );
         }
 
+        m_statementPlans.clear();
         m_hsql.close();
     }
     
+    /** The number of PlanColumn guids that planStatements() sets aside for each Statement */
+    private static final int GUIDS_PER_STATEMENT = 10000;
+
+    private static int getPlannerThreads() {
+        int num_threads = -1;
+        if (HStoreConf.isInitialized()) {
+            num_threads = HStoreConf.singleton().global.compiler_threads;
+        }
+        return (num_threads > 0 ? num_threads : ThreadUtil.availableProcessors());
+    }
+
+    private static File getPlanCacheDirectory() {
+        if (HStoreConf.isInitialized() && HStoreConf.singleton().global.compiler_plan_cache) {
+            return (new File(HStoreConf.singleton().global.compiler_plan_cache_dir));
+        }
+        return (null);
+    }
+
+    private static String getStatementKey(String procName, String stmtName, String sql) {
+        return (procName + "\n" + stmtName + "\n" + sql);
+    }
+
+    /**
+     * Plan the Statements of the given procedures before they are compiled. The plans
+     * that are in the StatementPlanCache are used as they are. The rest are planned by
+     * several threads at once, each with its own HSQLDB session that has the same schema
+     * as ours. ProcedureCompiler picks up the plans (or the planning errors) through
+     * getStatementPlan() when it gets to each Statement, so the catalog and the errors
+     * come out in the same order as if we planned them one at a time.
+     * @param db
+     * @param ddl The DDL statements that were loaded into m_hsql
+     * @param procedures
+     */
+    void planStatements(final Database db, final List<String> ddl, final List<ProcedureDescriptor> procedures) {
+        final Cluster cluster = m_catalog.getClusters().get("cluster");
+        final Queue<String[]> work = new ConcurrentLinkedQueue<String[]>();
+        
+        // Every Statement gets its own block of PlanColumn guids based on its position
+        // in the project, so the plans come out the same no matter which thread plans
+        // them or in what order. We count the cached Statements too so that the other
+        // Statements keep the same blocks when some of them are cached.
+        final int guid_base = PlannerContext.singleton().getMaxGuid();
+        int stmt_idx = 0;
+        for (ProcedureDescriptor procedureDescriptor : procedures) {
+            Map<String, String> stmts = ProcedureCompiler.getStatements(procedureDescriptor);
+            if (stmts == null) continue;
+            String parts[] = procedureDescriptor.m_className.split("\\.");
+            String procName = parts[parts.length - 1];
+            for (Entry<String, String> e : stmts.entrySet()) {
+                String sql = StatementCompiler.normalizeSQL(e.getValue());
+                String key = getStatementKey(procName, e.getKey(), sql);
+                StatementPlanCache.Entry entry = m_planCache.get(procName, e.getKey(), sql);
+                if (entry != null) {
+                    m_statementPlans.put(key, entry);
+                } else {
+                    work.add(new String[]{ procName, e.getKey(), sql, Integer.toString(stmt_idx) });
+                }
+                stmt_idx++;
+            } // FOR
+        } // FOR
+        final int num_stmts = work.size();
+        final int num_threads = Math.min(getPlannerThreads(), num_stmts);
+        if (debug.val)
+            LOG.debug(String.format("Planning %d Statements with %d threads [cached=%d]",
+                                    num_stmts, num_threads, m_planCache.getHits()));
+        if (num_stmts == 0) return;
+
+        // Each thread gets its own HSQLDB session. We have to create them here
+        // because HSQLInterface.loadHsqldb() isn't thread-safe.
+        final List<HSQLInterface> sessions = new ArrayList<HSQLInterface>();
+        sessions.add(m_hsql);
+        try {
+            for (int i = 1; i < num_threads; i++) {
+                HSQLInterface hsql = HSQLInterface.loadHsqldb();
+                sessions.add(hsql);
+                for (String stmt : ddl) {
+                    hsql.runDDLCommand(stmt);
+                } // FOR
+            } // FOR
+        } catch (HSQLParseException ex) {
+            // This shouldn't happen because m_hsql already took the same DDL.
+            // We can still plan everything with m_hsql by itself.
+            LOG.warn("Failed to load the schema into another HSQLDB session", ex);
+            for (HSQLInterface hsql : sessions.subList(1, sessions.size())) {
+                hsql.close();
+            } // FOR
+            sessions.subList(1, sessions.size()).clear();
+        }
+
+        List<Runnable> runnables = new ArrayList<Runnable>();
+        for (final HSQLInterface hsql : sessions) {
+            runnables.add(new Runnable() {
+                @Override
+                public void run() {
+                    String next[] = null;
+                    while ((next = work.poll()) != null) {
+                        String key = getStatementKey(next[0], next[1], next[2]);
+                        int first_guid = guid_base + Integer.parseInt(next[3]) * GUIDS_PER_STATEMENT + 1;
+                        PlannerContext.singleton().beginGuidRange(first_guid, first_guid + GUIDS_PER_STATEMENT - 1);
+                        try {
+                            StatementPlanCache.Entry entry = StatementCompiler.plan(hsql, cluster, db, m_estimates,
+                                                                                     next[0], next[1], next[2], false);
+                            m_planCache.put(next[0], next[1], next[2], entry);
+                            m_statementPlans.put(key, entry);
+                        } catch (StatementCompiler.PlanningException ex) {
+                            m_statementPlans.put(key, ex);
+                        } catch (Throwable ex) {
+                            m_statementPlans.put(key, new StatementCompiler.PlanningException(
+                                    "Failed to plan for stmt: " + next[0] + "." + next[1], ex));
+                        } finally {
+                            PlannerContext.singleton().endGuidRange();
+                        }
+                    } // WHILE
+                }
+            });
+        } // FOR
+        if (runnables.size() == 1) {
+            runnables.get(0).run();
+        } else {
+            ThreadUtil.runNewPool(runnables, runnables.size());
+        }
+        for (HSQLInterface hsql : sessions.subList(1, sessions.size())) {
+            hsql.close();
+        } // FOR
+    }
+
+    /**
+     * Return the plan that planStatements() generated for the given Statement, or null
+     * if the StatementCompiler needs to plan it by itself
+     * @throws StatementCompiler.PlanningException if the Statement couldn't be planned
+     */
+    StatementPlanCache.Entry getStatementPlan(String procName, String stmtName, String sql) throws StatementCompiler.PlanningException {
+        Object result = m_statementPlans.remove(getStatementKey(procName, stmtName, sql));
+        if (result instanceof StatementCompiler.PlanningException) {
+            throw (StatementCompiler.PlanningException)result;
+        }
+        return ((StatementPlanCache.Entry)result);
+    }
+    
     /**
      * Return the name of the vertical partition for the given table name
      * @param tableName
@@ -1046,13 +1217,33 @@ public class VoltCompiler {
         return (catalog_view);
     }
 
-    private void addDatabaseEstimatesInfo(final DatabaseEstimates estimates, final Database db) {
-        /*for (Table table : db.getTables()) {
-            DatabaseEstimates.TableEstimates tableEst = new DatabaseEstimates.TableEstimates();
-            tableEst.maxTuples = 1000000;
-            tableEst.minTuples = 100000;
-            estimates.tables.put(table, tableEst);
-        }*/
+    private void addDatabaseEstimatesInfo(final DatabaseEstimates estimates, final Database db) throws VoltCompilerException {
+        if (m_workloadStatsFile == null) return;
+        
+        // We haven't added any procedures to the catalog yet, so we can only
+        // load the table statistics from the file
+        WorkloadStatistics stats = new WorkloadStatistics(db);
+        try {
+            stats.loadTableStatistics(m_workloadStatsFile, db);
+        } catch (IOException ex) {
+            throw new VoltCompilerException("Failed to load workload statistics file '" + m_workloadStatsFile + "'", ex);
+        }
+        for (Table table : db.getTables()) {
+            TableStatistics tableStats = stats.getTableStatistics(table);
+            if (tableStats == null || tableStats.tuple_count_total <= 0) continue;
+
+            DatabaseEstimates.TableEstimates tableEst = estimates.getEstimatesForTable(table.getTypeName());
+            tableEst.maxTuples = tableStats.tuple_count_total;
+            tableEst.minTuples = tableStats.tuple_count_total;
+            for (Column col : table.getColumns()) {
+                ColumnStatistics colStats = tableStats.getColumnStatistics(col);
+                if (colStats == null || colStats.histogram.isEmpty()) continue;
+                tableEst.distinctValues.put(col.getTypeName(), (long)colStats.histogram.getValueCount());
+            } // FOR
+            if (debug.val)
+                LOG.debug(String.format("Estimates for %s: %d tuples, %d columns with distinct counts",
+                          table.getTypeName(), tableEst.maxTuples, tableEst.distinctValues.size()));
+        } // FOR
     }
 
     ProcedureDescriptor getProcedure(
@@ -1261,6 +1452,7 @@ public class VoltCompiler {
         final Object[][] procedures = {
             // SysProcedure Class                   readonly    everysite
             {LoadMultipartitionTable.class,         false,      true},
+            {LoadPartitionTable.class,              false,      false},
             {DatabaseDump.class,                    true,       true},
             {MarkovUpdate.class,                    true,       true},
             {Shutdown.class,                        false,      true},
@@ -1274,6 +1466,7 @@ public class VoltCompiler {
             {ExecutorStatus.class,                  true,       false},
             {GetCatalog.class,                      true,       false},
             {SnapshotSave.class,                    false,      true},
+            {SnapshotSaveDelta.class,               false,      true},
             {SnapshotRestore.class,                 false,      true},
             {SnapshotStatus.class,                  false,      true},
             {SnapshotScan.class,                    false,      true},
@@ -1323,6 +1516,7 @@ public class VoltCompiler {
             procedure.setHasjava(true);
             procedure.setSinglepartition(info.singlePartition());
             procedure.setEverysite(everysite);
+            procedure.setPartitionparameter(info.partitionParam());
             ProcedureCompiler.populateProcedureParameters(this, procClass, procedure);
 
             // Stored procedure sysproc classes are present in VoltDB.jar
@@ -244,6 +244,11 @@ public class VoltProjectBuilder {
      */
     final LinkedHashMap<String, Map<Integer, Pair<String, Integer>>> m_paramMappings = new LinkedHashMap<String, Map<Integer,Pair<String,Integer>>>();
     
+    /**
+     * File containing WorkloadStatistics
+     */
+    private File m_workloadStatsFile;
+    
     String m_elloader = null;         // loader package.Classname
     private boolean m_elenabled;      // true if enabled; false if disabled
     List<String> m_elAuthUsers;       // authorized users
@@ -409,6 +414,19 @@ public class VoltProjectBuilder {
         m_paramMappingsFile = mappingsFile;
     }
 
+    /**
+     * Provide the path to the WorkloadStatistics file that the planner
+     * will use to estimate the size of the tables in the database.
+     * @param statsFile
+     */
+    public void addWorkloadStatistics(File statsFile) {
+        assert(statsFile != null) :
+            "Invalid WorkloadStatistics file";
+        assert(statsFile.exists()) :
+            "The WorkloadStatistics file '" + statsFile + "' does not exist";
+        m_workloadStatsFile = statsFile;
+    }
+
     /**
      * Mark a ProcParameter to be mapped to a StmtParameter
      * @param procedureClass
@@ -779,6 +797,9 @@ public class VoltProjectBuilder {
         final String projectPath = projectFile.getPath();
         LOG.debug("PROJECT XML: " + projectPath);
         
+        if (m_workloadStatsFile != null) {
+            compiler.setWorkloadStatisticsFile(m_workloadStatsFile);
+        }
         ClusterConfig cc = (this.cluster_config.isEmpty() ? 
                                 new ClusterConfig(hostCount, sitesPerHost, replication, leaderAddress) :
                                 this.cluster_config);
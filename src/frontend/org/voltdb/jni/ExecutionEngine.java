@@ -309,10 +309,10 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
         long txnId, long lastCommittedTxnId, long undoQuantumToken)
       throws EEException;
 
-    /** Run a plan fragment */
+    /** Run an ad hoc plan fragment with the given parameters */
     abstract public VoltTable executeCustomPlanFragment(
             String plan, int outputDepId,
-            int inputDepId, long txnId,
+            int inputDepId, ParameterSet parameterSet, long txnId,
             long lastCommittedTxnId, long undoQuantumToken) throws EEException;
 
     /** Run multiple query plan fragments */
@@ -273,10 +273,16 @@ public class ExecutionEngineJNI extends ExecutionEngine {
 
     @Override
     public VoltTable executeCustomPlanFragment(final String plan, final int outputDepId,
-            final int inputDepId, final long txnId, final long lastCommittedTxnId,
-            final long undoQuantumToken) throws EEException
+            final int inputDepId, final ParameterSet parameterSet, final long txnId,
+            final long lastCommittedTxnId, final long undoQuantumToken) throws EEException
     {
+        // serialize the param set
         fsForParameterSet.clear();
+        try {
+            parameterSet.writeExternal(fsForParameterSet);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception); // can't happen
+        }
         deserializer.clear();
         //C++ JSON deserializer is not thread safe, must synchronize
         int errorCode = 0;
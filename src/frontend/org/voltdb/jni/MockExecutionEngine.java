@@ -67,7 +67,8 @@ public class MockExecutionEngine extends ExecutionEngine {
 
     @Override
     public VoltTable executeCustomPlanFragment(final String plan, int outputDepId,
-            int inputDepId, final long txnId, final long lastCommittedTxnId, final long undoQuantumToken)
+            int inputDepId, final ParameterSet parameterSet, final long txnId,
+            final long lastCommittedTxnId, final long undoQuantumToken)
             throws EEException {
         // TODO Auto-generated method stub
         return null;
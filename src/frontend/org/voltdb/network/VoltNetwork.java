@@ -106,6 +106,14 @@ import edu.brown.hstore.HStoreThreadManager;
     private final boolean m_useExecutorService;
     private final ArrayList<WeakReference<Thread>> m_networkThreads = new ArrayList<WeakReference<Thread>>();
     private final ArrayList<DBBPool> m_poolsToClearOnShutdown = new ArrayList<DBBPool>();
+    private final HStoreSite m_hstoreSite;
+
+    /**
+     * If there is more than one reactor, then these are all the VoltNetworks that
+     * connections are divided between. The first one is always this VoltNetwork.
+     * Each reactor has its own selector and thread and handles the work for its own ports.
+     */
+    private final VoltNetwork m_reactors[];
 
     /**
      * Synchronizes registration and unregistration of channels
@@ -117,6 +125,9 @@ import edu.brown.hstore.HStoreThreadManager;
      */
     public void start() {
         m_thread.start();
+        for (int ii = 1; ii < getReactors().length; ii++) {
+            m_reactors[ii].start();
+        }
     }
 
     /** Used for test only! */
@@ -125,6 +136,8 @@ import edu.brown.hstore.HStoreThreadManager;
         m_selector = selector;
         m_useBlockingSelect = true;
         m_useExecutorService = false;
+        m_hstoreSite = null;
+        m_reactors = null;
     }
 
     public VoltNetwork() {
@@ -132,22 +145,30 @@ import edu.brown.hstore.HStoreThreadManager;
     }
     
     public VoltNetwork(HStoreSite hstore_site) {
-        this(true, true, null, hstore_site);
+        this(true, true, null, hstore_site, hstore_site.getHStoreConf().site.network_reactors);
     }
     
     public VoltNetwork(boolean useExecutorService, boolean blockingSelect, Integer threads) {
         this(useExecutorService, blockingSelect, threads, null);
     }
 
+    public VoltNetwork(boolean useExecutorService, boolean blockingSelect, Integer threads, final HStoreSite hstore_site) {
+        this(useExecutorService, blockingSelect, threads, hstore_site, 1);
+    }
+
     /**
      * Initialize a m_selector and become ready to perform real work
      * If the network is not going to provide any threads provideOwnThread should be false
      * and runOnce should be called periodically
+     * If reactors is greater than one, then that many selectors are created and connections
+     * are spread across them. Each selector thread then does the work for its own connections
+     * instead of handing it off to the worker threads.
      **/
-    public VoltNetwork(boolean useExecutorService, boolean blockingSelect, Integer threads, final HStoreSite hstore_site) {
+    public VoltNetwork(boolean useExecutorService, boolean blockingSelect, Integer threads, final HStoreSite hstore_site, int reactors) {
         m_thread = new Thread(this, "Volt Network");
         m_thread.setDaemon(true);
         m_useBlockingSelect = blockingSelect;
+        m_hstoreSite = hstore_site;
 
         try {
             m_selector = Selector.open();
@@ -156,9 +177,19 @@ import edu.brown.hstore.HStoreThreadManager;
             throw new RuntimeException(ex);
         }
 
+        if (reactors > 1) {
+            m_reactors = new VoltNetwork[reactors];
+            m_reactors[0] = this;
+            for (int ii = 1; ii < reactors; ii++) {
+                m_reactors[ii] = new VoltNetwork(false, blockingSelect, null, hstore_site, 1);
+            }
+        } else {
+            m_reactors = null;
+        }
+
         final int availableProcessors = Runtime.getRuntime().availableProcessors();
         //Single thread is plenty for 4 cores.
-        if (availableProcessors <= 4) {
+        if (availableProcessors <= 4 || reactors > 1) {
             m_useExecutorService = false;
         } else {
             m_useExecutorService = useExecutorService;
@@ -310,8 +341,31 @@ import edu.brown.hstore.HStoreThreadManager;
         m_registrationLock.readLock().unlock();
     }
 
+    /**
+     * Returns all of the reactors that connections are divided between.
+     * If this VoltNetwork only has a single selector, then this is just itself.
+     */
+    public VoltNetwork[] getReactors() {
+        if (m_reactors == null) {
+            return new VoltNetwork[] { this };
+        }
+        return m_reactors;
+    }
+
+    /** Number of connections registered with this reactor's selector */
+    public int getConnectionCount() {
+        synchronized (m_ports) {
+            return m_ports.size();
+        }
+    }
+
     /** Instruct the network to stop after the current loop */
     public void shutdown() throws InterruptedException {
+        if (m_reactors != null) {
+            for (int ii = 1; ii < m_reactors.length; ii++) {
+                m_reactors[ii].shutdown();
+            }
+        }
         if (m_thread != null) {
             synchronized (this) {
                 m_shouldStop = true;
@@ -338,6 +392,22 @@ import edu.brown.hstore.HStoreThreadManager;
             SocketChannel channel,
             InputHandler handler,
             int interestOps) throws IOException {
+        if (m_reactors != null) {
+            // Give the connection to the reactor with the fewest connections
+            VoltNetwork reactor = m_reactors[0];
+            int minConnections = reactor.getConnectionCount();
+            for (int ii = 1; ii < m_reactors.length; ii++) {
+                int connections = m_reactors[ii].getConnectionCount();
+                if (connections < minConnections) {
+                    reactor = m_reactors[ii];
+                    minConnections = connections;
+                }
+            }
+            if (reactor != this) {
+                return reactor.registerChannel(channel, handler, interestOps);
+            }
+        }
+
         channel.configureBlocking (false);
         channel.socket().setKeepAlive(true);
 
@@ -405,6 +475,10 @@ import edu.brown.hstore.HStoreThreadManager;
 
     @Override
     public void run() {
+        // Keep the selector threads off of the partitions' cores
+        if (m_hstoreSite != null) {
+            m_hstoreSite.getThreadManager().registerProcessingThread();
+        }
         try {
             while (m_shouldStop == false) {
                 try {
@@ -607,24 +681,26 @@ import edu.brown.hstore.HStoreThreadManager;
         long totalMessagesRead = 0;
         long totalWritten = 0;
         long totalMessagesWritten = 0;
-        synchronized (m_ports) {
-            for (VoltPort p : m_ports) {
-                final long read = p.readStream().getBytesRead(interval);
-                final long writeInfo[] = p.writeStream().getBytesAndMessagesWritten(interval);
-                final long messagesRead = p.getMessagesRead(interval);
-                totalRead += read;
-                totalMessagesRead += messagesRead;
-                totalWritten += writeInfo[0];
-                totalMessagesWritten += writeInfo[1];
-                retval.put(
-                        p.connectionId(),
-                        Pair.of(
-                                p.m_remoteHost,
-                                new long[] {
-                                        read,
-                                        messagesRead,
-                                        writeInfo[0],
-                                        writeInfo[1] }));
+        for (VoltNetwork reactor : getReactors()) {
+            synchronized (reactor.m_ports) {
+                for (VoltPort p : reactor.m_ports) {
+                    final long read = p.readStream().getBytesRead(interval);
+                    final long writeInfo[] = p.writeStream().getBytesAndMessagesWritten(interval);
+                    final long messagesRead = p.getMessagesRead(interval);
+                    totalRead += read;
+                    totalMessagesRead += messagesRead;
+                    totalWritten += writeInfo[0];
+                    totalMessagesWritten += writeInfo[1];
+                    retval.put(
+                            p.connectionId(),
+                            Pair.of(
+                                    p.m_remoteHost,
+                                    new long[] {
+                                            read,
+                                            messagesRead,
+                                            writeInfo[0],
+                                            writeInfo[1] }));
+                }
             }
         }
         retval.put(
@@ -641,11 +717,13 @@ import edu.brown.hstore.HStoreThreadManager;
 
     public ArrayList<Long> getThreadIds() {
         ArrayList<Long> ids = new ArrayList<Long>();
-        if (m_thread != null) {
-            ids.add(m_thread.getId());
-        }
-        for (WeakReference<Thread> ref : m_networkThreads) {
-            ids.add(ref.get().getId());
+        for (VoltNetwork reactor : getReactors()) {
+            if (reactor.m_thread != null) {
+                ids.add(reactor.m_thread.getId());
+            }
+            for (WeakReference<Thread> ref : reactor.m_networkThreads) {
+                ids.add(ref.get().getId());
+            }
         }
         return ids;
     }
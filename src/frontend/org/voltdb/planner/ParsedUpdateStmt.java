@@ -17,7 +17,7 @@
 
 package org.voltdb.planner;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 import org.voltdb.VoltType;
 import org.voltdb.catalog.Column;
@@ -34,7 +34,7 @@ import org.w3c.dom.Node;
  */
 public class ParsedUpdateStmt extends AbstractParsedStmt {
     Table table = null;
-    HashMap<Column, AbstractExpression> columns = new HashMap<Column, AbstractExpression>();
+    LinkedHashMap<Column, AbstractExpression> columns = new LinkedHashMap<Column, AbstractExpression>();
 
     @Override
     void parse(Node stmtNode, Database db) {
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.voltdb.VoltType;
@@ -35,6 +36,7 @@ import org.voltdb.catalog.ConnectorTableInfo;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Index;
 import org.voltdb.catalog.Table;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.AggregateExpression;
 import org.voltdb.expressions.ConstantValueExpression;
@@ -78,16 +80,17 @@ public class PlanAssembler {
     private static final boolean INCLUDE_SEND_FOR_ALL = true;
     
     private static final int MAX_LOCAL_ID = 1000000;
-    private static boolean m_useGlobalIds = true;
+    private static volatile boolean m_useGlobalIds = true;
 
     public static final String AGGREGATE_TEMP_TABLE = "VOLT_AGGREGATE_NODE_TEMP_TABLE";
     
     /**
      * Internal PlanNodeId counter. Note that this member is static, which means
-     * all PlanNodes will have a unique id
+     * all PlanNodes will have a unique id. The VoltCompiler plans Statements
+     * in several threads at once, so these have to be atomic.
      */
-    private static int NEXT_PLAN_NODE_ID = 1;
-    private static int NEXT_LOCAL_PLAN_NODE_ID = 1;
+    private static final AtomicInteger NEXT_PLAN_NODE_ID = new AtomicInteger(1);
+    private static final AtomicInteger NEXT_LOCAL_PLAN_NODE_ID = new AtomicInteger(1);
 
     /**
      * Dependency id counter. This is only used for connection send and receive
@@ -102,6 +105,9 @@ public class PlanAssembler {
     /** Context object with planner-local information. */
     final PlannerContext m_context;
 
+    /** Table size estimates handed to the PlanOptimizer (may be null) */
+    final DatabaseEstimates m_estimates;
+
     /** parsed statement for an insert */
     ParsedInsertStmt m_parsedInsert = null;
     /** parsed statement for an update */
@@ -134,29 +140,32 @@ public class PlanAssembler {
      *            Catalog info about the physical layout of the cluster.
      * @param catalogDb
      *            Catalog info about schema, metadata and procedures.
+     * @param estimates
+     *            Table size estimates used to cost optimizations (may be null)
      */
-    PlanAssembler(PlannerContext context, Cluster catalogCluster, Database catalogDb) {
+    PlanAssembler(PlannerContext context, Cluster catalogCluster, Database catalogDb, DatabaseEstimates estimates) {
         m_context = context;
         m_catalogCluster = catalogCluster;
         m_catalogDb = catalogDb;
+        m_estimates = estimates;
         m_partitionCount = m_catalogCluster.getNum_partitions();
     }
 
     static void setUseGlobalIds(boolean useGlobalIds) {
         if (useGlobalIds) {
             m_useGlobalIds = true;
-            NEXT_LOCAL_PLAN_NODE_ID = 1;
+            NEXT_LOCAL_PLAN_NODE_ID.set(1);
         } else {
             m_useGlobalIds = false;
         }
     }
 
     public static int getNextPlanNodeId() {
-        assert ((NEXT_LOCAL_PLAN_NODE_ID + 1) <= MAX_LOCAL_ID);
+        assert ((NEXT_LOCAL_PLAN_NODE_ID.get() + 1) <= MAX_LOCAL_ID);
         if (m_useGlobalIds)
-            return NEXT_PLAN_NODE_ID++;
+            return NEXT_PLAN_NODE_ID.getAndIncrement();
         else
-            return NEXT_LOCAL_PLAN_NODE_ID++;
+            return NEXT_LOCAL_PLAN_NODE_ID.getAndIncrement();
     }
 
     String getSQLText() {
@@ -467,7 +476,7 @@ public class PlanAssembler {
 //        System.out.println();
         
 //        System.err.println(m_parsedSelect.sql);
-        PlanOptimizer po = new PlanOptimizer(m_context, m_catalogDb);
+        PlanOptimizer po = new PlanOptimizer(m_context, m_catalogDb, m_estimates);
         AbstractPlanNode new_root = po.optimize(m_parsedSelect.sql, root);
         
 //        if (root.getPlanNodeType().equals(PlanNodeType.PROJECTION) && PlanNodeUtil.getDepth(root) == 0) {
@@ -337,4 +337,37 @@ public class PlanColumn
         return (column);
     }
     
+    /**
+     * Like fromJSONObject(), but for a PlanColumn that was serialized in another JVM.
+     * If the global PlannerContext already uses the guid for a different column, then
+     * we won't register it and will return null instead.
+     * @param obj
+     * @param db
+     * @return
+     * @throws JSONException
+     */
+    public static PlanColumn fromForeignJSONObject(JSONObject obj, Database db) throws JSONException {
+        int guid = obj.getInt(Members.GUID.name());
+        String columnName = obj.getString(Members.NAME.name());
+        SortOrder sortOrder = SortOrder.get(obj.getString(Members.SORT_ORDER.name()));
+        Storage storage = Storage.get(obj.getString(Members.STORAGE.name()));
+        AbstractExpression expression = null;
+        if (!obj.getString(Members.EXPRESSION.name()).isEmpty()) {
+            JSONObject jsonExpression = obj.getJSONObject(Members.EXPRESSION.name());
+            expression = AbstractExpression.fromJSONObject(jsonExpression, db);
+        }
+        
+        PlannerContext planner = PlannerContext.singleton();
+        synchronized (planner) {
+            PlanColumn column = planner.get(guid);
+            if (column == null) {
+                column = new PlanColumn(guid, expression, columnName, sortOrder, storage);
+                planner.add(guid, column);
+            } else if (column.hashCode() != computeHashCode(expression, columnName, sortOrder, storage)) {
+                column = null;
+            }
+            return (column);
+        } // SYCHRONIZED
+    }
+    
 }
@@ -44,6 +44,27 @@ public class PlannerContext {
     
     private transient final Map<Integer, PlanColumn> hashcode_col_xref = new HashMap<Integer, PlanColumn>();
 
+    /**
+     * A block of guids that only one Statement uses for its new PlanColumns.
+     * The Statement only shares PlanColumns with itself while it has a range,
+     * so its guids don't depend on what any other thread planned first.
+     */
+    private static class GuidRange {
+        private final int last;
+        private int next;
+        private final Map<Integer, PlanColumn> hashcode_col_xref = new HashMap<Integer, PlanColumn>();
+        
+        private GuidRange(int first, int last) {
+            this.next = first;
+            this.last = last;
+        }
+    }
+    
+    /**
+     * The GuidRange of the Statement that the current thread is planning (if any)
+     */
+    private transient final ThreadLocal<GuidRange> guid_ranges = new ThreadLocal<GuidRange>();
+
     /**
      * Return the Collection of all the PlanColumns managed under this PlannerContext instance
      * @return
@@ -60,11 +81,12 @@ public class PlannerContext {
     public synchronized PlanColumn getPlanColumn(AbstractExpression expression, String columnName, SortOrder sortOrder, Storage storage) {
         // Check if one already exists
         int hashCode = PlanColumn.computeHashCode(expression, columnName, sortOrder, storage);
-        PlanColumn retval = hashcode_col_xref.get(hashCode);
+        GuidRange range = this.guid_ranges.get();
+        PlanColumn retval = (range != null ? range.hashcode_col_xref : hashcode_col_xref).get(hashCode);
         
         // We've never seen this one before, so we have to make a new one...
         if (retval == null) {
-            int guid = this.getNextPlanColumnGUID();
+            int guid = (range != null ? this.getNextPlanColumnGUID(range) : this.getNextPlanColumnGUID());
             retval = new PlanColumn(guid, expression, columnName, sortOrder, storage);
             assert(s_columnPool.get(guid) == null);
             s_columnPool.put(guid, retval);
@@ -72,6 +94,37 @@ public class PlannerContext {
         }
         return retval;
     }
+    
+    /**
+     * Make the current thread take the guids of any new PlanColumns from the range
+     * [first, last] until endGuidRange() is called. This is for the VoltCompiler to
+     * give each Statement that it plans in parallel its own block of guids.
+     * @param first
+     * @param last
+     */
+    public void beginGuidRange(int first, int last) {
+        assert(first > 0 && first <= last) : String.format("Invalid guid range [%d, %d]", first, last);
+        this.guid_ranges.set(new GuidRange(first, last));
+    }
+    
+    public void endGuidRange() {
+        this.guid_ranges.remove();
+    }
+    
+    /**
+     * Return the largest guid of any PlanColumn in this PlannerContext
+     */
+    public synchronized int getMaxGuid() {
+        return (s_columnPool.isEmpty() ? 0 : s_columnPool.lastKey());
+    }
+    
+    private synchronized int getNextPlanColumnGUID(GuidRange range) {
+        while (range.next <= range.last) {
+            int guid = range.next++;
+            if (s_columnPool.get(guid) == null) return (guid);
+        } // WHILE
+        throw new RuntimeException(String.format("Ran out of PlanColumn guids in the range ending at %d", range.last));
+    }
 
     private synchronized int getNextPlanColumnGUID() {
         if (s_nextId.get() == -1) {
@@ -95,8 +148,10 @@ public class PlannerContext {
      * HashCode -> PlanColumn
      */
     protected synchronized void registerPlanColumn(PlanColumn col) {
+        // The PlanColumns made inside of a GuidRange are only shared within that range
+        GuidRange range = this.guid_ranges.get();
         int hashCode = col.hashCode();
-        this.hashcode_col_xref.put(hashCode, col);
+        (range != null ? range.hashcode_col_xref : this.hashcode_col_xref).put(hashCode, col);
 //        if (col.guid() > this.s_nextId)
 //        this.s_nextId
     }
@@ -119,7 +174,7 @@ public class PlannerContext {
     /**
      * Retrieve a column instance by guid.
      */
-    public PlanColumn get(int guid) {
+    public synchronized PlanColumn get(int guid) {
         PlanColumn column = s_columnPool.get(guid);
 //        assert(column != null) : "Failed to retrieve PlanColumn guid=" + guid;
         return column;
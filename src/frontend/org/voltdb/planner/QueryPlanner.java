@@ -78,7 +78,7 @@ public class QueryPlanner {
         m_HSQL = HSQL;
         // PAVLO: We have to use the global singleton in order to get the same guids across queries
         m_context = PlannerContext.singleton(); // new PlannerContext();
-        m_assembler = new PlanAssembler(m_context, catalogCluster, catalogDb);
+        m_assembler = new PlanAssembler(m_context, catalogCluster, catalogDb, estimates);
         m_db = catalogDb;
         m_cluster = catalogCluster;
         m_estimates = estimates;
@@ -23,17 +23,23 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Table;
 import org.voltdb.expressions.AbstractExpression;
 import org.voltdb.expressions.ExpressionUtil;
+import org.voltdb.expressions.TupleValueExpression;
 import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.plannodes.HashJoinPlanNode;
 import org.voltdb.plannodes.IndexScanPlanNode;
 import org.voltdb.plannodes.NestLoopIndexPlanNode;
 import org.voltdb.plannodes.NestLoopPlanNode;
 import org.voltdb.plannodes.ReceivePlanNode;
+import org.voltdb.types.ExpressionType;
 import org.voltdb.types.JoinType;
 
+import edu.brown.hstore.conf.HStoreConf;
+
 /**
  * For a select, delete or update plan, this class builds the part of the plan
  * which collects tuples from relations. Given the tables and the predicate
@@ -291,7 +297,14 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
             retval = nlijNode;
         }
         else {
-            NestLoopPlanNode nljNode = new NestLoopPlanNode(m_context, PlanAssembler.getNextPlanNodeId());
+            // Unindexed equi-joins get a hash join so that we don't have to
+            // scan the whole inner table for every outer tuple
+            NestLoopPlanNode nljNode = null;
+            if (isHashJoinEnabled() && hasHashableJoinClause(joinOrder[0], joinClauses)) {
+                nljNode = new HashJoinPlanNode(m_context, PlanAssembler.getNextPlanNodeId());
+            } else {
+                nljNode = new NestLoopPlanNode(m_context, PlanAssembler.getNextPlanNodeId());
+            }
             if ((joinClauses != null) && (joinClauses.size() > 0))
                 nljNode.setPredicate(ExpressionUtil.combine(joinClauses));
             nljNode.setJoinType(JoinType.LEFT);
@@ -316,6 +329,58 @@ public class SelectSubPlanAssembler extends SubPlanAssembler {
         return retval;
     }
 
+    /**
+     * Returns true if the planner is allowed to use HashJoinPlanNodes.
+     * This is off unless HStoreConf's global.compiler_hash_join is enabled.
+     * @return
+     */
+    static boolean isHashJoinEnabled() {
+        return (HStoreConf.isInitialized() && HStoreConf.singleton().global.compiler_hash_join);
+    }
+
+    /**
+     * Returns true if one of the join clauses is an equality between a column of the
+     * given table and a column of another table that the EE can use as a hash join key.
+     * The two columns must either have the same type or both be integers, since the
+     * EE only hashes integers of different widths the same way.
+     * @param table
+     * @param joinClauses
+     * @return
+     */
+    static boolean hasHashableJoinClause(Table table, List<AbstractExpression> joinClauses) {
+        if (joinClauses == null) return (false);
+        for (AbstractExpression expr : joinClauses) {
+            if (expr.getExpressionType() != ExpressionType.COMPARE_EQUAL) continue;
+            if ((expr.getLeft() instanceof TupleValueExpression) == false ||
+                (expr.getRight() instanceof TupleValueExpression) == false) continue;
+
+            TupleValueExpression left = (TupleValueExpression)expr.getLeft();
+            TupleValueExpression right = (TupleValueExpression)expr.getRight();
+            boolean leftMatch = table.getTypeName().equals(left.getTableName());
+            boolean rightMatch = table.getTypeName().equals(right.getTableName());
+            if (leftMatch == rightMatch) continue;
+
+            VoltType leftType = left.getValueType();
+            VoltType rightType = right.getValueType();
+            if (leftType == rightType || (isIntegerType(leftType) && isIntegerType(rightType))) {
+                return (true);
+            }
+        } // FOR
+        return (false);
+    }
+
+    private static boolean isIntegerType(VoltType type) {
+        switch (type) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return (true);
+            default:
+                return (false);
+        } // SWITCH
+    }
+
     /**
      * For each table in the list, compute the set of all valid access paths that will get
      * tuples that match the right predicate (assuming there is a predicate).
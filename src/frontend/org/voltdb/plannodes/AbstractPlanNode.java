@@ -70,7 +70,7 @@ public abstract class AbstractPlanNode implements JSONString, Cloneable, Compara
      * certain additional tasks while performing their main operation, rather than
      * having to re-read tuples from intermediate results
      */
-    protected Map<PlanNodeType, AbstractPlanNode> m_inlineNodes = new HashMap<PlanNodeType, AbstractPlanNode>();
+    protected Map<PlanNodeType, AbstractPlanNode> m_inlineNodes = new EnumMap<PlanNodeType, AbstractPlanNode>(PlanNodeType.class);
     protected boolean m_isInline = false;
 
     protected final PlannerContext m_context;
@@ -118,7 +118,7 @@ public abstract class AbstractPlanNode implements JSONString, Cloneable, Compara
         clone.m_childrenIds = new ArrayList<Integer>();
         clone.m_outputColumns = new ArrayList<Integer>(m_outputColumns);
         clone.m_outputColumnHints = new ArrayList<ScalarValueHints>(m_outputColumnHints);
-        clone.m_inlineNodes = new HashMap<PlanNodeType, AbstractPlanNode>();
+        clone.m_inlineNodes = new EnumMap<PlanNodeType, AbstractPlanNode>(PlanNodeType.class);
         
         // Clone Children
         if (clone_children) {
@@ -0,0 +1,151 @@
+package org.voltdb.plannodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONStringer;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Cluster;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.ScalarValueHints;
+import org.voltdb.expressions.TupleValueExpression;
+import org.voltdb.planner.PlanAssembler;
+import org.voltdb.planner.PlanColumn;
+import org.voltdb.planner.PlanStatistics;
+import org.voltdb.planner.PlannerContext;
+import org.voltdb.types.PlanNodeType;
+
+/**
+ * Semi-join reduction for distributed joins.
+ * <ul>
+ * <li><b>Build:</b> Hashes the key columns of every tuple from its child into a Bloom
+ * filter and outputs the filter as NUM_WORDS rows with a single BIGINT column.
+ * <li><b>Probe:</b> The first child produces the tuples to filter and the second child
+ * is a RECEIVE of the filters that were built at every partition. Only the tuples from
+ * the first child whose key columns may be in one of the filters are passed along.
+ * </ul>
+ * The keys on both sides must be listed in the same order.
+ */
+public class BloomFilterPlanNode extends AbstractPlanNode {
+
+    public enum Members {
+        BUILD,
+        NUM_WORDS,
+        KEY_COLUMN_GUIDS;
+    }
+
+    /**
+     * The default number of 64-bit words in each filter (16384 bits)
+     */
+    public static final int DEFAULT_NUM_WORDS = 256;
+
+    public static final String FILTER_COLUMN_NAME = "BLOOM_FILTER";
+
+    /**
+     * The fraction of the probed tuples that we expect to make it through the filter.
+     * We don't have selectivity estimates for the build side's predicates, so this is
+     * only a guess. Without it the cost model would always pick the plan without the
+     * filter, since the filter's own scan is the only thing that it would see.
+     */
+    public static final double ESTIMATED_PROBE_SELECTIVITY = 0.1;
+
+    private boolean m_build;
+    private int m_numWords = DEFAULT_NUM_WORDS;
+    private List<Integer> m_keyColumnGuids = new ArrayList<Integer>();
+
+    public BloomFilterPlanNode(PlannerContext context, Integer id) {
+        super(context, id);
+    }
+
+    @Override
+    public PlanNodeType getPlanNodeType() {
+        return PlanNodeType.BLOOMFILTER;
+    }
+
+    public boolean isBuild() {
+        return m_build;
+    }
+
+    public void setBuild(boolean build) {
+        m_build = build;
+    }
+
+    public int getNumWords() {
+        return m_numWords;
+    }
+
+    public void setNumWords(int numWords) {
+        m_numWords = numWords;
+    }
+
+    /**
+     * The PlanColumn GUIDs of the key columns in the output of our first child
+     */
+    public List<Integer> getKeyColumnGuids() {
+        return m_keyColumnGuids;
+    }
+
+    @Override
+    protected ArrayList<Integer> createOutputColumns(Database db, ArrayList<Integer> input) {
+        if (m_build) {
+            // We always output the same filter column, so don't make a new one
+            // every time that the planner recalculates our output columns
+            if (m_outputColumns.size() == 1) {
+                return new ArrayList<Integer>(m_outputColumns);
+            }
+            TupleValueExpression tve = new TupleValueExpression();
+            tve.setValueType(VoltType.BIGINT);
+            tve.setValueSize(VoltType.BIGINT.getLengthInBytesForFixedTypes());
+            tve.setTableName(PlanAssembler.AGGREGATE_TEMP_TABLE);
+            tve.setColumnName(FILTER_COLUMN_NAME);
+            tve.setColumnAlias(FILTER_COLUMN_NAME);
+            tve.setColumnIndex(0);
+            PlanColumn col = m_context.getPlanColumn(tve, FILTER_COLUMN_NAME);
+            ArrayList<Integer> output = new ArrayList<Integer>();
+            output.add(col.guid());
+            return output;
+        }
+        // The filters from our second child never make it into our output
+        assert(m_children.size() == 2);
+        return new ArrayList<Integer>(m_children.get(0).getOutputColumnGUIDs());
+    }
+
+    @Override
+    public boolean computeEstimatesRecursively(PlanStatistics stats, Cluster cluster, Database db, DatabaseEstimates estimates, ScalarValueHints[] paramHints) {
+        boolean result = super.computeEstimatesRecursively(stats, cluster, db, estimates, paramHints);
+        if (m_build) {
+            m_estimatedOutputTupleCount = m_numWords;
+        } else {
+            long input = m_children.get(0).m_estimatedOutputTupleCount;
+            m_estimatedOutputTupleCount = (long)Math.ceil(input * ESTIMATED_PROBE_SELECTIVITY);
+        }
+        return result;
+    }
+
+    @Override
+    public void toJSONString(JSONStringer stringer) throws JSONException {
+        super.toJSONString(stringer);
+        stringer.key(Members.BUILD.name()).value(m_build);
+        stringer.key(Members.NUM_WORDS.name()).value(m_numWords);
+        stringer.key(Members.KEY_COLUMN_GUIDS.name()).array();
+        for (Integer guid : m_keyColumnGuids) {
+            stringer.value(guid);
+        }
+        stringer.endArray();
+    }
+
+    @Override
+    protected void loadFromJSONObject(JSONObject obj, Database db) throws JSONException {
+        m_build = obj.getBoolean(Members.BUILD.name());
+        m_numWords = obj.getInt(Members.NUM_WORDS.name());
+        m_keyColumnGuids.clear();
+        JSONArray jsonKeys = obj.getJSONArray(Members.KEY_COLUMN_GUIDS.name());
+        for (int i = 0, cnt = jsonKeys.length(); i < cnt; i++) {
+            m_keyColumnGuids.add(jsonKeys.getInt(i));
+        }
+    }
+}
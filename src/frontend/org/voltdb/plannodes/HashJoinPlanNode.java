@@ -0,0 +1,22 @@
+package org.voltdb.plannodes;
+
+import org.voltdb.planner.PlannerContext;
+import org.voltdb.types.PlanNodeType;
+
+/**
+ * Plan node representing a NestLoop join where the predicate has at least one
+ * equality between a column of the outer table and a column of the inner table.
+ * The EE builds a hash table on the inner table using those columns and then probes
+ * it with every outer tuple. The node is serialized exactly like a NestLoopPlanNode,
+ * since the EE finds the join keys by looking at the predicate.
+ */
+public class HashJoinPlanNode extends NestLoopPlanNode {
+    public HashJoinPlanNode(PlannerContext context, Integer id) {
+        super(context, id);
+    }
+
+    @Override
+    public PlanNodeType getPlanNodeType() {
+        return PlanNodeType.HASHJOIN;
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.voltdb.sysprocs;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,8 @@ import org.voltdb.VoltSystemProcedure;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
 import org.voltdb.dtxn.DtxnConstants;
+import org.voltdb.exceptions.ServerFaultException;
+import org.voltdb.messaging.FastDeserializer;
 
 import edu.brown.hstore.PartitionExecutor.SystemProcedureExecutionContext;
 
@@ -49,10 +52,11 @@ public class AdHoc extends VoltSystemProcedure {
 
     @Override
     public DependencySet executePlanFragment(Long txn_id, Map<Integer, List<VoltTable>> dependencies, int fragmentId, ParameterSet params, SystemProcedureExecutionContext context) {
-        // get the three params (depId, json plan, sql stmt)
+        // get the four params (depId, json plan, sql stmt, serialized stmt params)
         int outputDepId = (Integer) params.toArray()[0];
         String plan = (String) params.toArray()[1];
         String sql = (String) params.toArray()[2];
+        byte serializedParams[] = (byte[]) params.toArray()[3];
         int inputDepId = -1;
 
         // make dependency ids available to the execution engine
@@ -80,8 +84,15 @@ public class AdHoc extends VoltSystemProcedure {
             m_currentTxnState.markExecNotReadOnly(this.partitionId);
             m_currentTxnState.markExecutedWork(this.partitionId);
             
+            ParameterSet stmtParams = null;
+            try {
+                FastDeserializer fds = new FastDeserializer(serializedParams);
+                stmtParams = fds.readObject(ParameterSet.class);
+            } catch (IOException ex) {
+                throw new ServerFaultException("Failed to deserialize ad hoc parameters for " + sql, ex);
+            }
             table = context.getExecutionEngine().
-                executeCustomPlanFragment(plan, outputDepId, inputDepId, getTransactionId(),
+                executeCustomPlanFragment(plan, outputDepId, inputDepId, stmtParams, getTransactionId(),
                                           context.getLastCommittedTxnId(),
                                           m_currentTxnState.getLastUndoToken(this.partitionId));
         }
@@ -100,6 +111,8 @@ public class AdHoc extends VoltSystemProcedure {
      * @param collectorFragment           Internal.
      * @param sql                         User provided SQL statement.
      * @param isReplicatedTableDML        Internal.
+     * @param serializedParams            Internal. Literals of the SQL statement
+     *                                    if the fragments are a cached parameterized plan.
      * @return The result of the user's query. If the user's SQL statement was
      * a DML query, a table with a single untitled column is returned containing
      * a single {@link org.voltdb.VoltType#BIGINT} row value: the number of tuples
@@ -107,7 +120,7 @@ public class AdHoc extends VoltSystemProcedure {
      * procedure.
      */
     public VoltTable[] run(String aggregatorFragment, String collectorFragment,
-                           String sql, int isReplicatedTableDML) {
+                           String sql, int isReplicatedTableDML, byte[] serializedParams) {
 
         boolean replicatedTableDML = isReplicatedTableDML == 1;
 
@@ -123,7 +136,7 @@ public class AdHoc extends VoltSystemProcedure {
             pfs[0].outputDependencyIds = new int[]{ AGG_DEPID };
             pfs[0].multipartition = false;
             params = new ParameterSet();
-            params.setParameters(AGG_DEPID, "", sql);
+            params.setParameters(AGG_DEPID, "", sql, serializedParams);
             pfs[0].parameters = params;
         }
         else {
@@ -138,7 +151,7 @@ public class AdHoc extends VoltSystemProcedure {
                 pfs[1].outputDependencyIds = new int[]{ COLLECT_DEPID };
                 pfs[1].multipartition = true;
                 params = new ParameterSet();
-                params.setParameters(COLLECT_DEPID, collectorFragment, sql);
+                params.setParameters(COLLECT_DEPID, collectorFragment, sql, serializedParams);
                 pfs[1].parameters = params;
             }
             else {
@@ -153,7 +166,7 @@ public class AdHoc extends VoltSystemProcedure {
                 pfs[0].inputDependencyIds = new int[] { COLLECT_DEPID };
             pfs[0].multipartition = false;
             params = new ParameterSet();
-            params.setParameters(AGG_DEPID, aggregatorFragment, sql);
+            params.setParameters(AGG_DEPID, aggregatorFragment, sql, serializedParams);
             pfs[0].parameters = params;
         }
 
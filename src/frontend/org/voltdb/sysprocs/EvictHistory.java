@@ -29,7 +29,7 @@ public class EvictHistory extends VoltSystemProcedure {
     private static final Logger LOG = Logger.getLogger(EvictHistory.class);
     private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
 
-    private static final ColumnInfo ResultsColumns[] = {
+    static final ColumnInfo ResultsColumns[] = {
         new ColumnInfo(VoltSystemProcedure.CNAME_HOST_ID, VoltSystemProcedure.CTYPE_ID),
         new ColumnInfo("HOSTNAME", VoltType.STRING),
         new ColumnInfo("PARTITION", VoltType.INTEGER),
@@ -37,6 +37,12 @@ public class EvictHistory extends VoltSystemProcedure {
         new ColumnInfo("STOP", VoltType.TIMESTAMP),
     };
     
+    /** Every partition sorts its history on START so the coordinator only has to merge them */
+    @SuppressWarnings("unchecked")
+    private static final Pair<Integer, SortDirectionType> SortColumns[] = new Pair[] {
+        Pair.of(3, SortDirectionType.ASC)
+    };
+    
     private static final int DISTRIBUTE_ID = SysProcFragmentId.PF_anitCacheHistoryDistribute;
     private static final int AGGREGATE_ID = SysProcFragmentId.PF_anitCacheHistoryAggregate;
 
@@ -68,7 +74,7 @@ public class EvictHistory extends VoltSystemProcedure {
                     };
                     vt.addRow(row);
                 } // FOR
-                result = new DependencySet(DISTRIBUTE_ID, vt);
+                result = new DependencySet(DISTRIBUTE_ID, VoltTableUtil.sort(vt, SortColumns));
                 if (debug.val)
                     LOG.info(String.format("%s - Sending back result for partition %d",
                              m_localTxnState, this.executor.getPartitionId()));
@@ -81,10 +87,7 @@ public class EvictHistory extends VoltSystemProcedure {
                     String msg = "Missing site results";
                     throw new ServerFaultException(msg, txn_id);
                 }
-                
-                Pair<Integer, SortDirectionType> sortCol = Pair.of(3, SortDirectionType.ASC);
-                @SuppressWarnings("unchecked")
-                VoltTable vt = VoltTableUtil.sort(VoltTableUtil.union(siteResults), sortCol);
+                VoltTable vt = VoltTableUtil.merge(siteResults, SortColumns);
                 result = new DependencySet(AGGREGATE_ID, vt);
                 break;
             default:
@@ -0,0 +1,100 @@
+package org.voltdb.sysprocs;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.voltdb.DependencySet;
+import org.voltdb.ParameterSet;
+import org.voltdb.ProcInfo;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.catalog.Table;
+
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.hstore.PartitionExecutor;
+import edu.brown.logging.LoggerUtil;
+import edu.brown.logging.LoggerUtil.LoggerBoolean;
+
+/**
+ * Load a VoltTable whose rows all belong to a single partition of a partitioned table.
+ * Unlike @LoadMultipartitionTable, this only locks the partition that it is loading,
+ * so the client has to split up the rows ahead of time. Every row is checked against
+ * the table's partitioning column before anything is loaded.
+ * @see org.voltdb.client.BulkLoader
+ */
+@ProcInfo(
+    partitionParam = 0,
+    singlePartition = true
+)
+public class LoadPartitionTable extends VoltSystemProcedure {
+    private static final Logger LOG = Logger.getLogger(LoadPartitionTable.class);
+    private static final LoggerBoolean debug = new LoggerBoolean(LOG.isDebugEnabled());
+    private static final LoggerBoolean trace = new LoggerBoolean(LOG.isTraceEnabled());
+    static {
+        LoggerUtil.attachObserver(LOG, debug, trace);
+    }
+
+    @Override
+    public void initImpl() {
+        executor.registerPlanFragment(SysProcFragmentId.PF_loadPartition, this);
+    }
+
+    @Override
+    public DependencySet executePlanFragment(Long txn_id,
+                                             Map<Integer, List<VoltTable>> dependencies,
+                                             int fragmentId,
+                                             ParameterSet params,
+                                             PartitionExecutor.SystemProcedureExecutionContext context) {
+        assert(fragmentId == SysProcFragmentId.PF_loadPartition);
+        throw new IllegalAccessError("Invalid invocation of " + this.getClass() + ".executePlanFragment()");
+    }
+
+    public VoltTable[] run(int partition, String tableName, VoltTable table) throws VoltAbortException {
+        assert(table != null) : "VoltTable to be loaded into " + tableName + " is null in txn #" + this.getTransactionId();
+
+        Table catalog_tbl = catalogContext.database.getTables().getIgnoreCase(tableName);
+        if (catalog_tbl == null) {
+            throw new VoltAbortException("Table '" + tableName + "' does not exist");
+        }
+        else if (catalog_tbl.getIsreplicated()) {
+            throw new VoltAbortException("Replicated table '" + tableName + "' has to be loaded with " +
+                                         VoltSystemProcedure.procCallName(LoadMultipartitionTable.class));
+        }
+        else if (CatalogUtil.getVerticalPartition(catalog_tbl) != null) {
+            throw new VoltAbortException("Table '" + tableName + "' has a vertical partition and has to be loaded with " +
+                                         VoltSystemProcedure.procCallName(LoadMultipartitionTable.class));
+        }
+        else if (partition != this.partitionId) {
+            throw new VoltAbortException(String.format("Request to load table '%s' at partition %d was sent to partition %d",
+                                                       tableName, partition, this.partitionId));
+        }
+
+        // Make sure that the client split up the rows the same way that we would
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            int p = -1;
+            try {
+                p = this.p_estimator.getTableRowPartition(catalog_tbl, table);
+            } catch (Exception ex) {
+                throw new VoltAbortException("Failed to calculate partition for " + tableName + " tuple: " + ex.getMessage());
+            }
+            if (p != this.partitionId) {
+                throw new VoltAbortException(String.format("Tuple #%d for table '%s' belongs to partition %d, not %d",
+                                                           table.getActiveRowIndex(), tableName, p, this.partitionId));
+            }
+        } // WHILE
+        table.resetRowPosition();
+
+        if (debug.val)
+            LOG.debug(String.format("Loading %d tuples for table '%s' at partition %d in txn #%d",
+                      table.getRowCount(), tableName, this.partitionId, this.getTransactionId()));
+        super.voltLoadTable(catalogContext.cluster.getName(), catalogContext.database.getName(),
+                            tableName, table, 0);
+
+        VoltTable result = new VoltTable(new VoltTable.ColumnInfo("TxnId", VoltType.BIGINT));
+        result.addRow(this.getTransactionId());
+        return new VoltTable[]{ result };
+    }
+}
@@ -19,6 +19,7 @@ package org.voltdb.sysprocs;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -83,39 +84,11 @@ public class SnapshotDelete extends VoltSystemProcedure {
                 assert(((String[])params.toArray()[1]).length > 0);
                 assert(((String[])params.toArray()[0]).length == ((String[])params.toArray()[1]).length);
 
-                final String paths[] = (String[])params.toArray()[0];
-                final String nonces[] = (String[])params.toArray()[1];
-                for (int ii = 0; ii < paths.length; ii++) {
-                    List<File> relevantFiles = retrieveRelevantFiles(paths[ii], nonces[ii]);
-                    if (relevantFiles == null) {
-                        result.addRow(
-                                      Integer.parseInt(context.getSite().getHost().getTypeName()),
-                                      hostname,
-                                      paths[ii],
-                                      nonces[ii],
-                                      "",
-                                      0,
-                                      "FALSE",
-                                      "FAILURE",
-                                      errorString);
-                    } else {
-                        for (final File f : relevantFiles) {
-                            long size = f.length();
-                            boolean deleted = f.delete();
-                            result.addRow(
-                                          Integer.parseInt(context.getSite().getHost().getTypeName()),
-                                          hostname,
-                                          paths[ii],
-                                          nonces[ii],
-                                          f.getName(),
-                                          size,
-                                          deleted ? "TRUE": "FALSE",
-                                                  "SUCESS",
-                            "");
-
-                        }
-                    }
-                }
+                deleteSnapshots((String[])params.toArray()[0],
+                                (String[])params.toArray()[1],
+                                Integer.parseInt(context.getSite().getHost().getTypeName()),
+                                hostname,
+                                result);
             }
 
             return new DependencySet( DEP_snapshotDelete, result);
@@ -138,7 +111,69 @@ public class SnapshotDelete extends VoltSystemProcedure {
         return null;
     }
 
-    private VoltTable constructFragmentResultsTable() {
+    /**
+     * Delete the files of the provided snapshots on this host along with every delta
+     * snapshot that depends on one of them. Adds a row to result for every file.
+     */
+    void deleteSnapshots(String requestedPaths[],
+                         String requestedNonces[],
+                         int hostId,
+                         String hostname,
+                         VoltTable result)
+    {
+        /*
+         * Delta snapshots taken against a deleted snapshot can't be restored
+         * anymore so they are deleted along with it.
+         */
+        final ArrayList<String> pathList = new ArrayList<String>();
+        final ArrayList<String> nonceList = new ArrayList<String>();
+        for (int ii = 0; ii < requestedPaths.length; ii++) {
+            pathList.add(requestedPaths[ii]);
+            nonceList.add(requestedNonces[ii]);
+            final File dir = new File(requestedPaths[ii]);
+            if (!dir.isDirectory()) {
+                continue;
+            }
+            final String nonce = requestedNonces[ii].substring(0, requestedNonces[ii].lastIndexOf('-'));
+            for (String descendant : SnapshotUtil.retrieveDeltaDescendants(dir, nonce)) {
+                LOG.info("Deleting delta snapshot " + descendant + " that depends on " + nonce);
+                pathList.add(requestedPaths[ii]);
+                nonceList.add(descendant + "-");
+            }
+        }
+        final String paths[] = pathList.toArray(new String[0]);
+        final String nonces[] = nonceList.toArray(new String[0]);
+        for (int ii = 0; ii < paths.length; ii++) {
+            List<File> relevantFiles = retrieveRelevantFiles(paths[ii], nonces[ii]);
+            if (relevantFiles == null) {
+                result.addRow(hostId,
+                              hostname,
+                              paths[ii],
+                              nonces[ii],
+                              "",
+                              0,
+                              "FALSE",
+                              "FAILURE",
+                              errorString);
+            } else {
+                for (final File f : relevantFiles) {
+                    long size = f.length();
+                    boolean deleted = f.delete();
+                    result.addRow(hostId,
+                                  hostname,
+                                  paths[ii],
+                                  nonces[ii],
+                                  f.getName(),
+                                  size,
+                                  deleted ? "TRUE": "FALSE",
+                                  "SUCESS",
+                                  "");
+                }
+            }
+        }
+    }
+
+    static VoltTable constructFragmentResultsTable() {
 
         ColumnInfo[] result_columns = new ColumnInfo[9];
         int ii = 0;
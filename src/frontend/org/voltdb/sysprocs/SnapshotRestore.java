@@ -55,6 +55,7 @@ import org.voltdb.sysprocs.saverestore.ClusterSaveFileState;
 import org.voltdb.sysprocs.saverestore.SavedTableConverter;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
 import org.voltdb.sysprocs.saverestore.TableSaveFile;
+import org.voltdb.sysprocs.saverestore.TableSaveFileChain;
 import org.voltdb.sysprocs.saverestore.TableSaveFileState;
 import org.voltdb.utils.DBBPool.BBContainer;
 
@@ -693,6 +694,15 @@ public class SnapshotRestore extends VoltSystemProcedure
                     savefile_input.getChannel(),
                     readAheadChunks,
                     relevantPartitionIds);
+        /*
+         * A delta only has the blocks that changed since its parent was taken,
+         * restore it together with the rest of its chain.
+         */
+        if (savefile.isDelta()) {
+            savefile.close();
+            savefile_input.close();
+            savefile = new TableSaveFileChain(saveFile, readAheadChunks, relevantPartitionIds);
+        }
         return savefile;
     }
 
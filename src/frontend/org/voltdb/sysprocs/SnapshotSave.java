@@ -48,13 +48,13 @@ public class SnapshotSave extends VoltSystemProcedure
 {
     private static final Logger LOG = Logger.getLogger(SnapshotSave.class);
 
-    private static final int DEP_saveTest = (int)
+    static final int DEP_saveTest = (int)
         SysProcFragmentId.PF_saveTest | DtxnConstants.MULTIPARTITION_DEPENDENCY;
-    private static final int DEP_saveTestResults = (int)
+    static final int DEP_saveTestResults = (int)
         SysProcFragmentId.PF_saveTestResults;
-    private static final int DEP_createSnapshotTargets = (int)
+    static final int DEP_createSnapshotTargets = (int)
         SysProcFragmentId.PF_createSnapshotTargets | DtxnConstants.MULTIPARTITION_DEPENDENCY;
-    private static final int DEP_createSnapshotTargetsResults = (int)
+    static final int DEP_createSnapshotTargetsResults = (int)
         SysProcFragmentId.PF_createSnapshotTargetsResults;
 
     public static final ColumnInfo nodeResultsColumns[] =
@@ -125,8 +125,12 @@ public class SnapshotSave extends VoltSystemProcedure
             final String file_nonce = (String) params.toArray()[1];
             final long startTime = (Long)params.toArray()[2];
             byte block = (Byte)params.toArray()[3];
+            // Only present when invoked by @SnapshotSaveDelta
+            final String parent_nonce =
+                (params.toArray().length > 4 ? (String) params.toArray()[4] : null);
             SnapshotSaveAPI saveAPI = new SnapshotSaveAPI();
-            VoltTable result = saveAPI.startSnapshotting(file_path, file_nonce, block, startTime, context, hostname);
+            VoltTable result = saveAPI.startSnapshotting(file_path, file_nonce, parent_nonce, block,
+                                                         startTime, context, hostname);
             return new DependencySet(SnapshotSave.DEP_createSnapshotTargets, result);
         }
         else if (fragmentId == SysProcFragmentId.PF_createSnapshotTargetsResults)
@@ -0,0 +1,174 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2010 VoltDB Inc.
+ *
+ * VoltDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VoltDB is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.voltdb.DependencySet;
+import org.voltdb.ParameterSet;
+import org.voltdb.ProcInfo;
+import org.voltdb.SnapshotSiteProcessor;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+import edu.brown.hstore.PartitionExecutor.SystemProcedureExecutionContext;
+
+/**
+ * Take an incremental snapshot that only contains the table blocks modified since
+ * the snapshot identified by parentNonce was taken. An empty parentNonce takes the
+ * base of a new delta chain, which contains every block. @SnapshotRestore of a delta
+ * restores the whole chain back to its base.
+ *
+ * The plan fragments are the ones registered by @SnapshotSave, which picks up the
+ * parent nonce as an additional parameter of the create targets fragment.
+ */
+@ProcInfo(singlePartition = false)
+public class SnapshotSaveDelta extends VoltSystemProcedure
+{
+    private static final Logger LOG = Logger.getLogger(SnapshotSaveDelta.class);
+
+    @Override
+    public void initImpl() {
+        // Uses the fragments registered by SnapshotSave
+    }
+
+    @Override
+    public DependencySet
+    executePlanFragment(Long txn_id,
+                        Map<Integer, List<VoltTable>> dependencies,
+                        int fragmentId,
+                        ParameterSet params,
+                        SystemProcedureExecutionContext context)
+    {
+        assert (false);
+        return null;
+    }
+
+    private static VoltTable[] errorResult(String message) {
+        ColumnInfo[] result_columns = new ColumnInfo[1];
+        int ii = 0;
+        result_columns[ii++] = new ColumnInfo("ERR_MSG", VoltType.STRING);
+        VoltTable results[] = new VoltTable[] { new VoltTable(result_columns) };
+        results[0].addRow(message);
+        return results;
+    }
+
+    public VoltTable[] run(String path, String nonce, String parentNonce, long block) throws VoltAbortException
+    {
+        final long startTime = System.currentTimeMillis();
+        LOG.info("Saving delta of " + parentNonce + " to path: " + path + ", ID: " + nonce + " at " + startTime);
+
+        if (path == null || path.equals("")) {
+            return errorResult("Provided path was null or the empty string");
+        }
+        if (nonce == null || nonce.equals("")) {
+            return errorResult("Provided nonce was null or the empty string");
+        }
+        if (nonce.contains("-") || nonce.contains(",")) {
+            return errorResult("Provided nonce " + nonce + " contains a prohitibited character (- or ,)");
+        }
+        if (parentNonce == null) {
+            parentNonce = "";
+        }
+        if (parentNonce.equals(nonce)) {
+            return errorResult("Provided nonce " + nonce + " is the same as the parent nonce");
+        }
+
+        /*
+         * The EE only knows which blocks changed since its last delta stream. Once a delta
+         * was taken in this process the next one has to be taken against it or blocks would
+         * be missing from the chain.
+         */
+        final String lastDeltaNonce = SnapshotSiteProcessor.m_lastDeltaNonce;
+        if (!parentNonce.equals("") && lastDeltaNonce != null && !lastDeltaNonce.equals(parentNonce)) {
+            return errorResult("Provided parent nonce " + parentNonce +
+                               " is not the last delta snapshot " + lastDeltaNonce);
+        }
+
+        // See if we think the save will succeed
+        VoltTable[] results = performSaveFeasibilityWork(path, nonce);
+        while (results[0].advanceRow())
+        {
+            if (results[0].getString("RESULT").equals("FAILURE"))
+            {
+                return results;
+            }
+        }
+
+        results = performSnapshotCreationWork(path, nonce, parentNonce, startTime, (byte)block);
+
+        final long duration = System.currentTimeMillis() - startTime;
+        LOG.info("Delta snapshot initiation took " + duration + " milliseconds");
+        return results;
+    }
+
+    private final VoltTable[] performSaveFeasibilityWork(String filePath,
+                                                         String fileNonce)
+    {
+        SynthesizedPlanFragment[] pfs = new SynthesizedPlanFragment[2];
+
+        pfs[0] = new SynthesizedPlanFragment();
+        pfs[0].fragmentId = SysProcFragmentId.PF_saveTest;
+        pfs[0].outputDependencyIds = new int[]{ SnapshotSave.DEP_saveTest };
+        pfs[0].inputDependencyIds = new int[] {};
+        pfs[0].multipartition = true;
+        ParameterSet params = new ParameterSet();
+        params.setParameters(filePath, fileNonce);
+        pfs[0].parameters = params;
+
+        pfs[1] = new SynthesizedPlanFragment();
+        pfs[1].fragmentId = SysProcFragmentId.PF_saveTestResults;
+        pfs[1].outputDependencyIds = new int[]{ SnapshotSave.DEP_saveTestResults };
+        pfs[1].inputDependencyIds = new int[] { SnapshotSave.DEP_saveTest };
+        pfs[1].multipartition = false;
+        pfs[1].parameters = new ParameterSet();
+
+        return executeSysProcPlanFragments(pfs, SnapshotSave.DEP_saveTestResults);
+    }
+
+    private final VoltTable[] performSnapshotCreationWork(String filePath,
+            String fileNonce,
+            String parentNonce,
+            long startTime,
+            byte block)
+    {
+        SynthesizedPlanFragment[] pfs = new SynthesizedPlanFragment[2];
+
+        pfs[0] = new SynthesizedPlanFragment();
+        pfs[0].fragmentId = SysProcFragmentId.PF_createSnapshotTargets;
+        pfs[0].outputDependencyIds = new int[]{ SnapshotSave.DEP_createSnapshotTargets };
+        pfs[0].inputDependencyIds = new int[] {};
+        pfs[0].multipartition = true;
+        ParameterSet params = new ParameterSet();
+        params.setParameters(filePath, fileNonce, startTime, block, parentNonce);
+        pfs[0].parameters = params;
+
+        pfs[1] = new SynthesizedPlanFragment();
+        pfs[1].fragmentId = SysProcFragmentId.PF_createSnapshotTargetsResults;
+        pfs[1].outputDependencyIds = new int[]{ SnapshotSave.DEP_createSnapshotTargetsResults };
+        pfs[1].inputDependencyIds = new int[] { SnapshotSave.DEP_createSnapshotTargets };
+        pfs[1].multipartition = false;
+        pfs[1].parameters = new ParameterSet();
+
+        return executeSysProcPlanFragments(pfs, SnapshotSave.DEP_createSnapshotTargetsResults);
+    }
+}
@@ -118,7 +118,8 @@ public class SnapshotScan extends VoltSystemProcedure {
                                    0,
                                    "",
                                    "FAILURE",
-                                   errorString);
+                                   errorString,
+                                   "");
                 } else {
                     for (final File f : relevantFiles) {
                         if (f.getName().endsWith(".digest")) {
@@ -157,7 +158,8 @@ public class SnapshotScan extends VoltSystemProcedure {
                                                                                                    savefile.getTotalPartitions(),
                                                                                                    f.canRead() ? "TRUE" : "FALSE",
                                                                                                                "SUCCESS",
-                                                                                                               ""
+                                                                                                               "",
+                                                   savefile.isDelta() ? savefile.getParentNonce() : ""
                                     );
                                 } catch (IOException e) {
                                     LOG.warn(e);
@@ -182,6 +184,7 @@ public class SnapshotScan extends VoltSystemProcedure {
                                            -1,
                                            f.canRead() ? "TRUE" : "FALSE",
                                                        "SUCCESS",
+                                                       "",
                                                        ""
                             );
                         }
@@ -333,8 +336,8 @@ public class SnapshotScan extends VoltSystemProcedure {
         return null;
     }
 
-    private VoltTable constructFragmentResultsTable() {
-        ColumnInfo[] result_columns = new ColumnInfo[14];
+    static VoltTable constructFragmentResultsTable() {
+        ColumnInfo[] result_columns = new ColumnInfo[15];
         int ii = 0;
         result_columns[ii++] = new ColumnInfo(CNAME_HOST_ID, CTYPE_ID);
         result_columns[ii++] = new ColumnInfo("HOSTNAME", VoltType.STRING);
@@ -350,11 +353,12 @@ public class SnapshotScan extends VoltSystemProcedure {
         result_columns[ii++] = new ColumnInfo("READABLE", VoltType.STRING);
         result_columns[ii++] = new ColumnInfo("RESULT", VoltType.STRING);
         result_columns[ii++] = new ColumnInfo("ERR_MSG", VoltType.STRING);
+        result_columns[ii++] = new ColumnInfo("PARENT_NONCE", VoltType.STRING);
 
         return new VoltTable(result_columns);
     }
 
-    private VoltTable constructDigestResultsTable() {
+    static VoltTable constructDigestResultsTable() {
         ColumnInfo[] result_columns = new ColumnInfo[6];
         int ii = 0;
         result_columns[ii++] = new ColumnInfo(CNAME_HOST_ID, CTYPE_ID);
@@ -375,10 +379,12 @@ public class SnapshotScan extends VoltSystemProcedure {
             new ColumnInfo("TABLES_REQUIRED", VoltType.STRING),
             new ColumnInfo("TABLES_MISSING", VoltType.STRING),
             new ColumnInfo("TABLES_INCOMPLETE", VoltType.STRING),
-            new ColumnInfo("COMPLETE", VoltType.STRING)
+            new ColumnInfo("COMPLETE", VoltType.STRING),
+            // Nonce of the snapshot a delta snapshot was taken against, empty otherwise
+            new ColumnInfo("PARENT_NONCE", VoltType.STRING)
     };
 
-    private VoltTable constructClientResultsTable() {
+    private static VoltTable constructClientResultsTable() {
         return new VoltTable(clientColumnInfo);
     }
 
@@ -440,6 +446,7 @@ public class SnapshotScan extends VoltSystemProcedure {
         private final long m_createTime;
         private final String m_path;
         private final String m_nonce;
+        private final String m_parentNonce;
         private final TreeMap<String, Table> m_tables = new TreeMap<String, Table>();
         private final HashSet<String> m_tableDigest = new HashSet<String>();
 
@@ -452,6 +459,7 @@ public class SnapshotScan extends VoltSystemProcedure {
             m_tables.put( t.m_name, t);
             m_nonce = r.getString("NAME").substring(0, r.getString("NAME").indexOf('-'));
             m_path = r.getString("PATH");
+            m_parentNonce = r.getString("PARENT_NONCE");
         }
 
         private void processRow(VoltTableRow r) {
@@ -523,7 +531,7 @@ public class SnapshotScan extends VoltSystemProcedure {
             return sb.toString();
         }
 
-        private String complete() {
+        private boolean complete() {
             boolean complete = true;
             for (Table t : m_tables.values()) {
                 if (!t.complete()) {
@@ -536,11 +544,29 @@ public class SnapshotScan extends VoltSystemProcedure {
                     complete = false;
                 }
             }
-            return complete ? "TRUE" : "FALSE";
+            return complete;
         }
 
-        private Object[] asRow() {
-            Object row[] = new Object[8];
+        /**
+         * A delta can only be restored if every snapshot back to the base of its chain is complete
+         */
+        private boolean chainComplete(HashMap<String, Snapshot> aggregates) {
+            final HashSet<String> visited = new HashSet<String>();
+            Snapshot s = this;
+            while (s.complete() && visited.add(s.m_nonce)) {
+                if (s.m_parentNonce.equals("")) {
+                    return true;
+                }
+                s = aggregates.get(s.m_path + s.m_parentNonce);
+                if (s == null) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private Object[] asRow(HashMap<String, Snapshot> aggregates) {
+            Object row[] = new Object[9];
             int ii = 0;
             row[ii++] = m_path;
             row[ii++] = m_nonce;
@@ -549,12 +575,13 @@ public class SnapshotScan extends VoltSystemProcedure {
             row[ii++] = tablesRequired();
             row[ii++] = tablesMissing();
             row[ii++] = tablesIncomplete();
-            row[ii++] = complete();
+            row[ii++] = chainComplete(aggregates) ? "TRUE" : "FALSE";
+            row[ii++] = m_parentNonce;
             return row;
         }
     }
 
-    private void hashToSnapshot(VoltTableRow r, HashMap<String, Snapshot> aggregates) {
+    private static void hashToSnapshot(VoltTableRow r, HashMap<String, Snapshot> aggregates) {
         assert(r.getString("RESULT").equals("SUCCESS"));
         assert("TRUE".equals(r.getString("READABLE")));
         final String path = r.getString("PATH");
@@ -572,7 +599,7 @@ public class SnapshotScan extends VoltSystemProcedure {
         }
     }
 
-    private void hashDigestToSnapshot(VoltTableRow r, HashMap<String, Snapshot> aggregates) {
+    private static void hashDigestToSnapshot(VoltTableRow r, HashMap<String, Snapshot> aggregates) {
         assert(r.getString("RESULT").equals("SUCCESS"));
         final String path = r.getString("PATH");
         final String nonce = r.getString("NAME").substring(0, r.getString("NAME").indexOf(".digest"));
@@ -598,9 +625,22 @@ public class SnapshotScan extends VoltSystemProcedure {
         }
 
         VoltTable scanResults = performSnapshotScanWork(path)[0];
-        VoltTable clientResults = constructClientResultsTable();
         VoltTable diskFreeResults = performDiskFreeScanWork(path)[0];
         VoltTable digestScanResults = performSnapshotDigestScanWork(path)[0];
+        VoltTable clientResults = aggregateSnapshots(scanResults, digestScanResults);
+
+        final long endTime = System.currentTimeMillis();
+        final long duration = endTime -startTime;
+        LOG.info("Finished scanning snapshots. Took " + duration + " milliseconds");
+        return new VoltTable[] { clientResults, diskFreeResults, scanResults };
+    }
+
+    /**
+     * Combine the per-file scan results and the digest scan results into one client
+     * results row per snapshot
+     */
+    static VoltTable aggregateSnapshots(VoltTable scanResults, VoltTable digestScanResults) {
+        VoltTable clientResults = constructClientResultsTable();
         HashMap<String, Snapshot> aggregates = new HashMap<String, Snapshot>();
         while (scanResults.advanceRow())
         {
@@ -618,13 +658,9 @@ public class SnapshotScan extends VoltSystemProcedure {
         }
 
         for (Snapshot s : aggregates.values()) {
-            clientResults.addRow(s.asRow());
+            clientResults.addRow(s.asRow(aggregates));
         }
-
-        final long endTime = System.currentTimeMillis();
-        final long duration = endTime -startTime;
-        LOG.info("Finished scanning snapshots. Took " + duration + " milliseconds");
-        return new VoltTable[] { clientResults, diskFreeResults, scanResults };
+        return clientResults;
     }
 
     private final List<File> retrieveRelevantFiles(String filePath) {
@@ -99,6 +99,9 @@ public class SysProcFragmentId {
     public static final int PF_loadDistribute = 70;
     public static final int PF_loadAggregate = 71;
     
+    // @LoadPartitionTable
+    public static final int PF_loadPartition = 72;
+    
     // @SnapshotRestore
     public static final int PF_restoreScan = 80;
     public static final int PF_restoreScanResults = 81;
@@ -361,6 +361,61 @@ public class SnapshotUtil {
         }
     }
 
+    /**
+     * Find the nonces of the delta snapshots in the provided directory that were taken
+     * directly or indirectly against the provided nonce. Those can't be restored without it.
+     * @param directory
+     * @param nonce
+     */
+    public static Set<String> retrieveDeltaDescendants(File directory, String nonce) {
+        final HashMap<String, Set<String>> children = new HashMap<String, Set<String>>();
+        final File files[] = directory.listFiles();
+        if (files == null) {
+            return new HashSet<String>();
+        }
+        for (File f : files) {
+            if (!f.getName().endsWith(".vpt") || !f.canRead()) {
+                continue;
+            }
+            try {
+                FileInputStream fis = new FileInputStream(f);
+                try {
+                    TableSaveFile saveFile = new TableSaveFile(fis.getChannel(), 1, null, true);
+                    if (saveFile.isDelta() && !saveFile.getParentNonce().equals("")) {
+                        Set<String> c = children.get(saveFile.getParentNonce());
+                        if (c == null) {
+                            c = new HashSet<String>();
+                            children.put(saveFile.getParentNonce(), c);
+                        }
+                        c.add(saveFile.getNonce());
+                    }
+                    saveFile.close();
+                } finally {
+                    fis.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Error: Unable to process " + f.getPath() + ": " + e.getMessage());
+            }
+        }
+
+        final Set<String> descendants = new HashSet<String>();
+        final ArrayList<String> pending = new ArrayList<String>();
+        pending.add(nonce);
+        while (!pending.isEmpty()) {
+            final Set<String> c = children.get(pending.remove(pending.size() - 1));
+            if (c == null) {
+                continue;
+            }
+            for (String child : c) {
+                if (descendants.add(child)) {
+                    pending.add(child);
+                }
+            }
+        }
+        descendants.remove(nonce);
+        return descendants;
+    }
+
     /**
      * Returns a detailed report and a boolean indicating whether the snapshot can be successfully loaded
      * @param snapshotTime
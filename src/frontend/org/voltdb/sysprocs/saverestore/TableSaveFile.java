@@ -51,13 +51,31 @@ import org.voltdb.EELibraryLoader;
  *   The following fields are conditional on isReplicated == false
  * Partition Ids - Array of 4 octet integer ids for partitions in this file
  * Total Hosts - The number of hosts for this table when it was saved
+ *   The following fields are only present in delta snapshot files
+ * isDelta       - 1 octet, always true when present
+ * Nonce         - VoltDB serialized string, nonce of the snapshot
+ * Parent nonce  - VoltDB serialized string, nonce of the snapshot this is a
+ *                 delta of. Empty for the base of a delta chain
+ *
+ * Every chunk of a delta file holds the tuples of a single table block and
+ * has the block index and the table's block count in front of the trailing
+ * row count. The final chunk of every partition has a block index of -1.
  */
 public class TableSaveFile
 {
 
-    private static class Container extends BBContainer {
+    static class Container extends BBContainer {
         @SuppressWarnings("unused")
         private final BBContainer m_origin;
+
+        /**
+         * Chunk metadata. The block fields are only set for delta files.
+         */
+        int m_partitionId;
+        int m_blockIndex = -1;
+        int m_blockCount = -1;
+        int m_rowCount;
+
         Container(ByteBuffer b, long pointer, BBContainer origin) {
             super(b, pointer);
             m_origin = origin;
@@ -233,6 +251,15 @@ public class TableSaveFile
                     m_corruptedPartitions.add(0);
                 }
             }
+            if (fd.buffer().hasRemaining()) {
+                m_isDelta = fd.readBoolean();
+                m_nonce = fd.readString();
+                m_parentNonce = fd.readString();
+            } else {
+                m_isDelta = false;
+                m_nonce = null;
+                m_parentNonce = null;
+            }
             /*
              * Several runtime exceptions can be thrown in valid failure cases where
              * a corrupt save file is being detected.
@@ -297,6 +324,28 @@ public class TableSaveFile
         return m_createTime;
     }
 
+    /**
+     * @return true if this file was written by a delta snapshot
+     */
+    public boolean isDelta() {
+        return m_isDelta;
+    }
+
+    /**
+     * @return the nonce of the delta snapshot that wrote this file, or null for regular snapshots
+     */
+    public String getNonce() {
+        return m_nonce;
+    }
+
+    /**
+     * @return the nonce of the snapshot this delta applies to, an empty string for the base
+     * of a delta chain, or null for regular snapshots
+     */
+    public String getParentNonce() {
+        return m_parentNonce;
+    }
+
     public void close() throws IOException {
         if (m_chunkReaderThread != null) {
             m_chunkReaderThread.interrupt();
@@ -406,6 +455,9 @@ public class TableSaveFile
     private final int m_partitionIds[];
     private final int m_totalPartitions;
     private final long m_createTime;
+    private final boolean m_isDelta;
+    private final String m_nonce;
+    private final String m_parentNonce;
     private boolean m_hasMoreChunks = true;
     private static ConcurrentLinkedQueue<Container> m_buffers = new ConcurrentLinkedQueue<Container>();
     private final ArrayDeque<Container> m_availableChunks = new ArrayDeque<Container>();
@@ -600,7 +652,17 @@ public class TableSaveFile
                      */
                     boolean success = false;
                     try {
-                        c.b.limit(c.b.limit() - 4);
+                        c.m_partitionId = nextChunkPartitionId;
+                        c.m_rowCount = rowCount;
+                        if (m_isDelta) {
+                            c.m_blockIndex = c.b.getInt(c.b.limit() - 12);
+                            c.m_blockCount = c.b.getInt(c.b.limit() - 8);
+                            c.b.limit(c.b.limit() - 12);
+                        } else {
+                            c.m_blockIndex = -1;
+                            c.m_blockCount = -1;
+                            c.b.limit(c.b.limit() - 4);
+                        }
                         c.b.position(checksumStartPosition - 4);
                         c.b.putInt(rowCount);
                         c.b.position(0);
@@ -0,0 +1,190 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2010 VoltDB Inc.
+ *
+ * VoltDB is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VoltDB is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs.saverestore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.voltdb.utils.DBBPool.BBContainer;
+
+/**
+ * A delta snapshot file together with the files of the snapshots it was taken
+ * against, back to the base of the chain. Chunks are handed out newest file first
+ * and every table block is only handed out from the newest file that has it, so
+ * the result is the table as of the newest delta. Blocks that the newest delta
+ * reports as emptied or that no longer existed when it was taken are dropped.
+ */
+public class TableSaveFileChain extends TableSaveFile {
+
+    /**
+     * Older files of the chain ordered from newest to oldest. This file is not included.
+     */
+    private final ArrayList<TableSaveFile> m_ancestors = new ArrayList<TableSaveFile>();
+
+    /**
+     * Index of the file chunks are currently read from, -1 is this file.
+     */
+    private int m_current = -1;
+
+    /**
+     * Blocks handed out (or emptied) by files newer than the current one, keyed by
+     * partition id and block index
+     */
+    private final HashSet<Long> m_claimedBlocks = new HashSet<Long>();
+
+    /**
+     * Blocks seen in the current file
+     */
+    private final HashSet<Long> m_currentBlocks = new HashSet<Long>();
+
+    /**
+     * Number of blocks each partition's table had when the newest delta was taken
+     */
+    private final HashMap<Integer, Integer> m_blockCounts = new HashMap<Integer, Integer>();
+
+    public TableSaveFileChain(
+            File saveFile,
+            int readAheadChunks,
+            int relevantPartitionIds[]) throws IOException {
+        super(new FileInputStream(saveFile).getChannel(), readAheadChunks, relevantPartitionIds);
+        if (!isDelta()) {
+            throw new IOException(saveFile + " is not a delta snapshot file");
+        }
+
+        final String suffix = saveFile.getName().substring(getNonce().length());
+        final Set<String> visited = new HashSet<String>();
+        visited.add(getNonce());
+        String parentNonce = getParentNonce();
+        while (!parentNonce.isEmpty()) {
+            if (!visited.add(parentNonce)) {
+                close();
+                throw new IOException("Delta snapshot chain of " + saveFile + " loops at " + parentNonce);
+            }
+            final File parentFile = new File(saveFile.getParentFile(), parentNonce + suffix);
+            if (!parentFile.exists()) {
+                close();
+                throw new IOException("Delta snapshot chain of " + saveFile + " is missing " + parentFile);
+            }
+            final TableSaveFile parent =
+                new TableSaveFile(new FileInputStream(parentFile).getChannel(), readAheadChunks, relevantPartitionIds);
+            m_ancestors.add(parent);
+            if (!parent.isDelta()) {
+                close();
+                throw new IOException(parentFile + " is not a delta snapshot file");
+            }
+            parentNonce = parent.getParentNonce();
+        }
+    }
+
+    /**
+     * @return the number of files in the chain including this one
+     */
+    public int getChainLength() {
+        return m_ancestors.size() + 1;
+    }
+
+    @Override
+    public boolean getCompleted() {
+        boolean completed = super.getCompleted();
+        for (TableSaveFile f : m_ancestors) {
+            completed &= f.getCompleted();
+        }
+        return completed;
+    }
+
+    @Override
+    public Set<Integer> getCorruptedPartitionIds() {
+        final Set<Integer> corrupted = new HashSet<Integer>(super.getCorruptedPartitionIds());
+        for (TableSaveFile f : m_ancestors) {
+            corrupted.addAll(f.getCorruptedPartitionIds());
+        }
+        return corrupted;
+    }
+
+    @Override
+    public synchronized boolean hasMoreChunks() {
+        if (m_current == -1 && super.hasMoreChunks()) {
+            return true;
+        }
+        for (int ii = Math.max(m_current, 0); ii < m_ancestors.size(); ii++) {
+            if (m_ancestors.get(ii).hasMoreChunks()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized BBContainer getNextChunk() throws IOException {
+        while (true) {
+            final BBContainer next;
+            if (m_current == -1) {
+                next = super.getNextChunk();
+            } else if (m_current < m_ancestors.size()) {
+                next = m_ancestors.get(m_current).getNextChunk();
+            } else {
+                return null;
+            }
+
+            if (next == null) {
+                // This file is exhausted, blocks it had shadow the same blocks in older files
+                m_claimedBlocks.addAll(m_currentBlocks);
+                m_currentBlocks.clear();
+                m_current++;
+                continue;
+            }
+
+            final Container c = (Container)next;
+            if (c.m_blockIndex == -1) {
+                // Final chunk of a partition carries the block count
+                if (m_current == -1) {
+                    m_blockCounts.put(c.m_partitionId, c.m_blockCount);
+                }
+                c.discard();
+                continue;
+            }
+
+            final Long block = (((long)c.m_partitionId) << 32) | (c.m_blockIndex & 0xffffffffL);
+            final Integer blockCount = m_blockCounts.get(c.m_partitionId);
+            final int limit = (blockCount != null ? blockCount : c.m_blockCount);
+            if (m_claimedBlocks.contains(block) || c.m_blockIndex >= limit) {
+                c.discard();
+                continue;
+            }
+            m_currentBlocks.add(block);
+            if (c.m_rowCount == 0) {
+                c.discard();
+                continue;
+            }
+            return c;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        for (TableSaveFile f : m_ancestors) {
+            f.close();
+        }
+    }
+}
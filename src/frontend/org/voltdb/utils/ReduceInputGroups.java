@@ -0,0 +1,151 @@
+package org.voltdb.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTableRow;
+
+/**
+ * Groups the rows of a MapReduce input table by their key (the first column)
+ * with a hash table instead of sorting the table. The rows are never copied:
+ * each group is a chain of row positions in the original table.
+ * <p>
+ * At most <tt>maxGroupRows</tt> rows are indexed at a time. Larger tables are
+ * grouped in several passes over the table, where each pass only picks up the
+ * keys that hash into its slice, so memory for the group table stays bounded no
+ * matter how large the input is.
+ * @param <K> key type
+ */
+public class ReduceInputGroups<K> {
+
+    private final VoltTable table;
+    private final int numPasses;
+    private int pass = -1;
+
+    // Keys of the current pass in the order they were first seen
+    private final HashMap<Object, Integer> keyGroups = new HashMap<Object, Integer>();
+    private final ArrayList<Object> keys = new ArrayList<Object>();
+    private int groupHead[] = new int[16];
+    private int groupTail[] = new int[16];
+    private int currentGroup = -1;
+
+    // Rows of the current pass, chained by group
+    private int rowIndexes[] = new int[16];
+    private int rowPositions[] = new int[16];
+    private int rowNext[] = new int[16];
+    private int numRows = 0;
+
+    private final VoltTableRow cursor;
+
+    public ReduceInputGroups(VoltTable table, int maxGroupRows) {
+        this.table = table;
+        int rowCount = table.getRowCount();
+        this.numPasses = (maxGroupRows <= 0 || rowCount <= maxGroupRows ? 1 :
+                          (int)Math.ceil(rowCount / (double)maxGroupRows));
+        this.cursor = table.cloneRow();
+    }
+
+    /**
+     * Returns the number of passes over the input that grouping will take
+     */
+    public int getNumPasses() {
+        return (this.numPasses);
+    }
+
+    /**
+     * Move to the next group of rows
+     * @return false if all of the groups have been visited
+     */
+    public boolean advanceGroup() {
+        this.currentGroup++;
+        while (this.currentGroup >= this.keys.size()) {
+            if (this.pass + 1 >= this.numPasses) {
+                this.currentGroup = this.keys.size();
+                return (false);
+            }
+            this.buildPass(++this.pass);
+        } // WHILE
+        return (true);
+    }
+
+    /**
+     * Returns the key of the current group
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey() {
+        return (K)this.keys.get(this.currentGroup);
+    }
+
+    /**
+     * Returns an iterator over the rows of the current group. The same
+     * VoltTableRow instance is returned for every row.
+     */
+    public Iterator<VoltTableRow> getRows() {
+        final int head = this.groupHead[this.currentGroup];
+        return new Iterator<VoltTableRow>() {
+            private int next = head;
+            @Override
+            public boolean hasNext() {
+                return (this.next != -1);
+            }
+            @Override
+            public VoltTableRow next() {
+                if (this.next == -1) throw new NoSuchElementException();
+                cursor.advanceToRowPosition(rowIndexes[this.next], rowPositions[this.next]);
+                this.next = rowNext[this.next];
+                return (cursor);
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Cannot remove from a VoltTable");
+            }
+        };
+    }
+
+    private void buildPass(int pass) {
+        this.keyGroups.clear();
+        this.keys.clear();
+        this.currentGroup = 0;
+        this.numRows = 0;
+
+        this.table.resetRowPosition();
+        while (this.table.advanceRow()) {
+            Object key = this.table.get(0);
+            if (this.numPasses > 1) {
+                int hash = (key == null ? 0 : key.hashCode());
+                if (((hash & Integer.MAX_VALUE) % this.numPasses) != pass) continue;
+            }
+
+            if (this.numRows == this.rowIndexes.length) {
+                int size = this.numRows * 2;
+                this.rowIndexes = Arrays.copyOf(this.rowIndexes, size);
+                this.rowPositions = Arrays.copyOf(this.rowPositions, size);
+                this.rowNext = Arrays.copyOf(this.rowNext, size);
+            }
+            int row = this.numRows++;
+            this.rowIndexes[row] = this.table.getActiveRowIndex();
+            this.rowPositions[row] = this.table.getActiveRowPosition();
+            this.rowNext[row] = -1;
+
+            Integer group = this.keyGroups.get(key);
+            if (group == null) {
+                group = this.keys.size();
+                this.keyGroups.put(key, group);
+                this.keys.add(key);
+                if (group == this.groupHead.length) {
+                    this.groupHead = Arrays.copyOf(this.groupHead, group * 2);
+                    this.groupTail = Arrays.copyOf(this.groupTail, group * 2);
+                }
+                this.groupHead[group] = row;
+            } else {
+                this.rowNext[this.groupTail[group]] = row;
+            }
+            this.groupTail[group] = row;
+        } // WHILE
+        this.table.resetRowPosition();
+    }
+}
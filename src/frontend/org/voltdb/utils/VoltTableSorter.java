@@ -0,0 +1,335 @@
+package org.voltdb.utils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.types.SortDirectionType;
+
+/**
+ * Sorts and merges VoltTables without turning their rows into objects.
+ * An index of row offsets into the table's backing buffer is sorted by comparing
+ * the serialized column values in place, and the rows are then bulk copied into
+ * a new buffer in the sorted order.
+ * <p>
+ * NULLs sort first, since their serialized form is the smallest value of each
+ * type. Strings are compared by their UTF-8 bytes.
+ */
+public abstract class VoltTableSorter {
+
+    /** Length prefix of a NULL string */
+    private static final int NULL_STRING_INDICATOR = -1;
+
+    /**
+     * Row offsets of a table along with the offsets of its sort columns
+     */
+    private static class RowIndex {
+        final ByteBuffer buffer;
+        final int rowStart;
+        final int dataEnd;
+        final int numRows;
+        /** Position of each row's length prefix */
+        final int rowOffsets[];
+        /** Position of each sort column's value, one array per sort column */
+        final int colOffsets[][];
+
+        RowIndex(VoltTable table, int sortCols[], VoltType colTypes[]) {
+            this.buffer = table.getTableDataReference();
+            this.rowStart = this.buffer.getInt(0) + 4;
+            this.dataEnd = table.getUnderlyingBufferSize();
+            this.numRows = this.buffer.getInt(this.rowStart);
+            this.rowOffsets = new int[this.numRows];
+            this.colOffsets = new int[sortCols.length][this.numRows];
+
+            // Position of every column in the row, reused for each row
+            final int numCols = colTypes.length;
+            final int offsets[] = new int[numCols];
+            int pos = this.rowStart + 4;
+            for (int row = 0; row < this.numRows; row++) {
+                this.rowOffsets[row] = pos;
+                int rowLength = this.buffer.getInt(pos);
+                int colPos = pos + 4;
+                for (int col = 0; col < numCols; col++) {
+                    offsets[col] = colPos;
+                    if (colTypes[col] == VoltType.STRING) {
+                        int len = this.buffer.getInt(colPos);
+                        colPos += 4 + (len == NULL_STRING_INDICATOR ? 0 : len);
+                    } else {
+                        colPos += colTypes[col].getLengthInBytesForFixedTypes();
+                    }
+                } // FOR
+                for (int i = 0; i < sortCols.length; i++) {
+                    this.colOffsets[i][row] = offsets[sortCols[i]];
+                } // FOR
+                pos += 4 + rowLength;
+            } // FOR
+        }
+
+        int rowSize(int row) {
+            return (this.buffer.getInt(this.rowOffsets[row]) + 4);
+        }
+    }
+
+    /**
+     * Compares rows of tables with the same schema on their sort columns
+     */
+    private static class RowComparator {
+        final VoltType types[];
+        final boolean descending[];
+
+        RowComparator(VoltTable table, Pair<Integer, SortDirectionType> cols[]) {
+            this.types = new VoltType[cols.length];
+            this.descending = new boolean[cols.length];
+            for (int i = 0; i < cols.length; i++) {
+                this.types[i] = table.getColumnType(cols[i].getFirst());
+                this.descending[i] = (cols[i].getSecond() == SortDirectionType.DESC);
+                switch (this.types[i]) {
+                    case TINYINT:
+                    case BOOLEAN:
+                    case SMALLINT:
+                    case INTEGER:
+                    case BIGINT:
+                    case TIMESTAMP:
+                    case FLOAT:
+                    case DECIMAL:
+                    case STRING:
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported sorting column type " + this.types[i]);
+                } // SWITCH
+            } // FOR
+        }
+
+        int compare(RowIndex idx0, int row0, RowIndex idx1, int row1) {
+            final ByteBuffer b0 = idx0.buffer;
+            final ByteBuffer b1 = idx1.buffer;
+            for (int i = 0; i < this.types.length; i++) {
+                final int pos0 = idx0.colOffsets[i][row0];
+                final int pos1 = idx1.colOffsets[i][row1];
+                int cmp;
+                switch (this.types[i]) {
+                    case TINYINT:
+                    case BOOLEAN:
+                        cmp = compare(b0.get(pos0), b1.get(pos1));
+                        break;
+                    case SMALLINT:
+                        cmp = compare(b0.getShort(pos0), b1.getShort(pos1));
+                        break;
+                    case INTEGER:
+                        cmp = compare(b0.getInt(pos0), b1.getInt(pos1));
+                        break;
+                    case BIGINT:
+                    case TIMESTAMP:
+                        cmp = compare(b0.getLong(pos0), b1.getLong(pos1));
+                        break;
+                    case FLOAT:
+                        cmp = Double.compare(b0.getDouble(pos0), b1.getDouble(pos1));
+                        break;
+                    case DECIMAL:
+                        // 128-bit two's complement, big-endian
+                        cmp = compare(b0.getLong(pos0), b1.getLong(pos1));
+                        if (cmp == 0) {
+                            cmp = compare(b0.getLong(pos0 + 8) + Long.MIN_VALUE,
+                                          b1.getLong(pos1 + 8) + Long.MIN_VALUE);
+                        }
+                        break;
+                    case STRING:
+                        cmp = compareStrings(b0, pos0, b1, pos1);
+                        break;
+                    default:
+                        throw new RuntimeException("Unsupported sorting column type " + this.types[i]);
+                } // SWITCH
+                if (cmp != 0) return (this.descending[i] ? -cmp : cmp);
+            } // FOR
+            return (0);
+        }
+
+        private static int compare(long v0, long v1) {
+            return (v0 < v1 ? -1 : (v0 == v1 ? 0 : 1));
+        }
+
+        private static int compareStrings(ByteBuffer b0, int pos0, ByteBuffer b1, int pos1) {
+            final int len0 = b0.getInt(pos0);
+            final int len1 = b1.getInt(pos1);
+            if (len0 == NULL_STRING_INDICATOR || len1 == NULL_STRING_INDICATOR) {
+                return (compare(len0, len1));
+            }
+            final int len = Math.min(len0, len1);
+            pos0 += 4;
+            pos1 += 4;
+            for (int i = 0; i < len; i++) {
+                int c0 = b0.get(pos0 + i) & 0xFF;
+                int c1 = b1.get(pos1 + i) & 0xFF;
+                if (c0 != c1) return (c0 - c1);
+            } // FOR
+            return (len0 - len1);
+        }
+    }
+
+    private static int[] getSortColumns(Pair<Integer, SortDirectionType> cols[]) {
+        int sortCols[] = new int[cols.length];
+        for (int i = 0; i < cols.length; i++) {
+            sortCols[i] = cols[i].getFirst();
+        } // FOR
+        return (sortCols);
+    }
+
+    private static VoltType[] getColumnTypes(VoltTable table) {
+        VoltType colTypes[] = new VoltType[table.getColumnCount()];
+        for (int i = 0; i < colTypes.length; i++) {
+            colTypes[i] = table.getColumnType(i);
+        } // FOR
+        return (colTypes);
+    }
+
+    /**
+     * Allocate the buffer for the sorted table and copy the header of the given table into it
+     */
+    private static ByteBuffer allocate(RowIndex idx, int dataSize, int numRows) {
+        ByteBuffer out = ByteBuffer.allocate(idx.rowStart + 4 + dataSize);
+        ByteBuffer header = idx.buffer.duplicate();
+        header.limit(idx.rowStart);
+        header.position(0);
+        out.put(header);
+        out.putInt(numRows);
+        return (out);
+    }
+
+    private static void copyRow(ByteBuffer out, RowIndex idx, int row) {
+        ByteBuffer src = idx.buffer.duplicate();
+        int offset = idx.rowOffsets[row];
+        src.limit(offset + idx.rowSize(row));
+        src.position(offset);
+        out.put(src);
+    }
+
+    private static VoltTable finish(ByteBuffer out) {
+        out.flip();
+        return (new VoltTable(out, false));
+    }
+
+    /**
+     * Returns a new table with the rows of the given table sorted on the given columns.
+     * The sort is stable.
+     * @param table
+     * @param cols
+     * @return
+     */
+    public static VoltTable sort(VoltTable table, Pair<Integer, SortDirectionType>...cols) {
+        if (cols.length == 0) return (table);
+
+        final RowComparator comparator = new RowComparator(table, cols);
+        final RowIndex idx = new RowIndex(table, getSortColumns(cols), getColumnTypes(table));
+
+        int order[] = new int[idx.numRows];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        mergeSort(order, new int[order.length], 0, order.length, idx, comparator);
+
+        ByteBuffer out = allocate(idx, idx.dataEnd - idx.rowStart - 4, idx.numRows);
+        for (int row : order) {
+            copyRow(out, idx, row);
+        } // FOR
+        return (finish(out));
+    }
+
+    /**
+     * Combine tables that are each already sorted on the given columns into a single
+     * sorted table. All of the tables must have the same schema. Rows with equal
+     * keys come out in the order of the tables in the list.
+     * @param tables
+     * @param cols
+     * @return
+     */
+    public static VoltTable merge(List<VoltTable> tables, Pair<Integer, SortDirectionType>...cols) {
+        assert(tables.isEmpty() == false);
+        final VoltTable first = tables.get(0);
+        final RowComparator comparator = new RowComparator(first, cols);
+        final int sortCols[] = getSortColumns(cols);
+        final VoltType colTypes[] = getColumnTypes(first);
+
+        final int k = tables.size();
+        final RowIndex idxs[] = new RowIndex[k];
+        int numRows = 0;
+        int dataSize = 0;
+        for (int i = 0; i < k; i++) {
+            idxs[i] = new RowIndex(tables.get(i), sortCols, colTypes);
+            numRows += idxs[i].numRows;
+            dataSize += idxs[i].dataEnd - idxs[i].rowStart - 4;
+        } // FOR
+
+        // Binary heap of tables ordered by their current row
+        final int cursors[] = new int[k];
+        final int heap[] = new int[k];
+        int heapSize = 0;
+        for (int i = 0; i < k; i++) {
+            if (idxs[i].numRows > 0) heap[heapSize++] = i;
+        } // FOR
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, idxs, cursors, comparator);
+        } // FOR
+
+        ByteBuffer out = allocate(idxs[0], dataSize, numRows);
+        while (heapSize > 0) {
+            int t = heap[0];
+            copyRow(out, idxs[t], cursors[t]);
+            if (++cursors[t] == idxs[t].numRows) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, idxs, cursors, comparator);
+        } // WHILE
+        return (finish(out));
+    }
+
+    private static boolean less(int t0, int t1, RowIndex idxs[], int cursors[], RowComparator comparator) {
+        int cmp = comparator.compare(idxs[t0], cursors[t0], idxs[t1], cursors[t1]);
+        return (cmp < 0 || (cmp == 0 && t0 < t1));
+    }
+
+    private static void siftDown(int heap[], int heapSize, int i, RowIndex idxs[], int cursors[], RowComparator comparator) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && less(heap[left], heap[smallest], idxs, cursors, comparator)) smallest = left;
+            if (right < heapSize && less(heap[right], heap[smallest], idxs, cursors, comparator)) smallest = right;
+            if (smallest == i) return;
+            int tmp = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = tmp;
+            i = smallest;
+        } // WHILE
+    }
+
+    /**
+     * Stable merge sort of the row numbers in order[from, to)
+     */
+    private static void mergeSort(int order[], int tmp[], int from, int to, RowIndex idx, RowComparator comparator) {
+        if (to - from <= 16) {
+            // Insertion sort for small runs
+            for (int i = from + 1; i < to; i++) {
+                int row = order[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(idx, order[j], idx, row) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                } // WHILE
+                order[j + 1] = row;
+            } // FOR
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(order, tmp, from, mid, idx, comparator);
+        mergeSort(order, tmp, mid, to, idx, comparator);
+        if (comparator.compare(idx, order[mid - 1], idx, order[mid]) <= 0) return;
+
+        System.arraycopy(order, from, tmp, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            if (comparator.compare(idx, tmp[j], idx, tmp[i]) < 0) order[k++] = tmp[j++];
+            else order[k++] = tmp[i++];
+        } // WHILE
+        while (i < mid) order[k++] = tmp[i++];
+        while (j < to) order[k++] = tmp[j++];
+    }
+}
@@ -1,8 +1,8 @@
 package org.voltdb.utils;
 
 import java.io.Writer;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
@@ -111,26 +111,27 @@ public abstract class VoltTableUtil {
         return (sb.toString());
     }
 
+    /**
+     * Returns a copy of the table with its rows sorted on the given columns.
+     * The rows are sorted in place in their serialized form, see {@link VoltTableSorter}
+     * @param table
+     * @param cols
+     * @return
+     */
     public static VoltTable sort(VoltTable table, Pair<Integer, SortDirectionType>...cols) {
-        if (cols.length == 0) return (table);
-        
-        Object rows[][] = new Object[table.getRowCount()][];
-        table.resetRowPosition();
-        int row_idx = -1;
-        while (table.advanceRow()) {
-            rows[++row_idx] = table.getRowArray();
-            assert(rows[row_idx] != null) : "Null row at " + row_idx;
-        } // FOR
-        
-        VoltTableComparator comparator = new VoltTableComparator(table, cols);
-        Arrays.sort(rows, comparator);
-        
-        VoltTable clone = new VoltTable(table);
-        for (int i = 0; i < rows.length; i++) {
-            clone.addRow(rows[i]);
-        } // FOR
-        
-        return (clone);
+        return (VoltTableSorter.sort(table, cols));
+    }
+    
+    /**
+     * Combine multiple VoltTables that are each already sorted on the given
+     * columns into a single sorted VoltTable.
+     * This assumes that all of the tables have the same schema
+     * @param tables
+     * @param cols
+     * @return
+     */
+    public static VoltTable merge(List<VoltTable> tables, Pair<Integer, SortDirectionType>...cols) {
+        return (VoltTableSorter.merge(tables, cols));
     }
     
     /**
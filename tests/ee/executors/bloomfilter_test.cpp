@@ -0,0 +1,290 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <set>
+#include <string>
+#include <vector>
+#include "harness.h"
+#include "common/common.h"
+#include "common/valuevector.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "common/tabletuple.h"
+#include "common/TupleSchema.h"
+#include "executors/bloomfilterexecutor.h"
+#include "plannodes/bloomfilternode.h"
+#include "storage/temptable.h"
+#include "storage/tablefactory.h"
+#include "storage/tableiterator.h"
+
+#define NUM_WORDS 64
+#define NUM_KEYS 100
+
+using namespace std;
+using namespace voltdb;
+
+/**
+ * Child PlanNode that just hands its table to the BloomFilter
+ */
+class InputPlanNode : public AbstractPlanNode {
+public:
+    InputPlanNode(Table *table, int guid_offset) : AbstractPlanNode(AbstractPlanNode::getNextPlanNodeId()) {
+        m_outputTable = table;
+        for (int i = 0; i < table->columnCount(); i++) {
+            m_outputColumnGuids.push_back(guid_offset + i);
+        }
+    }
+    virtual PlanNodeType getPlanNodeType() const { return PLAN_NODE_TYPE_MATERIALIZE; }
+    virtual int getColumnIndexFromGuid(int guid, const catalog::Database* db) const {
+        for (int i = 0, cnt = (int)m_outputColumnGuids.size(); i < cnt; i++) {
+            if (m_outputColumnGuids[i] == guid) return (i);
+        }
+        return (-1);
+    }
+    virtual std::string debugInfo(const std::string &spacer) const { return spacer + "INPUT\n"; }
+protected:
+    virtual void loadFromJSONObject(json_spirit::Object &obj, const catalog::Database *catalog_db) { }
+};
+
+/**
+ * BloomFilterPlanNode that gets its settings without going through JSON
+ */
+class TestBloomFilterPlanNode : public BloomFilterPlanNode {
+public:
+    TestBloomFilterPlanNode(bool build, int key_guid) : BloomFilterPlanNode(AbstractPlanNode::getNextPlanNodeId()) {
+        m_build = build;
+        m_numWords = NUM_WORDS;
+        m_keyColumnGuids.push_back(key_guid);
+    }
+};
+
+class BloomFilterTest : public Test {
+public:
+    BloomFilterTest() {
+        srand(0);
+    }
+    ~BloomFilterTest() {
+        for (int i = 0, cnt = (int)tables.size(); i < cnt; i++) {
+            delete tables[i];
+        }
+    }
+
+    /**
+     * Create a table with the columns (ID BIGINT, KEY keyType).
+     * A negative key is stored as NULL.
+     */
+    TempTable* createTable(ValueType keyType, const std::vector<int64_t> &keys) {
+        std::string columnNames[2] = { "ID", "KEY" };
+        std::vector<ValueType> columnTypes;
+        std::vector<int32_t> columnLengths;
+        std::vector<bool> columnAllowNull;
+        columnTypes.push_back(VALUE_TYPE_BIGINT);
+        columnTypes.push_back(keyType);
+        for (int i = 0; i < 2; i++) {
+            columnLengths.push_back(NValue::getTupleStorageSize(columnTypes[i]));
+            columnAllowNull.push_back(i == 1);
+        }
+        TupleSchema *schema = TupleSchema::createTupleSchema(columnTypes, columnLengths, columnAllowNull, true);
+        TempTable *table = TableFactory::getTempTable(1, "INPUT_T", schema, columnNames, NULL);
+
+        for (int i = 0, cnt = (int)keys.size(); i < cnt; i++) {
+            TableTuple &tuple = table->tempTuple();
+            tuple.setNValue(0, ValueFactory::getBigIntValue(i));
+            if (keys[i] < 0) {
+                tuple.setNValue(1, NValue::getNullValue(keyType));
+            } else {
+                tuple.setNValue(1, ValueFactory::getBigIntValue(keys[i]).castAs(keyType));
+            }
+            table->insertTuple(tuple);
+        }
+        tables.push_back(table);
+        return (table);
+    }
+
+    /**
+     * Create an empty table that we can append the output of build nodes to
+     */
+    TempTable* createFilterTable() {
+        std::string columnNames[1] = { "BLOOM_FILTER" };
+        std::vector<ValueType> columnTypes(1, VALUE_TYPE_BIGINT);
+        std::vector<int32_t> columnLengths(1, NValue::getTupleStorageSize(VALUE_TYPE_BIGINT));
+        std::vector<bool> columnAllowNull(1, false);
+        TupleSchema *schema = TupleSchema::createTupleSchema(columnTypes, columnLengths, columnAllowNull, true);
+        TempTable *table = TableFactory::getTempTable(1, "FILTERS", schema, columnNames, NULL);
+        tables.push_back(table);
+        return (table);
+    }
+
+    /**
+     * Build a filter over the keys in the given table and append it to
+     * the filter table, just like the filters of multiple partitions are
+     * appended to each other before they are sent to the probe nodes.
+     */
+    void build(Table *input, TempTable *filters) {
+        InputPlanNode *inputNode = new InputPlanNode(input, 0);
+        TestBloomFilterPlanNode *node = new TestBloomFilterPlanNode(true, 1);
+        node->addChild(inputNode);
+        BloomFilterExecutor *executor = new BloomFilterExecutor(NULL, node);
+        node->setExecutor(executor);
+
+        int tempTableMemory = 0;
+        ASSERT_TRUE(executor->init(NULL, NULL, &tempTableMemory));
+        NValueArray params(0);
+        ASSERT_TRUE(executor->execute(params));
+
+        Table *output = node->getOutputTable();
+        EXPECT_EQ(NUM_WORDS, (int)output->activeTupleCount());
+        TableTuple tuple(output->schema());
+        TableIterator iterator(output);
+        while (iterator.next(tuple)) {
+            filters->insertTuple(tuple);
+        }
+        // The PlanNode owns its output table
+        delete node;
+        delete inputNode;
+    }
+
+    /**
+     * Probe the filters with the keys in the given table and
+     * return the IDs of the tuples that were passed along
+     */
+    std::set<int64_t> probe(Table *input, Table *filters) {
+        std::set<int64_t> result;
+        InputPlanNode *inputNode = new InputPlanNode(input, 0);
+        InputPlanNode *filterNode = new InputPlanNode(filters, 100);
+        TestBloomFilterPlanNode *node = new TestBloomFilterPlanNode(false, 1);
+        node->addChild(inputNode);
+        node->addChild(filterNode);
+        BloomFilterExecutor *executor = new BloomFilterExecutor(NULL, node);
+        node->setExecutor(executor);
+
+        int tempTableMemory = 0;
+        EXPECT_TRUE(executor->init(NULL, NULL, &tempTableMemory));
+        NValueArray params(0);
+        EXPECT_TRUE(executor->execute(params));
+
+        Table *output = node->getOutputTable();
+        EXPECT_EQ(input->columnCount(), output->columnCount());
+        TableTuple tuple(output->schema());
+        TableIterator iterator(output);
+        while (iterator.next(tuple)) {
+            result.insert(ValuePeeker::peekBigInt(tuple.getNValue(0)));
+        }
+        delete node;
+        delete inputNode;
+        delete filterNode;
+        return (result);
+    }
+
+    /**
+     * Return NUM_KEYS random keys from the range [base, base + 1000000)
+     */
+    std::vector<int64_t> randomKeys(int64_t base) {
+        std::vector<int64_t> keys;
+        for (int i = 0; i < NUM_KEYS; i++) {
+            keys.push_back(base + rand() % 1000000);
+        }
+        return (keys);
+    }
+
+    std::vector<TempTable*> tables;
+};
+
+TEST_F(BloomFilterTest, NoFalseNegatives) {
+    std::vector<int64_t> keys = randomKeys(0);
+    TempTable *filters = createFilterTable();
+    build(createTable(VALUE_TYPE_BIGINT, keys), filters);
+
+    // Every tuple whose key was put into the filter has to pass it
+    std::set<int64_t> result = probe(createTable(VALUE_TYPE_BIGINT, keys), filters);
+    EXPECT_EQ(NUM_KEYS, (int)result.size());
+}
+
+TEST_F(BloomFilterTest, NonMatchingKeys) {
+    TempTable *filters = createFilterTable();
+    build(createTable(VALUE_TYPE_BIGINT, randomKeys(0)), filters);
+
+    // With 4096 bits for 100 keys, almost none of the
+    // keys that are not in the filter should get through
+    std::set<int64_t> result = probe(createTable(VALUE_TYPE_BIGINT, randomKeys(1000000)), filters);
+    EXPECT_TRUE(result.size() < NUM_KEYS / 20);
+}
+
+TEST_F(BloomFilterTest, MixedIntegerTypes) {
+    // INTEGER keys have to set the same bits as the same BIGINT keys
+    std::vector<int64_t> keys = randomKeys(0);
+    TempTable *filters = createFilterTable();
+    build(createTable(VALUE_TYPE_INTEGER, keys), filters);
+
+    std::set<int64_t> result = probe(createTable(VALUE_TYPE_BIGINT, keys), filters);
+    EXPECT_EQ(NUM_KEYS, (int)result.size());
+}
+
+TEST_F(BloomFilterTest, NullKeys) {
+    // NULL keys never match anything, so they are not put into the
+    // filter and they never pass it
+    std::vector<int64_t> keys = randomKeys(0);
+    keys.push_back(-1);
+    TempTable *filters = createFilterTable();
+    build(createTable(VALUE_TYPE_BIGINT, keys), filters);
+
+    std::set<int64_t> result = probe(createTable(VALUE_TYPE_BIGINT, keys), filters);
+    EXPECT_EQ(NUM_KEYS, (int)result.size());
+    EXPECT_TRUE(result.find(NUM_KEYS) == result.end());
+
+    // A filter built only from NULL keys does not let anything through
+    TempTable *nullFilters = createFilterTable();
+    build(createTable(VALUE_TYPE_BIGINT, std::vector<int64_t>(NUM_KEYS, -1)), nullFilters);
+    result = probe(createTable(VALUE_TYPE_BIGINT, keys), nullFilters);
+    EXPECT_TRUE(result.empty());
+}
+
+TEST_F(BloomFilterTest, EmptyFilterTable) {
+    // Without any filters, we don't know what the other side of
+    // the join looks like, so everything has to be passed along
+    std::vector<int64_t> keys = randomKeys(0);
+    keys.push_back(-1);
+    std::set<int64_t> result = probe(createTable(VALUE_TYPE_BIGINT, keys), createFilterTable());
+    EXPECT_EQ(NUM_KEYS + 1, (int)result.size());
+}
+
+TEST_F(BloomFilterTest, MultiplePartitions) {
+    // The filters that were built at different partitions are ORed together
+    std::vector<int64_t> keys0 = randomKeys(0);
+    std::vector<int64_t> keys1 = randomKeys(1000000);
+    TempTable *filters = createFilterTable();
+    build(createTable(VALUE_TYPE_BIGINT, keys0), filters);
+    build(createTable(VALUE_TYPE_BIGINT, keys1), filters);
+    EXPECT_EQ(2 * NUM_WORDS, (int)filters->activeTupleCount());
+
+    std::vector<int64_t> keys(keys0);
+    keys.insert(keys.end(), keys1.begin(), keys1.end());
+    std::set<int64_t> result = probe(createTable(VALUE_TYPE_BIGINT, keys), filters);
+    EXPECT_EQ(2 * NUM_KEYS, (int)result.size());
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
@@ -0,0 +1,261 @@
+/* Copyright (C) 2013 by H-Store Project
+ * Brown University
+ * Massachusetts Institute of Technology
+ * Yale University
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+#include <map>
+#include <string>
+#include <utility>
+#include <vector>
+#include "harness.h"
+#include "common/common.h"
+#include "common/valuevector.h"
+#include "common/ValueFactory.hpp"
+#include "common/ValuePeeker.hpp"
+#include "common/tabletuple.h"
+#include "common/TupleSchema.h"
+#include "expressions/abstractexpression.h"
+#include "expressions/expressions.h"
+#include "expressions/expressionutil.h"
+#include "executors/hashjoinexecutor.h"
+#include "executors/nestloopexecutor.h"
+#include "plannodes/hashjoinnode.h"
+#include "plannodes/nestloopnode.h"
+#include "storage/temptable.h"
+#include "storage/tablefactory.h"
+#include "storage/tableiterator.h"
+
+#define OUTER_TUPLES 500
+#define INNER_TUPLES 200
+#define NUM_KEYS 50
+
+using namespace std;
+using namespace voltdb;
+
+// (outer ID, inner ID) -> number of times that pair was joined
+typedef map<pair<int64_t, int64_t>, int> JoinResult;
+
+/**
+ * Child PlanNode that just hands its table to the join
+ */
+class InputPlanNode : public AbstractPlanNode {
+public:
+    InputPlanNode(Table *table, int guid_offset) : AbstractPlanNode(AbstractPlanNode::getNextPlanNodeId()) {
+        m_outputTable = table;
+        for (int i = 0; i < table->columnCount(); i++) {
+            m_outputColumnGuids.push_back(guid_offset + i);
+        }
+    }
+    virtual PlanNodeType getPlanNodeType() const { return PLAN_NODE_TYPE_MATERIALIZE; }
+    virtual std::string debugInfo(const std::string &spacer) const { return spacer + "INPUT\n"; }
+protected:
+    virtual void loadFromJSONObject(json_spirit::Object &obj, const catalog::Database *catalog_db) { }
+};
+
+class HashJoinTest : public Test {
+public:
+    HashJoinTest() : outer(NULL), inner(NULL), outerNode(NULL), innerNode(NULL) {
+        srand(0);
+    }
+    ~HashJoinTest() {
+        delete outerNode;
+        delete innerNode;
+        delete outer;
+        delete inner;
+    }
+
+    /**
+     * Create a table with the columns (ID BIGINT, KEY keyType, VAL BIGINT).
+     * Every tenth KEY is NULL.
+     */
+    TempTable* createTable(const std::string &name, ValueType keyType, int num_tuples) {
+        std::string columnNames[3] = { "ID", "KEY", "VAL" };
+        std::vector<ValueType> columnTypes;
+        std::vector<int32_t> columnLengths;
+        std::vector<bool> columnAllowNull;
+        columnTypes.push_back(VALUE_TYPE_BIGINT);
+        columnTypes.push_back(keyType);
+        columnTypes.push_back(VALUE_TYPE_BIGINT);
+        for (int i = 0; i < 3; i++) {
+            columnLengths.push_back(NValue::getTupleStorageSize(columnTypes[i]));
+            columnAllowNull.push_back(i == 1);
+        }
+        TupleSchema *schema = TupleSchema::createTupleSchema(columnTypes, columnLengths, columnAllowNull, true);
+        TempTable *table = TableFactory::getTempTable(1, name, schema, columnNames, NULL);
+
+        for (int64_t i = 0; i < num_tuples; i++) {
+            TableTuple &tuple = table->tempTuple();
+            tuple.setNValue(0, ValueFactory::getBigIntValue(i));
+            if (i % 10 == 9) {
+                tuple.setNValue(1, NValue::getNullValue(keyType));
+            } else {
+                tuple.setNValue(1, ValueFactory::getBigIntValue(rand() % NUM_KEYS).castAs(keyType));
+            }
+            tuple.setNValue(2, ValueFactory::getBigIntValue(rand() % 100));
+            table->insertTuple(tuple);
+        }
+        return (table);
+    }
+
+    void createTables(ValueType outerKeyType, ValueType innerKeyType) {
+        outer = createTable("OUTER_T", outerKeyType, OUTER_TUPLES);
+        inner = createTable("INNER_T", innerKeyType, INNER_TUPLES);
+        outerNode = new InputPlanNode(outer, 0);
+        innerNode = new InputPlanNode(inner, 100);
+    }
+
+    /**
+     * OUTER_T.KEY = INNER_T.KEY [AND OUTER_T.VAL < INNER_T.VAL]
+     */
+    AbstractExpression* createPredicate(bool with_range) {
+        AbstractExpression *predicate = comparisonFactory(EXPRESSION_TYPE_COMPARE_EQUAL,
+                                                          new TupleValueExpression(1, "OUTER_T", "KEY"),
+                                                          new TupleValueExpression(1, "INNER_T", "KEY"));
+        if (with_range) {
+            AbstractExpression *range = comparisonFactory(EXPRESSION_TYPE_COMPARE_LESSTHAN,
+                                                          new TupleValueExpression(2, "OUTER_T", "VAL"),
+                                                          new TupleValueExpression(2, "INNER_T", "VAL"));
+            predicate = conjunctionFactory(EXPRESSION_TYPE_CONJUNCTION_AND, range, predicate);
+        }
+        return (predicate);
+    }
+
+    /**
+     * Execute the join with the given PlanNode and its executor and
+     * return the pairs of tuples that it joined on a non-NULL key.
+     * The number of joined tuples with a NULL key is stored in nullKeys.
+     */
+    JoinResult execute(AbstractJoinPlanNode *node, AbstractExecutor *executor, bool with_range, int &nullKeys) {
+        JoinResult result;
+        node->addChild(outerNode);
+        node->addChild(innerNode);
+        node->setPredicate(createPredicate(with_range));
+        node->setExecutor(executor);
+
+        int tempTableMemory = 0;
+        EXPECT_TRUE(executor->init(NULL, NULL, &tempTableMemory));
+        NValueArray params(0);
+        EXPECT_TRUE(executor->execute(params));
+
+        Table *output = node->getOutputTable();
+        EXPECT_EQ(outer->columnCount() + inner->columnCount(), output->columnCount());
+        TableTuple tuple(output->schema());
+        TableIterator iterator(output);
+        while (iterator.next(tuple)) {
+            // NValue::compare() does not know about NULLs, so the nested loop
+            // joins NULL keys with each other. The hash join never does.
+            if (tuple.getNValue(1).isNull() || tuple.getNValue(4).isNull()) {
+                nullKeys++;
+                continue;
+            }
+            // Both sides of every joined tuple have to have the same key
+            EXPECT_EQ(ValuePeeker::peekAsBigInt(tuple.getNValue(1)),
+                      ValuePeeker::peekAsBigInt(tuple.getNValue(4)));
+            pair<int64_t, int64_t> ids(ValuePeeker::peekBigInt(tuple.getNValue(0)),
+                                       ValuePeeker::peekBigInt(tuple.getNValue(3)));
+            result[ids]++;
+        }
+        // The PlanNode owns its output table
+        delete node;
+        return (result);
+    }
+
+    /**
+     * Check the results of the HashJoinExecutor against the NestLoopExecutor
+     */
+    void checkJoin(bool with_range) {
+        HashJoinPlanNode *hashNode = new HashJoinPlanNode(AbstractPlanNode::getNextPlanNodeId());
+        int hashNullKeys = 0;
+        JoinResult hashResult = execute(hashNode, new HashJoinExecutor(NULL, hashNode), with_range, hashNullKeys);
+        EXPECT_EQ(0, hashNullKeys);
+
+        NestLoopPlanNode *nestLoopNode = new NestLoopPlanNode(AbstractPlanNode::getNextPlanNodeId());
+        int nestLoopNullKeys = 0;
+        JoinResult nestLoopResult = execute(nestLoopNode, new NestLoopExecutor(NULL, nestLoopNode), with_range, nestLoopNullKeys);
+
+        ASSERT_FALSE(nestLoopResult.empty());
+        EXPECT_EQ(nestLoopResult.size(), hashResult.size());
+        for (JoinResult::iterator it = hashResult.begin(); it != hashResult.end(); it++) {
+            // No pair can be joined more than once
+            EXPECT_EQ(1, it->second);
+            EXPECT_TRUE(nestLoopResult.find(it->first) != nestLoopResult.end());
+        }
+    }
+
+    TempTable *outer;
+    TempTable *inner;
+    InputPlanNode *outerNode;
+    InputPlanNode *innerNode;
+};
+
+TEST_F(HashJoinTest, EquiJoin) {
+    createTables(VALUE_TYPE_BIGINT, VALUE_TYPE_BIGINT);
+    checkJoin(false);
+}
+
+TEST_F(HashJoinTest, EquiJoinWithRange) {
+    // The extra conjunct has to be checked for every pair in the same bucket
+    createTables(VALUE_TYPE_BIGINT, VALUE_TYPE_BIGINT);
+    checkJoin(true);
+}
+
+TEST_F(HashJoinTest, MixedIntegerTypes) {
+    // An INTEGER key has to end up in the same bucket as the same BIGINT key
+    createTables(VALUE_TYPE_INTEGER, VALUE_TYPE_BIGINT);
+    checkJoin(false);
+}
+
+TEST_F(HashJoinTest, NoEqualityKeys) {
+    // Without an equality between the two tables, it falls back to a nested loop
+    createTables(VALUE_TYPE_BIGINT, VALUE_TYPE_BIGINT);
+    HashJoinPlanNode *node = new HashJoinPlanNode(AbstractPlanNode::getNextPlanNodeId());
+    node->addChild(outerNode);
+    node->addChild(innerNode);
+    node->setPredicate(comparisonFactory(EXPRESSION_TYPE_COMPARE_LESSTHAN,
+                                         new TupleValueExpression(2, "OUTER_T", "VAL"),
+                                         new TupleValueExpression(2, "INNER_T", "VAL")));
+    HashJoinExecutor *executor = new HashJoinExecutor(NULL, node);
+    node->setExecutor(executor);
+
+    int tempTableMemory = 0;
+    ASSERT_TRUE(executor->init(NULL, NULL, &tempTableMemory));
+    NValueArray params(0);
+    ASSERT_TRUE(executor->execute(params));
+
+    int expected = 0;
+    TableTuple outer_tuple(outer->schema());
+    TableTuple inner_tuple(inner->schema());
+    TableIterator outer_iterator(outer);
+    while (outer_iterator.next(outer_tuple)) {
+        TableIterator inner_iterator(inner);
+        while (inner_iterator.next(inner_tuple)) {
+            if (outer_tuple.getNValue(2).op_lessThan(inner_tuple.getNValue(2)).isTrue()) expected++;
+        }
+    }
+    EXPECT_EQ(expected, (int)node->getOutputTable()->activeTupleCount());
+    delete node;
+}
+
+int main() {
+    return TestSuite::globalInstance()->runAll();
+}
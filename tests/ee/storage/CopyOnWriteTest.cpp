@@ -204,6 +204,39 @@ public:
         }
     }
 
+    /**
+     * Drain a delta stream of the table collecting the tuples and the indexes of the blocks that
+     * had chunks. Returns the block count carried by the final chunk.
+     */
+    int32_t streamDelta(TableStreamType streamType, std::set<int64_t> &tuples, std::set<int32_t> &blocks) {
+        DefaultTupleSerializer serializer;
+        m_table->activateCopyOnWrite(&serializer, 0, streamType);
+        char serializationBuffer[131072];
+        int32_t blockCount = -1;
+        while (true) {
+            ReferenceSerializeOutput out( serializationBuffer, 131072);
+            m_table->serializeMore(&out);
+            const int serialized = static_cast<int>(out.position());
+            if (serialized == 0) {
+                break;
+            }
+            const int32_t blockIndex = ntohl(*reinterpret_cast<int32_t*>(&serializationBuffer[serialized - 12]));
+            blockCount = ntohl(*reinterpret_cast<int32_t*>(&serializationBuffer[serialized - 8]));
+            if (blockIndex != -1) {
+                blocks.insert(blockIndex);
+            }
+            int ii = 16;//skip partition id, CRCs and first tuple length
+            while (ii < (serialized - 12)) {
+                int values[2];
+                values[0] = ntohl(*reinterpret_cast<int32_t*>(&serializationBuffer[ii]));
+                values[1] = ntohl(*reinterpret_cast<int32_t*>(&serializationBuffer[ii + 4]));
+                tuples.insert(*reinterpret_cast<int64_t*>(values));
+                ii += 12;
+            }
+        }
+        return blockCount;
+    }
+
     voltdb::VoltDBEngine *m_engine;
     voltdb::TupleSchema *m_tableSchema;
     voltdb::TupleSchema *m_primaryKeyIndexSchema;
@@ -535,6 +568,56 @@ TEST_F(CopyOnWriteTest, BigTestUndoEverything) {
     }
 }
 
+TEST_F(CopyOnWriteTest, DeltaStreams) {
+    initTable(true);
+    addRandomUniqueTuples( m_table, 699048);
+
+    std::set<int64_t> originalTuples;
+    voltdb::TableIterator iterator(m_table);
+    TableTuple tuple(m_table->schema());
+    while (iterator.next(tuple)) {
+        originalTuples.insert(*reinterpret_cast<int64_t*>(tuple.address() + TUPLE_HEADER_SIZE));
+    }
+
+    /*
+     * The base covers every block
+     */
+    std::set<int64_t> baseTuples;
+    std::set<int32_t> baseBlocks;
+    const int32_t blockCount = streamDelta(TABLE_STREAM_SNAPSHOT_DELTA_BASE, baseTuples, baseBlocks);
+    ASSERT_TRUE(originalTuples == baseTuples);
+    ASSERT_EQ(blockCount, static_cast<int32_t>(baseBlocks.size()));
+
+    /*
+     * Nothing changed so the delta only has the final chunk
+     */
+    std::set<int64_t> deltaTuples;
+    std::set<int32_t> deltaBlocks;
+    ASSERT_EQ(blockCount, streamDelta(TABLE_STREAM_SNAPSHOT_DELTA, deltaTuples, deltaBlocks));
+    ASSERT_TRUE(deltaTuples.empty());
+    ASSERT_TRUE(deltaBlocks.empty());
+
+    /*
+     * Every updated tuple must show up in the next delta which only covers the touched blocks
+     */
+    std::set<int64_t> updatedTuples;
+    for (int ii = 0; ii < 10; ii++) {
+        voltdb::TableTuple tempTuple = m_table->tempTuple();
+        if (tableutil::getRandomTuple(m_table, tuple)) {
+            tempTuple.copy(tuple);
+            tempTuple.setNValue(1, ValueFactory::getIntegerValue(::rand()));
+            m_table->updateTuple( tempTuple, tuple, true);
+            updatedTuples.insert(*reinterpret_cast<int64_t*>(tuple.address() + TUPLE_HEADER_SIZE));
+        }
+    }
+    ASSERT_EQ(blockCount, streamDelta(TABLE_STREAM_SNAPSHOT_DELTA, deltaTuples, deltaBlocks));
+    ASSERT_FALSE(deltaBlocks.empty());
+    ASSERT_TRUE(deltaBlocks.size() <= updatedTuples.size());
+    for (std::set<int64_t>::iterator ii = updatedTuples.begin(); ii != updatedTuples.end(); ii++) {
+        ASSERT_TRUE(deltaTuples.find(*ii) != deltaTuples.end());
+    }
+}
+
 int main() {
     return TestSuite::globalInstance()->runAll();
 }
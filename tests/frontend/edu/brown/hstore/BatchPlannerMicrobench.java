@@ -0,0 +1,109 @@
+package edu.brown.hstore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.voltdb.ParameterSet;
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.benchmark.tpcc.procedures.delivery;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.benchmark.tpcc.procedures.slev;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Statement;
+
+import edu.brown.BaseTestCase;
+import edu.brown.hashing.DefaultHasher;
+import edu.brown.hstore.BatchPlanner.BatchPlan;
+import edu.brown.hstore.Hstoreservice.WorkFragment;
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.profilers.BatchPlannerProfiler;
+import edu.brown.profilers.ProfileMeasurement;
+import edu.brown.statistics.FastIntHistogram;
+import edu.brown.utils.PartitionEstimator;
+import edu.brown.utils.PartitionSet;
+import edu.brown.utils.ProjectType;
+
+/**
+ * Measures how long it takes the BatchPlanner to plan a distributed batch and generate
+ * its WorkFragments. Each batch contains all of the Statements of a TPC-C procedure
+ * with random parameters, so almost every Statement touches a different partition than
+ * the base partition and the batch gets planned with the multi-partition PlanFragments.
+ * The BatchPlannerProfiler breaks down where that time goes: estimating the partitions
+ * that each PlanFragment touches, the rest of BatchPlanner.plan(), and building the
+ * WorkFragments.
+ * <p>
+ * Usage: BatchPlannerMicrobench [iterations]
+ */
+public class BatchPlannerMicrobench extends BaseTestCase {
+
+    private static final int NUM_PARTITIONS = 16;
+    private static final int BASE_PARTITION = 0;
+    private static final int NUM_PARAMETER_SETS = 100;
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends VoltProcedure> TARGET_PROCEDURES[] = (Class<? extends VoltProcedure>[])new Class<?>[] {
+        neworder.class,
+        slev.class,
+        delivery.class,
+    };
+
+    private final FastIntHistogram touched_partitions = new FastIntHistogram();
+    private final List<WorkFragment.Builder> builders = new ArrayList<WorkFragment.Builder>();
+
+    private void init() throws Exception {
+        super.setUp(ProjectType.TPCC);
+        this.addPartitions(NUM_PARTITIONS);
+        p_estimator = new PartitionEstimator(catalogContext, new DefaultHasher(catalog_db, NUM_PARTITIONS));
+        HStoreConf.singleton().site.planner_profiling = true;
+    }
+
+    private BatchPlanner runBenchmark(Class<? extends VoltProcedure> procClass, int iterations) throws Exception {
+        Procedure catalog_proc = this.getProcedure(procClass);
+        SQLStmt batch[] = new SQLStmt[catalog_proc.getStatements().size()];
+        int i = 0;
+        for (Statement catalog_stmt : catalog_proc.getStatements()) {
+            batch[i++] = new SQLStmt(catalog_stmt);
+        } // FOR
+        ParameterSet args[][] = new ParameterSet[NUM_PARAMETER_SETS][batch.length];
+        for (int p = 0; p < NUM_PARAMETER_SETS; p++) {
+            for (i = 0; i < batch.length; i++) {
+                args[p][i] = new ParameterSet(this.randomStatementParameters(batch[i].getStatement()));
+            } // FOR
+        } // FOR
+
+        BatchPlanner planner = new BatchPlanner(batch, catalog_proc, p_estimator);
+        PartitionSet all_partitions = catalogContext.getAllPartitionIds();
+        for (int n = 0; n < iterations; n++) {
+            this.touched_partitions.clear();
+            BatchPlan plan = planner.plan((long)n, n, BASE_PARTITION, all_partitions, false,
+                                          this.touched_partitions, args[n % NUM_PARAMETER_SETS]);
+            assert(plan.hasMisprediction() == false);
+            this.builders.clear();
+            plan.getWorkFragmentsBuilders((long)n, this.builders);
+        } // FOR
+        return (planner);
+    }
+
+    private static double average(ProfileMeasurement pm, int iterations) {
+        return (pm.getTotalThinkTime() / 1000d / iterations);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 100000;
+        if (args.length > 0) {
+            iterations = Integer.parseInt(args[0]);
+        }
+
+        BatchPlannerMicrobench bench = new BatchPlannerMicrobench();
+        bench.init();
+        for (Class<? extends VoltProcedure> procClass : TARGET_PROCEDURES) {
+            bench.runBenchmark(procClass, iterations); // Warm-up
+            BatchPlannerProfiler profiler = bench.runBenchmark(procClass, iterations).getDebugContext().getProfiler();
+            System.out.printf("%s / %d partitions: partitions=%.2f us, plan=%.2f us, fragments=%.2f us per batch\n",
+                              procClass.getSimpleName(), NUM_PARTITIONS,
+                              average(profiler.partest_time, iterations),
+                              average(profiler.plan_time, iterations),
+                              average(profiler.fragment_time, iterations));
+        } // FOR
+    }
+}
@@ -90,24 +90,41 @@ public class TestBatchPlannerComplex extends BaseTestCase {
     }
 
     /**
-     * testGetPlanGraph
+     * testGetPlanTemplate
      */
-    public void testGetPlanGraph() throws Exception {
-        BatchPlanner.PlanGraph graph = getPlan().getPlanGraph();
-        assertNotNull(graph);
+    public void testGetPlanTemplate() throws Exception {
+        BatchPlanner.PlanTemplate template = getPlan().getPlanTemplate();
+        assertNotNull(template);
         
-        // Make sure that only PlanVertexs with input dependencies have a child in the graph
-        for (BatchPlanner.PlanVertex v : graph.getVertices()) {
+        // Make sure that only PlanVertexs with input dependencies have a
+        // PlanVertex in an earlier round that produces that input
+        BatchPlanner.PlanVertex vertices[] = template.getVertices();
+        for (BatchPlanner.PlanVertex v : vertices) {
             assertNotNull(v);
+            int producers = 0;
+            for (BatchPlanner.PlanVertex other : vertices) {
+                if (other.output_dependency_id == v.input_dependency_id) {
+                    assertEquals(v.stmt_index, other.stmt_index);
+                    assertTrue(other.round < v.round);
+                    producers++;
+                }
+            } // FOR
             if (v.input_dependency_id == HStoreConstants.NULL_DEPENDENCY_ID) {
-                assertEquals(0, graph.getSuccessorCount(v));
+                assertEquals(0, producers);
             } else {
-                assertEquals(1, graph.getSuccessorCount(v));
+                assertEquals(1, producers);
             }
         } // FOR
         
-//        GraphVisualizationPanel.createFrame(graph, GraphVisualizationPanel.makeVertexObserver(graph)).setVisible(true);
-//        ThreadUtil.sleep(1000000);
+        // Every PlanVertex must be in exactly one round
+        int total = 0;
+        for (int round = 0; round < template.getRoundCount(); round++) {
+            for (int offset : template.getRoundVertices(round)) {
+                assertEquals(round, vertices[offset].round);
+                total++;
+            } // FOR
+        } // FOR
+        assertEquals(vertices.length, total);
     }
     
     /**
@@ -0,0 +1,172 @@
+package edu.brown.hstore;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Site;
+import org.voltdb.catalog.Table;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.regressionsuites.specexecprocs.EscalationTester;
+import org.voltdb.sysprocs.LoadMultipartitionTable;
+import org.voltdb.utils.VoltTableUtil;
+
+import edu.brown.BaseTestCase;
+import edu.brown.HStoreSiteTestUtil;
+import edu.brown.HStoreSiteTestUtil.LatchableProcedureCallback;
+import edu.brown.benchmark.tm1.TM1Constants;
+import edu.brown.benchmark.tm1.TM1ProjectBuilder;
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.hashing.AbstractHasher;
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.utils.CollectionUtil;
+import edu.brown.utils.PartitionSet;
+import edu.brown.utils.ThreadUtil;
+
+/**
+ * Escalating mispredicted single-partition txns with ${site.exec_mispredict_escalation}
+ */
+public class TestPartitionExecutorEscalation extends BaseTestCase {
+
+    private static final int NUM_PARTITIONS = 3;
+    private static final int BASE_PARTITION = 0;
+    private static final int GRANT_PARTITION = 1;
+    private static final int REJECT_PARTITION = 2;
+    private static final int NOTIFY_TIMEOUT = 2500; // ms
+
+    private final Semaphore lockEscalate = EscalationTester.LOCK[0];
+    private final Semaphore notifyEscalate = EscalationTester.NOTIFY[0];
+    private final Semaphore lockHolder = EscalationTester.LOCK[1];
+    private final Semaphore notifyHolder = EscalationTester.NOTIFY[1];
+
+    private HStoreSite hstore_site;
+    private HStoreConf hstore_conf;
+    private Client client;
+    private Procedure proc;
+
+    /**
+     * One SUBSCRIBER S_ID per partition
+     */
+    private final long s_ids[] = new long[NUM_PARTITIONS];
+
+    private final TM1ProjectBuilder builder = new TM1ProjectBuilder() {
+        {
+            this.addAllDefaults();
+            this.addProcedure(EscalationTester.class);
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp(this.builder);
+        initializeCatalog(1, 1, NUM_PARTITIONS);
+
+        Site catalog_site = CollectionUtil.first(catalogContext.sites);
+        this.hstore_conf = HStoreConf.singleton();
+        this.hstore_conf.site.exec_mispredict_escalation = true;
+        this.hstore_conf.site.specexec_enable = false;
+        this.hstore_conf.site.markov_enable = false;
+        this.hstore_conf.site.txn_client_debug = true;
+
+        this.hstore_site = this.createHStoreSite(catalog_site, hstore_conf);
+        this.client = createClient();
+        this.proc = this.getProcedure(EscalationTester.class);
+
+        for (Semaphore s : EscalationTester.LOCK) s.drainPermits();
+        for (Semaphore s : EscalationTester.NOTIFY) s.drainPermits();
+
+        // Pick the first S_ID that is stored at each partition
+        AbstractHasher hasher = p_estimator.getHasher();
+        Table catalog_tbl = this.getTable(TM1Constants.TABLENAME_SUBSCRIBER);
+        VoltTable vt = CatalogUtil.getVoltTable(catalog_tbl);
+        PartitionSet found = new PartitionSet();
+        for (long s_id = 1; found.size() < NUM_PARTITIONS; s_id++) {
+            int partition = hasher.hash(s_id);
+            if (found.contains(partition)) continue;
+            found.add(partition);
+            this.s_ids[partition] = s_id;
+            Object row[] = VoltTableUtil.getRandomRow(catalog_tbl);
+            row[0] = new Long(s_id);
+            vt.addRow(row);
+        } // FOR
+        String procName = VoltSystemProcedure.procCallName(LoadMultipartitionTable.class);
+        ClientResponse cr = this.client.callProcedure(procName, catalog_tbl.getName(), vt);
+        assertEquals(cr.toString(), Status.OK, cr.getStatus());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.client != null) this.client.close();
+        if (this.hstore_site != null) this.hstore_site.shutdown();
+        // HACK: Delete JAR
+        if (catalogContext.jarPath != null && catalogContext.jarPath.exists()) {
+            catalogContext.jarPath.delete();
+        }
+    }
+
+    /**
+     * Execute a single-partition txn at the given partition and make
+     * sure that it finishes without waiting for anything else
+     */
+    private void checkPartitionAcceptsWork(int partition) throws Exception {
+        LatchableProcedureCallback callback = new LatchableProcedureCallback(1);
+        Object params[] = { this.s_ids[partition], new long[0], -1 };
+        this.client.callProcedure(callback, this.proc.getName(), params);
+        boolean result = callback.latch.await(NOTIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue("Partition " + partition + " did not execute txn", result);
+        assertEquals(Status.OK, callback.responses.get(0).getStatus());
+    }
+
+    /**
+     * testPartialGrant
+     */
+    @Test
+    public void testPartialGrant() throws Exception {
+        // Block a single-partition txn at the base partition before it
+        // touches the other two partitions
+        LatchableProcedureCallback escalateCallback = new LatchableProcedureCallback(1);
+        Object params[] = { this.s_ids[BASE_PARTITION],
+                            new long[]{ this.s_ids[GRANT_PARTITION], this.s_ids[REJECT_PARTITION] },
+                            0 };
+        this.client.callProcedure(escalateCallback, this.proc.getName(), params);
+        boolean result = this.notifyEscalate.tryAcquire(NOTIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue(result);
+
+        // Then hold the lock of the partition that is going to reject it with
+        // a txn that has a larger id
+        LatchableProcedureCallback holderCallback = new LatchableProcedureCallback(1);
+        params = new Object[]{ this.s_ids[REJECT_PARTITION], new long[0], 1 };
+        this.client.callProcedure(holderCallback, this.proc.getName(), params);
+        result = this.notifyHolder.tryAcquire(NOTIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue(result);
+
+        // The first txn mispredicts and gets escalated. The free partition grants
+        // its lock but the other one rejects it, so it has to be restarted.
+        this.lockEscalate.release();
+        ThreadUtil.sleep(NOTIFY_TIMEOUT / 5);
+        this.lockHolder.release();
+
+        result = holderCallback.latch.await(NOTIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue("HOLDER LATCH: " + holderCallback.latch, result);
+        assertEquals(Status.OK, holderCallback.responses.get(0).getStatus());
+        result = escalateCallback.latch.await(NOTIFY_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue("ESCALATE LATCH: " + escalateCallback.latch, result);
+        ClientResponse cresponse = escalateCallback.responses.get(0);
+        assertEquals(cresponse.toString(), Status.OK, cresponse.getStatus());
+        assertTrue(cresponse.toString(), cresponse.getRestartCounter() > 0);
+
+        // Both partitions have to let go of the escalated txn
+        for (int partition : new int[]{ GRANT_PARTITION, REJECT_PARTITION }) {
+            PartitionExecutor executor = this.hstore_site.getPartitionExecutor(partition);
+            assertNull(executor.getDebugContext().getCurrentDtxn());
+            this.checkPartitionAcceptsWork(partition);
+        } // FOR
+
+        HStoreSiteTestUtil.checkObjectPools(hstore_site);
+    }
+}
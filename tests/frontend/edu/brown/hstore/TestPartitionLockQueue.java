@@ -506,4 +506,40 @@ public class TestPartitionLockQueue extends BaseTestCase {
             }
         } // FOR
     }
+    
+    /**
+     * testReserve
+     */
+    @Test
+    public void testReserve() throws Exception {
+        // Reserve a spot for a txn but then add a txn with a larger id first.
+        // The queue should not release the second txn until the first one is added.
+        LocalTransaction reserved = new LocalTransaction(this.hstore_site);
+        reserved.testInit(this.idManager.getNextUniqueTransactionId(), 0, new PartitionSet(1), this.catalog_proc);
+        assertTrue(this.queue.reserve(reserved.getTransactionId()));
+        
+        Collection<AbstractTransaction> added = this.loadQueue(1);
+        assertEquals(1, this.queue.size());
+        ThreadUtil.sleep(TXN_DELAY);
+        assertEquals(QueueState.BLOCKED_ORDERING, this.queueDbg.checkQueueState());
+        assertNull(this.queue.poll());
+        
+        this.queue.noteTransactionRecievedAndReturnLastSafeTxnId(reserved.getTransactionId());
+        assertTrue(this.queue.offer(reserved, false));
+        this.queue.releaseReservation(reserved.getTransactionId());
+        added.add(reserved);
+        
+        ThreadUtil.sleep(TXN_DELAY);
+        this.queueDbg.checkQueueState();
+        Iterator<AbstractTransaction> it = added.iterator();
+        assertEquals(reserved, it.next());
+        assertEquals(reserved, this.queue.poll());
+        ThreadUtil.sleep(TXN_DELAY);
+        this.queueDbg.checkQueueState();
+        assertEquals(it.next(), this.queue.poll());
+        
+        // We can't reserve a spot for a txn whose id is less than 
+        // the last txn that the queue released
+        assertFalse(this.queue.reserve(reserved.getTransactionId()));
+    }
 }
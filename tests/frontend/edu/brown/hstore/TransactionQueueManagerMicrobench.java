@@ -0,0 +1,170 @@
+package edu.brown.hstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.voltdb.TransactionIdManager;
+import org.voltdb.VoltProcedure;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Site;
+
+import edu.brown.BaseTestCase;
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.hstore.callbacks.LocalInitQueueCallback;
+import edu.brown.hstore.callbacks.TransactionFinishCallback;
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.hstore.txns.AbstractTransaction;
+import edu.brown.hstore.txns.LocalTransaction;
+import edu.brown.utils.CollectionUtil;
+import edu.brown.utils.PartitionSet;
+import edu.brown.utils.ProjectType;
+
+/**
+ * Measures how many distributed transactions per second the TransactionQueueManager
+ * can push through the lock queues of a single 32-partition HStoreSite for different
+ * values of ${site.queue_init_threads}. Every partition is drained by its own thread that
+ * releases each transaction as soon as it acquires the partition's lock.
+ * <p>
+ * Usage: TransactionQueueManagerMicrobench [initThreads ...]
+ */
+public class TransactionQueueManagerMicrobench extends BaseTestCase {
+
+    private static final int NUM_PARTITIONS = 32;
+    private static final int NUM_PRODUCERS = 8;
+    private static final int TXNS_PER_PRODUCER = 25000;
+    private static final int PARTITIONS_PER_TXN = 2;
+    private static final int TXN_DELAY = 5;
+    private static final Class<? extends VoltProcedure> TARGET_PROCEDURE = neworder.class;
+
+    private HStoreSite hstore_site;
+    private HStoreCoordinator hstore_coordinator;
+    private TransactionQueueManager queueManager;
+    private CountDownLatch finished;
+    private final AtomicInteger rejected = new AtomicInteger(0);
+
+    class BenchCallback extends LocalInitQueueCallback {
+        protected BenchCallback() {
+            super(TransactionQueueManagerMicrobench.this.hstore_site);
+        }
+        @Override
+        protected void unblockCallback() {
+            finished.countDown();
+        }
+        @Override
+        protected void abortCallback(Status status) {
+            rejected.incrementAndGet();
+            finished.countDown();
+        }
+    }
+
+    private void init(int initThreads) throws Exception {
+        super.setUp(ProjectType.TPCC);
+        addPartitions(NUM_PARTITIONS);
+
+        HStoreConf hstore_conf = HStoreConf.singleton();
+        hstore_conf.site.cpu_affinity = false;
+        hstore_conf.site.txn_incoming_delay = TXN_DELAY;
+        hstore_conf.site.queue_init_threads = initThreads;
+
+        Site catalog_site = CollectionUtil.first(catalogContext.sites);
+        this.hstore_site = new MockHStoreSite(catalog_site.getId(), catalogContext, hstore_conf) {
+            @Override
+            public HStoreCoordinator getCoordinator() {
+                return (hstore_coordinator);
+            }
+        };
+        this.queueManager = this.hstore_site.getTransactionQueueManager();
+
+        // This starts the TransactionQueueManager thread
+        this.hstore_coordinator = new MockHStoreCoordinator((MockHStoreSite)this.hstore_site) {
+            @Override
+            public void transactionFinish(LocalTransaction ts, Status status, TransactionFinishCallback callback) {
+                // Rejected txns don't need to tell anybody
+            }
+        };
+
+        // One thread per partition that grabs the lock and releases it right away
+        for (final int partition : catalogContext.getAllPartitionIds().values()) {
+            Thread t = new Thread() {
+                public void run() {
+                    while (true) {
+                        try {
+                            AbstractTransaction ts = queueManager.checkLockQueue(partition);
+                            if (ts != null) queueManager.lockQueueFinished(ts, Status.OK, partition);
+                        } catch (InterruptedException ex) {
+                            break;
+                        }
+                    } // WHILE
+                }
+            };
+            t.setDaemon(true);
+            t.start();
+        } // FOR
+    }
+
+    private double runBenchmark() throws Exception {
+        final int num_txns = NUM_PRODUCERS * TXNS_PER_PRODUCER;
+        this.finished = new CountDownLatch(num_txns);
+        this.rejected.set(0);
+        final Procedure catalog_proc = this.getProcedure(TARGET_PROCEDURE);
+
+        // Each producer is a different base partition with its own TransactionIdManager
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int i = 0; i < NUM_PRODUCERS; i++) {
+            final int base_partition = i * (NUM_PARTITIONS / NUM_PRODUCERS);
+            producers.add(new Thread() {
+                public void run() {
+                    Random rand = new Random(base_partition);
+                    TransactionIdManager idManager = hstore_site.getTransactionIdManager(base_partition);
+                    for (int j = 0; j < TXNS_PER_PRODUCER; j++) {
+                        PartitionSet partitions = new PartitionSet();
+                        partitions.add(base_partition);
+                        while (partitions.size() < PARTITIONS_PER_TXN) {
+                            partitions.add(rand.nextInt(NUM_PARTITIONS));
+                        } // WHILE
+                        final BenchCallback callback = new BenchCallback();
+                        LocalTransaction ts = new LocalTransaction(hstore_site) {
+                            @Override
+                            public BenchCallback getTransactionInitQueueCallback() {
+                                return (callback);
+                            }
+                        };
+                        ts.testInit(idManager.getNextUniqueTransactionId(), base_partition, partitions, catalog_proc);
+                        callback.init(ts, partitions);
+                        queueManager.initTransaction(ts);
+                    } // FOR
+                }
+            });
+        } // FOR
+
+        long start = System.nanoTime();
+        for (Thread t : producers) t.start();
+        this.finished.await();
+        double seconds = (System.nanoTime() - start) / 1000000000d;
+        return (num_txns / seconds);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int initThreads[] = { 0, 1, 2, 4, 8 };
+        if (args.length > 0) {
+            initThreads = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                initThreads[i] = Integer.parseInt(args[i]);
+            } // FOR
+        }
+
+        for (int threads : initThreads) {
+            TransactionQueueManagerMicrobench bench = new TransactionQueueManagerMicrobench();
+            bench.init(threads);
+            bench.runBenchmark(); // Warm-up
+            double txnPerSec = bench.runBenchmark();
+            System.out.printf("%d partitions / queue_init_threads=%d: %.0f txn/s [rejected=%d]\n",
+                              NUM_PARTITIONS, threads, txnPerSec, bench.rejected.get());
+            bench.queueManager.shutdown();
+        } // FOR
+    }
+}
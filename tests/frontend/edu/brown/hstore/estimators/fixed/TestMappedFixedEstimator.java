@@ -0,0 +1,197 @@
+package edu.brown.hstore.estimators.fixed;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.voltdb.benchmark.tpcc.TPCCConstants;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.benchmark.tpcc.procedures.slev;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.catalog.Statement;
+import org.voltdb.types.TimestampType;
+
+import edu.brown.BaseTestCase;
+import edu.brown.hashing.AbstractHasher;
+import edu.brown.hstore.estimators.Estimate;
+import edu.brown.hstore.estimators.EstimatorState;
+import edu.brown.mappings.ParameterMappingsSet;
+import edu.brown.markov.EstimationThresholds;
+import edu.brown.rand.DefaultRandomGenerator;
+import edu.brown.utils.PartitionSet;
+import edu.brown.utils.ProjectType;
+import edu.brown.workload.QueryTrace;
+import edu.brown.workload.TransactionTrace;
+
+public class TestMappedFixedEstimator extends BaseTestCase {
+
+    private static final int NUM_PARTITIONS = 8;
+    private static final DefaultRandomGenerator rng = new DefaultRandomGenerator(0);
+    private static final EstimationThresholds thresholds = new EstimationThresholds();
+
+    private static ParameterMappingsSet mappings;
+    private MappedFixedEstimator estimator;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp(ProjectType.TPCC);
+        this.addPartitions(NUM_PARTITIONS);
+
+        if (mappings == null) {
+            File file = this.getParameterMappingsFile(ProjectType.TPCC);
+            mappings = new ParameterMappingsSet();
+            mappings.load(file, catalog_db);
+        }
+        this.estimator = new MappedFixedEstimator(p_estimator, mappings);
+    }
+
+    /**
+     * testGenerateModel
+     */
+    @Test
+    public void testGenerateModel() throws Exception {
+        Procedure catalog_proc = this.getProcedure(neworder.class);
+        MappedFixedEstimator.ProcedureModel model = this.estimator.getModel(catalog_proc);
+        assertNotNull(model);
+        assertTrue(model.toString(), model.isValid());
+        assertFalse(model.toString(), model.broadcastWrite);
+
+        // The STOCK updates must be derived from the supply W_ID array
+        boolean found = false;
+        for (MappedFixedEstimator.PartitionTerm term : model.writeTerms) {
+            if (term.param_idx == 5) {
+                assertTrue(term.toString(), term.is_array);
+                found = true;
+            }
+        } // FOR
+        assertTrue(model.toString(), found);
+    }
+
+    /**
+     * testNewOrder
+     */
+    @Test
+    public void testNewOrder() throws Exception {
+        Procedure catalog_proc = this.getProcedure(neworder.class);
+        AbstractHasher hasher = p_estimator.getHasher();
+
+        long txn_id = 1000;
+        for (short w_id = 1; w_id <= NUM_PARTITIONS; w_id++) {
+            short remote_w_id = (short)rng.numberExcluding(1, NUM_PARTITIONS, w_id);
+
+            int num_items = rng.number(TPCCConstants.MIN_OL_CNT, TPCCConstants.MAX_OL_CNT);
+            int item_id[] = new int[num_items];
+            short supware[] = new short[num_items];
+            int quantity[] = new int[num_items];
+            for (int i = 0; i < num_items; i++) {
+                item_id[i] = rng.nextInt();
+                supware[i] = (i == 0 ? remote_w_id : w_id);
+                quantity[i] = rng.number(TPCCConstants.MIN_QUANTITY, TPCCConstants.MAX_QUANTITY);
+            } // FOR
+
+            Object args[] = {
+                w_id,                   // W_ID
+                (byte)rng.nextInt(10),  // D_ID
+                rng.nextInt(),          // C_ID
+                new TimestampType(),    // TIMESTAMP
+                item_id,                // ITEM_IDS
+                supware,                // SUPPLY W_IDS
+                quantity                // QUANTITIES
+            };
+
+            EstimatorState state = this.estimator.startTransaction(txn_id, catalog_proc, args);
+            assertNotNull(state);
+            Estimate est = state.getInitialEstimate();
+            assertNotNull(est);
+
+            // We write to both the home and the remote warehouse
+            PartitionSet partitions = est.getTouchedPartitions(thresholds);
+            assertEquals(partitions.toString(), 2, partitions.size());
+            assertTrue(partitions.contains(hasher.hash(w_id)));
+            assertTrue(partitions.contains(hasher.hash(remote_w_id)));
+            assertTrue(est.getReadOnlyPartitions(thresholds).isEmpty());
+            assertEquals(hasher.hash(w_id), state.getBasePartition());
+            txn_id++;
+        } // FOR
+    }
+
+    /**
+     * testReadOnly
+     */
+    @Test
+    public void testReadOnly() throws Exception {
+        Procedure catalog_proc = this.getProcedure(slev.class);
+        assertTrue(this.estimator.getModel(catalog_proc).isValid());
+
+        short w_id = 3;
+        Object args[] = { w_id, (byte)1, 10 };
+        EstimatorState state = this.estimator.startTransaction(1000l, catalog_proc, args);
+        Estimate est = state.getInitialEstimate();
+        assertTrue(est.isSinglePartitioned(thresholds));
+        assertTrue(est.isReadOnlyAllPartitions(thresholds));
+        assertTrue(est.isReadOnlyPartition(thresholds, state.getBasePartition()));
+    }
+
+    /**
+     * Make a slev txn trace that was invoked for one warehouse but
+     * whose query was executed for another warehouse
+     */
+    private TransactionTrace makeSlevTrace(long txn_id, short w_id, short query_w_id) {
+        Procedure catalog_proc = this.getProcedure(slev.class);
+        Statement catalog_stmt = this.getStatement(catalog_proc, "GetOId");
+        TransactionTrace txn_trace = new TransactionTrace(txn_id, catalog_proc, new Object[]{ w_id, (byte)1, 10 });
+        txn_trace.addQuery(new QueryTrace(catalog_stmt, new Object[]{ query_w_id, (byte)1 }, 0));
+        return (txn_trace);
+    }
+
+    /**
+     * testValidate
+     */
+    @Test
+    public void testValidate() throws Exception {
+        Procedure catalog_proc = this.getProcedure(slev.class);
+        MappedFixedEstimator.ProcedureModel model = this.estimator.getModel(catalog_proc);
+        assertTrue(model.isValid());
+
+        // The model predicts every txn that only reads its own warehouse
+        List<TransactionTrace> workload = new ArrayList<TransactionTrace>();
+        for (short w_id = 1; w_id <= NUM_PARTITIONS; w_id++) {
+            workload.add(this.makeSlevTrace(w_id, w_id, w_id));
+        } // FOR
+        assertEquals(0, this.estimator.validate(workload));
+        assertTrue(model.isValid());
+
+        // If the txns really read some other warehouse, then the model is wrong
+        // and should not be used anymore
+        workload.clear();
+        for (short w_id = 1; w_id <= NUM_PARTITIONS; w_id++) {
+            short other_w_id = (short)(w_id % NUM_PARTITIONS + 1);
+            workload.add(this.makeSlevTrace(w_id, w_id, other_w_id));
+        } // FOR
+        assertEquals(1, this.estimator.validate(workload));
+        assertFalse(model.isValid());
+        assertTrue(this.estimator.getModel(this.getProcedure(neworder.class)).isValid());
+    }
+
+    /**
+     * testNoMappings
+     */
+    @Test
+    public void testNoMappings() throws Exception {
+        // Without any mappings we can't say anything about neworder's remote
+        // warehouses, so we should just fall back to the base partition
+        MappedFixedEstimator estimator = new MappedFixedEstimator(p_estimator, new ParameterMappingsSet());
+        Procedure catalog_proc = this.getProcedure(neworder.class);
+        assertFalse(estimator.getModel(catalog_proc).isValid());
+
+        short w_id = 1;
+        Object args[] = { w_id, (byte)1, 1, new TimestampType(),
+                          new int[]{ 1 }, new short[]{ 2 }, new int[]{ 1 } };
+        EstimatorState state = estimator.startTransaction(1000l, catalog_proc, args);
+        PartitionSet partitions = state.getInitialEstimate().getTouchedPartitions(thresholds);
+        assertEquals(1, partitions.size());
+        assertEquals(state.getBasePartition(), partitions.get());
+    }
+
+}
@@ -1,7 +1,10 @@
 package edu.brown.hstore.txns;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
+import org.voltdb.ParameterSet;
 import org.voltdb.StoredProcedureInvocation;
 import org.voltdb.VoltMapReduceProcedure;
 import org.voltdb.VoltProcedure;
@@ -106,4 +109,50 @@ public class TestMapReduceTransaction extends BaseTestCase{
 //       this.compareTables(this.table, result);
        
     }
+    
+    /**
+     * testStoreDataChunks
+     */
+    public void testStoreDataChunks() throws Exception {
+        final int num_chunks = 20;
+        Procedure catalog_proc = this.getProcedure(TARGET_PROCEDURE);
+        final MapReduceTransaction ts = new MapReduceTransaction(this.sites[0]);
+        ts.init(123456789l, 0, 0, 0, catalog_proc, new ParameterSet());
+        
+        // The SHUFFLE phase stores each chunk as soon as it fills up, so the
+        // same partition gets many chunks and different partitions get them
+        // at the same time
+        List<Thread> threads = new ArrayList<Thread>();
+        for (final int partition : this.sites[0].getLocalPartitionIds()) {
+            final List<VoltTable> chunks = new ArrayList<VoltTable>();
+            for (int i = 0; i < num_chunks; i++) {
+                VoltTable chunk = new VoltTable(this.schema);
+                this.table.resetRowPosition();
+                while (this.table.advanceRow()) {
+                    chunk.add(this.table);
+                } // WHILE
+                chunks.add(chunk);
+            } // FOR
+            Thread t = new Thread() {
+                public void run() {
+                    for (VoltTable chunk : chunks) {
+                        ts.storeData(partition, chunk);
+                    } // FOR
+                }
+            };
+            threads.add(t);
+        } // FOR
+        for (Thread t : threads) {
+            t.start();
+        } // FOR
+        for (Thread t : threads) {
+            t.join();
+        } // FOR
+        
+        for (int partition : this.sites[0].getLocalPartitionIds()) {
+            VoltTable result = ts.getReduceInputByPartition(partition);
+            assertNotNull(result);
+            assertEquals(NUM_ROWS * num_chunks, result.getRowCount());
+        } // FOR
+    }
 }
@@ -0,0 +1,119 @@
+package edu.brown.hstore.util;
+
+import org.voltdb.CatalogContext;
+import org.voltdb.VoltProcedure;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.catalog.Procedure;
+
+import edu.brown.BaseTestCase;
+import edu.brown.utils.PartitionEstimator;
+import edu.brown.utils.PartitionSet;
+import edu.brown.utils.ProjectType;
+
+/**
+ * TestMispredictionCache
+ */
+public class TestMispredictionCache extends BaseTestCase {
+
+    private static final int NUM_PARTITIONS = 10;
+    private static final int MAX_ENTRIES = 4;
+    private static final int MAX_HITS = 10;
+    private static final Class<? extends VoltProcedure> TARGET_PROCEDURE = neworder.class;
+
+    private MispredictionCache cache;
+    private Procedure catalog_proc;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp(ProjectType.TPCC);
+        this.addPartitions(NUM_PARTITIONS);
+        this.cache = new MispredictionCache(p_estimator, MAX_ENTRIES, MAX_HITS);
+        this.catalog_proc = this.getProcedure(TARGET_PROCEDURE);
+    }
+
+    private Object[] makeParams(int w_id, int num_items) {
+        Object params[] = new Object[this.catalog_proc.getParameters().size()];
+        params[0] = (short)w_id;
+        params[1] = (byte)1;
+        params[2] = (short)1;
+        params[3] = null;
+        params[4] = new int[num_items];
+        params[5] = new short[num_items];
+        params[6] = new int[num_items];
+        return (params);
+    }
+
+    /**
+     * testGetPut
+     */
+    public void testGetPut() throws Exception {
+        int base_partition = 1;
+        Object params[] = this.makeParams(base_partition, 5);
+        assertNull(this.cache.get(this.catalog_proc, base_partition, params));
+
+        PartitionSet touched = new PartitionSet(base_partition, 3);
+        this.cache.put(this.catalog_proc, base_partition, params, touched);
+        PartitionSet cached = this.cache.get(this.catalog_proc, base_partition, this.makeParams(base_partition, 5));
+        assertNotNull(cached);
+        assertEquals(touched, cached);
+
+        // Different array lengths or base partitions are different entries
+        assertNull(this.cache.get(this.catalog_proc, base_partition, this.makeParams(base_partition, 6)));
+        assertNull(this.cache.get(this.catalog_proc, base_partition + 1, params));
+
+        // Another misprediction replaces the existing entry
+        this.cache.put(this.catalog_proc, base_partition, params, new PartitionSet(base_partition, 7));
+        cached = this.cache.get(this.catalog_proc, base_partition, params);
+        assertEquals(new PartitionSet(base_partition, 7), cached);
+        // The first entry was not modified
+        assertEquals(2, touched.size());
+    }
+
+    /**
+     * testExpire
+     */
+    public void testExpire() throws Exception {
+        int base_partition = 2;
+        Object params[] = this.makeParams(base_partition, 5);
+        PartitionSet touched = new PartitionSet(base_partition, 4);
+        this.cache.put(this.catalog_proc, base_partition, params, touched);
+        for (int i = 0; i < MAX_HITS; i++) {
+            assertEquals("Hit #" + i, touched, this.cache.get(this.catalog_proc, base_partition, params));
+        } // FOR
+        assertNull(this.cache.get(this.catalog_proc, base_partition, params));
+
+        // A new misprediction starts the count over
+        this.cache.put(this.catalog_proc, base_partition, params, touched);
+        assertEquals(touched, this.cache.get(this.catalog_proc, base_partition, params));
+    }
+
+    /**
+     * testMaxEntries
+     */
+    public void testMaxEntries() throws Exception {
+        for (int i = 0; i <= MAX_ENTRIES; i++) {
+            this.cache.put(this.catalog_proc, i, this.makeParams(i, 5), new PartitionSet(i, i+1));
+        } // FOR
+        // The oldest entry should have been evicted
+        assertNull(this.cache.get(this.catalog_proc, 0, this.makeParams(0, 5)));
+        for (int i = 1; i <= MAX_ENTRIES; i++) {
+            assertNotNull(this.cache.get(this.catalog_proc, i, this.makeParams(i, 5)));
+        } // FOR
+    }
+
+    /**
+     * testCatalogChange
+     */
+    public void testCatalogChange() throws Exception {
+        Object params[] = this.makeParams(0, 5);
+        this.cache.put(this.catalog_proc, 0, params, new PartitionSet(0, 1));
+        assertNotNull(this.cache.get(this.catalog_proc, 0, params));
+
+        // Repartitioning gives the PartitionEstimator a new catalog
+        PartitionEstimator estimator = new PartitionEstimator(catalogContext);
+        MispredictionCache otherCache = new MispredictionCache(estimator, MAX_ENTRIES, MAX_HITS);
+        otherCache.put(this.catalog_proc, 0, params, new PartitionSet(0, 1));
+        estimator.initCatalog(new CatalogContext(catalogContext.catalog));
+        assertNull(otherCache.get(this.catalog_proc, 0, params));
+    }
+}
@@ -4,12 +4,37 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 
 import org.junit.Before;
 import org.junit.Test;
 
 public class NIOWriteStreamTest {
+    /** Records one write per buffer, like MockByteChannel, but counts gathering writes. */
+    private static class MockGatheringByteChannel extends MockByteChannel
+            implements GatheringByteChannel {
+        public int gatherCalls = 0;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            gatherCalls += 1;
+            long total = 0;
+            for (int i = offset; i < offset + length; ++i) {
+                if (numBytesToAccept == 0) break;
+                total += write(srcs[i]);
+                if (srcs[i].remaining() > 0) break;
+            }
+            return total;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+    }
+
     private MockByteChannel channel;
     private NIOWriteStream stream;
     private ByteBuffer buffer;
@@ -115,4 +140,72 @@ public class NIOWriteStreamTest {
         stream.flush();
         assertFalse(channel.writeCalled);
     }
+
+    @Test
+    public void testAttach() {
+        buffer.put(new byte[]{ 1, 2, 3 });
+        ByteBuffer attached = ByteBuffer.wrap(new byte[]{ 4, 5, 6, 7, 8 });
+        stream.attach(attached);
+        stream.getNext().put(new byte[]{ 9, 10 });
+        assertFalse(channel.writeCalled);
+
+        // The attached buffer is written in order, without being copied
+        assertFalse(stream.flush());
+        assertEquals(3, channel.lastWrites.size());
+        assertEquals(3, channel.lastWrites.get(0).length);
+        assertEquals(5, channel.lastWrites.get(1).length);
+        assertEquals(4, channel.lastWrites.get(1)[0]);
+        assertEquals(2, channel.lastWrites.get(2).length);
+        assertEquals(9, channel.lastWrites.get(2)[0]);
+        assertEquals(0, attached.remaining());
+
+        // The attached buffer must never be handed out for writing
+        for (int i = 0; i < 4; ++i) {
+            ByteBuffer next = stream.getNext();
+            assertTrue(next != attached);
+            next.position(next.capacity());
+        }
+    }
+
+    @Test
+    public void testGatheringFlush() {
+        MockGatheringByteChannel gathering = new MockGatheringByteChannel();
+        stream = new NIOWriteStream(gathering);
+        buffer = stream.getNext();
+        final int CAPACITY = buffer.capacity();
+
+        // one full buffer, an attached buffer and a partial buffer
+        buffer.position(CAPACITY);
+        stream.attach(ByteBuffer.allocate(1000));
+        stream.getNext().position(10);
+
+        // the whole thing goes out in a single call
+        assertFalse(stream.flush());
+        assertEquals(1, gathering.gatherCalls);
+        assertEquals(3, gathering.lastWrites.size());
+        assertEquals(CAPACITY, gathering.lastWrites.get(0).length);
+        assertEquals(1000, gathering.lastWrites.get(1).length);
+        assertEquals(10, gathering.lastWrites.get(2).length);
+        gathering.clear();
+
+        // partial writes block and pick up where they left off
+        gathering.gatherCalls = 0;
+        stream.getNext().position(CAPACITY);
+        stream.attach(ByteBuffer.allocate(1000));
+        gathering.numBytesToAccept = CAPACITY + 100;
+        assertTrue(stream.flush());
+        assertEquals(1, gathering.gatherCalls);
+        gathering.numBytesToAccept = -1;
+        assertFalse(stream.flush());
+        assertEquals(2, gathering.gatherCalls);
+        int total = 0;
+        for (byte[] write : gathering.lastWrites) {
+            total += write.length;
+        }
+        assertEquals(CAPACITY + 1000, total);
+
+        gathering.clear();
+        assertFalse(stream.flush());
+        assertFalse(gathering.writeCalled);
+    }
 }
@@ -1,15 +1,18 @@
 package edu.brown.optimizer;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
 import org.junit.Test;
+import org.voltdb.catalog.Catalog;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
+import org.voltdb.compiler.DatabaseEstimates;
 import org.voltdb.planner.PlanColumn;
 import org.voltdb.planner.PlannerContext;
 import org.voltdb.plannodes.AbstractJoinPlanNode;
@@ -25,9 +28,14 @@ import org.voltdb.types.PlanNodeType;
 import edu.brown.benchmark.AbstractProjectBuilder;
 import edu.brown.catalog.CatalogUtil;
 import edu.brown.expressions.ExpressionUtil;
+import edu.brown.optimizer.optimizations.AggregatePushdownOptimization;
 import edu.brown.plannodes.PlanNodeTreeWalker;
 import edu.brown.plannodes.PlanNodeUtil;
+import edu.brown.statistics.ColumnStatistics;
+import edu.brown.statistics.TableStatistics;
+import edu.brown.statistics.WorkloadStatistics;
 import edu.brown.utils.CollectionUtil;
+import edu.brown.utils.FileUtil;
 
 /**
 * @author pavlo
@@ -73,6 +81,9 @@ public class TestPlanOptimizer extends BasePlanOptimizerTestCase {
             this.addStmtProcedure("AggregateCount",
                                   "SELECT COUNT(TABLEB.B_A_ID) AS cnt, B_VALUE0 FROM TABLEB GROUP BY B_VALUE0");
             
+            this.addStmtProcedure("AggregateUniqueGroupBy",
+                                  "SELECT A_ID, COUNT(*) FROM TABLEA GROUP BY A_ID");
+            
             this.addStmtProcedure("LimitNoWhere",
                                   "SELECT * FROM TABLEA LIMIT 1");
             
@@ -271,6 +282,100 @@ public class TestPlanOptimizer extends BasePlanOptimizerTestCase {
 // assertEquals(agg0.getGroupByColumnGuids(), agg1.getGroupByColumnGuids());
     }
 
+    /**
+     * testAggregateUniqueGroupBy
+     */
+    @Test
+    public void testAggregateUniqueGroupBy() throws Exception {
+        Procedure catalog_proc = this.getProcedure("AggregateUniqueGroupBy");
+        Statement catalog_stmt = this.getStatement(catalog_proc, "sql");
+        this.check(catalog_stmt);
+
+        // Every tuple is its own group, so there is no point in
+        // computing partial aggregates at the remote partitions
+        AbstractPlanNode root = PlanNodeUtil.getRootPlanNodeForStatement(catalog_stmt, false);
+        assertNotNull(root);
+        Collection<AggregatePlanNode> agg_nodes = PlanNodeUtil.getPlanNodes(root, AggregatePlanNode.class);
+        assertEquals(1, agg_nodes.size());
+    }
+    
+    /**
+     * testAggregatePushdownEstimates
+     */
+    @Test
+    public void testAggregatePushdownEstimates() throws Exception {
+        Table catalog_tbl = this.getTable("TABLEB");
+        Column b_id = this.getColumn(catalog_tbl, "B_ID");
+        Column b_a_id = this.getColumn(catalog_tbl, "B_A_ID");
+        Column b_value0 = this.getColumn(catalog_tbl, "B_VALUE0");
+        int num_partitions = CatalogUtil.getNumberOfPartitions(catalog_db);
+        
+        // Without estimates we only skip GROUP BYs that cover a unique index
+        assertTrue(AggregatePushdownOptimization.shouldPushdown(catalog_db, catalog_tbl, CollectionUtil.addAll(new HashSet<Column>(), b_value0), null));
+        assertTrue(AggregatePushdownOptimization.shouldPushdown(catalog_db, catalog_tbl, null, null));
+        assertFalse(AggregatePushdownOptimization.shouldPushdown(catalog_db, catalog_tbl, CollectionUtil.addAll(new HashSet<Column>(), b_id, b_a_id), null));
+        
+        DatabaseEstimates estimates = new DatabaseEstimates();
+        DatabaseEstimates.TableEstimates tableEst = estimates.getEstimatesForTable(catalog_tbl.getName());
+        tableEst.maxTuples = 1000 * num_partitions;
+        
+        // Few groups -> push down
+        tableEst.distinctValues.put(b_value0.getName(), 10l);
+        assertTrue(AggregatePushdownOptimization.shouldPushdown(catalog_db, catalog_tbl, CollectionUtil.addAll(new HashSet<Column>(), b_value0), estimates));
+        
+        // Almost every tuple is its own group -> don't push down
+        tableEst.distinctValues.put(b_value0.getName(), 900l * num_partitions);
+        assertFalse(AggregatePushdownOptimization.shouldPushdown(catalog_db, catalog_tbl, CollectionUtil.addAll(new HashSet<Column>(), b_value0), estimates));
+        
+        // Missing distinct counts -> push down
+        assertTrue(AggregatePushdownOptimization.shouldPushdown(catalog_db, catalog_tbl, CollectionUtil.addAll(new HashSet<Column>(), b_a_id), estimates));
+    }
+    
+    /**
+     * testAggregatePushdownWorkloadStatistics
+     */
+    @Test
+    public void testAggregatePushdownWorkloadStatistics() throws Exception {
+        Table catalog_tbl = this.getTable("TABLEB");
+        Column b_value0 = this.getColumn(catalog_tbl, "B_VALUE0");
+        int num_tuples = 1000;
+        
+        // Every B_VALUE0 is unique, so grouping on it at each partition won't
+        // reduce the number of tuples that we send to the base partition
+        WorkloadStatistics stats = new WorkloadStatistics(catalog_db);
+        TableStatistics tableStats = stats.getTableStatistics(catalog_tbl);
+        tableStats.tuple_count_total = (long)num_tuples;
+        ColumnStatistics colStats = tableStats.getColumnStatistics(b_value0);
+        for (int i = 0; i < num_tuples; i++) {
+            colStats.histogram.put("VALUE" + i);
+        } // FOR
+        File statsFile = FileUtil.getTempFile("stats", true);
+        stats.save(statsFile);
+        
+        // The planner should pick up the stats file when the catalog is compiled.
+        // This is the same query as AggregateCount, which gets pushed down without it.
+        AbstractProjectBuilder statsBuilder = new PlanOptimizerTestProjectBuilder("planoptstats") {
+            {
+                this.addStmtProcedure("AggregateCountStats",
+                                      "SELECT COUNT(TABLEB.B_A_ID) AS cnt, B_VALUE0 FROM TABLEB GROUP BY B_VALUE0");
+            }
+        };
+        statsBuilder.addWorkloadStatistics(statsFile);
+        File jarFile = FileUtil.getTempFile("jar", true);
+        assertTrue(statsBuilder.compile(jarFile.getAbsolutePath()));
+        Catalog statsCatalog = CatalogUtil.loadCatalogFromJar(jarFile);
+        assertNotNull(statsCatalog);
+        Procedure catalog_proc = CatalogUtil.getDatabase(statsCatalog).getProcedures().get("AggregateCountStats");
+        assertNotNull(catalog_proc);
+        Statement catalog_stmt = catalog_proc.getStatements().get("sql");
+        assertNotNull(catalog_stmt);
+        
+        AbstractPlanNode root = PlanNodeUtil.getRootPlanNodeForStatement(catalog_stmt, false);
+        assertNotNull(root);
+        Collection<AggregatePlanNode> agg_nodes = PlanNodeUtil.getPlanNodes(root, AggregatePlanNode.class);
+        assertEquals(1, agg_nodes.size());
+    }
+    
     /**
      * testLimitNoWhere
      */
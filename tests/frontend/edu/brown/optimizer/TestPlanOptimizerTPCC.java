@@ -4,21 +4,35 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.hsqldb.HSQLInterface;
+import org.json.JSONObject;
+import org.voltdb.benchmark.tpcc.TPCCConstants;
 import org.voltdb.benchmark.tpcc.procedures.neworder;
 import org.voltdb.benchmark.tpcc.procedures.slev;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
+import org.voltdb.compiler.DDLCompiler;
+import org.voltdb.compiler.DatabaseEstimates;
+import org.voltdb.compiler.VoltCompiler;
+import org.voltdb.planner.CompiledPlan;
 import org.voltdb.planner.PlanColumn;
 import org.voltdb.planner.PlannerContext;
+import org.voltdb.planner.QueryPlanner;
+import org.voltdb.planner.TrivialCostModel;
 import org.voltdb.plannodes.AbstractPlanNode;
 import org.voltdb.plannodes.AbstractScanPlanNode;
+import org.voltdb.plannodes.BloomFilterPlanNode;
 import org.voltdb.plannodes.DistinctPlanNode;
 import org.voltdb.plannodes.IndexScanPlanNode;
+import org.voltdb.plannodes.PlanNodeList;
+import org.voltdb.plannodes.PlanNodeTree;
 import org.voltdb.plannodes.ProjectionPlanNode;
 import org.voltdb.types.PlanNodeType;
 
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.hstore.conf.HStoreConf;
 import edu.brown.plannodes.PlanNodeUtil;
 import edu.brown.utils.CollectionUtil;
 import edu.brown.utils.ProjectType;
@@ -34,6 +48,29 @@ public class TestPlanOptimizerTPCC extends BasePlanOptimizerTestCase {
          super.setUp(ProjectType.TPCC);
     }
     
+    /**
+     * Plan the given Statement again with the current HStoreConf settings
+     * and return the root of its full multi-partition plan tree.
+     */
+    private AbstractPlanNode replan(Statement catalog_stmt) throws Exception {
+        Procedure catalog_proc = catalog_stmt.getParent();
+        HSQLInterface hsql = HSQLInterface.loadHsqldb();
+        try {
+            DDLCompiler ddl_compiler = new DDLCompiler(new VoltCompiler(), hsql);
+            ddl_compiler.loadSchema(getDDLPath(ProjectType.TPCC).getAbsolutePath());
+            QueryPlanner planner = new QueryPlanner(CatalogUtil.getCluster(catalog_db), catalog_db, hsql,
+                                                    new DatabaseEstimates(), true, true);
+            CompiledPlan plan = planner.compilePlan(new TrivialCostModel(), catalog_stmt.getSqltext(),
+                                                    catalog_stmt.getName(), catalog_proc.getName(), false, null);
+            assertNotNull(planner.getErrorMessage(), plan);
+            // The fragmentizer splits up fullWinnerPlan, so we have to use the serialized copy
+            PlanNodeList list = (PlanNodeList)PlanNodeTree.fromJSONObject(new JSONObject(plan.fullplan_json), catalog_db);
+            return (list.getRootPlanNode());
+        } finally {
+            hsql.close();
+        }
+    }
+    
     /**
      * testProjectionPushdownDistinctOffset
      */
@@ -169,4 +206,58 @@ public class TestPlanOptimizerTPCC extends BasePlanOptimizerTestCase {
         // FIXME assert(sum_node.getAggregateTypes().contains(ExpressionType.AGGREGATE_SUM));
     }
     
+    /**
+     * testBloomFilterJoin
+     */
+    public void testBloomFilterJoin() throws Exception {
+        Procedure catalog_proc = this.getProcedure(slev.class);
+        Statement catalog_stmt = this.getStatement(catalog_proc, "GetStockCount");
+        Table catalog_tbl = this.getTable(TPCCConstants.TABLENAME_STOCK);
+        Column catalog_col = this.getColumn(catalog_tbl, "S_I_ID");
+
+        // Bloom filter joins are disabled by default
+        AbstractPlanNode root = PlanNodeUtil.getRootPlanNodeForStatement(catalog_stmt, false);
+        assertNotNull(root);
+        assertEquals(0, PlanNodeUtil.getPlanNodes(root, BloomFilterPlanNode.class).size());
+        
+        HStoreConf hstore_conf = HStoreConf.singleton(HStoreConf.isInitialized() == false);
+        hstore_conf.global.compiler_bloom_filter_join = true;
+        try {
+            root = this.replan(catalog_stmt);
+        } finally {
+            hstore_conf.global.compiler_bloom_filter_join = false;
+        }
+        assertNotNull(root);
+        Collection<BloomFilterPlanNode> bloom_nodes = PlanNodeUtil.getPlanNodes(root, BloomFilterPlanNode.class);
+        assertEquals(2, bloom_nodes.size());
+        
+        BloomFilterPlanNode build_node = null;
+        BloomFilterPlanNode probe_node = null;
+        for (BloomFilterPlanNode bloom_node : bloom_nodes) {
+            if (bloom_node.isBuild()) build_node = bloom_node;
+            else probe_node = bloom_node;
+        } // FOR
+        assertNotNull(build_node);
+        assertNotNull(probe_node);
+        
+        // The filter is built on S_I_ID from the STOCK tuples that match the
+        // query's predicates on STOCK and then sent to the partitions
+        AbstractScanPlanNode build_scan = (AbstractScanPlanNode)build_node.getChild(0);
+        assertEquals(catalog_tbl.getName(), build_scan.getTargetTableName());
+        assertNotNull(build_scan.getPredicate());
+        assertEquals(1, build_node.getKeyColumnGuids().size());
+        PlanColumn key_col = PlannerContext.singleton().get(build_node.getKeyColumnGuids().get(0));
+        assertEquals(catalog_col.getName(), key_col.getDisplayName());
+        assertEquals(PlanNodeType.SEND, build_node.getParent(0).getPlanNodeType());
+        
+        // The ORDER_LINE tuples are checked against the filters before they are sent
+        assertEquals(2, probe_node.getChildPlanNodeCount());
+        AbstractScanPlanNode probe_scan = (AbstractScanPlanNode)probe_node.getChild(0);
+        assertEquals(TPCCConstants.TABLENAME_ORDER_LINE, probe_scan.getTargetTableName());
+        assertEquals(PlanNodeType.RECEIVE, probe_node.getChild(1).getPlanNodeType());
+        assertEquals(build_node.getParent(0), probe_node.getChild(1).getChild(0));
+        assertEquals(1, probe_node.getKeyColumnGuids().size());
+        assertEquals(probe_scan.getOutputColumnGUIDs(), probe_node.getOutputColumnGUIDs());
+        assertEquals(PlanNodeType.SEND, probe_node.getParent(0).getPlanNodeType());
+    }
 }
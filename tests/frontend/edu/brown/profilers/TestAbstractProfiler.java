@@ -93,4 +93,130 @@ public class TestAbstractProfiler extends TestCase {
         } // FOR
     }
     
+    /**
+     * testHistograms
+     */
+    @Test
+    public void testHistograms() throws Exception {
+        ProfileMeasurement pms[] = profiler.getProfileMeasurements();
+        for (ProfileMeasurement pm : pms) {
+            assertTrue(pm.getType(), pm.getHistogram().isEmpty());
+            assertEquals(pm.getType(), 0, pm.getThinkTimePercentile(99));
+        } // FOR
+        
+        for (int i = 1; i <= 100; i++) {
+            for (ProfileMeasurement pm : pms) {
+                pm.appendTime(0, i * 1000);
+            } // FOR
+        } // FOR
+        for (ProfileMeasurement pm : pms) {
+            assertEquals(pm.getType(), pm.getInvocations(), pm.getHistogram().getSampleCount());
+            long p50 = pm.getThinkTimePercentile(50);
+            assertTrue(pm.getType() + " " + p50, p50 >= 50000 && p50 <= 50000 * 1.125);
+            assertEquals(pm.getType(), 100000, pm.getThinkTimePercentile(100));
+        } // FOR
+        
+        profiler.reset();
+        for (ProfileMeasurement pm : pms) {
+            assertTrue(pm.getType(), pm.getHistogram().isEmpty());
+        } // FOR
+    }
+    
+    /**
+     * testHistogramMultipleInvocations
+     */
+    @Test
+    public void testHistogramMultipleInvocations() throws Exception {
+        // We only know the total time, so every invocation gets the average
+        ProfileMeasurement pm = new ProfileMeasurement("PM");
+        pm.appendTime(0, 4000, 4);
+        assertEquals(4, pm.getInvocations());
+        assertEquals(4, pm.getHistogram().getSampleCount());
+        assertEquals(1000, pm.getHistogram().getMax());
+        assertEquals(4000, pm.getHistogram().getSum());
+        
+        // Nothing to record if there are no invocations
+        pm.appendTime(0, 4000, 0);
+        assertEquals(4, pm.getHistogram().getSampleCount());
+    }
+    
+    /**
+     * testHistogramAppendTime
+     */
+    @Test
+    public void testHistogramAppendTime() throws Exception {
+        ProfileMeasurement pm = new ProfileMeasurement("PM");
+        pm.appendTime(0, 1000);
+        
+        // Appending another ProfileMeasurement with a histogram merges it
+        ProfileMeasurement other = new ProfileMeasurement("OTHER");
+        other.appendTime(0, 2000);
+        other.appendTime(0, 6000);
+        pm.appendTime(other);
+        assertEquals(3, pm.getInvocations());
+        assertEquals(3, pm.getHistogram().getSampleCount());
+        assertEquals(6000, pm.getHistogram().getMax());
+        
+        // If the other ProfileMeasurement does not have a histogram, then
+        // its total time is spread out over all of its invocations
+        other = new ProfileMeasurement("OTHER").disableHistogram();
+        other.appendTime(0, 3000);
+        other.appendTime(0, 5000);
+        assertNull(other.getHistogram());
+        assertEquals(0, other.getThinkTimePercentile(50));
+        pm.appendTime(other);
+        assertEquals(5, pm.getInvocations());
+        assertEquals(5, pm.getHistogram().getSampleCount());
+        assertEquals(6000, pm.getHistogram().getMax());
+        assertEquals(1000 + 2000 + 6000 + 4000 * 2, pm.getHistogram().getSum());
+        
+        // The copy constructor gets the same histogram
+        ProfileMeasurement copy = new ProfileMeasurement(pm);
+        assertEquals(pm.getHistogram().getSum(), copy.getHistogram().getSum());
+    }
+    
+    /**
+     * testHistogramThreads
+     */
+    @Test
+    public void testHistogramThreads() throws Exception {
+        final ProfileMeasurement pm = new ConcurrentProfileMeasurement("PM");
+        final int num_threads = 4;
+        final int num_samples = 10000;
+        Thread threads[] = new Thread[num_threads];
+        for (int t = 0; t < num_threads; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < num_samples; i++) {
+                        pm.appendTime(0, 1000);
+                    } // FOR
+                }
+            };
+            threads[t].start();
+        } // FOR
+        for (Thread t : threads) t.join();
+        assertEquals(num_threads * num_samples, pm.getInvocations());
+        assertEquals(num_threads * num_samples, pm.getHistogram().getSampleCount());
+    }
+    
+    /**
+     * testDisableHistograms
+     */
+    @Test
+    public void testDisableHistograms() throws Exception {
+        profiler.disableHistograms();
+        for (ProfileMeasurement pm : profiler.getProfileMeasurements()) {
+            pm.appendTime(0, 1000);
+            assertNull(pm.getType(), pm.getHistogram());
+            assertEquals(pm.getType(), 0, pm.getThinkTimePercentile(50));
+            assertEquals(pm.getType(), 1, pm.getInvocations());
+        } // FOR
+        
+        // Each txn's TransactionProfiler does not keep its own histograms
+        TransactionProfiler tp = new TransactionProfiler();
+        for (ProfileMeasurement pm : tp.getProfileMeasurements()) {
+            assertNull(pm.getType(), pm.getHistogram());
+        } // FOR
+    }
+    
 }
@@ -6,6 +6,7 @@ package edu.brown.protorpc;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 
 public final class MockEventLoop implements EventLoop {
     @Override
@@ -51,7 +52,7 @@ public final class MockEventLoop implements EventLoop {
 
     @Override
     public void runInEventThread(Runnable callback) {
-        throw new UnsupportedOperationException("TODO: implement");
+        threadEvents.add(callback);
     }
 
     @Override
@@ -63,4 +64,5 @@ public final class MockEventLoop implements EventLoop {
     public Handler writeHandler;
     public int timerMilliseconds;
     public Handler timerHandler;
+    public final ArrayList<Runnable> threadEvents = new ArrayList<Runnable>();
 }
@@ -288,4 +288,39 @@ public class NIOEventLoopTest {
 
         assertEquals(0, serverHandler.timerExpiredCount);
     }
+
+    @Test(timeout=2000)
+    public void testRunInEventThreadCounters() throws InterruptedException {
+        final long sleepMs = 20;
+        final long sleepNanos = sleepMs * 1000000l;
+        final boolean ran[] = { false };
+        assertEquals(0, eventLoop.getThreadEventCount());
+        assertEquals(0, eventLoop.getBusyTime());
+        assertEquals(0, eventLoop.getLoopCount());
+        eventLoop.runInEventThread(new Runnable() {
+            @Override
+            public void run() {
+                // Time spent in this callback counts as busy time
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                ran[0] = true;
+            }
+        });
+        // The callback has to wait for the loop to get to it
+        Thread.sleep(sleepMs);
+        while (ran[0] == false) {
+            eventLoop.runOnce();
+        }
+        assertEquals(1, eventLoop.getThreadEventCount());
+        assertEquals(0, eventLoop.getEventCount());
+        assertTrue(eventLoop.getLoopCount() >= 1);
+        assertTrue(Long.toString(eventLoop.getBusyTime()), eventLoop.getBusyTime() >= sleepNanos);
+        assertTrue(Long.toString(eventLoop.getMaxLoopTime()), eventLoop.getMaxLoopTime() >= sleepNanos);
+        assertTrue(eventLoop.getMaxLoopTime() <= eventLoop.getBusyTime());
+        assertTrue(Long.toString(eventLoop.getThreadEventLatency()), eventLoop.getThreadEventLatency() >= sleepNanos);
+        assertEquals(eventLoop.getThreadEventLatency(), eventLoop.getMaxThreadEventLatency());
+    }
 }
@@ -0,0 +1,132 @@
+package edu.brown.protorpc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Random;
+
+import ca.evanjones.protorpc.Protocol;
+import ca.evanjones.protorpc.Protocol.RpcResponse;
+
+import com.google.protobuf.ByteString;
+
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.hstore.Hstoreservice.WorkResult;
+import edu.brown.net.NonBlockingConnection;
+
+/**
+ * Measures how fast ProtoConnection can frame RPC responses that carry multi-megabyte
+ * WorkResults (the serialized VoltTables of large fragment results). The channel throws
+ * the bytes away, so this only measures the copying and serialization done on our side.
+ * <ul>
+ * <li><b>copy</b>: the old path, where the WorkResult is first copied into a ByteString
+ * that is set as the RpcResponse's response and then serialized again.
+ * <li><b>embedded</b>: the WorkResult is serialized straight into the connection's buffers.
+ * <li><b>attached</b>: the serialized tables are already in a ByteBuffer that is written
+ * by the gathering write without being copied.
+ * </ul>
+ * Usage: ProtoConnectionMicrobench [resultMB ...]
+ */
+public class ProtoConnectionMicrobench {
+
+    private static final int NUM_MESSAGES = 50;
+    private static final int TABLES_PER_RESULT = 4;
+
+    /** Accepts and throws away everything that gets written to it. */
+    private static class NullChannel implements ByteChannel, GatheringByteChannel {
+        long bytes = 0;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position(src.limit());
+            bytes += length;
+            return length;
+        }
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long total = 0;
+            for (int i = offset; i < offset + length; i++) {
+                total += write(srcs[i]);
+            } // FOR
+            return total;
+        }
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+        @Override
+        public int read(ByteBuffer dst) {
+            return 0;
+        }
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+        @Override
+        public void close() throws IOException {
+            // Nothing to do...
+        }
+    }
+
+    private static RpcResponse.Builder makeHeader(int sequence) {
+        return RpcResponse.newBuilder()
+                .setSequenceNumber(sequence)
+                .setStatus(Protocol.Status.OK);
+    }
+
+    private static double run(String mode, WorkResult result, ByteBuffer serialized) {
+        NullChannel channel = new NullChannel();
+        ProtoConnection connection = new ProtoConnection(new NonBlockingConnection(null, channel));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_MESSAGES; i++) {
+            boolean blocked;
+            if (mode.equals("copy")) {
+                RpcResponse response = makeHeader(i).setResponse(result.toByteString()).build();
+                blocked = connection.tryWrite(response);
+            } else if (mode.equals("embedded")) {
+                blocked = connection.tryWrite(makeHeader(i).build(), RpcResponse.RESPONSE_FIELD_NUMBER, result);
+            } else {
+                blocked = connection.tryWrite(makeHeader(i).build(), RpcResponse.RESPONSE_FIELD_NUMBER, serialized.duplicate());
+            }
+            assert(blocked == false);
+        } // FOR
+        double seconds = (System.nanoTime() - start) / 1000000000d;
+        return (channel.bytes / (double)(1 << 20) / seconds);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sizes[] = { 1, 4, 16 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            } // FOR
+        }
+
+        Random rand = new Random(0);
+        for (int mb : sizes) {
+            WorkResult.Builder builder = WorkResult.newBuilder()
+                    .setPartitionId(0)
+                    .setStatus(Status.OK);
+            byte table[] = new byte[(mb << 20) / TABLES_PER_RESULT];
+            for (int i = 0; i < TABLES_PER_RESULT; i++) {
+                rand.nextBytes(table);
+                builder.addDepId(i);
+                builder.addDepData(ByteString.copyFrom(table));
+            } // FOR
+            WorkResult result = builder.build();
+            ByteBuffer serialized = ByteBuffer.allocateDirect(result.getSerializedSize());
+            serialized.put(result.toByteArray());
+            serialized.flip();
+
+            for (String mode : new String[]{ "copy", "embedded", "attached" }) {
+                run(mode, result, serialized); // Warm-up
+                double mbPerSec = run(mode, result, serialized);
+                System.out.printf("%dMB WorkResult / %-8s: %.0f MB/s\n", mb, mode, mbPerSec);
+            } // FOR
+        } // FOR
+    }
+}
@@ -6,11 +6,14 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import ca.evanjones.protorpc.Counter;
+import ca.evanjones.protorpc.Protocol.RpcRequest;
 
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.CodedOutputStream;
@@ -49,8 +52,86 @@ public class ProtoConnectionTest {
         assertEquals(2, channel.lastWrites.size());
     }
 
-    
-    
+    @Test
+    public void testBufferWrite() throws IOException {
+        Counter.Value v = Counter.Value.newBuilder().setValue(42).build();
+        Counter.Value w = Counter.Value.newBuilder().setValue(43).build();
+        connection.bufferWrite(v);
+        connection.bufferWrite(w);
+        assertEquals(0, channel.lastWrites.size());
+
+        // Both messages should go out in a single write
+        assertFalse(connection.tryFlush());
+        assertEquals(1, channel.lastWrites.size());
+        CodedInputStream in = CodedInputStream.newInstance(channel.lastWrites.get(0));
+        for (Counter.Value expected : new Counter.Value[]{ v, w }) {
+            int length = in.readRawLittleEndian32();
+            int limit = in.pushLimit(length);
+            assertEquals(expected, Counter.Value.parseFrom(in));
+            in.popLimit(limit);
+        }
+        assertTrue(in.isAtEnd());
+    }
+
+    private byte[] allWrites() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] write : channel.lastWrites) {
+            out.write(write, 0, write.length);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testEmbeddedWrite() throws IOException {
+        Counter.Value v = Counter.Value.newBuilder().setName("embedded").setValue(42).build();
+        RpcRequest header = RpcRequest.newBuilder()
+                .setSequenceNumber(7)
+                .setMethodName("Counter.Add")
+                .buildPartial();
+        assertFalse(header.isInitialized());
+        assertFalse(connection.tryWrite(header, RpcRequest.REQUEST_FIELD_NUMBER, v));
+
+        // Same bytes as building the whole message with a copy of v
+        RpcRequest expected = RpcRequest.newBuilder(header).setRequest(v.toByteString()).build();
+        CodedInputStream in = CodedInputStream.newInstance(allWrites());
+        assertEquals(expected.getSerializedSize(), in.readRawLittleEndian32());
+        RpcRequest actual = RpcRequest.parseFrom(in);
+        assertEquals(expected, actual);
+        assertEquals(v, Counter.Value.parseFrom(actual.getRequest()));
+    }
+
+    @Test
+    public void testAttachedWrite() throws IOException {
+        byte[] payload = new byte[10000];
+        for (int i = 0; i < payload.length; ++i) {
+            payload[i] = (byte) i;
+        }
+        RpcRequest header = RpcRequest.newBuilder()
+                .setSequenceNumber(8)
+                .setMethodName("Counter.Add")
+                .buildPartial();
+        Counter.Value v = Counter.Value.newBuilder().setValue(42).build();
+        connection.bufferWrite(header, RpcRequest.REQUEST_FIELD_NUMBER, ByteBuffer.wrap(payload));
+        // a message written after the attached payload still comes after it
+        connection.bufferWrite(v);
+        assertFalse(connection.tryFlush());
+
+        CodedInputStream in = CodedInputStream.newInstance(allWrites());
+        int length = in.readRawLittleEndian32();
+        int limit = in.pushLimit(length);
+        RpcRequest actual = RpcRequest.parseFrom(in);
+        in.popLimit(limit);
+        assertEquals(8, actual.getSequenceNumber());
+        assertEquals(payload.length, actual.getRequest().size());
+        assertTrue(Arrays.equals(payload, actual.getRequest().toByteArray()));
+
+        length = in.readRawLittleEndian32();
+        limit = in.pushLimit(length);
+        assertEquals(v, Counter.Value.parseFrom(in));
+        in.popLimit(limit);
+        assertTrue(in.isAtEnd());
+    }
+
     @Test
     public void testReadBufferedMessage() throws IOException {
         Counter.Value.Builder builder = Counter.Value.newBuilder();
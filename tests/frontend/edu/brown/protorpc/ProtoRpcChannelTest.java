@@ -0,0 +1,82 @@
+package edu.brown.protorpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.evanjones.protorpc.Counter;
+import ca.evanjones.protorpc.Protocol.RpcRequest;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+import edu.brown.net.MockByteChannel;
+import edu.brown.net.NonBlockingConnection;
+
+public class ProtoRpcChannelTest {
+    private final MockEventLoop eventLoop = new MockEventLoop();
+    private final MockByteChannel channel = new MockByteChannel();
+    private final Descriptors.MethodDescriptor method =
+            Counter.CounterService.getDescriptor().findMethodByName("Add");
+    private ProtoRpcChannel rpcChannel;
+
+    @Before
+    public void setUp() {
+        rpcChannel = new ProtoRpcChannel(eventLoop, new ProtoRpcChannel.ConnectFactory() {
+            @Override
+            public NonBlockingConnection startNewConnection() {
+                return new NonBlockingConnection(null, channel);
+            }
+        });
+    }
+
+    private void call(int value) {
+        rpcChannel.callMethod(method, new ProtoRpcController(),
+                Counter.Value.newBuilder().setValue(value).build(),
+                Counter.Value.getDefaultInstance(), new StoreResultCallback<Message>());
+    }
+
+    @Test
+    public void testCoalesce() throws IOException {
+        rpcChannel.setCoalesce(true);
+        call(42);
+        call(43);
+
+        // Nothing is sent until the event loop runs the one flush that was scheduled
+        assertEquals(0, channel.lastWrites.size());
+        assertEquals(1, eventLoop.threadEvents.size());
+        eventLoop.threadEvents.remove(0).run();
+        assertEquals(1, channel.lastWrites.size());
+
+        CodedInputStream in = CodedInputStream.newInstance(channel.dequeueWrite());
+        for (int i = 0; i < 2; i++) {
+            int length = in.readRawLittleEndian32();
+            int limit = in.pushLimit(length);
+            RpcRequest request = RpcRequest.parseFrom(in);
+            in.popLimit(limit);
+            assertEquals(i, request.getSequenceNumber());
+            assertEquals(42 + i, Counter.Value.parseFrom(request.getRequest()).getValue());
+        }
+        assertTrue(in.isAtEnd());
+
+        // The next request schedules a new flush
+        call(44);
+        assertEquals(0, channel.lastWrites.size());
+        assertEquals(1, eventLoop.threadEvents.size());
+        eventLoop.threadEvents.remove(0).run();
+        assertEquals(1, channel.lastWrites.size());
+    }
+
+    @Test
+    public void testNoCoalesce() {
+        call(42);
+        call(43);
+        assertEquals(2, channel.lastWrites.size());
+        assertEquals(0, eventLoop.threadEvents.size());
+    }
+}
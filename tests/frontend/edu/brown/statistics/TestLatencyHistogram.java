@@ -0,0 +1,155 @@
+package edu.brown.statistics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestLatencyHistogram extends TestCase {
+
+    private static final int NUM_SAMPLES = 10000;
+    private final Random rand = new Random(0);
+    private final LatencyHistogram h = new LatencyHistogram();
+
+    /**
+     * testBuckets
+     */
+    @Test
+    public void testBuckets() throws Exception {
+        // Every bucket's bounds should map back to that bucket and
+        // the buckets should be contiguous
+        long last = -1;
+        for (int i = 0; i < LatencyHistogram.NUM_BUCKETS - 1; i++) {
+            long lower = LatencyHistogram.getBucketLowerBound(i);
+            long upper = LatencyHistogram.getBucketUpperBound(i);
+            assertEquals(last + 1, lower);
+            assertEquals(i, LatencyHistogram.getBucket(lower));
+            assertEquals(i, LatencyHistogram.getBucket(upper));
+            // The width of a bucket is never more than 1/SUB_BUCKETS of its values
+            assertTrue(i + ": " + lower + "->" + upper, (upper - lower) * LatencyHistogram.SUB_BUCKETS <= Math.max(lower, LatencyHistogram.SUB_BUCKETS));
+            last = upper;
+        } // FOR
+        assertEquals(LatencyHistogram.NUM_BUCKETS - 1, LatencyHistogram.getBucket(Long.MAX_VALUE));
+    }
+
+    /**
+     * testPercentiles
+     */
+    @Test
+    public void testPercentiles() throws Exception {
+        long values[] = new long[NUM_SAMPLES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.abs(rand.nextLong() % 100000000l);
+            h.record(values[i]);
+        } // FOR
+        Arrays.sort(values);
+        assertEquals(NUM_SAMPLES, h.getSampleCount());
+        assertEquals(values[values.length-1], h.getMax());
+
+        for (double percentile : new double[]{ 50, 90, 99, 99.9, 100 }) {
+            long expected = values[(int)Math.ceil(percentile / 100d * values.length) - 1];
+            long actual = h.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + expected + " > " + actual, actual >= expected);
+            assertTrue(percentile + ": " + expected + " vs " + actual,
+                       actual - expected <= expected / LatencyHistogram.SUB_BUCKETS);
+        } // FOR
+    }
+
+    /**
+     * testMerge
+     */
+    @Test
+    public void testMerge() throws Exception {
+        LatencyHistogram other = new LatencyHistogram();
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            h.record(i);
+            other.record(i + NUM_SAMPLES);
+        } // FOR
+        h.merge(other);
+        assertEquals(NUM_SAMPLES * 2, h.getSampleCount());
+        assertEquals(NUM_SAMPLES * 2 - 1, h.getMax());
+        assertEquals(0, h.getMin());
+        long p50 = h.getValueAtPercentile(50);
+        assertTrue(Long.toString(p50), Math.abs(p50 - NUM_SAMPLES) <= NUM_SAMPLES / LatencyHistogram.SUB_BUCKETS);
+
+        h.reset();
+        assertTrue(h.isEmpty());
+        assertEquals(0, h.getValueAtPercentile(99));
+    }
+
+    /**
+     * testDrainTo
+     */
+    @Test
+    public void testDrainTo() throws Exception {
+        LatencyHistogram target = new LatencyHistogram();
+        target.record(5);
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            h.record(i + 10);
+        } // FOR
+        long sum = h.getSum();
+        assertSame(target, h.drainTo(target));
+        assertTrue(h.isEmpty());
+        assertEquals(0, h.getSum());
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(50));
+
+        assertEquals(NUM_SAMPLES + 1, target.getSampleCount());
+        assertEquals(sum + 5, target.getSum());
+        assertEquals(5, target.getMin());
+        assertEquals(NUM_SAMPLES + 9, target.getMax());
+
+        // Nothing left to move the second time
+        h.drainTo(target);
+        assertEquals(NUM_SAMPLES + 1, target.getSampleCount());
+        assertEquals(5, target.getMin());
+    }
+
+    /**
+     * testStandardDeviation
+     */
+    @Test
+    public void testStandardDeviation() throws Exception {
+        double values[] = new double[NUM_SAMPLES];
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 + rand.nextInt(1000);
+            h.record((long)values[i]);
+            sum += values[i];
+        } // FOR
+        double mean = sum / values.length;
+        double var = 0;
+        for (double v : values) {
+            var += (v - mean) * (v - mean);
+        } // FOR
+        double expected = Math.sqrt(var / values.length);
+        assertEquals(mean, h.getMean(), 0.0001);
+        assertEquals(expected, h.getStandardDeviation(), expected / LatencyHistogram.SUB_BUCKETS);
+        assertTrue(h.getMin() >= 100);
+    }
+
+    /**
+     * testSerialization
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            h.record(rand.nextInt(1000000));
+        } // FOR
+        String json = h.toJSONString();
+        assertNotNull(json);
+
+        LatencyHistogram clone = new LatencyHistogram();
+        clone.fromJSON(new JSONObject(json), null);
+        assertEquals(h.getSampleCount(), clone.getSampleCount());
+        assertEquals(h.getSum(), clone.getSum());
+        assertEquals(h.getMin(), clone.getMin());
+        assertEquals(h.getMax(), clone.getMax());
+        for (double percentile : new double[]{ 50, 99, 99.9 }) {
+            assertEquals(h.getValueAtPercentile(percentile), clone.getValueAtPercentile(percentile));
+        } // FOR
+    }
+}
@@ -0,0 +1,110 @@
+package edu.brown.statistics;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestThreadLocalLatencyHistogram extends TestCase {
+
+    private static final int NUM_THREADS = 4;
+    private static final int NUM_SAMPLES = 100000;
+    private final ThreadLocalLatencyHistogram h = new ThreadLocalLatencyHistogram();
+
+    /**
+     * Record NUM_SAMPLES values from each of NUM_THREADS threads
+     */
+    private Thread[] startRecording(final CountDownLatch start) {
+        Thread threads[] = new Thread[NUM_THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            final long value = (t + 1) * 1000;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    for (int i = 0; i < NUM_SAMPLES; i++) {
+                        h.record(value);
+                    } // FOR
+                }
+            };
+            threads[t].start();
+        } // FOR
+        return (threads);
+    }
+
+    /**
+     * testGet
+     */
+    @Test
+    public void testGet() throws Exception {
+        assertTrue(h.isEmpty());
+        CountDownLatch start = new CountDownLatch(1);
+        Thread threads[] = this.startRecording(start);
+        start.countDown();
+        for (Thread t : threads) t.join();
+        assertFalse(h.isEmpty());
+
+        LatencyHistogram merged = h.get();
+        assertEquals(NUM_THREADS * NUM_SAMPLES, merged.getSampleCount());
+        assertEquals(1000, merged.getMin());
+        assertEquals(NUM_THREADS * 1000, merged.getMax());
+
+        // Reading them does not take anything out of the per-thread histograms
+        assertEquals(NUM_THREADS * NUM_SAMPLES, h.get().getSampleCount());
+
+        h.reset();
+        assertTrue(h.isEmpty());
+        assertTrue(h.get().isEmpty());
+    }
+
+    /**
+     * testDrain
+     */
+    @Test
+    public void testDrain() throws Exception {
+        // Keep draining while the other threads are recording.
+        // No measurement can get lost in between.
+        CountDownLatch start = new CountDownLatch(1);
+        Thread threads[] = this.startRecording(start);
+        LatencyHistogram total = new LatencyHistogram();
+        start.countDown();
+        for (Thread t : threads) {
+            while (t.isAlive()) {
+                total.merge(h.drain());
+            } // WHILE
+            t.join();
+        } // FOR
+        total.merge(h.drain());
+
+        assertTrue(h.isEmpty());
+        assertEquals(NUM_THREADS * NUM_SAMPLES, total.getSampleCount());
+        assertEquals(NUM_THREADS * 1000, total.getMax());
+        long expectedSum = 0;
+        for (int t = 0; t < NUM_THREADS; t++) {
+            expectedSum += (t + 1) * 1000l * NUM_SAMPLES;
+        } // FOR
+        assertEquals(expectedSum, total.getSum());
+    }
+
+    /**
+     * testMerge
+     */
+    @Test
+    public void testMerge() throws Exception {
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(10);
+        other.record(20);
+        h.merge(other);
+        h.merge(new LatencyHistogram());
+        h.record(30, 3);
+        LatencyHistogram merged = h.get();
+        assertEquals(5, merged.getSampleCount());
+        assertEquals(120, merged.getSum());
+        assertEquals(10, merged.getMin());
+        assertEquals(30, merged.getMax());
+    }
+}
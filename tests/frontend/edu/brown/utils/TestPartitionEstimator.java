@@ -12,6 +12,8 @@ import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.benchmark.tpcc.procedures.neworder;
 import org.voltdb.benchmark.tpcc.procedures.paymentByCustomerId;
 import org.voltdb.catalog.*;
+import org.voltdb.sysprocs.LoadMultipartitionTable;
+import org.voltdb.sysprocs.LoadPartitionTable;
 import org.voltdb.utils.VoltTypeUtil;
 
 import edu.brown.BaseTestCase;
@@ -254,6 +256,33 @@ public class TestPartitionEstimator extends BaseTestCase {
         
     }
     
+    /**
+     * testGetSysProcBasePartition
+     */
+    public void testGetSysProcBasePartition() throws Exception {
+        // @LoadPartitionTable is routed by its first parameter
+        Procedure catalog_proc = this.getProcedure(LoadPartitionTable.class);
+        assertTrue(catalog_proc.getSinglepartition());
+        assertFalse(catalog_proc.getEverysite());
+        assertEquals(0, catalog_proc.getPartitionparameter());
+
+        int partition = NUM_PARTITIONS - 1;
+        Object params[] = { partition, "WAREHOUSE", null };
+        assertEquals(partition, p_estimator.getSysProcBasePartition(catalog_proc, params));
+
+        // Out-of-range partitions and missing parameters are not routed
+        params[0] = NUM_PARTITIONS;
+        assertEquals(HStoreConstants.NULL_PARTITION_ID, p_estimator.getSysProcBasePartition(catalog_proc, params));
+        params[0] = "WAREHOUSE";
+        assertEquals(HStoreConstants.NULL_PARTITION_ID, p_estimator.getSysProcBasePartition(catalog_proc, params));
+        assertEquals(HStoreConstants.NULL_PARTITION_ID, p_estimator.getSysProcBasePartition(catalog_proc, new Object[0]));
+
+        // Multi-partition sysprocs never get a base partition from their parameters
+        catalog_proc = this.getProcedure(LoadMultipartitionTable.class);
+        params = new Object[]{ "WAREHOUSE", null };
+        assertEquals(HStoreConstants.NULL_PARTITION_ID, p_estimator.getSysProcBasePartition(catalog_proc, params));
+    }
+
     /**
      * testSelect
      */
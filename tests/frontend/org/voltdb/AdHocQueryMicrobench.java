@@ -0,0 +1,134 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2010 VoltDB L.L.C.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientFactory;
+
+import edu.brown.hstore.HStoreConstants;
+import edu.brown.hstore.conf.HStoreConf;
+
+/**
+ * Measures @AdHoc throughput for a statement that is issued over and over with
+ * different constants. The first argument is the list of client counts, the
+ * optional second argument the size of the ad hoc plan cache (zero plans every
+ * statement from scratch).
+ */
+public class AdHocQueryMicrobench {
+
+    public static void main(String[] args) throws Exception {
+        int siteCount = 1;
+
+        int[] clientCounts = new int[] { 1 };
+        if (args.length >= 1 && !args[0].equals("${clients}")) {
+            String[] clientCountString = args[0].split("\\s+");
+            clientCounts = new int[clientCountString.length];
+            for (int i = 0; i < clientCountString.length; i++) {
+                clientCounts[i] = Integer.parseInt(clientCountString[i]);
+            }
+        }
+        HStoreConf hstore_conf = HStoreConf.singleton(true);
+        hstore_conf.site.exec_adhoc_sql = true;
+        if (args.length >= 2 && !args[1].equals("${cachesize}")) {
+            hstore_conf.site.exec_adhoc_plan_cache_size = Integer.parseInt(args[1]);
+        }
+
+        TPCCProjectBuilder pb = new TPCCProjectBuilder();
+        pb.addDefaultSchema();
+        pb.addDefaultPartitioning();
+        pb.compile("adHocQueryMicrobench.jar", siteCount, 0);
+
+        ServerThread server = new ServerThread("adHocQueryMicrobench.jar",
+                BackendTarget.NATIVE_EE_JNI);
+        server.start();
+        server.waitForInitialization();
+
+        // warm up the planners
+        {
+            Client client = ClientFactory.createClient();
+            client.createConnection(null, "localhost", HStoreConstants.DEFAULT_PORT, "program", "none");
+            for (int i = 0; i < 100; i++)
+                client.callProcedure("@AdHoc", "SELECT * FROM NEW_ORDER WHERE NO_O_ID = " + i + ";");
+        }
+
+        final AtomicInteger nextId = new AtomicInteger(0);
+        for (int clientCount : clientCounts) {
+            ExecutorService executor = Executors.newFixedThreadPool(clientCount);
+            ArrayList<Future<Integer>> futures = new ArrayList<Future<Integer>>(clientCount);
+            final CyclicBarrier barrier = new CyclicBarrier(clientCount + 1);
+            final long stopTime = System.currentTimeMillis() + 5000;
+
+            for (int i = 0; i < clientCount; i++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() {
+                        try {
+                            Client client = ClientFactory.createClient();
+                            client.createConnection(
+                                    null, "localhost", HStoreConstants.DEFAULT_PORT, "program", "none");
+
+                            int count = 0;
+                            barrier.await();
+
+                            for (count = 0; count % 10 != 0
+                                    || System.currentTimeMillis() < stopTime; count++) {
+                                int id = nextId.incrementAndGet();
+                                client.callProcedure("@AdHoc",
+                                        "SELECT * FROM NEW_ORDER WHERE NO_O_ID = " + id +
+                                        " AND NO_D_ID = " + (id % 10) + ";");
+                            }
+                            return count;
+                        } catch (Exception ex) {
+                            ex.printStackTrace();
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                }));
+            }
+
+            barrier.await();
+            final long startTime = System.currentTimeMillis();
+            int count = 0;
+            for (Future<Integer> future : futures) {
+                count += future.get();
+            }
+            executor.shutdown();
+
+            double time = stopTime - startTime;
+            System.out.println("@AdHoc with " + clientCount + " clients: "
+                    + count + " queries in " + time + " ms => "
+                    + (time / count) + " ms/query => " + (count / time)
+                    * 1000 + " qps");
+        }
+        System.exit(0);
+    }
+}
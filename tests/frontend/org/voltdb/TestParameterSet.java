@@ -138,4 +138,49 @@ public class TestParameterSet extends TestCase {
         assertTrue("Array longer than Short.MAX_VALUE didn't fail to serialize",
                    arrayLengthTester(new Object[]{new BigDecimal[Short.MAX_VALUE + 1]}));
     }
+
+    public void testReadSparse() throws IOException {
+        Object values[] = new Object[]{
+            new byte[]{'f', 'o', 'o'},
+            (short)2,
+            null,
+            "bar",
+            new long[]{ 1l, 2l, 3l },
+            new String[]{ "a", null, "ccc" },
+            new TimestampType(1000l),
+            new BigDecimal("12.5"),
+            new int[]{ 4, 5 },
+            99l,
+            "never read",
+        };
+        params.setParameters(values);
+        ByteBuffer buf = ByteBuffer.wrap(FastSerializer.serialize(params));
+
+        ParameterSet full = new ParameterSet();
+        full.readExternal(new FastDeserializer(buf));
+        int end = buf.position();
+
+        int offsets[] = { 9, 3, 7 };
+        buf.rewind();
+        FastDeserializer in = new FastDeserializer(buf);
+        Object out[] = ParameterSet.readSparse(in, offsets);
+        assertEquals(values.length, out.length);
+        for (int i = 0; i < out.length; i++) {
+            boolean wanted = (i == 3 || i == 7 || i == 9);
+            if (wanted) {
+                assertEquals(full.toArray()[i], out[i]);
+            } else {
+                assertNull(out[i]);
+            }
+        } // FOR
+
+        // The last parameter should still be waiting to be read
+        // (type byte + string length + string bytes)
+        assertEquals(1 + 4 + "never read".length(), end - in.getPosition());
+
+        // Nothing to decode
+        buf.rewind();
+        out = ParameterSet.readSparse(new FastDeserializer(buf), new int[0]);
+        assertEquals(values.length, out.length);
+    }
 }
@@ -0,0 +1,112 @@
+package org.voltdb;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import edu.brown.benchmark.mapreduce.procedures.MockMapReduce;
+import edu.brown.hstore.conf.HStoreConf;
+
+public class TestVoltMapReduceProcedure extends TestCase {
+
+    static final int NUM_PARTITIONS = 4;
+    static final int NUM_ROWS = 500;
+    static final int NUM_KEYS = 23;
+    static final Random rand = new Random();
+
+    private final MockMapReduce proc = new MockMapReduce();
+    private final VoltTable mapOutputs[] = new VoltTable[NUM_PARTITIONS];
+    private HStoreConf hstore_conf;
+    private boolean orig_hash_grouping;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.hstore_conf = HStoreConf.singleton(true);
+        this.orig_hash_grouping = this.hstore_conf.site.mr_reduce_hash_grouping;
+        this.proc.hstore_conf = this.hstore_conf;
+
+        for (int p = 0; p < NUM_PARTITIONS; p++) {
+            this.mapOutputs[p] = new VoltTable(this.proc.getMapOutputSchema());
+            for (int i = 0; i < NUM_ROWS; i++) {
+                this.mapOutputs[p].addRow("KEY" + rand.nextInt(NUM_KEYS), (long)(rand.nextInt(100) + 1));
+            } // FOR
+        } // FOR
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.hstore_conf.site.mr_reduce_hash_grouping = this.orig_hash_grouping;
+    }
+
+    /**
+     * Shuffle the MAP output of all partitions into a single REDUCE input,
+     * reduce it and return the counter of every key
+     */
+    private Map<String, Long> reduce(VoltTable outputs[]) {
+        VoltTable reduceInput = new VoltTable(this.proc.getMapOutputSchema());
+        for (VoltTable output : outputs) {
+            output.resetRowPosition();
+            while (output.advanceRow()) {
+                reduceInput.add(output.getRow());
+            } // WHILE
+        } // FOR
+
+        VoltTable reduceOutput = new VoltTable(this.proc.getReduceOutputSchema());
+        this.proc.reduceRows(reduceInput, reduceOutput);
+
+        Map<String, Long> results = new HashMap<String, Long>();
+        reduceOutput.resetRowPosition();
+        while (reduceOutput.advanceRow()) {
+            String key = reduceOutput.getString(0);
+            assertFalse(key, results.containsKey(key));
+            results.put(key, reduceOutput.getLong(1));
+        } // WHILE
+        return (results);
+    }
+
+    private void checkCombiner() {
+        Map<String, Long> expected = this.reduce(this.mapOutputs);
+        assertFalse(expected.isEmpty());
+
+        VoltTable combined[] = new VoltTable[NUM_PARTITIONS];
+        for (int p = 0; p < NUM_PARTITIONS; p++) {
+            combined[p] = new VoltTable(this.proc.getMapOutputSchema());
+            this.mapOutputs[p].resetRowPosition();
+            while (this.mapOutputs[p].advanceRow()) {
+                combined[p].add(this.mapOutputs[p].getRow());
+            } // WHILE
+            this.proc.combineRows(combined[p]);
+
+            // The combiner leaves one row per key at each partition
+            Set<String> keys = new HashSet<String>();
+            combined[p].resetRowPosition();
+            while (combined[p].advanceRow()) {
+                assertTrue(keys.add(combined[p].getString(0)));
+            } // WHILE
+            assertEquals(keys.size(), combined[p].getRowCount());
+            assertTrue(combined[p].getRowCount() < this.mapOutputs[p].getRowCount());
+        } // FOR
+
+        assertEquals(expected, this.reduce(combined));
+    }
+
+    /**
+     * testCombinerHashGrouping
+     */
+    public void testCombinerHashGrouping() throws Exception {
+        this.hstore_conf.site.mr_reduce_hash_grouping = true;
+        this.checkCombiner();
+    }
+
+    /**
+     * testCombinerSortGrouping
+     */
+    public void testCombinerSortGrouping() throws Exception {
+        this.hstore_conf.site.mr_reduce_hash_grouping = false;
+        this.checkCombiner();
+    }
+}
@@ -0,0 +1,227 @@
+package org.voltdb.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltSystemProcedure;
+import org.voltdb.VoltTable;
+import org.voltdb.benchmark.tpcc.TPCCConstants;
+import org.voltdb.catalog.Table;
+import org.voltdb.sysprocs.LoadMultipartitionTable;
+import org.voltdb.sysprocs.LoadPartitionTable;
+import org.voltdb.utils.VoltTableUtil;
+
+import edu.brown.BaseTestCase;
+import edu.brown.catalog.CatalogUtil;
+import edu.brown.hstore.HStoreConstants;
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.utils.ProjectType;
+
+/**
+ * Client-side splitting and chunking of the BulkLoader
+ */
+public class TestBulkLoader extends BaseTestCase {
+
+    private static final int NUM_PARTITIONS = 4;
+    private static final int NUM_ROWS = 1000;
+    private static final int CHUNK_SIZE = 50;
+
+    private static final String PARTITION_PROC = VoltSystemProcedure.procCallName(LoadPartitionTable.class);
+    private static final String MULTIPARTITION_PROC = VoltSystemProcedure.procCallName(LoadMultipartitionTable.class);
+
+    /**
+     * A request that the BulkLoader sent
+     */
+    private static class Request {
+        final String procName;
+        final int partition;
+        final String tableName;
+        final VoltTable data;
+
+        Request(String procName, Object params[]) {
+            this.procName = procName;
+            if (procName.equals(PARTITION_PROC)) {
+                this.partition = (Integer)params[0];
+                this.tableName = (String)params[1];
+                this.data = (VoltTable)params[2];
+            } else {
+                this.partition = HStoreConstants.NULL_PARTITION_ID;
+                this.tableName = (String)params[0];
+                this.data = (VoltTable)params[1];
+            }
+        }
+    }
+
+    /**
+     * Client that records every request and answers it right away.
+     * The first numRejects requests are rejected.
+     */
+    private static class LoaderClient extends MockVoltClient {
+        final List<Request> requests = new ArrayList<Request>();
+        int numRejects = 0;
+
+        @Override
+        public boolean callProcedure(ProcedureCallback callback, String procName, Object... parameters) throws NoConnectionsException {
+            Status status = Status.OK;
+            if (this.numRejects > 0) {
+                this.numRejects--;
+                status = Status.ABORT_REJECT;
+            } else {
+                this.requests.add(new Request(procName, parameters));
+            }
+            callback.clientCallback(new ClientResponseImpl(-1, -1, -1, status, HStoreConstants.EMPTY_RESULT, ""));
+            return (true);
+        }
+    }
+
+    private LoaderClient client;
+    private BulkLoader loader;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp(ProjectType.TPCC);
+        this.addPartitions(NUM_PARTITIONS);
+        this.client = new LoaderClient();
+        this.loader = new BulkLoader(this.client, catalogContext, p_estimator, CHUNK_SIZE, 2);
+    }
+
+    private VoltTable generateTable(Table catalog_tbl, int num_rows) {
+        VoltTable vt = CatalogUtil.getVoltTable(catalog_tbl);
+        for (int i = 0; i < num_rows; i++) {
+            vt.addRow(VoltTableUtil.getRandomRow(catalog_tbl));
+        } // FOR
+        return (vt);
+    }
+
+    /**
+     * Check that every request loads rows into the partition that they
+     * belong to and that no chunk is larger than the chunk size.
+     * Returns the number of rows that were sent to each partition.
+     */
+    private Map<Integer, Integer> checkRequests(Table catalog_tbl) throws Exception {
+        Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+        for (Request request : this.client.requests) {
+            assertEquals(PARTITION_PROC, request.procName);
+            assertEquals(catalog_tbl.getName(), request.tableName);
+            assertTrue(request.data.getRowCount() > 0);
+            assertTrue(request.data.getRowCount() <= CHUNK_SIZE);
+
+            request.data.resetRowPosition();
+            while (request.data.advanceRow()) {
+                assertEquals(request.partition, p_estimator.getTableRowPartition(catalog_tbl, request.data));
+            } // WHILE
+
+            Integer cnt = counts.get(request.partition);
+            counts.put(request.partition, (cnt == null ? 0 : cnt) + request.data.getRowCount());
+        } // FOR
+        return (counts);
+    }
+
+    private int getTotal(Map<Integer, Integer> counts) {
+        int total = 0;
+        for (Integer cnt : counts.values()) {
+            total += cnt;
+        } // FOR
+        return (total);
+    }
+
+    /**
+     * testLoad
+     */
+    @Test
+    public void testLoad() throws Exception {
+        Table catalog_tbl = this.getTable(TPCCConstants.TABLENAME_CUSTOMER);
+        VoltTable vt = this.generateTable(catalog_tbl, NUM_ROWS);
+        ClientResponse cr = this.loader.load(catalog_tbl.getName(), vt);
+        assertNotNull(cr);
+        assertEquals(Status.OK, cr.getStatus());
+
+        Map<Integer, Integer> counts = this.checkRequests(catalog_tbl);
+        assertEquals(NUM_ROWS, this.getTotal(counts));
+        assertEquals(NUM_PARTITIONS, counts.size());
+
+        // Only the last chunk for each partition can be smaller than the chunk size
+        Map<Integer, Integer> partialChunks = new HashMap<Integer, Integer>();
+        for (Request request : this.client.requests) {
+            if (request.data.getRowCount() == CHUNK_SIZE) continue;
+            assertFalse(request.partition + " has multiple partial chunks",
+                        partialChunks.containsKey(request.partition));
+            partialChunks.put(request.partition, request.data.getRowCount());
+        } // FOR
+        for (Integer partition : counts.keySet()) {
+            int expected = counts.get(partition) % CHUNK_SIZE;
+            if (expected == 0) {
+                assertFalse(partialChunks.containsKey(partition));
+            } else {
+                assertEquals(expected, partialChunks.get(partition).intValue());
+            }
+        } // FOR
+    }
+
+    /**
+     * testAddRowDrain
+     */
+    @Test
+    public void testAddRowDrain() throws Exception {
+        Table catalog_tbl = this.getTable(TPCCConstants.TABLENAME_CUSTOMER);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            this.loader.addRow(catalog_tbl.getName(), VoltTableUtil.getRandomRow(catalog_tbl));
+        } // FOR
+
+        // Nothing gets sent until a partition has a full chunk
+        for (Request request : this.client.requests) {
+            assertEquals(CHUNK_SIZE, request.data.getRowCount());
+        } // FOR
+        int sent = this.getTotal(this.checkRequests(catalog_tbl));
+        assertTrue(sent <= NUM_ROWS);
+        assertTrue(NUM_ROWS - sent < NUM_PARTITIONS * CHUNK_SIZE);
+
+        ClientResponse cr = this.loader.drain();
+        assertNotNull(cr);
+        assertEquals(Status.OK, cr.getStatus());
+        assertEquals(NUM_ROWS, this.getTotal(this.checkRequests(catalog_tbl)));
+
+        // There is nothing left to send
+        int numRequests = this.client.requests.size();
+        assertNull(this.loader.drain());
+        assertEquals(numRequests, this.client.requests.size());
+    }
+
+    /**
+     * testReplicatedTable
+     */
+    @Test
+    public void testReplicatedTable() throws Exception {
+        Table catalog_tbl = this.getTable(TPCCConstants.TABLENAME_ITEM);
+        assertTrue(catalog_tbl.getIsreplicated());
+        VoltTable vt = this.generateTable(catalog_tbl, NUM_ROWS);
+        ClientResponse cr = this.loader.load(catalog_tbl.getName(), vt);
+        assertEquals(Status.OK, cr.getStatus());
+
+        assertEquals(NUM_ROWS / CHUNK_SIZE, this.client.requests.size());
+        for (Request request : this.client.requests) {
+            assertEquals(MULTIPARTITION_PROC, request.procName);
+            assertEquals(catalog_tbl.getName(), request.tableName);
+            assertEquals(CHUNK_SIZE, request.data.getRowCount());
+        } // FOR
+    }
+
+    /**
+     * testRejectedChunk
+     */
+    @Test
+    public void testRejectedChunk() throws Exception {
+        // Rejected chunks are sent again
+        Table catalog_tbl = this.getTable(TPCCConstants.TABLENAME_CUSTOMER);
+        VoltTable vt = this.generateTable(catalog_tbl, NUM_ROWS);
+        this.client.numRejects = 2;
+        ClientResponse cr = this.loader.load(catalog_tbl.getName(), vt);
+        assertEquals(Status.OK, cr.getStatus());
+        assertEquals(0, this.client.numRejects);
+        assertEquals(NUM_ROWS, this.getTotal(this.checkRequests(catalog_tbl)));
+    }
+}
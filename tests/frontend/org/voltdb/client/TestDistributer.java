@@ -397,5 +397,60 @@ public class TestDistributer extends TestCase {
         }
     }
 
+    public void testInvocationStartTime() {
+        MockVolt volt = null;
+        final long delay = 5000;
+        final AtomicInteger roundTrip = new AtomicInteger(-1);
+
+        try {
+            // create a fake server and connect to it.
+            volt = new MockVolt(21212);
+            volt.start();
+
+            Client clt = ClientFactory.createClient();
+            clt.createConnection(null, "localhost", HStoreConstants.DEFAULT_PORT, "", "");
+
+            // Pretend that the txn was supposed to go out a while ago
+            ClientFactory.setInvocationStartTime(System.currentTimeMillis() - delay);
+            try {
+                clt.callProcedure(new ProcedureCallback() {
+                    @Override
+                    public void clientCallback(ClientResponse clientResponse) {
+                        roundTrip.set(clientResponse.getClientRoundtrip());
+                    }
+                }, "Bar", new Integer(2));
+            } finally {
+                ClientFactory.setInvocationStartTime(-1);
+            }
+            clt.drain();
+            assertEquals(1, volt.handler.roundTrips.get());
+            assertTrue(Integer.toString(roundTrip.get()), roundTrip.get() >= delay);
+
+            // Everything after that should go back to the real time
+            clt.callProcedure(new ProcedureCallback() {
+                @Override
+                public void clientCallback(ClientResponse clientResponse) {
+                    roundTrip.set(clientResponse.getClientRoundtrip());
+                }
+            }, "Bar", new Integer(2));
+            clt.drain();
+            assertTrue(Integer.toString(roundTrip.get()), roundTrip.get() < delay);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        }
+        finally {
+            try {
+                if (volt != null) {
+                    volt.shutdown();
+                    volt.join();
+                }
+            } catch(Exception ignored) {
+                ignored.printStackTrace();
+            }
+        }
+    }
+
 }
 
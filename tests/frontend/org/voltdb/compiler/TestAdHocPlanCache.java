@@ -0,0 +1,128 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2010 VoltDB L.L.C.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.compiler;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltType;
+import org.voltdb.compiler.AdHocPlanCache.ParameterizedSql;
+
+public class TestAdHocPlanCache extends TestCase {
+
+    public void testParameterize() {
+        ParameterizedSql stmt = AdHocPlanCache.parameterize(
+            "SELECT  *\n FROM WAREHOUSE W1 WHERE W_ID = 12 AND W_NAME = 'it''s' AND W_TAX > -0.5e2;");
+        assertTrue(stmt.parameterizable);
+        assertEquals("SELECT * FROM WAREHOUSE W1 WHERE W_ID = ? AND W_NAME = ? AND W_TAX > -?", stmt.sql);
+        assertEquals("SELECT * FROM WAREHOUSE W1 WHERE W_ID = 12 AND W_NAME = 'it''s' AND W_TAX > -0.5e2", stmt.literalSql);
+        assertEquals(3, stmt.literals.size());
+        assertEquals("12", stmt.literals.get(0).toString());
+        assertEquals("it's", stmt.literals.get(1));
+        assertEquals("0.5e2", stmt.literals.get(2).toString());
+
+        // Statements that only differ in their constants share the same key
+        assertEquals(stmt.sql, AdHocPlanCache.parameterize(
+            "SELECT * FROM WAREHOUSE W1 WHERE W_ID = 99 AND W_NAME = 'x' AND W_TAX > -1").sql);
+
+        // Quoted identifiers are not literals
+        stmt = AdHocPlanCache.parameterize("SELECT \"C1\" FROM T");
+        assertEquals("SELECT \"C1\" FROM T", stmt.sql);
+        assertTrue(stmt.literals.isEmpty());
+
+        // Parameter markers can't be mixed with literals
+        stmt = AdHocPlanCache.parameterize("SELECT * FROM T WHERE A = ? AND B = 1");
+        assertFalse(stmt.parameterizable);
+        assertEquals(stmt.literalSql, stmt.sql);
+    }
+
+    public void testBind() {
+        AdHocPlanCache.Entry entry = new AdHocPlanCache.Entry("one", "all", false,
+            new VoltType[] { VoltType.INTEGER, VoltType.STRING, VoltType.DECIMAL });
+        ParameterSet params = entry.bind(AdHocPlanCache.parameterize(
+            "SELECT * FROM T WHERE A = 1 AND B = 'b' AND C = 2.5").literals);
+        assertNotNull(params);
+        Object values[] = params.toArray();
+        assertEquals(1l, values[0]);
+        assertEquals("b", values[1]);
+        assertEquals(new BigDecimal("2.5"), values[2]);
+
+        // A string where the plan wants a number has to be planned as written
+        assertNull(entry.bind(AdHocPlanCache.parameterize(
+            "SELECT * FROM T WHERE A = '1' AND B = 'b' AND C = 2.5").literals));
+        assertNull(entry.bind(AdHocPlanCache.parameterize(
+            "SELECT * FROM T WHERE A = 1.5 AND B = 'b' AND C = 2.5").literals));
+    }
+
+    public void testLookup() {
+        AdHocPlanCache cache = new AdHocPlanCache(3);
+        ParameterizedSql stmt = AdHocPlanCache.parameterize("SELECT * FROM T WHERE A = 1");
+        assertNull(cache.lookup(stmt, new AdHocPlannedStmt(null)));
+        cache.put(stmt.sql, new AdHocPlanCache.Entry("one", null, false, new VoltType[] { VoltType.BIGINT }));
+
+        AdHocPlannedStmt planned = cache.lookup(AdHocPlanCache.parameterize("SELECT * FROM T WHERE A = 2"),
+                                                new AdHocPlannedStmt(null));
+        assertNotNull(planned);
+        assertEquals("one", planned.aggregatorFragment);
+        assertEquals(2l, planned.params.toArray()[0]);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // Statements that can't be parameterized are cached as written
+        stmt = AdHocPlanCache.parameterize("SELECT * FROM T LIMIT 5");
+        cache.putNotParameterizable(stmt.sql);
+        assertTrue(cache.isNotParameterizable(stmt));
+        cache.put(stmt.literalSql, new AdHocPlanCache.Entry("limit", null, false, new VoltType[0]));
+        planned = cache.lookup(stmt, new AdHocPlannedStmt(null));
+        assertNotNull(planned);
+        assertEquals("limit", planned.aggregatorFragment);
+        assertEquals(0, planned.params.toArray().length);
+        assertNull(cache.lookup(AdHocPlanCache.parameterize("SELECT * FROM T LIMIT 6"), new AdHocPlannedStmt(null)));
+
+        // Least recently used plans are evicted
+        assertEquals(3, cache.size());
+        cache.put("X", new AdHocPlanCache.Entry("x", null, false, new VoltType[0]));
+        assertEquals(3, cache.size());
+        assertNull(cache.lookup(AdHocPlanCache.parameterize("SELECT * FROM T WHERE A = 3"), new AdHocPlannedStmt(null)));
+    }
+
+    public void testPlannerParamTypes() {
+        String params = PlannerTool.formatParamTypes(new VoltType[] { VoltType.BIGINT, VoltType.STRING });
+        PlannerTool.Result result = PlannerTool.parseOutput(Arrays.asList("PLAN-ONE: one", "PARAMS: " + params));
+        assertNull(result.errors);
+        assertEquals("one", result.onePlan);
+        assertEquals(2, result.paramTypes.length);
+        assertEquals(VoltType.BIGINT, result.paramTypes[0]);
+        assertEquals(VoltType.STRING, result.paramTypes[1]);
+
+        // An unknown type is reported as a planner error instead of an exception
+        result = PlannerTool.parseOutput(Arrays.asList("PLAN-ONE: one", "PARAMS: BIGINT,NOSUCHTYPE"));
+        assertNotNull(result.errors);
+        assertTrue(result.errors, result.errors.contains("NOSUCHTYPE"));
+        assertEquals(0, result.paramTypes.length);
+    }
+}
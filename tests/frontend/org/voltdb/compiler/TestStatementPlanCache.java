@@ -0,0 +1,86 @@
+package org.voltdb.compiler;
+
+import junit.framework.TestCase;
+
+import org.json.JSONObject;
+import org.voltdb.VoltType;
+import org.voltdb.planner.ParameterInfo;
+
+public class TestStatementPlanCache extends TestCase {
+
+    private static final String SQL = "SELECT W_NAME FROM WAREHOUSE WHERE W_ID = ?";
+
+    private StatementPlanCache.Entry createEntry() {
+        StatementPlanCache.Entry entry = new StatementPlanCache.Entry();
+        StatementPlanCache.Plan plan = new StatementPlanCache.Plan(true, "{\"PLAN_NODES\":[]}", null);
+        plan.fragments.add(new StatementPlanCache.Fragment("{\"PLAN_NODES\":[]}", true, false, false, false));
+        entry.plans.add(plan);
+        plan = new StatementPlanCache.Plan(false, null, null);
+        plan.fragments.add(new StatementPlanCache.Fragment("{\"PLAN_NODES\":[1]}", true, false, true, false));
+        plan.fragments.add(new StatementPlanCache.Fragment("{\"PLAN_NODES\":[2]}", true, false, false, true));
+        entry.plans.add(plan);
+        ParameterInfo param = new ParameterInfo();
+        param.index = 0;
+        param.type = VoltType.SMALLINT;
+        entry.parameters.add(param);
+        entry.columns.add(new StatementPlanCache.OutputColumn("W_NAME", VoltType.STRING, 16));
+        return (entry);
+    }
+
+    /**
+     * testSerialization
+     */
+    public void testSerialization() throws Exception {
+        StatementPlanCache.Entry entry = this.createEntry();
+        StatementPlanCache.Entry clone = StatementPlanCache.Entry.fromJSONObject(new JSONObject(entry.toJSONString()));
+        assertEquals(entry.plans.size(), clone.plans.size());
+        for (int i = 0; i < entry.plans.size(); i++) {
+            StatementPlanCache.Plan plan = entry.plans.get(i);
+            StatementPlanCache.Plan clonePlan = clone.plans.get(i);
+            assertEquals(plan.singlePartition, clonePlan.singlePartition);
+            assertEquals(plan.fullPlan, clonePlan.fullPlan);
+            assertEquals(plan.fullWhereClause, clonePlan.fullWhereClause);
+            assertEquals(plan.fragments.size(), clonePlan.fragments.size());
+            for (int j = 0; j < plan.fragments.size(); j++) {
+                StatementPlanCache.Fragment fragment = plan.fragments.get(j);
+                StatementPlanCache.Fragment cloneFragment = clonePlan.fragments.get(j);
+                assertEquals(fragment.planNodeTree, cloneFragment.planNodeTree);
+                assertEquals(fragment.readonly, cloneFragment.readonly);
+                assertEquals(fragment.nontransactional, cloneFragment.nontransactional);
+                assertEquals(fragment.hasDependencies, cloneFragment.hasDependencies);
+                assertEquals(fragment.multiPartition, cloneFragment.multiPartition);
+            } // FOR
+        } // FOR
+        assertEquals(1, clone.parameters.size());
+        assertEquals(0, clone.parameters.get(0).index);
+        assertEquals(VoltType.SMALLINT, clone.parameters.get(0).type);
+        assertEquals(1, clone.columns.size());
+        assertEquals("W_NAME", clone.columns.get(0).name);
+        assertEquals(VoltType.STRING, clone.columns.get(0).type);
+        assertEquals(16, clone.columns.get(0).size);
+        assertFalse(clone.replicatedTableDML);
+    }
+
+    /**
+     * testLookup
+     */
+    public void testLookup() throws Exception {
+        StatementPlanCache cache = new StatementPlanCache(null, "schema-" + System.nanoTime(), null);
+        assertNull(cache.get("TestProc", "getName", SQL));
+        assertEquals(1, cache.getMisses());
+
+        StatementPlanCache.Entry entry = this.createEntry();
+        cache.put("TestProc", "getName", SQL, entry);
+        assertSame(entry, cache.get("TestProc", "getName", SQL));
+        assertEquals(1, cache.getHits());
+
+        // Anything else about the Statement has to be planned again
+        assertNull(cache.get("TestProc", "getName", SQL + " AND W_TAX > 0"));
+        assertNull(cache.get("TestProc", "getOtherName", SQL));
+        assertNull(cache.get("OtherProc", "getName", SQL));
+
+        // A cache for a different schema never uses our entries
+        StatementPlanCache other = new StatementPlanCache(null, "other-" + System.nanoTime(), null);
+        assertNull(other.get("TestProc", "getName", SQL));
+    }
+}
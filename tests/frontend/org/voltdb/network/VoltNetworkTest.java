@@ -24,10 +24,13 @@
 package org.voltdb.network;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
 import java.util.Set;
 import java.util.HashSet;
@@ -289,4 +292,46 @@ public class VoltNetworkTest extends TestCase {
         vn.shutdown();
         assertEquals(SelectionKey.OP_ACCEPT, vp.readyOps());
     }
+
+    public void testReactors() throws Exception {
+        final int NUM_REACTORS = 3;
+        final int NUM_CONNECTIONS = 7;
+        VoltNetwork vn = new VoltNetwork(true, true, null, null, NUM_REACTORS);
+        VoltNetwork reactors[] = vn.getReactors();
+        assertEquals(NUM_REACTORS, reactors.length);
+        assertSame(vn, reactors[0]);
+        assertEquals(1, new VoltNetwork().getReactors().length);
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("localhost", 0));
+        SocketChannel clients[] = new SocketChannel[NUM_CONNECTIONS];
+        Connection connections[] = new Connection[NUM_CONNECTIONS];
+        for (int ii = 0; ii < NUM_CONNECTIONS; ii++) {
+            clients[ii] = SocketChannel.open(server.socket().getLocalSocketAddress());
+            connections[ii] = vn.registerChannel(server.accept(), new MockInputHandler(), 0);
+        }
+
+        // new connections go to the reactor with the fewest connections
+        for (VoltNetwork reactor : reactors) {
+            int count = reactor.getConnectionCount();
+            assertTrue(count == NUM_CONNECTIONS / NUM_REACTORS ||
+                       count == NUM_CONNECTIONS / NUM_REACTORS + 1);
+        }
+        assertEquals(NUM_REACTORS, vn.getThreadIds().size());
+
+        // only the reactor that owns a connection can unregister it
+        for (VoltNetwork reactor : reactors) {
+            reactor.unregisterChannel(connections[0]);
+        }
+        int total = 0;
+        for (VoltNetwork reactor : reactors) {
+            total += reactor.getConnectionCount();
+        }
+        assertEquals(NUM_CONNECTIONS - 1, total);
+
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        server.close();
+    }
 }
@@ -51,4 +51,46 @@ public class TestPlannerContext extends TestCase {
         
     }
     
+    @Test
+    public void testGuidRange() {
+        AbstractExpression expression = new NullValueExpression();
+        String columnName = "TABLEB.B_ID";
+        SortOrder sortOrder = SortOrder.kUnsorted;
+        Storage storage = Storage.kTemporary;
+        PlanColumn global = context.getPlanColumn(expression, columnName, sortOrder, storage);
+        
+        // Inside of a range we get our own PlanColumn with a guid from that range,
+        // and the same one when we ask for it again
+        int first = context.getMaxGuid() + 1000;
+        context.beginGuidRange(first, first + 9);
+        PlanColumn col0 = context.getPlanColumn(expression, columnName, sortOrder, storage);
+        PlanColumn col1 = context.getPlanColumn(expression, columnName, sortOrder, storage);
+        context.endGuidRange();
+        assertEquals(first, col0.guid());
+        assertSame(col0, col1);
+        assertNotSame(global, col0);
+        assertSame(col0, context.get(first));
+        
+        // Another range doesn't see the PlanColumns of the first one and
+        // skips the guids that are already taken
+        context.beginGuidRange(first, first + 9);
+        PlanColumn col2 = context.getPlanColumn(expression, columnName, sortOrder, storage);
+        context.endGuidRange();
+        assertEquals(first + 1, col2.guid());
+        
+        // Running out of guids is an error
+        context.beginGuidRange(first, first + 1);
+        try {
+            context.getPlanColumn(expression, columnName, sortOrder, storage);
+            fail("Expected the guid range to be exhausted");
+        } catch (RuntimeException ex) {
+            // Expected
+        } finally {
+            context.endGuidRange();
+        }
+        
+        // Outside of a range we go back to the shared PlanColumns
+        assertSame(global, context.getPlanColumn(expression, columnName, sortOrder, storage));
+    }
+    
 }
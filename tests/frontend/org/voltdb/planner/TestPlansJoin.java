@@ -0,0 +1,116 @@
+package org.voltdb.planner;
+
+import java.util.Collection;
+
+import junit.framework.TestCase;
+
+import org.voltdb.catalog.CatalogMap;
+import org.voltdb.catalog.Cluster;
+import org.voltdb.catalog.Table;
+import org.voltdb.plannodes.AbstractPlanNode;
+import org.voltdb.types.PlanNodeType;
+
+import edu.brown.hstore.conf.HStoreConf;
+import edu.brown.plannodes.PlanNodeUtil;
+
+/**
+ * Checks which join PlanNodes the planner picks for different join predicates
+ */
+public class TestPlansJoin extends TestCase {
+
+    private PlannerTestAideDeCamp aide;
+
+    private AbstractPlanNode compile(String sql, int paramCount) {
+        AbstractPlanNode pn = null;
+        try {
+            pn = aide.compile(sql, paramCount);
+        }
+        catch (Exception ex) {
+            ex.printStackTrace();
+            fail();
+        }
+        assertNotNull(pn);
+        return pn;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        HStoreConf.singleton(HStoreConf.isInitialized() == false).global.compiler_hash_join = true;
+        aide = new PlannerTestAideDeCamp(TestPlansJoin.class.getResource("testplans-join-ddl.sql"), "testplansjoin");
+
+        // Set all tables to replicated so that the joins are done in a single fragment
+        Cluster cluster = aide.getCatalog().getClusters().get("cluster");
+        CatalogMap<Table> tmap = cluster.getDatabases().get("database").getTables();
+        for (Table t : tmap) {
+            t.setIsreplicated(true);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        aide.tearDown();
+        HStoreConf.singleton().global.compiler_hash_join = false;
+    }
+
+    /**
+     * testHashJoinDisabled
+     */
+    public void testHashJoinDisabled() {
+        HStoreConf.singleton().global.compiler_hash_join = false;
+        AbstractPlanNode pn = compile("SELECT R1_NAME, R2_NAME FROM R1, R2 WHERE R1_KEY = R2_KEY", 0);
+        Collection<PlanNodeType> types = PlanNodeUtil.getPlanNodeTypes(pn);
+        assertTrue(types.toString(), types.contains(PlanNodeType.NESTLOOP));
+        assertFalse(types.toString(), types.contains(PlanNodeType.HASHJOIN));
+    }
+
+    /**
+     * testUnindexedEquiJoin
+     */
+    public void testUnindexedEquiJoin() {
+        AbstractPlanNode pn = compile("SELECT R1_NAME, R2_NAME FROM R1, R2 WHERE R1_KEY = R2_KEY", 0);
+        Collection<PlanNodeType> types = PlanNodeUtil.getPlanNodeTypes(pn);
+        assertTrue(types.toString(), types.contains(PlanNodeType.HASHJOIN));
+        assertFalse(types.toString(), types.contains(PlanNodeType.NESTLOOP));
+    }
+
+    /**
+     * testMixedIntegerEquiJoin
+     */
+    public void testMixedIntegerEquiJoin() {
+        AbstractPlanNode pn = compile("SELECT R1_NAME, R3_VAL FROM R1, R3 WHERE R1_KEY = R3_KEY AND R1_VAL > R3_VAL", 0);
+        Collection<PlanNodeType> types = PlanNodeUtil.getPlanNodeTypes(pn);
+        assertTrue(types.toString(), types.contains(PlanNodeType.HASHJOIN));
+    }
+
+    /**
+     * testMultiTableEquiJoin
+     */
+    public void testMultiTableEquiJoin() {
+        AbstractPlanNode pn = compile("SELECT R1_NAME, R2_NAME, R3_VAL FROM R1, R2, R3 " +
+                                      "WHERE R1_KEY = R2_KEY AND R2_KEY = R3_KEY", 0);
+        Collection<PlanNodeType> types = PlanNodeUtil.getPlanNodeTypes(pn);
+        assertTrue(types.toString(), types.contains(PlanNodeType.HASHJOIN));
+        assertFalse(types.toString(), types.contains(PlanNodeType.NESTLOOP));
+    }
+
+    /**
+     * testNonEquiJoin
+     */
+    public void testNonEquiJoin() {
+        AbstractPlanNode pn = compile("SELECT R1_NAME, R2_NAME FROM R1, R2 WHERE R1_VAL < R2_VAL", 0);
+        Collection<PlanNodeType> types = PlanNodeUtil.getPlanNodeTypes(pn);
+        assertTrue(types.toString(), types.contains(PlanNodeType.NESTLOOP));
+        assertFalse(types.toString(), types.contains(PlanNodeType.HASHJOIN));
+    }
+
+    /**
+     * testIndexedEquiJoin
+     */
+    public void testIndexedEquiJoin() {
+        AbstractPlanNode pn = compile("SELECT R1_NAME, R2_NAME FROM R1, R2 WHERE R1_ID = R2_ID", 0);
+        Collection<PlanNodeType> types = PlanNodeUtil.getPlanNodeTypes(pn);
+        assertTrue(types.toString(), types.contains(PlanNodeType.NESTLOOPINDEX));
+        assertFalse(types.toString(), types.contains(PlanNodeType.HASHJOIN));
+    }
+}
@@ -0,0 +1,22 @@
+CREATE TABLE R1 (
+	R1_ID INTEGER NOT NULL,
+	R1_KEY INTEGER NOT NULL,
+	R1_NAME VARCHAR(16) NOT NULL,
+	R1_VAL BIGINT NOT NULL,
+	PRIMARY KEY (R1_ID)
+);
+
+CREATE TABLE R2 (
+	R2_ID INTEGER NOT NULL,
+	R2_KEY INTEGER NOT NULL,
+	R2_NAME VARCHAR(16) NOT NULL,
+	R2_VAL BIGINT NOT NULL,
+	PRIMARY KEY (R2_ID)
+);
+
+CREATE TABLE R3 (
+	R3_ID INTEGER NOT NULL,
+	R3_KEY SMALLINT NOT NULL,
+	R3_VAL FLOAT NOT NULL,
+	PRIMARY KEY (R3_ID)
+);
@@ -26,6 +26,7 @@ import org.voltdb.sysprocs.Statistics;
 import org.voltdb.types.TimestampType;
 import org.voltdb.utils.VoltTypeUtil;
 
+import edu.brown.benchmark.reporting.ReportingLoader;
 import edu.brown.benchmark.seats.SEATSLoader;
 import edu.brown.benchmark.seats.util.SEATSHistogramUtil;
 import edu.brown.benchmark.tm1.TM1Loader;
@@ -132,6 +133,21 @@ public abstract class RegressionSuiteUtil {
         loader.load();
     }
 
+    public static final void initializeReportingDatabase(final CatalogContext catalogContext, final Client client) throws Exception {
+        String args[] = { "NOCONNECTIONS=true", };
+        ReportingLoader loader = new ReportingLoader(args) {
+            {
+                this.setCatalogContext(catalogContext);
+                this.setClientHandle(client);
+            }
+            @Override
+            public Catalog getCatalog() {
+                return (catalogContext.catalog);
+            }
+        };
+        loader.load();
+    }
+
     protected static Object[] generateNewOrder(int num_warehouses, boolean dtxn, int w_id, int d_id) throws Exception {
         short supply_w_id;
         if (dtxn) {
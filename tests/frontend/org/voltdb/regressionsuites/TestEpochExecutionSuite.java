@@ -0,0 +1,134 @@
+package org.voltdb.regressionsuites;
+
+import junit.framework.Test;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.CatalogContext;
+import org.voltdb.SysProcSelector;
+import org.voltdb.VoltTable;
+import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.hstore.util.TransactionCounter;
+
+/**
+ * Compares distributed TPC-C NewOrder txns executed with the regular
+ * two-phase commit protocol against ${site.exec_epoch_enable} on the same HStoreSite
+ */
+public class TestEpochExecutionSuite extends RegressionSuite {
+
+    private static final String PREFIX = "epoch";
+    private static final int NUM_TXNS = 200;
+
+    /**
+     * Constructor needed for JUnit. Should just pass on parameters to superclass.
+     * @param name The name of the method to test. This is just passed to the superclass.
+     */
+    public TestEpochExecutionSuite(String name) {
+        super(name);
+    }
+
+    /**
+     * Execute distributed NewOrder txns one at a time and return
+     * how long it took to execute all of them (in milliseconds)
+     */
+    private long executeRemoteNewOrders(Client client, boolean epochs) throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        RegressionSuiteUtil.setHStoreConf(client, "site.exec_epoch_enable", epochs);
+        
+        String procName = neworder.class.getSimpleName();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < NUM_TXNS; i++) {
+            short w_id = (short)((i % catalogContext.numberOfPartitions) + 1);
+            Object params[] = RegressionSuiteUtil.generateNewOrder(catalogContext.numberOfPartitions, true, w_id);
+            ClientResponse cresponse = client.callProcedure(procName, params);
+            assertNotNull(cresponse);
+            assertEquals(Status.OK, cresponse.getStatus());
+        } // FOR
+        return (System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * Return the value of the given TransactionCounter for NewOrder
+     */
+    private long getNewOrderCounter(Client client, TransactionCounter counter) throws Exception {
+        ClientResponse cresponse = RegressionSuiteUtil.getStats(client, SysProcSelector.TXNCOUNTER);
+        VoltTable results[] = cresponse.getResults();
+        long total = 0;
+        while (results[0].advanceRow()) {
+            if (results[0].getString("PROCEDURE").equalsIgnoreCase(neworder.class.getSimpleName())) {
+                total += results[0].getLong(counter.name().toUpperCase());
+            }
+        } // WHILE
+        return (total);
+    }
+
+    /**
+     * testRemoteNewOrder
+     */
+    public void testRemoteNewOrder() throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        Client client = this.getClient();
+        RegressionSuiteUtil.initializeTPCCDatabase(catalogContext, client);
+        
+        // Two-Phase Commit
+        long epochsBefore = this.getNewOrderCounter(client, TransactionCounter.EPOCH_BATCHED);
+        long multiBefore = this.getNewOrderCounter(client, TransactionCounter.MULTI_PARTITION);
+        long elapsed2PC = this.executeRemoteNewOrders(client, false);
+        long epochs2PC = this.getNewOrderCounter(client, TransactionCounter.EPOCH_BATCHED) - epochsBefore;
+        long multi2PC = this.getNewOrderCounter(client, TransactionCounter.MULTI_PARTITION) - multiBefore;
+        
+        // Epochs
+        epochsBefore = this.getNewOrderCounter(client, TransactionCounter.EPOCH_BATCHED);
+        multiBefore = this.getNewOrderCounter(client, TransactionCounter.MULTI_PARTITION);
+        long elapsedEpoch = this.executeRemoteNewOrders(client, true);
+        long epochsEpoch = this.getNewOrderCounter(client, TransactionCounter.EPOCH_BATCHED) - epochsBefore;
+        long multiEpoch = this.getNewOrderCounter(client, TransactionCounter.MULTI_PARTITION) - multiBefore;
+        
+        System.err.printf("%s - %d remote NewOrder txns / " +
+                          "2PC: %d ms [%.1f txn/s] / Epochs: %d ms [%.1f txn/s, batched=%d]\n",
+                          this.getName(), NUM_TXNS,
+                          elapsed2PC, NUM_TXNS / (elapsed2PC / 1000d),
+                          elapsedEpoch, NUM_TXNS / (elapsedEpoch / 1000d), epochsEpoch);
+        
+        // Both runs have to execute distributed txns, but only
+        // the second one should have gone through the EpochCoordinator
+        assertTrue(multi2PC > 0);
+        assertTrue(multiEpoch > 0);
+        assertEquals(0, epochs2PC);
+        assertTrue(epochsEpoch > 0);
+    }
+
+    public static Test suite() throws Exception {
+        VoltServerConfig config = null;
+        // the suite made here will all be using the tests from this class
+        MultiConfigSuiteBuilder builder = new MultiConfigSuiteBuilder(TestEpochExecutionSuite.class);
+        builder.setGlobalConfParameter("client.scalefactor", RegressionSuiteUtil.SCALEFACTOR);
+        builder.setGlobalConfParameter("site.specexec_enable", false);
+        builder.setGlobalConfParameter("site.txn_counters", true);
+        builder.setGlobalConfParameter("site.exec_epoch_enable", true);
+        builder.setGlobalConfParameter("site.cpu_affinity", false);
+
+        // build up a project builder for the TPC-C app
+        TPCCProjectBuilder project = new TPCCProjectBuilder();
+        project.addDefaultSchema();
+        project.addDefaultProcedures();
+        project.addDefaultPartitioning();
+
+        boolean success;
+
+        /////////////////////////////////////////////////////////////
+        // CONFIG #1: 1 Local Site with 2 Partitions running on JNI backend
+        /////////////////////////////////////////////////////////////
+        config = new LocalSingleProcessServer(PREFIX + "-2part.jar", 2, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.voltdb.regressionsuites;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.CatalogContext;
+import org.voltdb.VoltTable;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+
+import edu.brown.benchmark.reporting.ReportingConstants;
+import edu.brown.benchmark.reporting.ReportingProjectBuilder;
+import edu.brown.benchmark.reporting.procedures.GetCategorySales;
+import edu.brown.benchmark.reporting.procedures.GetRegionSales;
+import edu.brown.benchmark.reporting.procedures.GetRegionTargets;
+import edu.brown.benchmark.reporting.procedures.GetStoreTargets;
+import edu.brown.hstore.Hstoreservice.Status;
+import edu.brown.hstore.conf.HStoreConf;
+
+/**
+ * Runs the Reporting benchmark's equi-joins and checks their results against
+ * the same joins done here on the contents of each table. GetStoreTargets and
+ * GetRegionTargets are planned as HashJoinPlanNodes, while the other two use
+ * the NestLoopIndexPlanNode and are here to check that we still get the same
+ * answers for those.
+ */
+public class TestHashJoinSuite extends RegressionSuite {
+
+    private static final String PREFIX = "hashjoin";
+    private static final double SCALEFACTOR = 0.01;
+
+    // SA_ID -> { SA_S_ID, SA_P_ID }
+    private final Map<Long, int[]> sales = new HashMap<Long, int[]>();
+    // S_ID -> S_R_ID
+    private final Map<Integer, Integer> stores = new HashMap<Integer, Integer>();
+    // P_ID -> P_CATEGORY
+    private final Map<Integer, Integer> products = new HashMap<Integer, Integer>();
+    // { CT_CATEGORY, CT_R_ID }
+    private final Set<String> targets = new HashSet<String>();
+
+    /**
+     * Constructor needed for JUnit. Should just pass on parameters to superclass.
+     * @param name The name of the method to test. This is just passed to the superclass.
+     */
+    public TestHashJoinSuite(String name) {
+        super(name);
+    }
+
+    private VoltTable execute(Client client, String procName, Object...params) throws Exception {
+        ClientResponse cresponse = client.callProcedure(procName, params);
+        assertEquals(Status.OK, cresponse.getStatus());
+        assertEquals(1, cresponse.getResults().length);
+        return (cresponse.getResults()[0]);
+    }
+
+    private Client initializeDatabase() throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        Client client = this.getClient();
+        RegressionSuiteUtil.initializeReportingDatabase(catalogContext, client);
+
+        VoltTable vt = this.execute(client, "GetAllSales");
+        while (vt.advanceRow()) {
+            this.sales.put(vt.getLong(0), new int[]{ (int)vt.getLong(1), (int)vt.getLong(2) });
+        } // WHILE
+        vt = this.execute(client, "GetAllStores");
+        while (vt.advanceRow()) {
+            this.stores.put((int)vt.getLong(0), (int)vt.getLong(1));
+        } // WHILE
+        vt = this.execute(client, "GetAllProducts");
+        while (vt.advanceRow()) {
+            this.products.put((int)vt.getLong(0), (int)vt.getLong(1));
+        } // WHILE
+        vt = this.execute(client, "GetAllTargets");
+        while (vt.advanceRow()) {
+            this.targets.add(vt.getLong(0) + "-" + vt.getLong(1));
+        } // WHILE
+        assertFalse(this.sales.isEmpty());
+        return (client);
+    }
+
+    /**
+     * testRegionSales
+     */
+    public void testRegionSales() throws Exception {
+        Client client = this.initializeDatabase();
+        for (int r_id = 0; r_id < ReportingConstants.NUM_REGIONS; r_id++) {
+            Set<Long> expected = new HashSet<Long>();
+            for (Map.Entry<Long, int[]> e : this.sales.entrySet()) {
+                if (this.stores.get(e.getValue()[0]) == r_id) expected.add(e.getKey());
+            } // FOR
+
+            VoltTable vt = this.execute(client, GetRegionSales.class.getSimpleName(), r_id);
+            Set<Long> actual = new HashSet<Long>();
+            while (vt.advanceRow()) {
+                assertTrue(actual.add(vt.getLong("SA_ID")));
+            } // WHILE
+            assertEquals("Region #" + r_id, expected, actual);
+        } // FOR
+    }
+
+    /**
+     * testCategorySales
+     */
+    public void testCategorySales() throws Exception {
+        Client client = this.initializeDatabase();
+        for (int category = 0; category < ReportingConstants.NUM_CATEGORIES; category++) {
+            int expected = 0;
+            for (int[] sale : this.sales.values()) {
+                if (this.products.get(sale[1]) == category) expected++;
+            } // FOR
+
+            VoltTable vt = this.execute(client, GetCategorySales.class.getSimpleName(), category);
+            assertEquals("Category #" + category, expected, vt.getRowCount());
+        } // FOR
+    }
+
+    /**
+     * testRegionTargets
+     */
+    public void testRegionTargets() throws Exception {
+        Client client = this.initializeDatabase();
+        for (int r_id = 0; r_id < ReportingConstants.NUM_REGIONS; r_id++) {
+            Set<String> expected = new HashSet<String>();
+            for (int s_id : this.stores.keySet()) {
+                if (this.stores.get(s_id) != r_id) continue;
+                for (int category = 0; category < ReportingConstants.NUM_CATEGORIES; category++) {
+                    if (this.targets.contains(category + "-" + r_id)) expected.add(s_id + "-" + category);
+                } // FOR
+            } // FOR
+
+            VoltTable vt = this.execute(client, GetRegionTargets.class.getSimpleName(), r_id);
+            Set<String> actual = new HashSet<String>();
+            while (vt.advanceRow()) {
+                assertTrue(actual.add(vt.getLong("S_ID") + "-" + vt.getLong("CT_CATEGORY")));
+            } // WHILE
+            assertEquals("Region #" + r_id, expected, actual);
+        } // FOR
+    }
+
+    /**
+     * testStoreTargets
+     */
+    public void testStoreTargets() throws Exception {
+        Client client = this.initializeDatabase();
+        for (int s_id : this.stores.keySet()) {
+            int r_id = this.stores.get(s_id);
+            Set<Long> expected = new HashSet<Long>();
+            for (Map.Entry<Long, int[]> e : this.sales.entrySet()) {
+                int sale[] = e.getValue();
+                if (sale[0] != s_id) continue;
+                if (this.targets.contains(this.products.get(sale[1]) + "-" + r_id)) expected.add(e.getKey());
+            } // FOR
+
+            VoltTable vt = this.execute(client, GetStoreTargets.class.getSimpleName(), s_id, r_id);
+            Set<Long> actual = new HashSet<Long>();
+            while (vt.advanceRow()) {
+                assertTrue(actual.add(vt.getLong("SA_ID")));
+            } // WHILE
+            assertEquals("Store #" + s_id, expected, actual);
+        } // FOR
+    }
+
+    public static Test suite() throws Exception {
+        VoltServerConfig config = null;
+        // the suite made here will all be using the tests from this class
+        MultiConfigSuiteBuilder builder = new MultiConfigSuiteBuilder(TestHashJoinSuite.class);
+        builder.setGlobalConfParameter("client.scalefactor", SCALEFACTOR);
+        builder.setGlobalConfParameter("site.specexec_enable", false);
+        builder.setGlobalConfParameter("global.compiler_hash_join", true);
+        // The catalogs are compiled here and not when the sites are started
+        HStoreConf.singleton(HStoreConf.isInitialized() == false).global.compiler_hash_join = true;
+
+        // build up a project builder for the Reporting app
+        ReportingProjectBuilder project = new ReportingProjectBuilder();
+        project.addAllDefaults();
+        project.addStmtProcedure("GetAllSales", "SELECT SA_ID, SA_S_ID, SA_P_ID FROM SALE");
+        project.addStmtProcedure("GetAllStores", "SELECT S_ID, S_R_ID FROM STORE");
+        project.addStmtProcedure("GetAllProducts", "SELECT P_ID, P_CATEGORY FROM PRODUCT");
+        project.addStmtProcedure("GetAllTargets", "SELECT CT_CATEGORY, CT_R_ID FROM CATEGORY_TARGET");
+
+        boolean success;
+
+        /////////////////////////////////////////////////////////////
+        // CONFIG #1: 1 Local Site with 2 Partitions running on JNI backend
+        /////////////////////////////////////////////////////////////
+        config = new LocalSingleProcessServer(PREFIX + "-2part.jar", 2, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        ////////////////////////////////////////////////////////////
+        // CONFIG #2: Cluster of 2 sites each with 1 partition
+        ////////////////////////////////////////////////////////////
+        config = new LocalCluster(PREFIX + "-cluster.jar", 2, 1, 1, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.voltdb.regressionsuites;
+
+import junit.framework.Test;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.CatalogContext;
+import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+
+/**
+ * Counts how many times TPC-C NewOrder txns with remote items get restarted
+ * with and without ${site.exec_mispredict_escalation}
+ */
+public class TestMispredictEscalationSuite extends RegressionSuite {
+
+    private static final String PREFIX = "escalation";
+    private static final int NUM_TXNS = 100;
+
+    /**
+     * Constructor needed for JUnit. Should just pass on parameters to superclass.
+     * @param name The name of the method to test. This is just passed to the superclass.
+     */
+    public TestMispredictEscalationSuite(String name) {
+        super(name);
+    }
+
+    /**
+     * Execute remote NewOrder txns one at a time and return the
+     * total number of times that they were restarted
+     */
+    private int executeRemoteNewOrders(Client client, boolean escalation) throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        RegressionSuiteUtil.setHStoreConf(client, "site.exec_mispredict_escalation", escalation);
+
+        String procName = neworder.class.getSimpleName();
+        int restarts = 0;
+        for (int i = 0; i < NUM_TXNS; i++) {
+            short w_id = (short)((i % catalogContext.numberOfPartitions) + 1);
+            Object params[] = RegressionSuiteUtil.generateNewOrder(catalogContext.numberOfPartitions, true, w_id);
+            ClientResponse cresponse = client.callProcedure(procName, params);
+            assertNotNull(cresponse);
+            restarts += cresponse.getRestartCounter();
+        } // FOR
+        return (restarts);
+    }
+
+    /**
+     * testRemoteNewOrderRestarts
+     */
+    public void testRemoteNewOrderRestarts() throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        Client client = this.getClient();
+        RegressionSuiteUtil.initializeTPCCDatabase(catalogContext, client);
+
+        int baseline = this.executeRemoteNewOrders(client, false);
+        int escalated = this.executeRemoteNewOrders(client, true);
+        System.err.printf("%s - %d remote NewOrder txns / Restarts: escalation=false -> %d, escalation=true -> %d\n",
+                          this.getName(), NUM_TXNS, baseline, escalated);
+        assertTrue(baseline > 0);
+        assertTrue(escalated <= baseline);
+
+        // If all of the partitions are at the same site, then
+        // nobody should have been restarted
+        if (catalogContext.numberOfSites == 1) {
+            assertEquals(0, escalated);
+        }
+    }
+
+    public static Test suite() throws Exception {
+        VoltServerConfig config = null;
+        // the suite made here will all be using the tests from this class
+        MultiConfigSuiteBuilder builder = new MultiConfigSuiteBuilder(TestMispredictEscalationSuite.class);
+        builder.setGlobalConfParameter("client.scalefactor", RegressionSuiteUtil.SCALEFACTOR);
+        builder.setGlobalConfParameter("site.specexec_enable", false);
+        builder.setGlobalConfParameter("site.markov_enable", false);
+        builder.setGlobalConfParameter("site.cpu_affinity", false);
+
+        // build up a project builder for the TPC-C app
+        TPCCProjectBuilder project = new TPCCProjectBuilder();
+        project.addDefaultSchema();
+        project.addDefaultProcedures();
+        project.addDefaultPartitioning();
+
+        boolean success;
+
+        /////////////////////////////////////////////////////////////
+        // CONFIG #1: 1 Local Site with 2 Partitions running on JNI backend
+        /////////////////////////////////////////////////////////////
+        config = new LocalSingleProcessServer(PREFIX + "-2part.jar", 2, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        ////////////////////////////////////////////////////////////
+        // CONFIG #2: Cluster of 2 sites each with 1 partition
+        ////////////////////////////////////////////////////////////
+        config = new LocalCluster(PREFIX + "-cluster.jar", 2, 1, 1, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+
+}
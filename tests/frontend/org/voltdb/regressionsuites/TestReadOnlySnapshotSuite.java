@@ -0,0 +1,129 @@
+package org.voltdb.regressionsuites;
+
+import junit.framework.Test;
+
+import org.voltdb.BackendTarget;
+import org.voltdb.CatalogContext;
+import org.voltdb.VoltTable;
+import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
+import org.voltdb.benchmark.tpcc.procedures.GetTableCounts;
+import org.voltdb.benchmark.tpcc.procedures.neworder;
+import org.voltdb.client.Client;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.NullCallback;
+
+import edu.brown.hstore.Hstoreservice.Status;
+
+/**
+ * Executes read-only distributed txns with ${site.exec_readonly_snapshot}
+ * while NewOrder txns are modifying the database.
+ */
+public class TestReadOnlySnapshotSuite extends RegressionSuite {
+
+    private static final String PREFIX = "snapshot";
+    private static final int NUM_TXNS = 100;
+
+    /**
+     * Constructor needed for JUnit. Should just pass on parameters to superclass.
+     * @param name The name of the method to test. This is just passed to the superclass.
+     */
+    public TestReadOnlySnapshotSuite(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns the number of ORDERS records minus the number of NEW_ORDER records.
+     * Every NewOrder txn inserts one of each, so this should never change.
+     */
+    private long getOrderDifference(Client client) throws Exception {
+        ClientResponse cresponse = client.callProcedure(GetTableCounts.class.getSimpleName());
+        assertEquals(Status.OK, cresponse.getStatus());
+        VoltTable vt = cresponse.getResults()[0];
+        long orders = -1;
+        long newOrders = -1;
+        while (vt.advanceRow()) {
+            String tableName = vt.getString(0);
+            if (tableName.equals("ORDERS")) {
+                orders = vt.getLong(1);
+            } else if (tableName.equals("NEW_ORDER")) {
+                newOrders = vt.getLong(1);
+            }
+        } // WHILE
+        assert(orders >= 0 && newOrders >= 0);
+        return (orders - newOrders);
+    }
+
+    /**
+     * testConsistentCounts
+     */
+    public void testConsistentCounts() throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        Client client = this.getClient();
+        RegressionSuiteUtil.initializeTPCCDatabase(catalogContext, client);
+
+        String procName = neworder.class.getSimpleName();
+        long expected = this.getOrderDifference(client);
+        for (int i = 0; i < NUM_TXNS; i++) {
+            short w_id = (short)((i % catalogContext.numberOfPartitions) + 1);
+            Object params[] = RegressionSuiteUtil.generateNewOrder(catalogContext.numberOfPartitions, true, w_id);
+            client.callProcedure(new NullCallback(), procName, params);
+            assertEquals(expected, this.getOrderDifference(client));
+        } // FOR
+        client.drain();
+        assertEquals(expected, this.getOrderDifference(client));
+    }
+
+    /**
+     * testConsistentCountsSinglePartitionWrites
+     */
+    public void testConsistentCountsSinglePartitionWrites() throws Exception {
+        CatalogContext catalogContext = this.getCatalogContext();
+        Client client = this.getClient();
+        RegressionSuiteUtil.initializeTPCCDatabase(catalogContext, client);
+
+        // GetTableCounts reads each table in a separate round, so a single-partition
+        // NewOrder that commits between the ORDERS and NEW_ORDER rounds would
+        // change the difference if the snapshot read was not restarted
+        String procName = neworder.class.getSimpleName();
+        long expected = this.getOrderDifference(client);
+        for (int i = 0; i < NUM_TXNS; i++) {
+            for (int p = 0; p < catalogContext.numberOfPartitions; p++) {
+                short w_id = (short)(p + 1);
+                Object params[] = RegressionSuiteUtil.generateNewOrder(catalogContext.numberOfPartitions, false, w_id);
+                client.callProcedure(new NullCallback(), procName, params);
+            } // FOR
+            assertEquals(expected, this.getOrderDifference(client));
+        } // FOR
+        client.drain();
+        assertEquals(expected, this.getOrderDifference(client));
+    }
+
+    public static Test suite() throws Exception {
+        VoltServerConfig config = null;
+        // the suite made here will all be using the tests from this class
+        MultiConfigSuiteBuilder builder = new MultiConfigSuiteBuilder(TestReadOnlySnapshotSuite.class);
+        builder.setGlobalConfParameter("client.scalefactor", RegressionSuiteUtil.SCALEFACTOR);
+        builder.setGlobalConfParameter("site.exec_readonly_snapshot", true);
+        builder.setGlobalConfParameter("site.specexec_enable", false);
+        builder.setGlobalConfParameter("site.cpu_affinity", false);
+
+        // build up a project builder for the TPC-C app
+        TPCCProjectBuilder project = new TPCCProjectBuilder();
+        project.addDefaultSchema();
+        project.addDefaultProcedures();
+        project.addDefaultPartitioning();
+
+        boolean success;
+
+        /////////////////////////////////////////////////////////////
+        // CONFIG #1: 1 Local Site with 2 Partitions running on JNI backend
+        /////////////////////////////////////////////////////////////
+        config = new LocalSingleProcessServer(PREFIX + "-2part.jar", 2, BackendTarget.NATIVE_EE_JNI);
+        success = config.compile(project);
+        assert(success);
+        builder.addServerConfig(config);
+
+        return builder;
+    }
+
+}
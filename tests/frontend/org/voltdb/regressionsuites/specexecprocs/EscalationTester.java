@@ -0,0 +1,57 @@
+package org.voltdb.regressionsuites.specexecprocs;
+
+import java.util.concurrent.Semaphore;
+
+import org.apache.log4j.Logger;
+import org.voltdb.ProcInfo;
+import org.voltdb.SQLStmt;
+import org.voltdb.VoltProcedure;
+import org.voltdb.VoltTable;
+
+import edu.brown.benchmark.tm1.TM1Constants;
+
+/**
+ * Single-partition transaction that can be blocked programatically
+ * before it reads the SUBSCRIBER records of other partitions
+ */
+@ProcInfo(
+    partitionParam = 0,
+    singlePartition = true
+)
+public class EscalationTester extends VoltProcedure {
+    private static final Logger LOG = Logger.getLogger(EscalationTester.class);
+
+    /**
+     * The txn blocks on LOCK[lock] if the lock parameter is not negative.
+     * It releases NOTIFY[lock] right before it does that.
+     */
+    public static final Semaphore LOCK[] = { new Semaphore(0), new Semaphore(0) };
+    public static final Semaphore NOTIFY[] = { new Semaphore(0), new Semaphore(0) };
+
+    public final SQLStmt getSubscriber = new SQLStmt(
+        "SELECT S_ID, VLR_LOCATION " +
+        "  FROM " + TM1Constants.TABLENAME_SUBSCRIBER +
+        " WHERE S_ID = ?"
+    );
+
+    public VoltTable[] run(long s_id, long remote_ids[], int lock) {
+        if (lock >= 0) {
+            LOG.info(this.getTransactionState() + " - Blocking until LOCK[" + lock + "] is released");
+            try {
+                NOTIFY[lock].release();
+                LOCK[lock].acquire();
+                LOCK[lock].release();
+            } catch (InterruptedException ex) {
+                ex.printStackTrace();
+                throw new VoltAbortException(ex.getMessage());
+            }
+        }
+
+        voltQueueSQL(getSubscriber, s_id);
+        for (long remote_id : remote_ids) {
+            voltQueueSQL(getSubscriber, remote_id);
+        } // FOR
+        return (voltExecuteSQL(true));
+    }
+
+}
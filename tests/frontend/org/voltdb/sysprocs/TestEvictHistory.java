@@ -0,0 +1,56 @@
+package org.voltdb.sysprocs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.voltdb.DependencySet;
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltTable;
+import org.voltdb.types.TimestampType;
+
+public class TestEvictHistory extends TestCase {
+
+    static final int NUM_PARTITIONS = 4;
+    static final Random rand = new Random();
+
+    /**
+     * testAggregateMergesPartitionHistories
+     */
+    public void testAggregateMergesPartitionHistories() throws Exception {
+        // Each partition's history is already in START order
+        List<VoltTable> partitionResults = new ArrayList<VoltTable>();
+        int total = 0;
+        for (int p = 0; p < NUM_PARTITIONS; p++) {
+            VoltTable vt = new VoltTable(EvictHistory.ResultsColumns);
+            long start = rand.nextInt(1000);
+            for (int i = 0, cnt = (p == 1 ? 0 : rand.nextInt(50) + 1); i < cnt; i++) {
+                start += rand.nextInt(1000) + 1;
+                vt.addRow(0, "localhost", p, new TimestampType(start * 1000), new TimestampType((start + 10) * 1000));
+                total++;
+            } // FOR
+            partitionResults.add(vt);
+        } // FOR
+
+        Map<Integer, List<VoltTable>> dependencies = new HashMap<Integer, List<VoltTable>>();
+        dependencies.put(SysProcFragmentId.PF_anitCacheHistoryDistribute, partitionResults);
+        DependencySet result = new EvictHistory().executePlanFragment(1l, dependencies,
+                                                                      SysProcFragmentId.PF_anitCacheHistoryAggregate,
+                                                                      new ParameterSet(), null);
+        assertEquals(1, result.size());
+        assertEquals(SysProcFragmentId.PF_anitCacheHistoryAggregate, result.depIds[0]);
+
+        VoltTable vt = result.dependencies[0];
+        assertEquals(total, vt.getRowCount());
+        long last = Long.MIN_VALUE;
+        while (vt.advanceRow()) {
+            long start = vt.getTimestampAsLong(3);
+            assertTrue(last <= start);
+            last = start;
+        } // WHILE
+    }
+}
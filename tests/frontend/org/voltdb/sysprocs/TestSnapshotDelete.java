@@ -0,0 +1,86 @@
+package org.voltdb.sysprocs;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.voltdb.VoltTable;
+import org.voltdb.sysprocs.saverestore.SnapshotUtil;
+import org.voltdb.sysprocs.saverestore.TestTableSaveFileChain;
+
+import edu.brown.utils.FileUtil;
+
+public class TestSnapshotDelete extends TestCase {
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestTableSaveFileChain.disableNativeLibrary();
+        this.dir = FileUtil.getTempDirectory();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.deleteDirectory(this.dir);
+        super.tearDown();
+    }
+
+    private Set<String> remainingFiles() {
+        Set<String> names = new HashSet<String>();
+        for (File f : this.dir.listFiles()) {
+            names.add(f.getName());
+        }
+        return (names);
+    }
+
+    private VoltTable delete(String nonce) {
+        VoltTable result = SnapshotDelete.constructFragmentResultsTable();
+        new SnapshotDelete().deleteSnapshots(new String[] { this.dir.getPath() },
+                                             new String[] { nonce + "-" },
+                                             0, null, result);
+        return (result);
+    }
+
+    /**
+     * testDeleteBaseRemovesDescendants
+     */
+    public void testDeleteBaseRemovesDescendants() throws Exception {
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "base", "", true);
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "delta1", "base", true);
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "delta2", "delta1", true);
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "other", "", true);
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "otherdelta", "other", true);
+        FileUtil.writeStringToFile(new File(this.dir, SnapshotUtil.constructDigestFilenameForNonce("base")), "");
+        assertEquals(6, this.remainingFiles().size());
+
+        VoltTable result = this.delete("base");
+        assertEquals(4, result.getRowCount());
+        while (result.advanceRow()) {
+            assertEquals(result.getString("NAME"), "TRUE", result.getString("DELETED"));
+        }
+
+        Set<String> remaining = this.remainingFiles();
+        assertEquals(remaining.toString(), 2, remaining.size());
+        assertTrue(remaining.contains("other-WAREHOUSE.vpt"));
+        assertTrue(remaining.contains("otherdelta-WAREHOUSE.vpt"));
+    }
+
+    /**
+     * testDeleteDeltaKeepsAncestors
+     */
+    public void testDeleteDeltaKeepsAncestors() throws Exception {
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "base", "", true);
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "delta1", "base", true);
+        TestTableSaveFileChain.writeDeltaFile(this.dir, "delta2", "delta1", true);
+
+        this.delete("delta1");
+
+        Set<String> remaining = this.remainingFiles();
+        assertEquals(remaining.toString(), 1, remaining.size());
+        assertTrue(remaining.contains("base-WAREHOUSE.vpt"));
+    }
+}
@@ -0,0 +1,93 @@
+package org.voltdb.sysprocs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.voltdb.VoltTable;
+
+public class TestSnapshotScan extends TestCase {
+
+    private static final String PATH = "/tmp/snapshots";
+    private static final String TABLE_NAME = "WAREHOUSE";
+
+    private final VoltTable scanResults = SnapshotScan.constructFragmentResultsTable();
+    private final VoltTable digestResults = SnapshotScan.constructDigestResultsTable();
+
+    private void addSnapshot(String nonce, String parentNonce, long createTime, boolean completed) {
+        this.scanResults.addRow(0, "localhost", PATH, nonce + "-" + TABLE_NAME + ".vpt", createTime,
+                                TABLE_NAME, completed ? "TRUE" : "FALSE", 1024, "TRUE", "0", 1,
+                                "TRUE", "SUCCESS", "", parentNonce);
+        this.digestResults.addRow(0, PATH, nonce + ".digest", TABLE_NAME, "SUCCESS", "");
+    }
+
+    /**
+     * Returns the COMPLETE column of every snapshot keyed by nonce
+     */
+    private Map<String, String> scan() {
+        VoltTable results = SnapshotScan.aggregateSnapshots(this.scanResults, this.digestResults);
+        Map<String, String> complete = new HashMap<String, String>();
+        while (results.advanceRow()) {
+            complete.put(results.getString("NONCE"), results.getString("COMPLETE"));
+        }
+        return (complete);
+    }
+
+    /**
+     * testCompleteChain
+     */
+    public void testCompleteChain() throws Exception {
+        this.addSnapshot("base", "", 1000, true);
+        this.addSnapshot("delta1", "base", 1001, true);
+        this.addSnapshot("delta2", "delta1", 1002, true);
+
+        Map<String, String> complete = this.scan();
+        assertEquals(3, complete.size());
+        assertEquals("TRUE", complete.get("base"));
+        assertEquals("TRUE", complete.get("delta1"));
+        assertEquals("TRUE", complete.get("delta2"));
+    }
+
+    /**
+     * testMissingBase
+     */
+    public void testMissingBase() throws Exception {
+        this.addSnapshot("delta1", "base", 1001, true);
+        this.addSnapshot("delta2", "delta1", 1002, true);
+
+        Map<String, String> complete = this.scan();
+        assertEquals(2, complete.size());
+        assertEquals("FALSE", complete.get("delta1"));
+        assertEquals("FALSE", complete.get("delta2"));
+    }
+
+    /**
+     * testMissingMiddle
+     */
+    public void testMissingMiddle() throws Exception {
+        this.addSnapshot("base", "", 1000, true);
+        this.addSnapshot("delta2", "delta1", 1002, true);
+        this.addSnapshot("delta3", "delta2", 1003, true);
+
+        Map<String, String> complete = this.scan();
+        assertEquals(3, complete.size());
+        assertEquals("TRUE", complete.get("base"));
+        assertEquals("FALSE", complete.get("delta2"));
+        assertEquals("FALSE", complete.get("delta3"));
+    }
+
+    /**
+     * testIncompleteMiddle
+     */
+    public void testIncompleteMiddle() throws Exception {
+        this.addSnapshot("base", "", 1000, true);
+        this.addSnapshot("delta1", "base", 1001, false);
+        this.addSnapshot("delta2", "delta1", 1002, true);
+
+        Map<String, String> complete = this.scan();
+        assertEquals("TRUE", complete.get("base"));
+        assertFalse(complete.containsKey("delta1"));
+        assertEquals("FALSE", complete.get("delta2"));
+    }
+}
@@ -0,0 +1,148 @@
+package org.voltdb.sysprocs.saverestore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.voltdb.DefaultSnapshotDataTarget;
+import org.voltdb.MockVoltDB;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+
+import edu.brown.utils.FileUtil;
+
+public class TestTableSaveFileChain extends TestCase {
+
+    private static final String TABLE_NAME = "WAREHOUSE";
+
+    private File dir;
+
+    /**
+     * Write the header of a replicated table file for a delta snapshot.
+     * An empty parentNonce makes the file the base of a delta chain.
+     */
+    public static File writeDeltaFile(File dir, String nonce, String parentNonce, boolean completed) throws Exception {
+        File f = new File(dir, nonce + "-" + TABLE_NAME + ".vpt");
+        VoltTable schema = new VoltTable(new VoltTable.ColumnInfo("W_ID", VoltType.INTEGER));
+        DefaultSnapshotDataTarget target = new DefaultSnapshotDataTarget(
+                f, 0, "cluster", "database", TABLE_NAME, 1, true, new int[] { 0 }, schema,
+                System.currentTimeMillis(), new int[] { 0, 0, 0, 0 }, nonce, parentNonce);
+        target.close();
+        if (!completed) {
+            // Same as a snapshot that was interrupted before the file was closed
+            RandomAccessFile raf = new RandomAccessFile(f, "rw");
+            raf.seek(8);
+            raf.write(0);
+            raf.close();
+        }
+        return (f);
+    }
+
+    /**
+     * Keep TableSaveFile from loading the native library, the headers don't need it
+     */
+    public static void disableNativeLibrary() {
+        VoltDB.Configuration config = new VoltDB.Configuration();
+        config.m_noLoadLibVOLTDB = true;
+        VoltDB.replaceVoltDBInstanceForTest(new MockVoltDB());
+        VoltDB.initialize(config);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        disableNativeLibrary();
+        this.dir = FileUtil.getTempDirectory();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.deleteDirectory(this.dir);
+        super.tearDown();
+    }
+
+    /**
+     * testCompleteChain
+     */
+    public void testCompleteChain() throws Exception {
+        writeDeltaFile(this.dir, "base", "", true);
+        writeDeltaFile(this.dir, "delta1", "base", true);
+        File last = writeDeltaFile(this.dir, "delta2", "delta1", true);
+
+        TableSaveFileChain chain = new TableSaveFileChain(last, 1, null);
+        assertEquals(3, chain.getChainLength());
+        assertTrue(chain.getCompleted());
+        assertEquals("delta2", chain.getNonce());
+        assertEquals("delta1", chain.getParentNonce());
+        chain.close();
+    }
+
+    /**
+     * testMissingBase
+     */
+    public void testMissingBase() throws Exception {
+        writeDeltaFile(this.dir, "delta1", "base", true);
+        File last = writeDeltaFile(this.dir, "delta2", "delta1", true);
+        try {
+            new TableSaveFileChain(last, 1, null);
+            fail("Opened a delta chain without its base");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("base-" + TABLE_NAME));
+        }
+    }
+
+    /**
+     * testMissingMiddle
+     */
+    public void testMissingMiddle() throws Exception {
+        writeDeltaFile(this.dir, "base", "", true);
+        File last = writeDeltaFile(this.dir, "delta2", "delta1", true);
+        try {
+            new TableSaveFileChain(last, 1, null);
+            fail("Opened a delta chain without its middle link");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("delta1-" + TABLE_NAME));
+        }
+    }
+
+    /**
+     * testIncompleteLink
+     */
+    public void testIncompleteLink() throws Exception {
+        writeDeltaFile(this.dir, "base", "", true);
+        writeDeltaFile(this.dir, "delta1", "base", false);
+        File last = writeDeltaFile(this.dir, "delta2", "delta1", true);
+
+        TableSaveFileChain chain = new TableSaveFileChain(last, 1, null);
+        assertEquals(3, chain.getChainLength());
+        assertFalse(chain.getCompleted());
+        assertTrue(chain.getCorruptedPartitionIds().contains(0));
+        chain.close();
+    }
+
+    /**
+     * testRetrieveDeltaDescendants
+     */
+    public void testRetrieveDeltaDescendants() throws Exception {
+        writeDeltaFile(this.dir, "base", "", true);
+        writeDeltaFile(this.dir, "delta1", "base", true);
+        writeDeltaFile(this.dir, "delta2", "delta1", true);
+        writeDeltaFile(this.dir, "other", "", true);
+        writeDeltaFile(this.dir, "otherdelta", "other", true);
+
+        Set<String> descendants = SnapshotUtil.retrieveDeltaDescendants(this.dir, "base");
+        assertEquals(2, descendants.size());
+        assertTrue(descendants.contains("delta1"));
+        assertTrue(descendants.contains("delta2"));
+
+        descendants = SnapshotUtil.retrieveDeltaDescendants(this.dir, "delta1");
+        assertEquals(1, descendants.size());
+        assertTrue(descendants.contains("delta2"));
+
+        assertTrue(SnapshotUtil.retrieveDeltaDescendants(this.dir, "delta2").isEmpty());
+    }
+}
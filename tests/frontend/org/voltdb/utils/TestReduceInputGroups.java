@@ -0,0 +1,93 @@
+package org.voltdb.utils;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.voltdb.VoltTable;
+import org.voltdb.VoltTableRow;
+import org.voltdb.VoltType;
+
+import edu.brown.statistics.Histogram;
+import edu.brown.statistics.ObjectHistogram;
+
+import junit.framework.TestCase;
+
+public class TestReduceInputGroups extends TestCase {
+
+    static final VoltTable.ColumnInfo[] SCHEMA = new VoltTable.ColumnInfo[] {
+        new VoltTable.ColumnInfo("NAME", VoltType.STRING),
+        new VoltTable.ColumnInfo("COUNTER", VoltType.BIGINT),
+    };
+
+    static final int NUM_ROWS = 1000;
+    static final int NUM_KEYS = 37;
+    static final Random rand = new Random();
+
+    private VoltTable table = new VoltTable(SCHEMA);
+    private Histogram<String> keyHistogram = new ObjectHistogram<String>();
+    private long total = 0;
+
+    @Override
+    protected void setUp() throws Exception {
+        for (int i = 0; i < NUM_ROWS; i++) {
+            String name = "KEY" + rand.nextInt(NUM_KEYS);
+            long ct = rand.nextInt(100) + 1;
+            keyHistogram.put(name, ct);
+            total += ct;
+            this.table.addRow(name, ct);
+        } // FOR
+        assertEquals(NUM_ROWS, this.table.getRowCount());
+    }
+
+    private void checkGroups(ReduceInputGroups<String> groups) {
+        Histogram<String> actual = new ObjectHistogram<String>();
+        int numGroups = 0;
+        while (groups.advanceGroup()) {
+            String key = groups.getKey();
+            assertFalse(key, actual.contains(key));
+            numGroups++;
+
+            Iterator<VoltTableRow> rows = groups.getRows();
+            assertTrue(rows.hasNext());
+            long count = 0;
+            while (rows.hasNext()) {
+                VoltTableRow row = rows.next();
+                assertEquals(key, row.getString(0));
+                count += row.getLong(1);
+            } // WHILE
+            actual.put(key, count);
+        } // WHILE
+        assertFalse(groups.advanceGroup());
+        assertEquals(keyHistogram.getValueCount(), numGroups);
+        for (String key : keyHistogram.values()) {
+            assertEquals(key, keyHistogram.get(key), actual.get(key));
+        } // FOR
+        assertEquals(total, actual.getSampleCount());
+    }
+
+    /**
+     * testSinglePass
+     */
+    public void testSinglePass() throws Exception {
+        ReduceInputGroups<String> groups = new ReduceInputGroups<String>(this.table, 0);
+        assertEquals(1, groups.getNumPasses());
+        this.checkGroups(groups);
+    }
+
+    /**
+     * testMultiplePasses
+     */
+    public void testMultiplePasses() throws Exception {
+        ReduceInputGroups<String> groups = new ReduceInputGroups<String>(this.table, NUM_ROWS / 4);
+        assertEquals(4, groups.getNumPasses());
+        this.checkGroups(groups);
+    }
+
+    /**
+     * testEmpty
+     */
+    public void testEmpty() throws Exception {
+        ReduceInputGroups<String> groups = new ReduceInputGroups<String>(new VoltTable(SCHEMA), 10);
+        assertFalse(groups.advanceGroup());
+    }
+}
@@ -0,0 +1,146 @@
+package org.voltdb.utils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.types.SortDirectionType;
+
+import junit.framework.TestCase;
+
+public class TestVoltTableSorter extends TestCase {
+
+    static final VoltTable.ColumnInfo[] SCHEMA = new VoltTable.ColumnInfo[] {
+        new VoltTable.ColumnInfo("ID", VoltType.INTEGER),
+        new VoltTable.ColumnInfo("NAME", VoltType.STRING),
+        new VoltTable.ColumnInfo("SCORE", VoltType.FLOAT),
+        new VoltTable.ColumnInfo("AMOUNT", VoltType.DECIMAL),
+        new VoltTable.ColumnInfo("GROUPID", VoltType.SMALLINT),
+    };
+
+    static final int NUM_ROWS = 500;
+    static final String NAMES[] = { "alpha", "beta", "gamma", "delta", "ab", "a", "" };
+
+    private final Random rand = new Random(1);
+    private VoltTable table;
+
+    @Override
+    protected void setUp() throws Exception {
+        this.table = new VoltTable(SCHEMA);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            this.table.addRow(this.randomRow(i));
+        } // FOR
+    }
+
+    private Object[] randomRow(int id) {
+        return new Object[] {
+            id,
+            (rand.nextInt(10) == 0 ? null : NAMES[rand.nextInt(NAMES.length)]),
+            rand.nextDouble() * 200 - 100,
+            new BigDecimal(rand.nextInt(2000) - 1000).movePointLeft(2),
+            rand.nextInt(5) - 2,
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compare(Object o0, Object o1) {
+        if (o0 == null || o1 == null) {
+            return (o0 == null ? (o1 == null ? 0 : -1) : 1);
+        }
+        return ((Comparable)o0).compareTo(o1);
+    }
+
+    private static void checkSorted(VoltTable vt, int col, SortDirectionType dir) {
+        Object last = null;
+        int last_id = -1;
+        boolean first = true;
+        vt.resetRowPosition();
+        while (vt.advanceRow()) {
+            Object cur = vt.get(col, vt.getColumnType(col));
+            if (vt.wasNull()) cur = null;
+            int id = (int)vt.getLong(0);
+            if (first == false) {
+                int cmp = compare(last, cur);
+                if (dir == SortDirectionType.DESC) cmp = -cmp;
+                assertTrue(String.format("%s -> %s", last, cur), cmp <= 0);
+                // The sort is stable
+                if (cmp == 0) assertTrue(last_id < id);
+            }
+            last = cur;
+            last_id = id;
+            first = false;
+        } // WHILE
+    }
+
+    /**
+     * testSort
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSort() throws Exception {
+        for (SortDirectionType dir : new SortDirectionType[]{ SortDirectionType.ASC, SortDirectionType.DESC }) {
+            for (int i = 1; i < SCHEMA.length; i++) {
+                VoltTable sorted = VoltTableSorter.sort(this.table, Pair.of(i, dir));
+                assertEquals(NUM_ROWS, sorted.getRowCount());
+                assertEquals(this.table.getColumnCount(), sorted.getColumnCount());
+                checkSorted(sorted, i, dir);
+            } // FOR
+        } // FOR
+    }
+
+    /**
+     * testSortMultipleColumns
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSortMultipleColumns() throws Exception {
+        VoltTable sorted = VoltTableSorter.sort(this.table,
+                                                Pair.of(4, SortDirectionType.DESC),
+                                                Pair.of(1, SortDirectionType.ASC));
+        assertEquals(NUM_ROWS, sorted.getRowCount());
+        Object last[] = null;
+        while (sorted.advanceRow()) {
+            Object cur[] = sorted.getRowArray();
+            if (last != null) {
+                int cmp = -compare(last[4], cur[4]);
+                if (cmp == 0) cmp = compare(last[1], cur[1]);
+                assertTrue(cmp <= 0);
+            }
+            last = cur;
+        } // WHILE
+
+        // Rows come through unchanged and can still be appended to
+        int total = 0;
+        sorted.resetRowPosition();
+        while (sorted.advanceRow()) total += sorted.getLong(0);
+        assertEquals(NUM_ROWS * (NUM_ROWS - 1) / 2, total);
+        sorted.addRow(this.randomRow(NUM_ROWS));
+        assertEquals(NUM_ROWS + 1, sorted.getRowCount());
+    }
+
+    /**
+     * testMerge
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMerge() throws Exception {
+        Pair<Integer, SortDirectionType> sortCol = Pair.of(3, SortDirectionType.ASC);
+        List<VoltTable> tables = new ArrayList<VoltTable>();
+        int id = 0;
+        for (int t = 0; t < 4; t++) {
+            VoltTable vt = new VoltTable(SCHEMA);
+            for (int i = 0, cnt = (t == 2 ? 0 : rand.nextInt(100) + 1); i < cnt; i++) {
+                vt.addRow(this.randomRow(id++));
+            } // FOR
+            tables.add(VoltTableSorter.sort(vt, sortCol));
+        } // FOR
+
+        VoltTable merged = VoltTableSorter.merge(tables, sortCol);
+        assertEquals(id, merged.getRowCount());
+        checkSorted(merged, 3, SortDirectionType.ASC);
+    }
+}